@@ -18,13 +18,16 @@ from datetime import datetime
 import requests
 from requests.exceptions import RequestException
 
+from reading_codec import CONTENT_TYPE, MAX_READINGS, encode_frame
+
 logger = logging.getLogger("EnergySimulator")
 
 class EnergySimulator:
     """Class for simulating energy production and consumption data."""
     
     def __init__(self, installation_id, server_url, base_generation=5000, peak_generation=10000,
-                 consumption_min=2000, consumption_max=7000, interval=10, simulate_weather=True):
+                 consumption_min=2000, consumption_max=7000, interval=10, simulate_weather=True,
+                 binary_batch_size=0):
         """Initialize the energy simulator."""
         self.installation_id = installation_id
         self.server_url = server_url
@@ -38,6 +41,11 @@ class EnergySimulator:
         # Endpoint for sending energy data
         self.energy_endpoint = f"{server_url}/monitoring/readings"
         
+        # When set, readings are buffered and sent as binary frames of this many readings
+        self.binary_batch_size = binary_batch_size
+        self.batch_endpoint = f"{server_url}/monitoring/readings/batch"
+        self.pending_readings = []
+        
         # Initialize state variables
         self.total_yield_kwh = random.uniform(1000, 5000)  # Starting total yield in kWh
         self.daily_yield_kwh = 0.0
@@ -264,6 +272,10 @@ class EnergySimulator:
     
     def _send_energy_data(self, energy_data):
         """Send energy data to the server."""
+        if self.binary_batch_size > 0:
+            self._buffer_binary_reading(energy_data)
+            return
+        
         try:
             # Get authentication headers
             from auth_helper import get_auth_helper
@@ -276,10 +288,55 @@ class EnergySimulator:
                 timeout=10
             )
             
-            if response.status_code == 200 or response.status_code == 201:
+            if response.status_code in (200, 201, 202):
                 logger.debug(f"Energy data sent successfully: {energy_data['timestamp']}")
+            elif response.status_code in (429, 503):
+                # Server ingestion queue is full; skip this reading and let the next interval retry
+                retry_after = response.headers.get('Retry-After', 'unknown')
+                logger.warning(f"Server busy, reading dropped (retry after {retry_after}s)")
             else:
                 logger.warning(f"Failed to send energy data: {response.status_code} - {response.text}")
         
         except RequestException as e:
-            logger.error(f"Error sending energy data: {e}")
\ No newline at end of file
+            logger.error(f"Error sending energy data: {e}")
+    
+    def _buffer_binary_reading(self, energy_data):
+        """Buffer a reading and send the buffer as one binary frame once it is full."""
+        self.pending_readings.append((
+            datetime.fromisoformat(energy_data["timestamp"]),
+            energy_data["powerGenerationWatts"],
+            energy_data["powerConsumptionWatts"]
+        ))
+        if len(self.pending_readings) > MAX_READINGS:
+            # The backend has been unavailable for a while; keep the newest readings that fit in one frame
+            dropped = len(self.pending_readings) - MAX_READINGS
+            self.pending_readings = self.pending_readings[dropped:]
+            logger.warning(f"Reading buffer full, dropped the {dropped} oldest readings")
+        if len(self.pending_readings) < self.binary_batch_size:
+            return
+        
+        try:
+            from auth_helper import get_auth_helper
+            headers = dict(get_auth_helper().get_auth_headers())
+            headers["Content-Type"] = CONTENT_TYPE
+            
+            response = requests.post(
+                self.batch_endpoint,
+                data=encode_frame(self.installation_id, self.pending_readings),
+                headers=headers,
+                timeout=10
+            )
+            
+            if response.status_code in (200, 201, 202):
+                logger.debug(f"Sent binary frame of {len(self.pending_readings)} readings")
+                self.pending_readings = []
+            elif response.status_code in (429, 503):
+                # Keep the buffer and resend it with the next reading
+                retry_after = response.headers.get('Retry-After', 'unknown')
+                logger.warning(f"Server busy, frame kept for retry (retry after {retry_after}s)")
+            else:
+                logger.warning(f"Failed to send binary frame: {response.status_code} - {response.text}")
+                self.pending_readings = []
+        
+        except RequestException as e:
+            logger.error(f"Error sending binary frame: {e}")
@@ -73,7 +73,8 @@ class SolarSimulator:
                 "consumption_min": 2000,   # Min watts consumption
                 "consumption_max": 7000,   # Max watts consumption
                 "interval": 10,            # Seconds between updates
-                "simulate_weather": True   # Whether to simulate weather effects
+                "simulate_weather": True,  # Whether to simulate weather effects
+                "binary_batch_size": 0     # Readings per binary frame (0 sends JSON per reading)
             },
             "heartbeat": {
                 "enabled": True,
@@ -154,7 +155,8 @@ class SolarSimulator:
                 consumption_min=config["energy"]["consumption_min"],
                 consumption_max=config["energy"]["consumption_max"],
                 interval=config["energy"]["interval"],
-                simulate_weather=config["energy"]["simulate_weather"]
+                simulate_weather=config["energy"]["simulate_weather"],
+                binary_batch_size=config["energy"].get("binary_batch_size", 0)
             )
         else:
             self.energy_simulator = None
@@ -0,0 +1,45 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+
+"""
+Binary Reading Frame Encoder
+
+Encodes a batch of energy readings in the compact little-endian layout accepted by
+POST /monitoring/readings/batch with the Content-Type below, as an alternative to JSON.
+
+Layout (all little-endian):
+    magic "SRB1" | installation ID int64 | base timestamp epoch millis int64 | count int32
+    then per reading: offset from base in millis int32 | generation W float64 | consumption W float64
+"""
+
+import struct
+from datetime import datetime
+
+CONTENT_TYPE = "application/vnd.solar.readings.v1+octet-stream"
+MAX_READINGS = 10000
+
+_MAGIC = b"SRB1"
+_HEADER = struct.Struct("<4sqqi")
+_READING = struct.Struct("<idd")
+_EPOCH = datetime(1970, 1, 1)
+
+
+def _epoch_millis(timestamp):
+    """Milliseconds since the epoch of a naive local date-time, the way the server reads it."""
+    delta = timestamp.replace(tzinfo=None) - _EPOCH
+    return delta.days * 86400000 + delta.seconds * 1000 + delta.microseconds // 1000
+
+
+def encode_frame(installation_id, readings):
+    """Encode (timestamp, generation_watts, consumption_watts) tuples for one installation."""
+    if len(readings) > MAX_READINGS:
+        raise ValueError(f"At most {MAX_READINGS} readings fit in one frame")
+
+    base = _epoch_millis(readings[0][0]) if readings else 0
+    frame = bytearray(_HEADER.size + _READING.size * len(readings))
+    _HEADER.pack_into(frame, 0, _MAGIC, int(installation_id), base, len(readings))
+    offset = _HEADER.size
+    for timestamp, generation, consumption in readings:
+        _READING.pack_into(frame, offset, _epoch_millis(timestamp) - base, float(generation), float(consumption))
+        offset += _READING.size
+    return bytes(frame)
@@ -0,0 +1,260 @@
+package com.solar.core_services.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Makes sure the indexes behind the time-series access paths exist, and stops startup if they do not.
+ * Hibernate's ddl-auto=update only creates indexes declared with @Index when it can, and cannot express
+ * INCLUDE columns, so missing indexes are created here. On PostgreSQL the energy_data index also covers
+ * the power columns, which lets the SUM queries run as index-only scans. Runs after the energy_data
+ * partitioning so the index is created on the partitioned table, and after EnergyReadingDeduplicator.
+ * On PostgreSQL indexes are built with CREATE INDEX CONCURRENTLY, so startup never blocks writes to a large
+ * table; this runner is not transactional, which CONCURRENTLY requires. A partitioned table cannot be indexed
+ * concurrently, so its index is created on the parent only and each partition's index is built concurrently
+ * and attached. An index being replaced stays in place until its replacement is built.
+ * The energy_data index is unique, since (installation, timestamp) is a reading's idempotency key. An older
+ * non-unique index is replaced unless duplicate readings are stored; those are only deleted by the opt-in
+ * EnergyReadingDeduplicator, and startup fails until it has run.
+ */
+@Component
+@Order(3)
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseIndexInitializer implements ApplicationRunner {
+
+    // Names must match the @Index declarations on the entities
+    static final List<IndexDefinition> REQUIRED_INDEXES = List.of(
+            new IndexDefinition("energy_data", "idx_energy_data_installation_timestamp",
+                    "installation_id, timestamp DESC", "power_generation_watts, power_consumption_watts", true),
+            new IndexDefinition("energy_summaries", "idx_energy_summaries_installation_period_date",
+                    "installation_id, period, date", null, false),
+            new IndexDefinition("security_logs", "idx_security_logs_installation_timestamp",
+                    "installation_id, timestamp DESC", null, false),
+            new IndexDefinition("operational_logs", "idx_operational_logs_installation_timestamp",
+                    "installation_id, timestamp DESC", null, false),
+            new IndexDefinition("tamper_events", "idx_tamper_events_installation_timestamp",
+                    "installation_id, timestamp DESC", null, false));
+
+    private static final String FIND_DUPLICATE_SQL = "SELECT COUNT(*) FROM %1$s GROUP BY %2$s HAVING COUNT(*) > 1 "
+            + "FETCH FIRST 1 ROWS ONLY";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${monitoring.indexes.auto-create:true}")
+    private boolean autoCreate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean postgres = isPostgres();
+        if (autoCreate) {
+            REQUIRED_INDEXES.forEach(index -> ensureIndex(index, postgres));
+        }
+        verifyIndexes(postgres);
+    }
+
+    /**
+     * Fail fast when any required index is missing
+     * @param postgres Whether the database is PostgreSQL
+     * @throws IllegalStateException listing the missing indexes
+     */
+    public void verifyIndexes(boolean postgres) {
+        List<String> missing = new ArrayList<>();
+        for (IndexDefinition index : REQUIRED_INDEXES) {
+            Optional<Boolean> unique = postgres
+                    ? findPostgresIndexDefinition(index).map(definition -> definition.contains("UNIQUE"))
+                    : findIndex(index);
+            if (unique.isEmpty()) {
+                missing.add(index.table() + "." + index.name());
+            } else if (index.unique() && !unique.get()) {
+                missing.add(index.table() + "." + index.name() + " (not unique)");
+            } else if (postgres && !isValidPostgresIndex(index.name())) {
+                missing.add(index.table() + "." + index.name() + " (invalid)");
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Missing required database indexes: " + String.join(", ", missing));
+        }
+    }
+
+    private void ensureIndex(IndexDefinition index, boolean postgres) {
+        if (postgres) {
+            Optional<String> definition = findPostgresIndexDefinition(index);
+            if (definition.isEmpty()) {
+                log.info("Creating index {} on {}", index.name(), index.table());
+                createPostgresIndex(index, index.name());
+                return;
+            }
+            if (index.unique() && !definition.get().contains("UNIQUE")) {
+                requireNoDuplicates(index);
+                log.info("Replacing index {} with a unique index", index.name());
+                replacePostgresIndex(index);
+            } else if (index.include() != null && !definition.get().contains("INCLUDE")) {
+                // Hibernate may have created the index without its INCLUDE columns
+                log.info("Replacing index {} with a covering index", index.name());
+                replacePostgresIndex(index);
+            } else if (!isValidPostgresIndex(index.name())) {
+                log.warn("Rebuilding index {}, left invalid by a failed concurrent build", index.name());
+                replacePostgresIndex(index);
+            }
+        } else {
+            Optional<Boolean> unique = findIndex(index);
+            if (unique.isPresent() && index.unique() && !unique.get()) {
+                replaceWithUniqueIndex(index);
+                unique = Optional.empty();
+            }
+            if (unique.isEmpty()) {
+                log.info("Creating index {} on {}", index.name(), index.table());
+                jdbcTemplate.execute(index.createSql(false));
+            }
+        }
+    }
+
+    /**
+     * Drop a non-unique index that can be made unique; the caller creates it again
+     */
+    private void replaceWithUniqueIndex(IndexDefinition index) {
+        requireNoDuplicates(index);
+        log.info("Replacing index {} with a unique index", index.name());
+        jdbcTemplate.execute("DROP INDEX " + index.name());
+    }
+
+    /**
+     * @throws IllegalStateException when rows that would violate the unique index are stored
+     */
+    private void requireNoDuplicates(IndexDefinition index) {
+        String keyColumns = index.columns().replace(" DESC", "").replace(" ASC", "");
+        if (!jdbcTemplate.queryForList(FIND_DUPLICATE_SQL.formatted(index.table(), keyColumns), Long.class).isEmpty()) {
+            throw new IllegalStateException("Cannot make index " + index.name() + " unique: " + index.table()
+                    + " holds duplicate rows. Start once with monitoring.dedupe-readings.enabled=true to delete them");
+        }
+    }
+
+    /**
+     * Build the new index under a temporary name and swap it in, so queries keep their index meanwhile
+     */
+    private void replacePostgresIndex(IndexDefinition index) {
+        String replacement = index.name() + "_new";
+        boolean partitioned = isPartitioned(index.table());
+        // Left over when an earlier replacement failed half way
+        dropPostgresIndex(replacement, partitioned);
+        createPostgresIndex(index, replacement);
+        dropPostgresIndex(index.name(), partitioned);
+        jdbcTemplate.execute("ALTER INDEX " + replacement + " RENAME TO " + index.name());
+        if (partitioned) {
+            for (String partition : findPartitions(index.table())) {
+                jdbcTemplate.execute("ALTER INDEX IF EXISTS " + partitionIndexName(replacement, index.table(), partition)
+                        + " RENAME TO " + partitionIndexName(index.name(), index.table(), partition));
+            }
+        }
+    }
+
+    void createPostgresIndex(IndexDefinition index, String name) {
+        if (!isPartitioned(index.table())) {
+            jdbcTemplate.execute(index.createSql(name, index.table(), true, true));
+            return;
+        }
+        // The parent index stays invalid, and unused, until every partition's index is attached
+        jdbcTemplate.execute(index.createSql(name, "ONLY " + index.table(), true, false));
+        for (String partition : findPartitions(index.table())) {
+            String partitionIndex = partitionIndexName(name, index.table(), partition);
+            if (findValidity(partitionIndex).filter(valid -> !valid).isPresent()) {
+                jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + partitionIndex);
+            }
+            jdbcTemplate.execute(index.createSql(partitionIndex, partition, true, true));
+            jdbcTemplate.execute("ALTER INDEX " + name + " ATTACH PARTITION " + partitionIndex);
+        }
+    }
+
+    /**
+     * An index on a partitioned table cannot be dropped concurrently; dropping it only takes a brief lock
+     */
+    private void dropPostgresIndex(String name, boolean partitioned) {
+        jdbcTemplate.execute("DROP INDEX " + (partitioned ? "" : "CONCURRENTLY ") + "IF EXISTS " + name);
+    }
+
+    private static String partitionIndexName(String indexName, String table, String partition) {
+        return indexName + partition.substring(table.length());
+    }
+
+    private boolean isPartitioned(String table) {
+        return jdbcTemplate.queryForList("SELECT c.relkind::text FROM pg_class c WHERE c.oid = to_regclass(?)",
+                String.class, table).equals(List.of("p"));
+    }
+
+    private List<String> findPartitions(String table) {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = to_regclass(?) ORDER BY c.relname", String.class, table);
+    }
+
+    private boolean isValidPostgresIndex(String name) {
+        return findValidity(name).orElse(false);
+    }
+
+    /**
+     * Whether the index is usable, or empty when it does not exist; a failed concurrent build leaves it invalid
+     */
+    private Optional<Boolean> findValidity(String name) {
+        return jdbcTemplate.queryForList("SELECT i.indisvalid FROM pg_index i WHERE i.indexrelid = to_regclass(?)",
+                Boolean.class, name).stream().findFirst();
+    }
+
+    private Optional<String> findPostgresIndexDefinition(IndexDefinition index) {
+        // pg_indexes also lists indexes on partitioned tables
+        return jdbcTemplate.queryForList(
+                "SELECT indexdef FROM pg_indexes WHERE schemaname = current_schema() AND tablename = ? AND indexname = ?",
+                String.class, index.table(), index.name()).stream().findFirst();
+    }
+
+    /**
+     * Whether the index is unique, or empty when it does not exist
+     */
+    private Optional<Boolean> findIndex(IndexDefinition index) {
+        return Optional.ofNullable(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers()
+                    ? index.table().toUpperCase(Locale.ROOT) : index.table();
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, true)) {
+                while (rs.next()) {
+                    if (index.name().equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return !rs.getBoolean("NON_UNIQUE");
+                    }
+                }
+            }
+            return null;
+        }));
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    record IndexDefinition(String table, String name, String columns, String include, boolean unique) {
+
+        String createSql(boolean withInclude) {
+            return createSql(name, table, withInclude, false);
+        }
+
+        String createSql(String indexName, String target, boolean withInclude, boolean concurrently) {
+            String sql = "CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + (concurrently ? "CONCURRENTLY " : "")
+                    + "IF NOT EXISTS " + indexName + " ON " + target + " (" + columns + ")";
+            return withInclude && include != null ? sql + " INCLUDE (" + include + ")" : sql;
+        }
+    }
+}
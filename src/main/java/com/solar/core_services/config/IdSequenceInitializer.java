@@ -0,0 +1,63 @@
+package com.solar.core_services.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the pooled id sequences of the high-volume tables past any ids that already exist.
+ * Tables created while these entities still used IDENTITY keys keep their rows, but the
+ * sequences Hibernate creates for them start at 1 and would otherwise hand out duplicate ids.
+ */
+@Component
+@Order(0)
+@Slf4j
+public class IdSequenceInitializer implements ApplicationRunner {
+
+    // Table -> (sequence, allocation size); must match the @SequenceGenerator mappings
+    private static final Map<String, Map.Entry<String, Integer>> SEQUENCES = Map.of(
+            "energy_data", Map.entry("energy_data_seq", 100),
+            "energy_summaries", Map.entry("energy_summaries_seq", 50),
+            "security_logs", Map.entry("security_logs_seq", 50),
+            "operational_logs", Map.entry("operational_logs_seq", 50),
+            "tamper_events", Map.entry("tamper_events_seq", 50));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SEQUENCES.forEach((table, sequence) -> alignSequence(table, sequence.getKey(), sequence.getValue()));
+    }
+
+    private void alignSequence(String table, String sequence, int allocationSize) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        if (maxId == null || maxId == 0) {
+            return;
+        }
+
+        Long next = jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+        // The pooled optimizer uses (value - allocationSize, value], so the whole block must be free
+        if (next != null && next - allocationSize >= maxId) {
+            return;
+        }
+
+        long restartWith = maxId + allocationSize;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartWith);
+        log.info("Restarted sequence {} at {} to clear existing ids in {}", sequence, restartWith, table);
+    }
+}
@@ -1,23 +1,139 @@
 package com.solar.core_services.energy_monitoring.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP over WebSocket configuration.
+ * Inbound (client to server), outbound (server to client) and broker channels each get their own
+ * sized executor, and slow sessions are bounded by a send time and buffer limit.
+ * By default subscriptions live in the in-memory simple broker of this node. With
+ * monitoring.websocket.relay.enabled the /topic destinations are relayed to an external STOMP broker
+ * (e.g. ActiveMQ or RabbitMQ with the STOMP plugin), so several application nodes share subscribers.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${monitoring.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${monitoring.websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${monitoring.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${monitoring.websocket.outbound.core-pool-size:16}")
+    private int outboundCorePoolSize;
+
+    @Value("${monitoring.websocket.outbound.max-pool-size:64}")
+    private int outboundMaxPoolSize;
+
+    @Value("${monitoring.websocket.outbound.queue-capacity:50000}")
+    private int outboundQueueCapacity;
+
+    @Value("${monitoring.websocket.broker.core-pool-size:4}")
+    private int brokerCorePoolSize;
+
+    @Value("${monitoring.websocket.broker.max-pool-size:16}")
+    private int brokerMaxPoolSize;
+
+    @Value("${monitoring.websocket.broker.queue-capacity:10000}")
+    private int brokerQueueCapacity;
+
+    @Value("${monitoring.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${monitoring.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${monitoring.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${monitoring.websocket.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${monitoring.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${monitoring.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${monitoring.websocket.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${monitoring.websocket.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${monitoring.websocket.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${monitoring.websocket.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    @Value("${monitoring.websocket.relay.virtual-host:}")
+    private String relayVirtualHost;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple in-memory message broker for sending messages to clients
         // Prefix for messages FROM the server TO the client
-        config.enableSimpleBroker("/topic");
-        
+        if (relayEnabled) {
+            // Subscriptions are held by the external broker, shared by every application node
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayClientLogin)
+                    .setClientPasscode(relayClientPasscode)
+                    .setSystemLogin(relaySystemLogin)
+                    .setSystemPasscode(relaySystemPasscode);
+            if (!relayVirtualHost.isEmpty()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            // Enable a simple in-memory message broker for sending messages to clients
+            config.enableSimpleBroker("/topic");
+        }
+
         // Prefix for messages FROM the client TO the server
         config.setApplicationDestinationPrefixes("/app");
+
+        // Messages published by the application (SimpMessagingTemplate) on their way to the broker
+        config.configureBrokerChannel().taskExecutor()
+                .corePoolSize(brokerCorePoolSize)
+                .maxPoolSize(brokerMaxPoolSize)
+                .queueCapacity(brokerQueueCapacity);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A session that cannot keep up within these limits is closed instead of buffering without bound
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit);
     }
 
     @Override
@@ -27,4 +143,4 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")  // Allow connections from any origin
                 .withSockJS();
     }
-}
\ No newline at end of file
+}
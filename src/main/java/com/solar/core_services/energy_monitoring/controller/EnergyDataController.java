@@ -1,19 +1,32 @@
 package com.solar.core_services.energy_monitoring.controller;
 
+import com.solar.core_services.energy_monitoring.dto.BulkImportResultDTO;
 import com.solar.core_services.energy_monitoring.dto.DashboardResponse;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataRequest;
+import com.solar.core_services.energy_monitoring.dto.EnergyHistorySeriesDTO;
 import com.solar.core_services.energy_monitoring.dto.EnergyReadingBatchDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingFrame;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingFrameResultDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingPageDTO;
+import com.solar.core_services.energy_monitoring.service.EnergyDataExporter;
 import com.solar.core_services.energy_monitoring.service.EnergyDataService;
+import com.solar.core_services.energy_monitoring.service.EnergyIngestionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -24,10 +37,17 @@ import java.util.List;
 public class EnergyDataController {
 
     private final EnergyDataService energyDataService;
+    private final EnergyIngestionService energyIngestionService;
+    private final EnergyDataExporter energyDataExporter;
 
     @PostMapping("/readings")
-    @Operation(summary = "Submit energy reading data", description = "Endpoint for devices to submit energy readings")
+    @Operation(summary = "Submit energy reading data", description = "Endpoint for devices to submit energy readings. "
+            + "With write-behind ingestion enabled the reading is queued and acknowledged with 202 Accepted; "
+            + "a full queue is reported as 503 with a Retry-After header.")
     public ResponseEntity<EnergyDataDTO> submitEnergyReading(@Valid @RequestBody EnergyDataRequest request) {
+        if (energyIngestionService.isWriteBehindEnabled()) {
+            return ResponseEntity.accepted().body(energyIngestionService.enqueue(request));
+        }
         return ResponseEntity.ok(energyDataService.processEnergyData(request));
     }
 
@@ -37,6 +57,26 @@ public class EnergyDataController {
         return ResponseEntity.ok(energyDataService.processEnergyDataBatch(batchRequest));
     }
 
+    @PostMapping(value = "/readings/batch", consumes = EnergyReadingFrame.MEDIA_TYPE)
+    @Operation(summary = "Submit batch of energy readings as a binary frame", description = "Compact alternative to the JSON batch "
+            + "for gateways, sent with Content-Type " + EnergyReadingFrame.MEDIA_TYPE + ". Readings are decoded straight into the "
+            + "ingestion queue; with write-behind enabled the frame is acknowledged with 202 Accepted.")
+    public ResponseEntity<EnergyReadingFrameResultDTO> submitEnergyReadingFrame(@RequestBody byte[] frame) {
+        EnergyReadingFrameResultDTO result = energyIngestionService.enqueueFrame(ByteBuffer.wrap(frame));
+        if (energyIngestionService.isWriteBehindEnabled()) {
+            return ResponseEntity.accepted().body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/readings/bulk-import")
+    @Operation(summary = "Bulk-import buffered readings", description = "Endpoint for gateways replaying a large backlog after an outage. "
+            + "Readings bypass JPA (COPY on PostgreSQL) and are committed in chunks; resubmitting with the same importId resumes "
+            + "from the last committed offset.")
+    public ResponseEntity<BulkImportResultDTO> bulkImportEnergyReadings(@Valid @RequestBody EnergyReadingBatchDTO batchRequest) {
+        return ResponseEntity.ok(energyDataService.importEnergyDataBatch(batchRequest));
+    }
+
     @GetMapping("/dashboard/customer/{customerId}")
     @PreAuthorize("hasRole('ADMIN') or @securityService.isCurrentUser(#customerId)")
     @Operation(summary = "Get customer dashboard data", description = "Get current energy stats for a specific customer")
@@ -69,4 +109,56 @@ public class EnergyDataController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
         return ResponseEntity.ok(energyDataService.getReadingsInDateRange(installationId, startDate, endDate));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/readings/history/{installationId}/downsampled")
+    @PreAuthorize("hasRole('ADMIN') or @securityService.hasAccessToInstallation(#installationId)")
+    @Operation(summary = "Get downsampled history", description = "Get an installation's readings within a date range aggregated "
+            + "into buckets (avg/min/max per bucket) by the database. resolution is 1m, 5m, 1h or 1d; auto picks the finest "
+            + "resolution with at most maxPoints buckets.")
+    public ResponseEntity<EnergyHistorySeriesDTO> getDownsampledHistory(
+            @PathVariable Long installationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "auto") String resolution,
+            @RequestParam(defaultValue = "1000") int maxPoints) {
+        return ResponseEntity.ok(energyDataService.getDownsampledHistory(
+                installationId, startDate, endDate, resolution, maxPoints));
+    }
+
+    @GetMapping("/readings/export/{installationId}")
+    @PreAuthorize("hasRole('ADMIN') or @securityService.hasAccessToInstallation(#installationId)")
+    @Operation(summary = "Export readings as CSV", description = "Stream an installation's readings within a date range as CSV, "
+            + "oldest first, without buffering the export in memory. Sent gzip-encoded when the client accepts gzip. "
+            + "To resume an interrupted download, pass the timestamp and id of the last complete row received.")
+    public ResponseEntity<StreamingResponseBody> exportReadings(
+            @PathVariable Long installationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterTimestamp,
+            @RequestParam(required = false) Long afterId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = energyDataExporter.csv(installationId, startDate, endDate, afterTimestamp, afterId, gzip);
+
+        String filename = "energy-data-" + installationId + "-" + startDate.toLocalDate() + "-" + endDate.toLocalDate() + ".csv";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping("/readings/history")
+    @PreAuthorize("hasRole('ADMIN') or @securityService.hasAccessToInstallation(#installationId)")
+    @Operation(summary = "Page through reading history", description = "Get an installation's readings newest first, one page at a time. "
+            + "Pass the returned nextCursor to fetch the next page; it is null on the last page.")
+    public ResponseEntity<EnergyReadingPageDTO> getReadingsHistoryPage(
+            @RequestParam Long installationId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(energyDataService.getReadingsPage(installationId, cursor, limit));
+    }
+}
@@ -57,6 +57,16 @@ public class EnergySummaryController {
                 installationId, summaryPeriod, startDate, endDate));
     }
 
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Rebuild rollup buckets", description = "Recompute the rollup buckets for a range of days from the stored readings and correct the summaries already derived for them")
+    public ResponseEntity<Integer> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long installationId) {
+        return ResponseEntity.ok(summaryService.rebuildRollups(startDate, endDate, installationId));
+    }
+
     @PostMapping("/{installationId}/generate/daily")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Generate daily summary", description = "Generate a daily energy summary for a specific installation and date")
@@ -83,4 +93,13 @@ public class EnergySummaryController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate monthStartDate) {
         return ResponseEntity.ok(summaryService.generateMonthlySummary(installationId, monthStartDate));
     }
+
+    @PostMapping("/{installationId}/generate/yearly")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Generate yearly summary", description = "Generate a yearly energy summary for a specific installation and year start date")
+    public ResponseEntity<EnergySummaryDTO> generateYearlySummary(
+            @PathVariable Long installationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate yearStartDate) {
+        return ResponseEntity.ok(summaryService.generateYearlySummary(installationId, yearStartDate));
+    }
 } 
\ No newline at end of file
@@ -3,11 +3,18 @@ package com.solar.core_services.energy_monitoring.controller;
 import com.solar.core_services.energy_monitoring.dto.DeviceStatusRequest;
 import com.solar.core_services.energy_monitoring.dto.SolarInstallationDTO;
 import com.solar.core_services.energy_monitoring.dto.SystemOverviewResponse;
+import com.solar.core_services.energy_monitoring.dto.TopProducerDTO;
+import com.solar.core_services.energy_monitoring.dto.TopProducerRanking;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.service.FleetOverviewSnapshot;
 import com.solar.core_services.energy_monitoring.service.SolarInstallationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +28,7 @@ import java.util.List;
 public class SolarInstallationController {
 
     private final SolarInstallationService installationService;
+    private final FleetOverviewSnapshot fleetOverviewSnapshot;
 
     @GetMapping("/customer/{customerId}")
     @PreAuthorize("hasRole('ADMIN') or @securityService.isCurrentUser(#customerId)")
@@ -60,9 +68,32 @@ public class SolarInstallationController {
 
     @GetMapping("/overview")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Get installations system overview", description = "Get system-wide overview of all installations")
-    public ResponseEntity<SystemOverviewResponse> getSystemOverview() {
-        return ResponseEntity.ok(installationService.getSystemOverview());
+    @Operation(summary = "Get installations system overview",
+            description = "Get system-wide overview of all installations, answering 304 when If-None-Match carries the current ETag")
+    public ResponseEntity<SystemOverviewResponse> getSystemOverview(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        FleetOverviewSnapshot.Overview overview = fleetOverviewSnapshot.current();
+        if (matches(ifNoneMatch, overview.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(overview.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(overview.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(overview.response());
+    }
+
+    @GetMapping("/top-producers")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get top producers", description = "Get today's leading installations by generation, utilization "
+            + "or efficiency, optionally for one installation type")
+    public ResponseEntity<List<TopProducerDTO>> getTopProducers(
+            @RequestParam(defaultValue = "GENERATION") TopProducerRanking by,
+            @RequestParam(required = false) SolarInstallation.InstallationType type,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(installationService.getTopProducers(by, type, limit));
     }
 
     @GetMapping("/tamper-alerts")
@@ -71,4 +102,20 @@ public class SolarInstallationController {
     public ResponseEntity<List<SolarInstallationDTO>> getTamperAlerts() {
         return ResponseEntity.ok(installationService.getInstallationsWithTamperAlerts());
     }
-}
\ No newline at end of file
+
+    /**
+     * Weak comparison of an If-None-Match header against an entity tag, as RFC 9110 specifies for GET
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object reporting the outcome and throughput of a bulk import
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResultDTO {
+    private String importId;
+    private Long installationId;
+    private int totalReadings;
+    private int resumedFromOffset;
+    private long rowsImported;
+    private long durationMillis;
+    private double rowsPerSecond;
+}
@@ -31,4 +31,7 @@ public class DashboardResponse {
     private LocalDateTime lastUpdated;
     private List<EnergyDataDTO> recentReadings;
     private SolarInstallationDTO installationDetails;
+    // Customer dashboards only: one entry per installation, without recent readings.
+    // The figures above are then combined across the installations.
+    private List<DashboardResponse> installations;
 }
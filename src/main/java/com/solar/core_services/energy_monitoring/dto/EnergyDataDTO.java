@@ -20,4 +20,8 @@ public class EnergyDataDTO {
     private double dailyYieldKWh;
     private double totalYieldKWh;
     private boolean isSimulated;
+    private Double netPowerWatts;
+    private Double utilizationRate;
+    private Double efficiencyPercentage;
+    private Double bandedEfficiencyPercentage;
 } 
\ No newline at end of file
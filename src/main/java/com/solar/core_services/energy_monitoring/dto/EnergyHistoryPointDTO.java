@@ -0,0 +1,33 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for one bucket of downsampled reading history.
+ * Buckets without readings are left out of the series.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnergyHistoryPointDTO {
+
+    private LocalDateTime bucketStart;
+    private long readingsCount;
+
+    private double avgGenerationWatts;
+    private double minGenerationWatts;
+    private double maxGenerationWatts;
+    private double avgConsumptionWatts;
+    private double minConsumptionWatts;
+    private double maxConsumptionWatts;
+
+    // Power integrated over the intervals between readings, the same convention as the summaries
+    private double generationKWh;
+    private double consumptionKWh;
+}
@@ -0,0 +1,25 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for an installation's reading history aggregated into fixed-width buckets
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnergyHistorySeriesDTO {
+
+    private Long installationId;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private String resolution;
+    private List<EnergyHistoryPointDTO> points;
+}
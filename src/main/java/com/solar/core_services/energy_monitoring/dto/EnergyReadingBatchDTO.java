@@ -20,4 +20,7 @@ public class EnergyReadingBatchDTO {
     private Long installationId;
     private String deviceToken;
     private List<EnergyReadingDTO> readings;
+
+    // Identifies a bulk import so an interrupted replay can resume where it stopped
+    private String importId;
 }
\ No newline at end of file
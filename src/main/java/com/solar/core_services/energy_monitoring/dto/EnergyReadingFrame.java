@@ -0,0 +1,138 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+import com.solar.exception.InvalidReadingFrameException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary alternative to a JSON EnergyReadingBatchDTO, sent by gateways with
+ * Content-Type {@value #MEDIA_TYPE}. All fields are little-endian:
+ * <pre>
+ * offset  size  field
+ * 0       4     magic "SRB1"
+ * 4       8     installation ID (int64)
+ * 12      8     base timestamp, epoch milliseconds of the device's local date-time (int64)
+ * 20      4     reading count (int32)
+ * 24      20*n  readings: timestamp offset from base in milliseconds (int32),
+ *               generation watts (float64), consumption watts (float64)
+ * </pre>
+ * Timestamps carry the same local date-time the JSON body would, without a zone.
+ * Frames are decoded straight from the buffer into a {@link ReadingHandler}, without building DTOs.
+ */
+public final class EnergyReadingFrame {
+
+    public static final String MEDIA_TYPE = "application/vnd.solar.readings.v1+octet-stream";
+
+    public static final int HEADER_BYTES = 24;
+    public static final int READING_BYTES = 20;
+    public static final int MAX_READINGS = 10_000;
+
+    // "SRB1" read as a little-endian int
+    private static final int MAGIC = 0x31425253;
+
+    /**
+     * Receives the readings of a frame in order
+     */
+    @FunctionalInterface
+    public interface ReadingHandler {
+        void reading(long installationId, LocalDateTime timestamp,
+                     double powerGenerationWatts, double powerConsumptionWatts);
+    }
+
+    private EnergyReadingFrame() {
+    }
+
+    /**
+     * Check a frame's header, length and values, so that decoding it cannot fail part way
+     * @param frame The frame, positioned at its first byte
+     * @return The number of readings in the frame
+     * @throws InvalidReadingFrameException if the frame is malformed
+     */
+    public static int validate(ByteBuffer frame) {
+        ByteBuffer buffer = frame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            throw new InvalidReadingFrameException("Frame is shorter than its " + HEADER_BYTES + "-byte header");
+        }
+        if (buffer.getInt(start) != MAGIC) {
+            throw new InvalidReadingFrameException("Frame does not start with SRB1");
+        }
+        int count = buffer.getInt(start + 20);
+        if (count < 0 || count > MAX_READINGS) {
+            throw new InvalidReadingFrameException("Frame must contain between 0 and " + MAX_READINGS + " readings");
+        }
+        if (buffer.remaining() != HEADER_BYTES + count * READING_BYTES) {
+            throw new InvalidReadingFrameException("Frame length does not match its reading count of " + count);
+        }
+        int offset = start + HEADER_BYTES;
+        for (int i = 0; i < count; i++, offset += READING_BYTES) {
+            if (!Double.isFinite(buffer.getDouble(offset + 4)) || !Double.isFinite(buffer.getDouble(offset + 12))) {
+                throw new InvalidReadingFrameException("Reading " + i + " has a non-finite power value");
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Read the installation ID of a validated frame
+     */
+    public static long installationId(ByteBuffer frame) {
+        return frame.duplicate().order(ByteOrder.LITTLE_ENDIAN).getLong(frame.position() + 4);
+    }
+
+    /**
+     * Validate a frame and hand each reading to a handler
+     * @param frame The frame, positioned at its first byte; its position is not changed
+     * @param handler Receives the readings
+     * @return The number of readings decoded
+     * @throws InvalidReadingFrameException if the frame is malformed
+     */
+    public static int decode(ByteBuffer frame, ReadingHandler handler) {
+        int count = validate(frame);
+        ByteBuffer buffer = frame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+        long installationId = buffer.getLong(start + 4);
+        long baseMillis = buffer.getLong(start + 12);
+
+        int offset = start + HEADER_BYTES;
+        for (int i = 0; i < count; i++, offset += READING_BYTES) {
+            long epochMillis = baseMillis + buffer.getInt(offset);
+            handler.reading(installationId, toLocalDateTime(epochMillis),
+                    buffer.getDouble(offset + 4), buffer.getDouble(offset + 12));
+        }
+        return count;
+    }
+
+    /**
+     * Encode readings of one installation; the first timestamp becomes the base
+     * @return The frame bytes
+     */
+    public static byte[] encode(long installationId, LocalDateTime[] timestamps,
+                                double[] powerGenerationWatts, double[] powerConsumptionWatts) {
+        int count = timestamps.length;
+        if (count > MAX_READINGS) {
+            throw new IllegalArgumentException("At most " + MAX_READINGS + " readings fit in one frame");
+        }
+        long baseMillis = count == 0 ? 0 : toEpochMillis(timestamps[0]);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * READING_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putLong(installationId).putLong(baseMillis).putInt(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(Math.toIntExact(toEpochMillis(timestamps[i]) - baseMillis))
+                    .putDouble(powerGenerationWatts[i])
+                    .putDouble(powerConsumptionWatts[i]);
+        }
+        return buffer.array();
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,21 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object acknowledging a binary reading frame
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnergyReadingFrameResultDTO {
+    private Long installationId;
+    private int readingsAccepted;
+
+    // False while the readings are only queued for the background flusher, or when some went to the dead letters
+    private boolean persisted;
+}
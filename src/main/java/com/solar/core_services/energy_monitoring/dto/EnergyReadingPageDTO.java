@@ -0,0 +1,24 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for one page of an installation's reading history, newest first.
+ * Pass nextCursor back to fetch the following page; it is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnergyReadingPageDTO {
+
+    private Long installationId;
+    private List<EnergyDataDTO> readings;
+    private String nextCursor;
+    private boolean hasMore;
+}
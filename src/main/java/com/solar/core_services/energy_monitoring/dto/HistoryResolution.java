@@ -0,0 +1,61 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Bucket widths for downsampled reading history. Buckets are aligned to the start of the
+ * minute, 5 minutes, hour or day they fall in.
+ */
+public enum HistoryResolution {
+    ONE_MINUTE("1m", 60),
+    FIVE_MINUTES("5m", 300),
+    ONE_HOUR("1h", 3600),
+    ONE_DAY("1d", 86400);
+
+    public static final String AUTO = "auto";
+
+    private final String code;
+    private final int seconds;
+
+    HistoryResolution(String code, int seconds) {
+        this.code = code;
+        this.seconds = seconds;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    public static Optional<HistoryResolution> fromCode(String code) {
+        return Arrays.stream(values()).filter(resolution -> resolution.code.equalsIgnoreCase(code)).findFirst();
+    }
+
+    /**
+     * The finest resolution whose buckets over the range fit a points budget, or days if none does
+     */
+    public static HistoryResolution auto(LocalDateTime start, LocalDateTime end, int maxPoints) {
+        return Arrays.stream(values())
+                .filter(resolution -> resolution.bucketCount(start, end) <= maxPoints)
+                .findFirst()
+                .orElse(ONE_DAY);
+    }
+
+    /**
+     * The number of aligned buckets that overlap the range [start, end)
+     */
+    public long bucketCount(LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            return 0;
+        }
+        long first = Math.floorDiv(start.toEpochSecond(ZoneOffset.UTC), seconds);
+        long last = Math.floorDiv(end.minusNanos(1).toEpochSecond(ZoneOffset.UTC), seconds);
+        return last - first + 1;
+    }
+}
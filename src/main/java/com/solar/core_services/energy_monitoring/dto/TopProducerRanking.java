@@ -0,0 +1,11 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+/**
+ * Orders of the top producers leaderboard: today's generation, current generation as a share of
+ * installed capacity, or today's generation relative to today's consumption.
+ */
+public enum TopProducerRanking {
+    GENERATION,
+    UTILIZATION,
+    EFFICIENCY
+}
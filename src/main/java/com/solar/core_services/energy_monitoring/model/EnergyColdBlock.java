@@ -0,0 +1,60 @@
+package com.solar.core_services.energy_monitoring.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One installation-day of readings that has aged out of energy_data, compressed with EnergyColdBlockCodec.
+ * The energy totals let period totals use whole blocks without decoding them. Blocks compacted before
+ * energy was integrated only have watt sums.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@IdClass(EnergyColdBlock.Key.class)
+@Table(name = "energy_cold_blocks")
+public class EnergyColdBlock {
+
+    @Id
+    @Column(name = "installation_id")
+    private Long installationId;
+
+    @Id
+    @Column(name = "block_date")
+    private LocalDate blockDate;
+
+    @Column(nullable = false)
+    private int readingsCount;
+
+    @Column(nullable = false)
+    private double generationSumWatts;
+
+    @Column(nullable = false)
+    private double consumptionSumWatts;
+
+    // Trapezoidal energy of the intervals between the day's readings
+    private Double generationWh;
+
+    private Double consumptionWh;
+
+    // Not a @Lob: blocks are a few hundred KB at most and are always read with the row
+    @Column(nullable = false, length = 16 * 1024 * 1024)
+    private byte[] payload;
+
+    @Column(nullable = false)
+    private LocalDateTime compactedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long installationId;
+        private LocalDate blockDate;
+    }
+}
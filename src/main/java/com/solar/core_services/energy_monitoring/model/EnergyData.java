@@ -8,10 +8,27 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "energy_data")
+// (installation, timestamp) is a reading's idempotency key: a retried or replayed reading is not stored twice
+@Table(name = "energy_data", indexes = {
+        @Index(name = "idx_energy_data_installation_timestamp", columnList = "installation_id, timestamp DESC",
+                unique = true)
+})
 public class EnergyData {
+    /**
+     * Block size of the pooled id sequence. Raw JDBC writers that bypass Hibernate
+     * take ids from EnergyDataIdAllocator, which shares Hibernate's pool, so they never collide with it.
+     */
+    public static final int ID_ALLOCATION_SIZE = 100;
+
+    /**
+     * Readings further apart than this are taken to span an outage: the interval between them adds no energy.
+     * Energy figures integrate power over the time between consecutive readings of an installation.
+     */
+    public static final int MAX_READING_GAP_SECONDS = 900;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "energy_data_seq")
+    @SequenceGenerator(name = "energy_data_seq", sequenceName = "energy_data_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -35,4 +52,13 @@ public class EnergyData {
 
     @Column(nullable = false)
     private boolean isSimulated = true;
+
+    // Derived when the reading is ingested (see EnergyDerivedMetrics); null for readings stored without them
+    private Double netPowerWatts;
+
+    private Double utilizationRate;
+
+    private Double efficiencyPercentage;
+
+    private Double bandedEfficiencyPercentage;
 } 
\ No newline at end of file
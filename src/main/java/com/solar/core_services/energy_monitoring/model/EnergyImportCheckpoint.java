@@ -0,0 +1,29 @@
+package com.solar.core_services.energy_monitoring.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk import. The committed offset is written in the same transaction
+ * as the rows it covers, so an interrupted import can resume without duplicating data.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "energy_import_checkpoints")
+public class EnergyImportCheckpoint {
+    @Id
+    @Column(length = 64)
+    private String importId;
+
+    @Column(nullable = false)
+    private Long installationId;
+
+    @Column(nullable = false)
+    private int committedOffset;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -0,0 +1,44 @@
+package com.solar.core_services.energy_monitoring.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A reading the write-behind flusher acknowledged but could not store, even on its own after the batch retries.
+ * Kept as received, without a foreign key, so the reading survives whatever made it fail and can be replayed.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "energy_ingest_dead_letters")
+public class EnergyIngestDeadLetter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long installationId;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    @Column(nullable = false)
+    private double powerGenerationWatts;
+
+    @Column(nullable = false)
+    private double powerConsumptionWatts;
+
+    @Column(nullable = false)
+    private double dailyYieldKWh;
+
+    @Column(nullable = false)
+    private double totalYieldKWh;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime failedAt = LocalDateTime.now();
+}
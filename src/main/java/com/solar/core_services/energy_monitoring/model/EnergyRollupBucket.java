@@ -0,0 +1,66 @@
+package com.solar.core_services.energy_monitoring.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated readings for one installation over a fixed-width time bucket (5 minutes or 1 hour).
+ * Sums are raw watt sums and energy is in watt-hours, so buckets of any width can be combined by adding them up.
+ * An interval between two readings counts towards the bucket of the reading that ends it.
+ * Buckets written before energy was integrated have no energy.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@IdClass(EnergyRollupBucket.Key.class)
+@Table(name = "energy_rollup_buckets")
+public class EnergyRollupBucket {
+
+    public static final int FIVE_MINUTES = 300;
+    public static final int HOUR = 3600;
+
+    @Id
+    @Column(name = "installation_id")
+    private Long installationId;
+
+    @Id
+    @Column(name = "bucket_seconds")
+    private int bucketSeconds;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private double generationSumWatts;
+
+    @Column(nullable = false)
+    private double consumptionSumWatts;
+
+    @Column(nullable = false)
+    private double peakGenerationWatts;
+
+    @Column(nullable = false)
+    private double peakConsumptionWatts;
+
+    @Column(nullable = false)
+    private long readingsCount;
+
+    private Double generationWh;
+
+    private Double consumptionWh;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long installationId;
+        private int bucketSeconds;
+        private LocalDateTime bucketStart;
+    }
+}
@@ -8,10 +8,13 @@ import java.time.LocalDate;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "energy_summaries")
+@Table(name = "energy_summaries", indexes = {
+        @Index(name = "idx_energy_summaries_installation_period_date", columnList = "installation_id, period, date")
+})
 public class EnergySummary {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "energy_summaries_seq")
+    @SequenceGenerator(name = "energy_summaries_seq", sequenceName = "energy_summaries_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,40 @@
+package com.solar.core_services.energy_monitoring.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A chunk of installations the nightly summary job has finished for one run date.
+ * It is written in the same transaction as the chunk's summaries, so a restarted run
+ * skips the chunks that already committed.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "energy_summary_job_checkpoints")
+public class EnergySummaryJobCheckpoint {
+    @Id
+    @Column(length = 64)
+    private String chunkId;
+
+    @Column(nullable = false)
+    private LocalDate runDate;
+
+    @Column(nullable = false)
+    private Long firstInstallationId;
+
+    @Column(nullable = false)
+    private Long lastInstallationId;
+
+    @Column(nullable = false)
+    private int summariesWritten;
+
+    @Column(nullable = false)
+    private long durationMillis;
+
+    @Column(nullable = false)
+    private LocalDateTime completedAt = LocalDateTime.now();
+}
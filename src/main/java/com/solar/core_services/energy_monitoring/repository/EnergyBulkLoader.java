@@ -0,0 +1,25 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingDTO;
+
+import java.util.List;
+
+/**
+ * Writes historical readings straight into energy_data without instantiating entities.
+ * Implementations join the caller's transaction.
+ */
+public interface EnergyBulkLoader {
+
+    String COLUMNS = "id, installation_id, power_generation_watts, power_consumption_watts, timestamp, "
+            + "daily_yieldkwh, total_yieldkwh, is_simulated";
+
+    /**
+     * Load a chunk of readings for one installation. Readings whose (installation, timestamp) key is already
+     * stored, or repeated earlier in the chunk, are skipped.
+     * @param installationId The ID of the installation
+     * @param readings The readings to write
+     * @param ids Pre-allocated primary keys, one per reading
+     * @return The readings written, in chunk order
+     */
+    List<EnergyReadingDTO> load(Long installationId, List<EnergyReadingDTO> readings, long[] ids);
+}
@@ -0,0 +1,252 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compresses one installation-day of readings into a bit-packed block in the style of Facebook's Gorilla:
+ * timestamps as delta-of-delta, ids as deltas (both in variable-width buckets), and each double column
+ * XORed with its previous value so repeated or slowly changing values take one or a few bits.
+ * Readings are encoded in the order given, which callers keep as (timestamp, id).
+ */
+public final class EnergyColdBlockCodec {
+
+    /**
+     * Bytes a reading's encoded columns take uncompressed (id, timestamp, four doubles, flag), for ratio metrics
+     */
+    public static final int RAW_READING_BYTES = 8 + 8 + 4 * 8 + 1;
+
+    private static final int VERSION = 1;
+
+    private EnergyColdBlockCodec() {
+    }
+
+    public static byte[] encode(List<EnergyData> readings) {
+        BitWriter out = new BitWriter(readings.size() * 12 + 8);
+        out.write(VERSION, 8);
+        out.write(readings.size(), 32);
+
+        long previousId = 0;
+        long previousMillis = 0;
+        long previousDelta = 0;
+        XorState generation = new XorState();
+        XorState consumption = new XorState();
+        XorState dailyYield = new XorState();
+        XorState totalYield = new XorState();
+        for (EnergyData reading : readings) {
+            out.writeSigned(reading.getId() - previousId);
+            previousId = reading.getId();
+
+            long millis = reading.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+            long delta = millis - previousMillis;
+            out.writeSigned(delta - previousDelta);
+            previousMillis = millis;
+            previousDelta = delta;
+
+            out.writeDouble(generation, reading.getPowerGenerationWatts());
+            out.writeDouble(consumption, reading.getPowerConsumptionWatts());
+            out.writeDouble(dailyYield, reading.getDailyYieldKWh());
+            out.writeDouble(totalYield, reading.getTotalYieldKWh());
+            out.write(reading.isSimulated() ? 1 : 0, 1);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a block into detached readings belonging to an installation, in encoding order
+     */
+    public static List<EnergyData> decode(byte[] block, SolarInstallation installation) {
+        BitReader in = new BitReader(block);
+        int version = (int) in.read(8);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported cold block version " + version);
+        }
+        int count = (int) in.read(32);
+
+        List<EnergyData> readings = new ArrayList<>(count);
+        long id = 0;
+        long millis = 0;
+        long delta = 0;
+        XorState generation = new XorState();
+        XorState consumption = new XorState();
+        XorState dailyYield = new XorState();
+        XorState totalYield = new XorState();
+        for (int i = 0; i < count; i++) {
+            id += in.readSigned();
+            delta += in.readSigned();
+            millis += delta;
+
+            EnergyData reading = new EnergyData();
+            reading.setId(id);
+            reading.setInstallation(installation);
+            reading.setTimestamp(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                    (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC));
+            reading.setPowerGenerationWatts(in.readDouble(generation));
+            reading.setPowerConsumptionWatts(in.readDouble(consumption));
+            reading.setDailyYieldKWh(in.readDouble(dailyYield));
+            reading.setTotalYieldKWh(in.readDouble(totalYield));
+            reading.setSimulated(in.read(1) == 1);
+            readings.add(reading);
+        }
+        return readings;
+    }
+
+    // Previous value and meaningful-bit window of one XOR-encoded column
+    private static final class XorState {
+        long previous;
+        int leading = -1;
+        int trailing;
+    }
+
+    private static long mask(int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    private static final class BitWriter {
+        private byte[] bytes;
+        private int length;
+        private long pending;
+        private int pendingBits;
+
+        BitWriter(int initialCapacity) {
+            bytes = new byte[Math.max(16, initialCapacity)];
+        }
+
+        void write(long value, int bits) {
+            if (bits > 56) {
+                write(value >>> 32, bits - 32);
+                write(value, 32);
+                return;
+            }
+            pending = (pending << bits) | (value & mask(bits));
+            pendingBits += bits;
+            while (pendingBits >= 8) {
+                pendingBits -= 8;
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                bytes[length++] = (byte) (pending >>> pendingBits);
+            }
+        }
+
+        // Prefix 0, 10, 110, 1110, 11110 or 11111 selects a 0, 7, 9, 12, 32 or 64-bit two's complement value
+        void writeSigned(long value) {
+            if (value == 0) {
+                write(0, 1);
+            } else if (value >= -64 && value <= 63) {
+                write(0b10, 2);
+                write(value, 7);
+            } else if (value >= -256 && value <= 255) {
+                write(0b110, 3);
+                write(value, 9);
+            } else if (value >= -2048 && value <= 2047) {
+                write(0b1110, 4);
+                write(value, 12);
+            } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                write(0b11110, 5);
+                write(value, 32);
+            } else {
+                write(0b11111, 5);
+                write(value, 64);
+            }
+        }
+
+        void writeDouble(XorState state, double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            long xor = bits ^ state.previous;
+            state.previous = bits;
+            if (xor == 0) {
+                write(0, 1);
+                return;
+            }
+            write(1, 1);
+            int leading = Long.numberOfLeadingZeros(xor);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (state.leading >= 0 && leading >= state.leading && trailing >= state.trailing) {
+                // Fits the previous window: store just the bits inside it
+                write(0, 1);
+                write(xor >>> state.trailing, 64 - state.leading - state.trailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                write(1, 1);
+                write(leading, 6);
+                write(meaningful - 1, 6);
+                write(xor >>> trailing, meaningful);
+                state.leading = leading;
+                state.trailing = trailing;
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] result = Arrays.copyOf(bytes, length + (pendingBits > 0 ? 1 : 0));
+            if (pendingBits > 0) {
+                result[length] = (byte) (pending << (8 - pendingBits));
+            }
+            return result;
+        }
+    }
+
+    private static final class BitReader {
+        private final byte[] bytes;
+        private int position;
+        private long buffer;
+        private int bufferedBits;
+
+        BitReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long read(int bits) {
+            if (bits > 56) {
+                long high = read(bits - 32);
+                return (high << 32) | read(32);
+            }
+            while (bufferedBits < bits) {
+                if (position == bytes.length) {
+                    throw new IllegalStateException("Cold block is truncated");
+                }
+                buffer = (buffer << 8) | (bytes[position++] & 0xFF);
+                bufferedBits += 8;
+            }
+            bufferedBits -= bits;
+            return (buffer >>> bufferedBits) & mask(bits);
+        }
+
+        long readSigned() {
+            if (read(1) == 0) {
+                return 0;
+            }
+            int bits;
+            if (read(1) == 0) {
+                bits = 7;
+            } else if (read(1) == 0) {
+                bits = 9;
+            } else if (read(1) == 0) {
+                bits = 12;
+            } else {
+                bits = read(1) == 0 ? 32 : 64;
+            }
+            long value = read(bits);
+            return bits == 64 ? value : (value << (64 - bits)) >> (64 - bits);
+        }
+
+        double readDouble(XorState state) {
+            if (read(1) == 0) {
+                return Double.longBitsToDouble(state.previous);
+            }
+            if (read(1) == 1) {
+                state.leading = (int) read(6);
+                int meaningful = (int) read(6) + 1;
+                state.trailing = 64 - state.leading - meaningful;
+            }
+            state.previous ^= read(64 - state.leading - state.trailing) << state.trailing;
+            return Double.longBitsToDouble(state.previous);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergyColdBlock;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface EnergyColdBlockRepository extends JpaRepository<EnergyColdBlock, EnergyColdBlock.Key> {
+
+    List<EnergyColdBlock> findByInstallationIdAndBlockDateBetweenOrderByBlockDate(
+        Long installationId,
+        LocalDate start,
+        LocalDate end
+    );
+
+    List<EnergyColdBlock> findByInstallationIdInAndBlockDateBetween(
+        Collection<Long> installationIds,
+        LocalDate start,
+        LocalDate end
+    );
+
+    // Period energy of the matched blocks, in the order of EnergyPeriodTotals
+    String PERIOD_SUMS = "SUM(CASE WHEN b.blockDate >= :startOfDay "
+            + "THEN COALESCE(b.generationWh, b.generationSumWatts / b.readingsCount * 24) ELSE 0.0 END), "
+            + "SUM(CASE WHEN b.blockDate >= :startOfDay "
+            + "THEN COALESCE(b.consumptionWh, b.consumptionSumWatts / b.readingsCount * 24) ELSE 0.0 END), "
+            + "SUM(CASE WHEN b.blockDate >= :startOfWeek "
+            + "THEN COALESCE(b.generationWh, b.generationSumWatts / b.readingsCount * 24) ELSE 0.0 END), "
+            + "SUM(CASE WHEN b.blockDate >= :startOfWeek "
+            + "THEN COALESCE(b.consumptionWh, b.consumptionSumWatts / b.readingsCount * 24) ELSE 0.0 END), "
+            + "SUM(CASE WHEN b.blockDate >= :startOfMonth "
+            + "THEN COALESCE(b.generationWh, b.generationSumWatts / b.readingsCount * 24) ELSE 0.0 END), "
+            + "SUM(CASE WHEN b.blockDate >= :startOfMonth "
+            + "THEN COALESCE(b.consumptionWh, b.consumptionSumWatts / b.readingsCount * 24) ELSE 0.0 END), "
+            + "SUM(CASE WHEN b.blockDate >= :startOfYear "
+            + "THEN COALESCE(b.generationWh, b.generationSumWatts / b.readingsCount * 24) ELSE 0.0 END), "
+            + "SUM(CASE WHEN b.blockDate >= :startOfYear "
+            + "THEN COALESCE(b.consumptionWh, b.consumptionSumWatts / b.readingsCount * 24) ELSE 0.0 END)";
+
+    /**
+     * The cold side of EnergyDataRepository.sumFleetPeriods. Blocks hold whole days, so periods starting
+     * at midnight take a block either completely or not at all. Sums are in watt-hours; blocks compacted before
+     * energy was integrated count as their average power over the whole day.
+     */
+    @Query("SELECT new com.solar.core_services.energy_monitoring.repository.EnergyPeriodTotals(" + PERIOD_SUMS + ") "
+            + "FROM EnergyColdBlock b WHERE b.blockDate BETWEEN :from AND :end AND b.installationId IN "
+            + "(SELECT i.id FROM SolarInstallation i WHERE i.status = :status)")
+    EnergyPeriodTotals sumFleetPeriods(@Param("status") SolarInstallation.InstallationStatus status,
+                                       @Param("startOfDay") LocalDate startOfDay,
+                                       @Param("startOfWeek") LocalDate startOfWeek,
+                                       @Param("startOfMonth") LocalDate startOfMonth,
+                                       @Param("startOfYear") LocalDate startOfYear,
+                                       @Param("from") LocalDate from,
+                                       @Param("end") LocalDate end);
+
+    /**
+     * sumFleetPeriods for one installation, the cold side of EnergyDataRepository.sumDashboardPeriods
+     */
+    @Query("SELECT new com.solar.core_services.energy_monitoring.repository.EnergyPeriodTotals(" + PERIOD_SUMS + ") "
+            + "FROM EnergyColdBlock b WHERE b.blockDate BETWEEN :from AND :end AND b.installationId = :installationId")
+    EnergyPeriodTotals sumDashboardPeriods(@Param("installationId") Long installationId,
+                                           @Param("startOfDay") LocalDate startOfDay,
+                                           @Param("startOfWeek") LocalDate startOfWeek,
+                                           @Param("startOfMonth") LocalDate startOfMonth,
+                                           @Param("startOfYear") LocalDate startOfYear,
+                                           @Param("from") LocalDate from,
+                                           @Param("end") LocalDate end);
+
+    /**
+     * sumFleetPeriods per installation of a customer, the cold side of
+     * EnergyDataRepository.sumDashboardPeriodsByUser. Installations without blocks in [from, end] are not returned.
+     */
+    @Query("SELECT new com.solar.core_services.energy_monitoring.repository.InstallationPeriodTotals("
+            + "b.installationId, " + PERIOD_SUMS + ") "
+            + "FROM EnergyColdBlock b WHERE b.blockDate BETWEEN :from AND :end AND b.installationId IN "
+            + "(SELECT i.id FROM SolarInstallation i WHERE i.user.id = :userId) GROUP BY b.installationId")
+    List<InstallationPeriodTotals> sumDashboardPeriodsByUser(@Param("userId") Long userId,
+                                                             @Param("startOfDay") LocalDate startOfDay,
+                                                             @Param("startOfWeek") LocalDate startOfWeek,
+                                                             @Param("startOfMonth") LocalDate startOfMonth,
+                                                             @Param("startOfYear") LocalDate startOfYear,
+                                                             @Param("from") LocalDate from,
+                                                             @Param("end") LocalDate end);
+}
@@ -0,0 +1,76 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergyColdBlock;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Keeps readings a cold block already holds out of energy_data. The unique (installation, timestamp) index only
+ * covers energy_data, so without this a resent reading of a compacted day would be stored again and counted twice
+ * by range queries, period sums and rollups until the next compaction run dropped it.
+ * Blocks only exist for old days, so for live readings this costs one query that finds nothing; blocks are only
+ * loaded and decoded for the days the readings fall on.
+ */
+@Component
+@RequiredArgsConstructor
+public class EnergyColdReadingFilter {
+
+    private final EnergyColdBlockRepository coldBlockRepository;
+
+    /**
+     * The readings whose (installation, timestamp) key no cold block holds, in their original order.
+     * Readings without a timestamp are kept.
+     */
+    public <T> List<T> withoutCompacted(List<T> readings, Function<T, Long> installationId,
+                                        Function<T, LocalDateTime> timestamp) {
+        Set<Long> installationIds = new HashSet<>();
+        Set<EnergyColdBlock.Key> days = new HashSet<>();
+        LocalDate from = null;
+        LocalDate to = null;
+        for (T reading : readings) {
+            LocalDateTime time = timestamp.apply(reading);
+            if (time == null) {
+                continue;
+            }
+            LocalDate day = time.toLocalDate();
+            installationIds.add(installationId.apply(reading));
+            days.add(new EnergyColdBlock.Key(installationId.apply(reading), day));
+            from = from == null || day.isBefore(from) ? day : from;
+            to = to == null || day.isAfter(to) ? day : to;
+        }
+        if (installationIds.isEmpty()) {
+            return readings;
+        }
+
+        Set<CompactedReading> compacted = new HashSet<>();
+        for (EnergyColdBlock block : coldBlockRepository.findByInstallationIdInAndBlockDateBetween(
+                installationIds, from, to)) {
+            if (!days.contains(new EnergyColdBlock.Key(block.getInstallationId(), block.getBlockDate()))) {
+                continue;
+            }
+            for (EnergyData reading : EnergyColdBlockCodec.decode(block.getPayload(), null)) {
+                compacted.add(new CompactedReading(block.getInstallationId(), reading.getTimestamp()));
+            }
+        }
+        if (compacted.isEmpty()) {
+            return readings;
+        }
+        // Blocks keep timestamps to the millisecond
+        return readings.stream()
+                .filter(reading -> timestamp.apply(reading) == null || !compacted.contains(new CompactedReading(
+                        installationId.apply(reading), timestamp.apply(reading).truncatedTo(ChronoUnit.MILLIS))))
+                .toList();
+    }
+
+    private record CompactedReading(Long installationId, LocalDateTime timestamp) {
+    }
+}
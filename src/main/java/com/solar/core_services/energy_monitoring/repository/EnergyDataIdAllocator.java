@@ -0,0 +1,19 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out energy_data primary keys from Hibernate's pooled optimizer for EnergyData (see PooledIdAllocator)
+ */
+@Component
+public class EnergyDataIdAllocator extends PooledIdAllocator {
+
+    public static final String SEQUENCE_NAME = "energy_data_seq";
+
+    public EnergyDataIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        super(jdbcTemplate, entityManagerFactory, EnergyData.class, SEQUENCE_NAME);
+    }
+}
@@ -3,23 +3,113 @@ package com.solar.core_services.energy_monitoring.repository;
 
 import com.solar.core_services.energy_monitoring.model.EnergyData;
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
-public interface EnergyDataRepository extends JpaRepository<EnergyData, Long> {
-    List<EnergyData> findByInstallationOrderByTimestampDesc(SolarInstallation installation);
-    
-    List<EnergyData> findByInstallationAndTimestampBetweenOrderByTimestampDesc(
-        SolarInstallation installation, 
-        LocalDateTime start, 
+/**
+ * On PostgreSQL energy_data is range-partitioned by month on timestamp (see EnergyDataPartitionManager).
+ * Queries that bound timestamp are pruned to the matching partitions, so new queries should always
+ * carry a timestamp range where they can.
+ * Readings older than the cold storage age are compacted into energy_cold_blocks
+ * (see EnergyColdStorageCompactor); the range queries in EnergyDataRepositoryCustom read both tiers.
+ * Period energy is integrated over reading timestamps in EnergyDataRepositoryCustom as well.
+ */
+public interface EnergyDataRepository extends JpaRepository<EnergyData, Long>, EnergyDataRepositoryCustom {
+    /**
+     * Newest readings first, with the limit applied in the database
+     */
+    List<EnergyData> findByInstallationOrderByTimestampDescIdDesc(SolarInstallation installation, Limit limit);
+
+    Optional<EnergyData> findFirstByInstallationOrderByTimestampDescIdDesc(SolarInstallation installation);
+
+    /**
+     * The reading stored under an idempotency key, if any
+     */
+    Optional<EnergyData> findByInstallationAndTimestamp(SolarInstallation installation, LocalDateTime timestamp);
+
+    /**
+     * Timestamps of an installation's readings in [start, end], to skip readings that are already stored
+     */
+    @Query("SELECT e.timestamp FROM EnergyData e WHERE e.installation = :installation "
+            + "AND e.timestamp >= :start AND e.timestamp <= :end")
+    List<LocalDateTime> findTimestampsBetween(@Param("installation") SolarInstallation installation,
+                                              @Param("start") LocalDateTime start,
+                                              @Param("end") LocalDateTime end);
+
+    /**
+     * Readings from a point in time onwards, oldest first, with the limit applied in the database
+     */
+    List<EnergyData> findByInstallationAndTimestampGreaterThanEqualOrderByTimestampAscIdAsc(
+        SolarInstallation installation,
+        LocalDateTime start,
+        Limit limit
+    );
+
+    /**
+     * Keyset page: the readings that sort after the (timestamp, id) cursor in newest-first order
+     */
+    @Query("SELECT e FROM EnergyData e WHERE e.installation = :installation "
+            + "AND (e.timestamp < :timestamp OR (e.timestamp = :timestamp AND e.id < :id)) "
+            + "ORDER BY e.timestamp DESC, e.id DESC")
+    List<EnergyData> findPageAfterCursor(@Param("installation") SolarInstallation installation,
+                                         @Param("timestamp") LocalDateTime timestamp,
+                                         @Param("id") Long id,
+                                         Limit limit);
+
+    /**
+     * Readings of one installation in [start, end), oldest first, for compaction into a cold block
+     */
+    List<EnergyData> findByInstallationAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAscIdAsc(
+        SolarInstallation installation,
+        LocalDateTime start,
         LocalDateTime end
     );
 
-    @Query("SELECT SUM(e.powerGenerationWatts) FROM EnergyData e WHERE e.installation = ?1 AND e.timestamp BETWEEN ?2 AND ?3")
-    Double sumPowerGenerationForPeriod(SolarInstallation installation, LocalDateTime start, LocalDateTime end);
+    @Query("SELECT MIN(e.timestamp) FROM EnergyData e WHERE e.timestamp >= :from AND e.timestamp < :before")
+    LocalDateTime findOldestTimestampBetween(@Param("from") LocalDateTime from, @Param("before") LocalDateTime before);
+
+    @Query("SELECT DISTINCT e.installation.id FROM EnergyData e WHERE e.timestamp >= :start AND e.timestamp < :end")
+    List<Long> findInstallationIdsWithReadingsBetween(@Param("start") LocalDateTime start,
+                                                      @Param("end") LocalDateTime end);
+
+    /**
+     * Delete specific readings; the installation and range only let the database prune partitions
+     */
+    @Modifying
+    @Query("DELETE FROM EnergyData e WHERE e.installation = :installation "
+            + "AND e.timestamp >= :start AND e.timestamp < :end AND e.id IN :ids")
+    int deleteByIdsInRange(@Param("installation") SolarInstallation installation,
+                           @Param("start") LocalDateTime start,
+                           @Param("end") LocalDateTime end,
+                           @Param("ids") List<Long> ids);
+
+    /**
+     * The newest readings of every installation with the given status, at most perInstallation each,
+     * grouped by installation and newest first within it. ROW_NUMBER works on both H2 and PostgreSQL.
+     */
+    @Query(value = "SELECT r.* FROM (SELECT e.*, ROW_NUMBER() OVER (PARTITION BY e.installation_id "
+            + "ORDER BY e.timestamp DESC, e.id DESC) AS reading_rank FROM energy_data e "
+            + "JOIN solar_installations i ON i.id = e.installation_id WHERE i.status = :status) r "
+            + "WHERE r.reading_rank <= :perInstallation ORDER BY r.installation_id, r.reading_rank",
+            nativeQuery = true)
+    List<EnergyData> findLatestByInstallationStatus(@Param("status") String status,
+                                                    @Param("perInstallation") int perInstallation);
 
-    @Query("SELECT SUM(e.powerConsumptionWatts) FROM EnergyData e WHERE e.installation = ?1 AND e.timestamp BETWEEN ?2 AND ?3")
-    Double sumPowerConsumptionForPeriod(SolarInstallation installation, LocalDateTime start, LocalDateTime end);
-} 
\ No newline at end of file
+    /**
+     * The newest readings of every installation of a customer, at most perInstallation each,
+     * grouped by installation and newest first within it
+     */
+    @Query(value = "SELECT r.* FROM (SELECT e.*, ROW_NUMBER() OVER (PARTITION BY e.installation_id "
+            + "ORDER BY e.timestamp DESC, e.id DESC) AS reading_rank FROM energy_data e "
+            + "JOIN solar_installations i ON i.id = e.installation_id WHERE i.user_id = :userId) r "
+            + "WHERE r.reading_rank <= :perInstallation ORDER BY r.installation_id, r.reading_rank",
+            nativeQuery = true)
+    List<EnergyData> findLatestByUser(@Param("userId") Long userId,
+                                      @Param("perInstallation") int perInstallation);
+}
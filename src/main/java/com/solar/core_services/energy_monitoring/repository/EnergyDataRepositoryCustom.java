@@ -0,0 +1,109 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.user_management.model.User;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Range queries that read both storage tiers: rows still in energy_data and compacted cold blocks.
+ * Both ends of a range are inclusive.
+ * The period energy queries integrate energy_data with READING_INTERVALS_SQL and return watt-hours.
+ */
+public interface EnergyDataRepositoryCustom {
+
+    /**
+     * Readings with the energy of the interval ending at each one, by the trapezoid rule over the previous reading
+     * of the same installation: installation_id, timestamp, power_generation_watts, power_consumption_watts,
+     * generation_wh and consumption_wh. Intervals that are not positive or longer than
+     * EnergyData.MAX_READING_GAP_SECONDS add 0, as does the first reading of the scan.
+     * Format it with the joins and WHERE clause selecting readings of alias e. The scan should start
+     * MAX_READING_GAP_SECONDS before the first interval wanted, so that interval sees its previous reading.
+     * LAG and EXTRACT(EPOCH ...) work on both H2 and PostgreSQL.
+     */
+    String READING_INTERVALS_SQL = "SELECT w.installation_id, w.timestamp, w.power_generation_watts, "
+            + "w.power_consumption_watts, "
+            + "CASE WHEN w.seconds > 0 AND w.seconds <= " + EnergyData.MAX_READING_GAP_SECONDS + " "
+            + "THEN (w.power_generation_watts + w.previous_generation) * w.seconds / 7200.0 ELSE 0 END AS generation_wh, "
+            + "CASE WHEN w.seconds > 0 AND w.seconds <= " + EnergyData.MAX_READING_GAP_SECONDS + " "
+            + "THEN (w.power_consumption_watts + w.previous_consumption) * w.seconds / 7200.0 ELSE 0 END AS consumption_wh "
+            + "FROM (SELECT e.installation_id, e.timestamp, e.power_generation_watts, e.power_consumption_watts, "
+            + "LAG(e.power_generation_watts) OVER (PARTITION BY e.installation_id ORDER BY e.timestamp, e.id) "
+            + "AS previous_generation, "
+            + "LAG(e.power_consumption_watts) OVER (PARTITION BY e.installation_id ORDER BY e.timestamp, e.id) "
+            + "AS previous_consumption, "
+            + "EXTRACT(EPOCH FROM e.timestamp) - LAG(EXTRACT(EPOCH FROM e.timestamp)) "
+            + "OVER (PARTITION BY e.installation_id ORDER BY e.timestamp, e.id) AS seconds "
+            + "FROM energy_data e %s) w";
+
+    List<EnergyData> findByInstallationAndTimestampBetweenOrderByTimestampDesc(
+        SolarInstallation installation,
+        LocalDateTime start,
+        LocalDateTime end
+    );
+
+    Double sumPowerGenerationForPeriod(SolarInstallation installation, LocalDateTime start, LocalDateTime end);
+
+    Double sumPowerConsumptionForPeriod(SolarInstallation installation, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Today, week-to-date, month-to-date and year-to-date energy in one scan, using conditional aggregation.
+     * from must be the earliest of the period starts (the week can start in the previous year).
+     * Days compacted into cold blocks add their block's energy; periods must start at midnight for that.
+     */
+    EnergyPeriodTotals sumDashboardPeriods(SolarInstallation installation,
+                                           LocalDateTime startOfDay,
+                                           LocalDateTime startOfWeek,
+                                           LocalDateTime startOfMonth,
+                                           LocalDateTime startOfYear,
+                                           LocalDateTime from,
+                                           LocalDateTime end);
+
+    /**
+     * sumDashboardPeriods together with today's peak generation and reading count, in the same scan.
+     * startOfDay must not be before from.
+     */
+    EnergyRunningTotals sumRunningTotals(SolarInstallation installation,
+                                         LocalDateTime startOfDay,
+                                         LocalDateTime startOfWeek,
+                                         LocalDateTime startOfMonth,
+                                         LocalDateTime startOfYear,
+                                         LocalDateTime from,
+                                         LocalDateTime end);
+
+    /**
+     * sumDashboardPeriods for every installation of a customer in one scan, grouped by installation.
+     * Installations without readings or cold blocks in [from, end] are not returned.
+     */
+    List<InstallationPeriodTotals> sumDashboardPeriodsByUser(User user,
+                                                             LocalDateTime startOfDay,
+                                                             LocalDateTime startOfWeek,
+                                                             LocalDateTime startOfMonth,
+                                                             LocalDateTime startOfYear,
+                                                             LocalDateTime from,
+                                                             LocalDateTime end);
+
+    /**
+     * sumDashboardPeriods over every installation with the given status at once. Only reads energy_data;
+     * add EnergyColdBlockRepository.sumFleetPeriods for readings already compacted.
+     */
+    EnergyPeriodTotals sumFleetPeriods(SolarInstallation.InstallationStatus status,
+                                       LocalDateTime startOfDay,
+                                       LocalDateTime startOfWeek,
+                                       LocalDateTime startOfMonth,
+                                       LocalDateTime startOfYear,
+                                       LocalDateTime from,
+                                       LocalDateTime end);
+
+    /**
+     * Installations with the given status ranked by generated energy over [start, end], with the limit applied
+     * in the database. Installations without readings in the range are not returned.
+     */
+    List<InstallationEnergyTotals> findTopGenerators(SolarInstallation.InstallationStatus status,
+                                                     LocalDateTime start,
+                                                     LocalDateTime end,
+                                                     Limit limit);
+}
@@ -0,0 +1,331 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergyColdBlock;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.user_management.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Merges hot rows from energy_data with readings decoded from the cold blocks of the days a range touches.
+ * A compacted day can briefly have rows in both tiers (a late reading stays hot until the next compaction
+ * folds it into the block), so the two sides are combined rather than one replacing the other.
+ * Sums use the stored block totals for days the range covers completely and only decode the partial days
+ * at either end.
+ * Period energy queries run READING_INTERVALS_SQL natively and add up the intervals ending in each period;
+ * the dashboard ones add the stored energy of the cold blocks in range.
+ */
+public class EnergyDataRepositoryCustomImpl implements EnergyDataRepositoryCustom {
+
+    private static final String RANGE_QUERY = "SELECT e FROM EnergyData e WHERE e.installation = :installation "
+            + "AND e.timestamp BETWEEN :start AND :end ORDER BY e.timestamp DESC";
+
+    private static final String GENERATION_SUM_QUERY = "SELECT SUM(e.powerGenerationWatts) FROM EnergyData e "
+            + "WHERE e.installation = :installation AND e.timestamp BETWEEN :start AND :end";
+
+    private static final String CONSUMPTION_SUM_QUERY = "SELECT SUM(e.powerConsumptionWatts) FROM EnergyData e "
+            + "WHERE e.installation = :installation AND e.timestamp BETWEEN :start AND :end";
+
+    private static final String BLOCK_SUMS_QUERY = "SELECT COUNT(b.blockDate), SUM(b.generationSumWatts), SUM(b.consumptionSumWatts) "
+            + "FROM EnergyColdBlock b WHERE b.installationId = :installationId AND b.blockDate BETWEEN :first AND :last";
+
+    private static final String PERIOD_SUMS = "SUM(CASE WHEN i.timestamp >= :startOfDay THEN i.generation_wh ELSE 0 END), "
+            + "SUM(CASE WHEN i.timestamp >= :startOfDay THEN i.consumption_wh ELSE 0 END), "
+            + "SUM(CASE WHEN i.timestamp >= :startOfWeek THEN i.generation_wh ELSE 0 END), "
+            + "SUM(CASE WHEN i.timestamp >= :startOfWeek THEN i.consumption_wh ELSE 0 END), "
+            + "SUM(CASE WHEN i.timestamp >= :startOfMonth THEN i.generation_wh ELSE 0 END), "
+            + "SUM(CASE WHEN i.timestamp >= :startOfMonth THEN i.consumption_wh ELSE 0 END), "
+            + "SUM(CASE WHEN i.timestamp >= :startOfYear THEN i.generation_wh ELSE 0 END), "
+            + "SUM(CASE WHEN i.timestamp >= :startOfYear THEN i.consumption_wh ELSE 0 END)";
+
+    private static final String DASHBOARD_PERIODS_QUERY = "SELECT " + PERIOD_SUMS + " FROM ("
+            + READING_INTERVALS_SQL.formatted("WHERE e.installation_id = :installationId "
+                    + "AND e.timestamp BETWEEN :scanStart AND :end")
+            + ") i WHERE i.timestamp >= :from";
+
+    private static final String RUNNING_TOTALS_QUERY = "SELECT " + PERIOD_SUMS + ", "
+            + "MAX(CASE WHEN i.timestamp >= :startOfDay THEN i.power_generation_watts END), "
+            + "COUNT(CASE WHEN i.timestamp >= :startOfDay THEN 1 END) FROM ("
+            + READING_INTERVALS_SQL.formatted("WHERE e.installation_id = :installationId "
+                    + "AND e.timestamp BETWEEN :scanStart AND :end")
+            + ") i WHERE i.timestamp >= :from";
+
+    private static final String DASHBOARD_PERIODS_BY_USER_QUERY = "SELECT i.installation_id, " + PERIOD_SUMS + " FROM ("
+            + READING_INTERVALS_SQL.formatted("JOIN solar_installations s ON s.id = e.installation_id "
+                    + "WHERE s.user_id = :userId AND e.timestamp BETWEEN :scanStart AND :end")
+            + ") i WHERE i.timestamp >= :from GROUP BY i.installation_id";
+
+    private static final String FLEET_PERIODS_QUERY = "SELECT " + PERIOD_SUMS + " FROM ("
+            + READING_INTERVALS_SQL.formatted("JOIN solar_installations s ON s.id = e.installation_id "
+                    + "WHERE s.status = :status AND e.timestamp BETWEEN :scanStart AND :end")
+            + ") i WHERE i.timestamp >= :from";
+
+    private static final String TOP_GENERATORS_QUERY = "SELECT i.installation_id, SUM(i.generation_wh), "
+            + "SUM(i.consumption_wh) FROM ("
+            + READING_INTERVALS_SQL.formatted("JOIN solar_installations s ON s.id = e.installation_id "
+                    + "WHERE s.status = :status AND e.timestamp BETWEEN :scanStart AND :end")
+            + ") i WHERE i.timestamp >= :start "
+            + "GROUP BY i.installation_id ORDER BY SUM(i.generation_wh) DESC, i.installation_id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final EnergyColdBlockRepository coldBlockRepository;
+    private final Timer decodeTimer;
+
+    public EnergyDataRepositoryCustomImpl(EnergyColdBlockRepository coldBlockRepository,
+                                          ObjectProvider<MeterRegistry> meterRegistry) {
+        this.coldBlockRepository = coldBlockRepository;
+        // Repository slices in tests run without a meter registry
+        this.decodeTimer = Timer.builder("energy.cold.block.decode")
+                .description("Time taken to decode one cold block for a range query")
+                .register(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Override
+    public List<EnergyData> findByInstallationAndTimestampBetweenOrderByTimestampDesc(SolarInstallation installation,
+                                                                                     LocalDateTime start,
+                                                                                     LocalDateTime end) {
+        List<EnergyData> hot = entityManager.createQuery(RANGE_QUERY, EnergyData.class)
+                .setParameter("installation", installation)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getResultList();
+        List<EnergyColdBlock> blocks = coldBlockRepository.findByInstallationIdAndBlockDateBetweenOrderByBlockDate(
+                installation.getId(), start.toLocalDate(), end.toLocalDate());
+        if (blocks.isEmpty()) {
+            return hot;
+        }
+
+        List<EnergyData> merged = new ArrayList<>(hot);
+        for (EnergyColdBlock block : blocks) {
+            for (EnergyData reading : decode(block, installation)) {
+                if (!reading.getTimestamp().isBefore(start) && !reading.getTimestamp().isAfter(end)) {
+                    merged.add(reading);
+                }
+            }
+        }
+        merged.sort(Comparator.comparing(EnergyData::getTimestamp).reversed());
+        return merged;
+    }
+
+    @Override
+    public Double sumPowerGenerationForPeriod(SolarInstallation installation, LocalDateTime start, LocalDateTime end) {
+        return sum(installation, start, end, true);
+    }
+
+    @Override
+    public Double sumPowerConsumptionForPeriod(SolarInstallation installation, LocalDateTime start, LocalDateTime end) {
+        return sum(installation, start, end, false);
+    }
+
+    @Override
+    public EnergyPeriodTotals sumDashboardPeriods(SolarInstallation installation, LocalDateTime startOfDay,
+                                                  LocalDateTime startOfWeek, LocalDateTime startOfMonth,
+                                                  LocalDateTime startOfYear, LocalDateTime from, LocalDateTime end) {
+        Object[] row = (Object[]) periodQuery(DASHBOARD_PERIODS_QUERY, startOfDay, startOfWeek, startOfMonth,
+                startOfYear, from, end)
+                .setParameter("installationId", installation.getId())
+                .getSingleResult();
+        EnergyPeriodTotals cold = coldBlockRepository.sumDashboardPeriods(installation.getId(),
+                startOfDay.toLocalDate(), startOfWeek.toLocalDate(), startOfMonth.toLocalDate(),
+                startOfYear.toLocalDate(), from.toLocalDate(), end.toLocalDate());
+        return add(toPeriodTotals(row, 0), cold);
+    }
+
+    @Override
+    public EnergyRunningTotals sumRunningTotals(SolarInstallation installation, LocalDateTime startOfDay,
+                                                LocalDateTime startOfWeek, LocalDateTime startOfMonth,
+                                                LocalDateTime startOfYear, LocalDateTime from, LocalDateTime end) {
+        Object[] row = (Object[]) periodQuery(RUNNING_TOTALS_QUERY, startOfDay, startOfWeek, startOfMonth,
+                startOfYear, from, end)
+                .setParameter("installationId", installation.getId())
+                .getSingleResult();
+        EnergyPeriodTotals cold = coldBlockRepository.sumDashboardPeriods(installation.getId(),
+                startOfDay.toLocalDate(), startOfWeek.toLocalDate(), startOfMonth.toLocalDate(),
+                startOfYear.toLocalDate(), from.toLocalDate(), end.toLocalDate());
+        return new EnergyRunningTotals(add(toPeriodTotals(row, 0), cold), toDouble(row[8]),
+                ((Number) row[9]).longValue());
+    }
+
+    @Override
+    public List<InstallationPeriodTotals> sumDashboardPeriodsByUser(User user, LocalDateTime startOfDay,
+                                                                    LocalDateTime startOfWeek,
+                                                                    LocalDateTime startOfMonth,
+                                                                    LocalDateTime startOfYear, LocalDateTime from,
+                                                                    LocalDateTime end) {
+        List<?> rows = periodQuery(DASHBOARD_PERIODS_BY_USER_QUERY, startOfDay, startOfWeek, startOfMonth,
+                startOfYear, from, end)
+                .setParameter("userId", user.getId())
+                .getResultList();
+        Map<Long, EnergyPeriodTotals> totalsByInstallation = new LinkedHashMap<>();
+        for (Object result : rows) {
+            Object[] row = (Object[]) result;
+            totalsByInstallation.put(((Number) row[0]).longValue(), toPeriodTotals(row, 1));
+        }
+        for (InstallationPeriodTotals cold : coldBlockRepository.sumDashboardPeriodsByUser(user.getId(),
+                startOfDay.toLocalDate(), startOfWeek.toLocalDate(), startOfMonth.toLocalDate(),
+                startOfYear.toLocalDate(), from.toLocalDate(), end.toLocalDate())) {
+            totalsByInstallation.merge(cold.installationId(), cold.totals(), EnergyDataRepositoryCustomImpl::add);
+        }
+        List<InstallationPeriodTotals> totals = new ArrayList<>(totalsByInstallation.size());
+        totalsByInstallation.forEach((installationId, periods) -> totals.add(new InstallationPeriodTotals(installationId,
+                periods.todayGeneration(), periods.todayConsumption(),
+                periods.weekToDateGeneration(), periods.weekToDateConsumption(),
+                periods.monthToDateGeneration(), periods.monthToDateConsumption(),
+                periods.yearToDateGeneration(), periods.yearToDateConsumption())));
+        return totals;
+    }
+
+    @Override
+    public EnergyPeriodTotals sumFleetPeriods(SolarInstallation.InstallationStatus status, LocalDateTime startOfDay,
+                                              LocalDateTime startOfWeek, LocalDateTime startOfMonth,
+                                              LocalDateTime startOfYear, LocalDateTime from, LocalDateTime end) {
+        Object[] row = (Object[]) periodQuery(FLEET_PERIODS_QUERY, startOfDay, startOfWeek, startOfMonth,
+                startOfYear, from, end)
+                .setParameter("status", status.name())
+                .getSingleResult();
+        return toPeriodTotals(row, 0);
+    }
+
+    @Override
+    public List<InstallationEnergyTotals> findTopGenerators(SolarInstallation.InstallationStatus status,
+                                                            LocalDateTime start, LocalDateTime end, Limit limit) {
+        Query query = entityManager.createNativeQuery(TOP_GENERATORS_QUERY)
+                .setParameter("status", status.name())
+                .setParameter("scanStart", start.minusSeconds(EnergyData.MAX_READING_GAP_SECONDS))
+                .setParameter("start", start)
+                .setParameter("end", end);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        List<?> rows = query.getResultList();
+        List<InstallationEnergyTotals> totals = new ArrayList<>(rows.size());
+        for (Object result : rows) {
+            Object[] row = (Object[]) result;
+            totals.add(new InstallationEnergyTotals(((Number) row[0]).longValue(), toDouble(row[1]), toDouble(row[2])));
+        }
+        return totals;
+    }
+
+    /**
+     * A period energy query with the period starts bound; the scan starts one maximum gap before from
+     */
+    private Query periodQuery(String sql, LocalDateTime startOfDay, LocalDateTime startOfWeek,
+                              LocalDateTime startOfMonth, LocalDateTime startOfYear, LocalDateTime from,
+                              LocalDateTime end) {
+        return entityManager.createNativeQuery(sql)
+                .setParameter("startOfDay", startOfDay)
+                .setParameter("startOfWeek", startOfWeek)
+                .setParameter("startOfMonth", startOfMonth)
+                .setParameter("startOfYear", startOfYear)
+                .setParameter("from", from)
+                .setParameter("scanStart", from.minusSeconds(EnergyData.MAX_READING_GAP_SECONDS))
+                .setParameter("end", end);
+    }
+
+    private static EnergyPeriodTotals toPeriodTotals(Object[] row, int offset) {
+        return new EnergyPeriodTotals(toDouble(row[offset]), toDouble(row[offset + 1]),
+                toDouble(row[offset + 2]), toDouble(row[offset + 3]), toDouble(row[offset + 4]),
+                toDouble(row[offset + 5]), toDouble(row[offset + 6]), toDouble(row[offset + 7]));
+    }
+
+    /**
+     * Hot and cold sums of the same periods; a sum stays null only when neither side has one
+     */
+    private static EnergyPeriodTotals add(EnergyPeriodTotals hot, EnergyPeriodTotals cold) {
+        if (cold == null) {
+            return hot;
+        }
+        return new EnergyPeriodTotals(add(hot.todayGeneration(), cold.todayGeneration()),
+                add(hot.todayConsumption(), cold.todayConsumption()),
+                add(hot.weekToDateGeneration(), cold.weekToDateGeneration()),
+                add(hot.weekToDateConsumption(), cold.weekToDateConsumption()),
+                add(hot.monthToDateGeneration(), cold.monthToDateGeneration()),
+                add(hot.monthToDateConsumption(), cold.monthToDateConsumption()),
+                add(hot.yearToDateGeneration(), cold.yearToDateGeneration()),
+                add(hot.yearToDateConsumption(), cold.yearToDateConsumption()));
+    }
+
+    private static Double add(Double hot, Double cold) {
+        if (hot == null) {
+            return cold;
+        }
+        return cold != null ? hot + cold : hot;
+    }
+
+    // Native sums come back as BigDecimal on PostgreSQL and Double or BigDecimal on H2
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+
+    /**
+     * @return The watt sum over both tiers, or null when neither has a reading in the range (as SQL SUM does)
+     */
+    private Double sum(SolarInstallation installation, LocalDateTime start, LocalDateTime end, boolean generation) {
+        Double hot = entityManager.createQuery(generation ? GENERATION_SUM_QUERY : CONSUMPTION_SUM_QUERY, Double.class)
+                .setParameter("installation", installation)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getSingleResult();
+        boolean found = hot != null;
+        double total = found ? hot : 0.0;
+
+        LocalDate firstDay = start.toLocalDate();
+        LocalDate lastDay = end.toLocalDate();
+        LocalDate firstWholeDay = start.toLocalTime().equals(LocalTime.MIDNIGHT) ? firstDay : firstDay.plusDays(1);
+        LocalDate lastWholeDay = end.toLocalTime().equals(LocalTime.MAX) ? lastDay : lastDay.minusDays(1);
+
+        if (!firstWholeDay.isAfter(lastWholeDay)) {
+            Object[] sums = entityManager.createQuery(BLOCK_SUMS_QUERY, Object[].class)
+                    .setParameter("installationId", installation.getId())
+                    .setParameter("first", firstWholeDay)
+                    .setParameter("last", lastWholeDay)
+                    .getSingleResult();
+            if (((Number) sums[0]).longValue() > 0) {
+                found = true;
+                total += ((Number) sums[generation ? 1 : 2]).doubleValue();
+            }
+        }
+
+        // The partial days at either end (at most two blocks) are decoded and filtered
+        for (LocalDate day : firstDay.equals(lastDay) ? List.of(firstDay) : List.of(firstDay, lastDay)) {
+            if (!day.isBefore(firstWholeDay) && !day.isAfter(lastWholeDay)) {
+                continue;
+            }
+            Optional<EnergyColdBlock> block = coldBlockRepository.findById(
+                    new EnergyColdBlock.Key(installation.getId(), day));
+            if (block.isEmpty()) {
+                continue;
+            }
+            for (EnergyData reading : decode(block.get(), installation)) {
+                if (!reading.getTimestamp().isBefore(start) && !reading.getTimestamp().isAfter(end)) {
+                    found = true;
+                    total += generation ? reading.getPowerGenerationWatts() : reading.getPowerConsumptionWatts();
+                }
+            }
+        }
+        return found ? total : null;
+    }
+
+    private List<EnergyData> decode(EnergyColdBlock block, SolarInstallation installation) {
+        return decodeTimer.record(() -> EnergyColdBlockCodec.decode(block.getPayload(), installation));
+    }
+}
@@ -0,0 +1,70 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.dto.EnergyHistoryPointDTO;
+import com.solar.core_services.energy_monitoring.dto.HistoryResolution;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Aggregates an installation's readings into fixed-width buckets in the database, so only one row
+ * per bucket leaves it regardless of how many readings the range holds.
+ * The bucket expressions work on both H2 and PostgreSQL.
+ * Energy integrates the intervals between readings (see EnergyDataRepositoryCustom.READING_INTERVALS_SQL);
+ * an interval counts towards the bucket of the reading that ends it.
+ */
+@Component
+@RequiredArgsConstructor
+public class EnergyHistoryBucketQuery {
+
+    private static final String BUCKET_SQL = "SELECT r.bucket_start, COUNT(*) AS readings_count, "
+            + "AVG(r.generation) AS avg_generation, MIN(r.generation) AS min_generation, MAX(r.generation) AS max_generation, "
+            + "AVG(r.consumption) AS avg_consumption, MIN(r.consumption) AS min_consumption, MAX(r.consumption) AS max_consumption, "
+            + "SUM(r.generation_wh) AS generation_wh, SUM(r.consumption_wh) AS consumption_wh "
+            + "FROM (SELECT %s AS bucket_start, i.power_generation_watts AS generation, "
+            + "i.power_consumption_watts AS consumption, i.generation_wh, i.consumption_wh FROM ("
+            + EnergyDataRepositoryCustom.READING_INTERVALS_SQL.formatted(
+                    "WHERE e.installation_id = ? AND e.timestamp >= ? AND e.timestamp < ?")
+            + ") i WHERE i.timestamp >= ?) r "
+            + "GROUP BY r.bucket_start ORDER BY r.bucket_start";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aggregate readings in [start, end) into buckets
+     * @return One point per bucket that has readings, oldest first
+     */
+    public List<EnergyHistoryPointDTO> findBuckets(Long installationId, HistoryResolution resolution,
+                                                   LocalDateTime start, LocalDateTime end) {
+        String sql = BUCKET_SQL.formatted(bucketExpression(resolution));
+        return jdbcTemplate.query(sql, (rs, rowNum) -> EnergyHistoryPointDTO.builder()
+                .bucketStart(rs.getTimestamp("bucket_start").toLocalDateTime())
+                .readingsCount(rs.getLong("readings_count"))
+                .avgGenerationWatts(rs.getDouble("avg_generation"))
+                .minGenerationWatts(rs.getDouble("min_generation"))
+                .maxGenerationWatts(rs.getDouble("max_generation"))
+                .avgConsumptionWatts(rs.getDouble("avg_consumption"))
+                .minConsumptionWatts(rs.getDouble("min_consumption"))
+                .maxConsumptionWatts(rs.getDouble("max_consumption"))
+                .generationKWh(rs.getDouble("generation_wh") / 1000.0)
+                .consumptionKWh(rs.getDouble("consumption_wh") / 1000.0)
+                .build(),
+                installationId, Timestamp.valueOf(start.minusSeconds(EnergyData.MAX_READING_GAP_SECONDS)),
+                Timestamp.valueOf(end), Timestamp.valueOf(start));
+    }
+
+    private static String bucketExpression(HistoryResolution resolution) {
+        return switch (resolution) {
+            case ONE_MINUTE -> "DATE_TRUNC('MINUTE', i.timestamp)";
+            case FIVE_MINUTES -> "DATE_TRUNC('HOUR', i.timestamp) "
+                    + "+ CAST(EXTRACT(MINUTE FROM i.timestamp) AS INTEGER) / 5 * 5 * INTERVAL '1' MINUTE";
+            case ONE_HOUR -> "DATE_TRUNC('HOUR', i.timestamp)";
+            case ONE_DAY -> "DATE_TRUNC('DAY', i.timestamp)";
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergyImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EnergyImportCheckpointRepository extends JpaRepository<EnergyImportCheckpoint, String> {
+}
@@ -0,0 +1,16 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+/**
+ * Energy in watt-hours for the dashboard periods, produced by EnergyDataRepository.sumDashboardPeriods.
+ * A sum is null when the installation has no readings in the scanned range.
+ */
+public record EnergyPeriodTotals(
+        Double todayGeneration,
+        Double todayConsumption,
+        Double weekToDateGeneration,
+        Double weekToDateConsumption,
+        Double monthToDateGeneration,
+        Double monthToDateConsumption,
+        Double yearToDateGeneration,
+        Double yearToDateConsumption) {
+}
@@ -0,0 +1,17 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergyRollupBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EnergyRollupBucketRepository extends JpaRepository<EnergyRollupBucket, EnergyRollupBucket.Key> {
+
+    List<EnergyRollupBucket> findByInstallationIdAndBucketSecondsAndBucketStartBetweenOrderByBucketStart(
+        Long installationId,
+        int bucketSeconds,
+        LocalDateTime start,
+        LocalDateTime end
+    );
+}
@@ -0,0 +1,11 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+/**
+ * The figures EnergyAggregateStore loads for one installation, produced by EnergyDataRepository.sumRunningTotals.
+ * The peak is null when the installation has no reading today.
+ */
+public record EnergyRunningTotals(
+        EnergyPeriodTotals periods,
+        Double todayPeakGenerationWatts,
+        long todayReadingsCount) {
+}
@@ -0,0 +1,20 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergySummary;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out energy_summaries primary keys from Hibernate's pooled optimizer for EnergySummary
+ * (see PooledIdAllocator), for the summaries the rollup engine derives with JDBC
+ */
+@Component
+public class EnergySummaryIdAllocator extends PooledIdAllocator {
+
+    public static final String SEQUENCE_NAME = "energy_summaries_seq";
+
+    public EnergySummaryIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        super(jdbcTemplate, entityManagerFactory, EnergySummary.class, SEQUENCE_NAME);
+    }
+}
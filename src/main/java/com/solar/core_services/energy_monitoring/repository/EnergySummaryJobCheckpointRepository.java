@@ -0,0 +1,12 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergySummaryJobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface EnergySummaryJobCheckpointRepository extends JpaRepository<EnergySummaryJobCheckpoint, String> {
+
+    List<EnergySummaryJobCheckpoint> findByRunDate(LocalDate runDate);
+}
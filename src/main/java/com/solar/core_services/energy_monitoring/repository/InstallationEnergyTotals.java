@@ -0,0 +1,10 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+/**
+ * Energy in watt-hours of one installation over a range, produced by EnergyDataRepository.findTopGenerators.
+ */
+public record InstallationEnergyTotals(
+        Long installationId,
+        Double generation,
+        Double consumption) {
+}
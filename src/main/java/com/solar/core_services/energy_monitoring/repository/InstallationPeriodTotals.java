@@ -0,0 +1,25 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+/**
+ * Energy in watt-hours of one installation for the dashboard periods, produced by
+ * EnergyDataRepository.sumDashboardPeriodsByUser.
+ */
+public record InstallationPeriodTotals(
+        Long installationId,
+        Double todayGeneration,
+        Double todayConsumption,
+        Double weekToDateGeneration,
+        Double weekToDateConsumption,
+        Double monthToDateGeneration,
+        Double monthToDateConsumption,
+        Double yearToDateGeneration,
+        Double yearToDateConsumption) {
+
+    /**
+     * The same sums without the installation
+     */
+    public EnergyPeriodTotals totals() {
+        return new EnergyPeriodTotals(todayGeneration, todayConsumption, weekToDateGeneration, weekToDateConsumption,
+                monthToDateGeneration, monthToDateConsumption, yearToDateGeneration, yearToDateConsumption);
+    }
+}
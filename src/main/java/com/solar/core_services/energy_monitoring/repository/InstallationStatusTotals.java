@@ -0,0 +1,14 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+
+/**
+ * Installation count, installed capacity and tamper alerts for one status,
+ * produced by SolarInstallationRepository.summarizeByStatus.
+ */
+public record InstallationStatusTotals(
+        SolarInstallation.InstallationStatus status,
+        Long installations,
+        Double capacityKW,
+        Long tamperAlerts) {
+}
@@ -0,0 +1,63 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Hands out an entity's primary keys to writers that bypass Hibernate (JDBC batches, bulk loads).
+ * Ids come from the same pooled optimizer instance Hibernate uses for the entity, so both draw from one
+ * in-memory block and the optimizer's hi/lo rules, including its special case for the sequence's first
+ * value, apply to every id. A second optimizer reading the sequence on its own could be handed a block
+ * Hibernate also claims.
+ */
+public abstract class PooledIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final Optimizer optimizer;
+    private final AccessCallback sequence = new AccessCallback() {
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            Long value = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+            return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(value);
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    };
+
+    protected PooledIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                                Class<?> entityClass, String sequenceName) {
+        this.jdbcTemplate = jdbcTemplate;
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.nextValueSql = sessionFactory.getJdbcServices().getDialect().getSequenceSupport()
+                .getSequenceNextValString(sequenceName);
+        Generator generator = sessionFactory.getMappingMetamodel().getEntityDescriptor(entityClass).getGenerator();
+        if (!(generator instanceof SequenceStyleGenerator sequenceGenerator)) {
+            throw new IllegalStateException(entityClass.getSimpleName() + " ids must be generated from " + sequenceName);
+        }
+        this.optimizer = sequenceGenerator.getOptimizer();
+    }
+
+    /**
+     * Reserve a run of ids. The optimizer is shared, so ids Hibernate takes meanwhile can fall between them.
+     * @param count The number of ids needed
+     * @return The reserved ids, in ascending order
+     */
+    public long[] allocate(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = ((Number) optimizer.generate(sequence)).longValue();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,115 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingDTO;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk loader that streams readings into energy_data with the PostgreSQL COPY protocol.
+ * Rows are encoded as COPY text and pushed to the server in fixed-size buffers, so a chunk
+ * never exists as one large string in memory.
+ * COPY cannot skip conflicting rows, so a chunk is copied into a temporary staging table and moved into
+ * energy_data with INSERT ... ON CONFLICT DO NOTHING, which leaves readings that are already stored alone.
+ */
+@Component
+@Profile("prod")
+@RequiredArgsConstructor
+public class PostgresCopyEnergyBulkLoader implements EnergyBulkLoader {
+
+    private static final String STAGING_TABLE = "energy_data_import";
+    private static final String CREATE_STAGING_SQL = "CREATE TEMP TABLE IF NOT EXISTS " + STAGING_TABLE
+            + " (LIKE energy_data) ON COMMIT DELETE ROWS";
+    private static final String COPY_SQL = "COPY " + STAGING_TABLE + " (" + COLUMNS + ") FROM STDIN";
+    private static final String MOVE_SQL = "INSERT INTO energy_data (" + COLUMNS + ") SELECT " + COLUMNS
+            + " FROM " + STAGING_TABLE + " ON CONFLICT DO NOTHING RETURNING id";
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final DataSource dataSource;
+
+    @Override
+    public List<EnergyReadingDTO> load(Long installationId, List<EnergyReadingDTO> readings, long[] ids) {
+        // Use the connection bound to the current transaction so the checkpoint commits with the rows
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_SQL);
+            }
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                StringBuilder buffer = new StringBuilder(BUFFER_CHARS + 256);
+                for (int i = 0; i < readings.size(); i++) {
+                    appendRow(buffer, installationId, readings.get(i), ids[i]);
+                    if (buffer.length() >= BUFFER_CHARS) {
+                        write(copyIn, buffer);
+                    }
+                }
+                write(copyIn, buffer);
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+
+            Set<Long> inserted = new HashSet<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(MOVE_SQL)) {
+                while (rs.next()) {
+                    inserted.add(rs.getLong(1));
+                }
+            }
+            List<EnergyReadingDTO> written = new ArrayList<>(inserted.size());
+            for (int i = 0; i < readings.size(); i++) {
+                if (inserted.contains(ids[i])) {
+                    written.add(readings.get(i));
+                }
+            }
+            return written;
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("COPY into energy_data", COPY_SQL, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static void appendRow(StringBuilder buffer, Long installationId, EnergyReadingDTO reading, long id) {
+        buffer.append(id).append('\t')
+                .append(installationId).append('\t')
+                .append(valueOrZero(reading.getEnergyProduced())).append('\t')
+                .append(valueOrZero(reading.getEnergyConsumed())).append('\t')
+                .append(Timestamp.valueOf(reading.getTimestamp())).append('\t')
+                .append(0.0).append('\t')
+                .append(0.0).append('\t')
+                .append("t\n"); // Assuming all data is simulated for now
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private static double valueOrZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
@@ -2,9 +2,12 @@ package com.solar.core_services.energy_monitoring.repository;
 
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.user_management.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface SolarInstallationRepository extends JpaRepository<SolarInstallation, Long> {
@@ -16,4 +19,19 @@ public interface SolarInstallationRepository extends JpaRepository<SolarInstalla
 
     @Query("SELECT i FROM SolarInstallation i WHERE i.user.id = :userId")
     List<SolarInstallation> findByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT i.id FROM SolarInstallation i ORDER BY i.id")
+    List<Long> findAllIds();
+
+    @Query("SELECT new com.solar.core_services.energy_monitoring.repository.InstallationStatusTotals("
+            + "i.status, COUNT(i), SUM(i.installedCapacityKW), "
+            + "SUM(CASE WHEN i.tamperDetected = true THEN 1 ELSE 0 END)) "
+            + "FROM SolarInstallation i GROUP BY i.status")
+    List<InstallationStatusTotals> summarizeByStatus();
+
+    @EntityGraph(attributePaths = "user")
+    List<SolarInstallation> findByStatusOrderByIdAsc(SolarInstallation.InstallationStatus status, Limit limit);
+
+    @EntityGraph(attributePaths = "user")
+    List<SolarInstallation> findByIdIn(Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.solar.core_services.energy_monitoring.scheduler;
+
+import com.solar.core_services.energy_monitoring.model.EnergyColdBlock;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockCodec;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.EnergyDerivedMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Moves readings older than the configured age out of energy_data into one compressed block per
+ * installation-day (see EnergyColdBlockCodec). Each installation-day is written and its rows deleted in
+ * one transaction; a day that already has a block (late readings arrived after it was compacted) gets
+ * its block rewritten with the new readings merged in. Ingestion keeps readings a block already holds out of
+ * energy_data (see EnergyColdReadingFilter); one that still got in, e.g. while that check could not reach the
+ * database, is deleted without being merged. Only the rows that were read are deleted, so readings inserted
+ * while a day is being compacted stay hot until the next run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EnergyColdStorageCompactor {
+
+    // Rows per DELETE statement, well below PostgreSQL's bind parameter limit
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final EnergyDataRepository energyDataRepository;
+    private final EnergyColdBlockRepository coldBlockRepository;
+    private final SolarInstallationRepository installationRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitoring.cold-storage.enabled:false}")
+    private boolean enabled;
+
+    @Value("${monitoring.cold-storage.age-days:90}")
+    private int ageDays;
+
+    @Value("${monitoring.cold-storage.max-days-per-run:7}")
+    private int maxDaysPerRun;
+
+    /**
+     * Compact expired readings nightly at 03:00
+     */
+    @Scheduled(cron = "${monitoring.cold-storage.cron:0 0 3 * * ?}")
+    public void compactExpiredReadings() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            compact(LocalDate.now());
+        } catch (Exception e) {
+            log.error("Error compacting expired energy readings", e);
+        }
+    }
+
+    /**
+     * Compact the oldest days with hot readings before today minus the configured age
+     * @return The number of blocks written
+     */
+    public synchronized int compact(LocalDate today) {
+        LocalDateTime cutoff = today.minusDays(ageDays).atStartOfDay();
+        int blocks = 0;
+        int failed = 0;
+        int days = 0;
+        // Readings never predate the epoch, so it serves as the lower bound of the first search
+        LocalDateTime from = LocalDate.EPOCH.atStartOfDay();
+        LocalDateTime oldest;
+        while (days < maxDaysPerRun && (oldest = energyDataRepository.findOldestTimestampBetween(from, cutoff)) != null) {
+            LocalDate day = oldest.toLocalDate();
+            for (Long installationId : energyDataRepository.findInstallationIdsWithReadingsBetween(
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay())) {
+                try {
+                    if (compactDay(installationId, day) > 0) {
+                        blocks++;
+                    }
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.error("Compacting readings of installation {} for {} failed; it is retried on the next run",
+                            installationId, day, e);
+                }
+            }
+            days++;
+            from = day.plusDays(1).atStartOfDay();
+        }
+        if (days > 0) {
+            log.info("Cold storage compaction wrote {} blocks over {} days before {} ({} installation-days failed)",
+                    blocks, days, cutoff.toLocalDate(), failed);
+        }
+        return blocks;
+    }
+
+    /**
+     * Compact one installation-day into its block
+     * @return The number of hot readings moved into the block
+     */
+    int compactDay(Long installationId, LocalDate day) {
+        long start = System.nanoTime();
+        try {
+            Integer moved = new TransactionTemplate(transactionManager).execute(status -> {
+                SolarInstallation installation = installationRepository.getReferenceById(installationId);
+                LocalDateTime dayStart = day.atStartOfDay();
+                LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+                List<EnergyData> hot = energyDataRepository
+                        .findByInstallationAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAscIdAsc(
+                                installation, dayStart, dayEnd);
+                if (hot.isEmpty()) {
+                    return 0;
+                }
+
+                EnergyColdBlock block = coldBlockRepository.findById(new EnergyColdBlock.Key(installationId, day))
+                        .orElseGet(EnergyColdBlock::new);
+                List<EnergyData> readings = new ArrayList<>(hot);
+                if (block.getPayload() != null) {
+                    readings = new ArrayList<>(EnergyColdBlockCodec.decode(block.getPayload(), installation));
+                    Set<LocalDateTime> compacted = readings.stream()
+                            .map(EnergyData::getTimestamp)
+                            .collect(Collectors.toSet());
+                    // Blocks keep timestamps to the millisecond
+                    hot.stream()
+                            .filter(reading -> !compacted.contains(reading.getTimestamp().truncatedTo(ChronoUnit.MILLIS)))
+                            .forEach(readings::add);
+                    readings.sort(Comparator.comparing(EnergyData::getTimestamp).thenComparing(EnergyData::getId));
+                }
+
+                int length = readings.size();
+                long[] millis = new long[length];
+                double[] generation = new double[length];
+                double[] consumption = new double[length];
+                double generationSum = 0;
+                double consumptionSum = 0;
+                for (int i = 0; i < length; i++) {
+                    EnergyData reading = readings.get(i);
+                    millis[i] = EnergyDerivedMetrics.epochMillis(reading.getTimestamp());
+                    generation[i] = reading.getPowerGenerationWatts();
+                    consumption[i] = reading.getPowerConsumptionWatts();
+                    generationSum += generation[i];
+                    consumptionSum += consumption[i];
+                }
+                double generationWh = EnergyDerivedMetrics.integrateWattHours(millis, generation, length,
+                        EnergyDerivedMetrics.MAX_GAP_MILLIS);
+                double consumptionWh = EnergyDerivedMetrics.integrateWattHours(millis, consumption, length,
+                        EnergyDerivedMetrics.MAX_GAP_MILLIS);
+                byte[] payload = EnergyColdBlockCodec.encode(readings);
+                block.setInstallationId(installationId);
+                block.setBlockDate(day);
+                block.setReadingsCount(readings.size());
+                block.setGenerationSumWatts(generationSum);
+                block.setConsumptionSumWatts(consumptionSum);
+                block.setGenerationWh(generationWh);
+                block.setConsumptionWh(consumptionWh);
+                block.setPayload(payload);
+                block.setCompactedAt(LocalDateTime.now());
+                coldBlockRepository.save(block);
+
+                List<Long> ids = hot.stream().map(EnergyData::getId).toList();
+                for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+                    energyDataRepository.deleteByIdsInRange(installation, dayStart, dayEnd,
+                            ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())));
+                }
+
+                DistributionSummary.builder("energy.cold.block.size")
+                        .description("Size of a written cold block")
+                        .baseUnit("bytes")
+                        .register(meterRegistry)
+                        .record(payload.length);
+                DistributionSummary.builder("energy.cold.block.compression.ratio")
+                        .description("Uncompressed column bytes per cold block byte")
+                        .register(meterRegistry)
+                        .record((double) readings.size() * EnergyColdBlockCodec.RAW_READING_BYTES / payload.length);
+                return hot.size();
+            });
+            int compacted = moved == null ? 0 : moved;
+            if (compacted > 0) {
+                Counter.builder("energy.cold.readings.compacted")
+                        .description("Readings moved from energy_data into cold blocks")
+                        .register(meterRegistry)
+                        .increment(compacted);
+                Counter.builder("energy.cold.blocks.written")
+                        .description("Cold blocks written or rewritten")
+                        .register(meterRegistry)
+                        .increment();
+            }
+            compactionTimer("success").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return compacted;
+        } catch (RuntimeException e) {
+            compactionTimer("failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer compactionTimer(String outcome) {
+        return Timer.builder("energy.cold.compaction.duration")
+                .description("Time taken to compact one installation-day into a cold block")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,253 @@
+package com.solar.core_services.energy_monitoring.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps energy_data range-partitioned by month on PostgreSQL.
+ * On startup a plain energy_data table (as created by Hibernate) is converted in place: the
+ * existing rows become the energy_data_legacy partition and new rows go to monthly partitions.
+ * Every night upcoming partitions are created ahead of time and partitions older than the
+ * retention period are detached, or dropped if configured. Readings outside every monthly range
+ * (a device clock years ahead, a month already expired) land in the energy_data_default partition
+ * instead of failing the insert; they move to their month's partition once it is created.
+ * Queries that constrain timestamp only touch the matching partitions.
+ */
+@Component
+@Profile("prod")
+@Order(1)
+@RequiredArgsConstructor
+@Slf4j
+public class EnergyDataPartitionManager implements ApplicationRunner {
+
+    static final String PARENT_TABLE = "energy_data";
+    static final String LEGACY_PARTITION = "energy_data_legacy";
+    static final String DEFAULT_PARTITION = "energy_data_default";
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("energy_data_p(\\d{6})");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${monitoring.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${monitoring.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${monitoring.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${monitoring.partitions.drop-expired:false}")
+    private boolean dropExpired;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        ensurePartitioned(LocalDate.now());
+        maintainPartitions();
+    }
+
+    /**
+     * Create upcoming partitions and expire old ones daily at 00:30
+     */
+    @Scheduled(cron = "${monitoring.partitions.cron:0 30 0 * * ?}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintainPartitions(LocalDate.now());
+        } catch (Exception e) {
+            log.error("Error maintaining energy_data partitions", e);
+        }
+    }
+
+    void maintainPartitions(LocalDate today) {
+        // Tables converted before the default partition existed get it here
+        jdbcTemplate.execute(createDefaultPartitionSql());
+        createUpcomingPartitions(today);
+        if (retentionMonths > 0) {
+            expirePartitions(today);
+        }
+    }
+
+    void ensurePartitioned(LocalDate today) {
+        List<String> kind = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.oid = to_regclass(?)", String.class, PARENT_TABLE);
+        if (!kind.equals(List.of("r"))) {
+            // Not created yet, or already partitioned ('p')
+            return;
+        }
+
+        LocalDateTime latest = jdbcTemplate.queryForObject(
+                "SELECT MAX(timestamp) FROM " + PARENT_TABLE, LocalDateTime.class);
+        YearMonth legacyEnd = legacyUpperBound(latest, today);
+
+        log.info("Converting {} to a partitioned table; existing rows become {} (up to {})",
+                PARENT_TABLE, LEGACY_PARTITION, boundLiteral(legacyEnd));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " RENAME TO " + LEGACY_PARTITION);
+            // Free the primary key name for the new parent table
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS energy_data_pkey RENAME TO energy_data_legacy_pkey");
+            // Secondary indexes are recreated on the parent by DatabaseIndexInitializer, which builds them on every partition
+            jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE schemaname = current_schema() "
+                            + "AND tablename = ? AND indexname <> 'energy_data_legacy_pkey'", String.class, LEGACY_PARTITION)
+                    .forEach(index -> jdbcTemplate.execute("DROP INDEX " + index));
+            jdbcTemplate.execute("CREATE TABLE " + PARENT_TABLE + " (LIKE " + LEGACY_PARTITION
+                    + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (\"timestamp\")");
+            // The partition key has to be part of the primary key
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " ADD PRIMARY KEY (id, \"timestamp\")");
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " ADD CONSTRAINT fk_energy_data_installation "
+                    + "FOREIGN KEY (installation_id) REFERENCES solar_installations (id)");
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " ATTACH PARTITION " + LEGACY_PARTITION
+                    + " FOR VALUES FROM (MINVALUE) TO ('" + boundLiteral(legacyEnd) + "')");
+            jdbcTemplate.execute(createDefaultPartitionSql());
+        });
+    }
+
+    private void createUpcomingPartitions(LocalDate today) {
+        Optional<YearMonth> firstFree = findLegacyUpperBound();
+        YearMonth current = YearMonth.from(today);
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            // Months already covered by the legacy partition cannot get their own partition
+            if (firstFree.isPresent() && month.isBefore(firstFree.get())) {
+                continue;
+            }
+            if (defaultPartitionHasRows(month)) {
+                movePartitionOutOfDefault(month);
+            } else {
+                jdbcTemplate.execute(createPartitionSql(month));
+            }
+        }
+    }
+
+    private boolean defaultPartitionHasRows(YearMonth month) {
+        Boolean found = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION
+                        + " WHERE \"timestamp\" >= ?::timestamp AND \"timestamp\" < ?::timestamp)",
+                Boolean.class, boundLiteral(month), boundLiteral(month.plusMonths(1)));
+        return Boolean.TRUE.equals(found);
+    }
+
+    /**
+     * PostgreSQL refuses to create a partition while the default partition holds rows in its range,
+     * so the default partition is detached while its rows for the month are moved over
+     */
+    private void movePartitionOutOfDefault(YearMonth month) {
+        String from = boundLiteral(month);
+        String to = boundLiteral(month.plusMonths(1));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+            jdbcTemplate.execute(createPartitionSql(month));
+            int moved = jdbcTemplate.update("INSERT INTO " + PARENT_TABLE + " SELECT * FROM " + DEFAULT_PARTITION
+                    + " WHERE \"timestamp\" >= ?::timestamp AND \"timestamp\" < ?::timestamp", from, to);
+            jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION
+                    + " WHERE \"timestamp\" >= ?::timestamp AND \"timestamp\" < ?::timestamp", from, to);
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+            log.info("Moved {} readings from {} into {}", moved, DEFAULT_PARTITION, partitionName(month));
+        });
+    }
+
+    private void expirePartitions(LocalDate today) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = to_regclass(?)", String.class, PARENT_TABLE);
+        for (String partition : partitions) {
+            Optional<YearMonth> month = partitionMonth(partition);
+            if (month.isEmpty() || !isExpired(month.get(), today, retentionMonths)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+            if (dropExpired) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped expired energy_data partition {}", partition);
+            } else {
+                log.info("Detached expired energy_data partition {}", partition);
+            }
+        }
+    }
+
+    private Optional<YearMonth> findLegacyUpperBound() {
+        List<String> bounds = jdbcTemplate.queryForList(
+                "SELECT pg_get_expr(c.relpartbound, c.oid) FROM pg_class c WHERE c.oid = to_regclass(?)",
+                String.class, LEGACY_PARTITION);
+        if (bounds.isEmpty() || bounds.get(0) == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = UPPER_BOUND.matcher(bounds.get(0));
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.from(LocalDate.parse(matcher.group(1).substring(0, 10))));
+    }
+
+    static String partitionName(YearMonth month) {
+        return "energy_data_p" + month.format(SUFFIX_FORMAT);
+    }
+
+    static String createPartitionSql(YearMonth month) {
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + PARENT_TABLE
+                + " FOR VALUES FROM ('" + boundLiteral(month) + "') TO ('" + boundLiteral(month.plusMonths(1)) + "')";
+    }
+
+    static String createDefaultPartitionSql() {
+        return "CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + PARENT_TABLE + " DEFAULT";
+    }
+
+    private static String boundLiteral(YearMonth month) {
+        return month.atDay(1) + " 00:00:00";
+    }
+
+    static Optional<YearMonth> partitionMonth(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.parse(matcher.group(1), SUFFIX_FORMAT));
+    }
+
+    /**
+     * A partition expires once all of its rows are older than the retention period
+     */
+    static boolean isExpired(YearMonth month, LocalDate today, int retentionMonths) {
+        YearMonth oldestKept = YearMonth.from(today).minusMonths(retentionMonths);
+        return month.isBefore(oldestKept);
+    }
+
+    /**
+     * The legacy partition covers every month up to and including the newest existing row,
+     * and at least everything before the current month
+     */
+    static YearMonth legacyUpperBound(LocalDateTime latestReading, LocalDate today) {
+        YearMonth current = YearMonth.from(today);
+        if (latestReading == null) {
+            return current;
+        }
+        YearMonth afterLatest = YearMonth.from(latestReading).plusMonths(1);
+        return afterLatest.isAfter(current) ? afterLatest : current;
+    }
+}
@@ -0,0 +1,113 @@
+package com.solar.core_services.energy_monitoring.scheduler;
+
+import com.solar.core_services.energy_monitoring.service.EnergyRollupEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * One-off migration for databases that stored readings before (installation, timestamp) was unique: deletes every
+ * copy of a reading but the first one stored, so DatabaseIndexInitializer can make the energy_data index unique.
+ * Opt-in, since it deletes rows; it runs at startup, before the indexes are checked, and should be disabled again
+ * once it has run. Copies are deleted per installation in batches, each in one transaction together with a rebuild
+ * of the rollup buckets of the hours they fell in, which also takes what the copies added out of the summaries
+ * already derived for those days.
+ */
+@Component
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class EnergyReadingDeduplicator implements ApplicationRunner {
+
+    // Copies after the first one stored; the timestamp lets PostgreSQL prune partitions when deleting
+    private static final String DUPLICATES_SQL = "SELECT d.id, d.timestamp FROM (SELECT e.id, e.timestamp, "
+            + "ROW_NUMBER() OVER (PARTITION BY e.timestamp ORDER BY e.id) AS copy_number "
+            + "FROM energy_data e WHERE e.installation_id = ?) d WHERE d.copy_number > 1 "
+            + "ORDER BY d.id FETCH FIRST ? ROWS ONLY";
+
+    private static final String DELETE_SQL = "DELETE FROM energy_data WHERE id = ? AND timestamp = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EnergyRollupEngine rollupEngine;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${monitoring.dedupe-readings.enabled:false}")
+    private boolean enabled;
+
+    @Value("${monitoring.dedupe-readings.batch-size:5000}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            deduplicate();
+        }
+    }
+
+    /**
+     * Delete duplicate readings of every installation
+     * @return The number of readings deleted
+     */
+    public int deduplicate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Long> installationIds = jdbcTemplate.queryForList(
+                "SELECT id FROM solar_installations ORDER BY id", Long.class);
+        int deleted = 0;
+        for (Long installationId : installationIds) {
+            int batch;
+            do {
+                Integer count = transactionTemplate.execute(status -> deleteBatch(installationId));
+                batch = count != null ? count : 0;
+                deleted += batch;
+            } while (batch == batchSize);
+        }
+        log.info("Deleted {} duplicate readings from energy_data", deleted);
+        return deleted;
+    }
+
+    private int deleteBatch(Long installationId) {
+        List<Object[]> duplicates = jdbcTemplate.query(DUPLICATES_SQL,
+                (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getTimestamp(2)}, installationId, batchSize);
+        if (duplicates.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(DELETE_SQL, duplicates, 500, (ps, duplicate) -> {
+            ps.setLong(1, (Long) duplicate[0]);
+            ps.setTimestamp(2, (Timestamp) duplicate[1]);
+        });
+
+        // The buckets of these hours counted the copies; consecutive hours are rebuilt together
+        TreeSet<LocalDateTime> hours = new TreeSet<>();
+        for (Object[] duplicate : duplicates) {
+            hours.add(((Timestamp) duplicate[1]).toLocalDateTime().truncatedTo(ChronoUnit.HOURS));
+        }
+        LocalDateTime runStart = null;
+        LocalDateTime runEnd = null;
+        for (LocalDateTime hour : hours) {
+            if (runStart != null && !hour.equals(runEnd)) {
+                rollupEngine.rebuildBuckets(runStart, runEnd, installationId, installationId);
+                runStart = null;
+            }
+            if (runStart == null) {
+                runStart = hour;
+            }
+            runEnd = hour.plusHours(1);
+        }
+        rollupEngine.rebuildBuckets(runStart, runEnd, installationId, installationId);
+        log.info("Deleted {} duplicate readings of installation {}", duplicates.size(), installationId);
+        return duplicates.size();
+    }
+}
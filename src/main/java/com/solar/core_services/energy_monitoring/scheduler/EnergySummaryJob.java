@@ -0,0 +1,261 @@
+package com.solar.core_services.energy_monitoring.scheduler;
+
+import com.solar.core_services.energy_monitoring.model.EnergySummary;
+import com.solar.core_services.energy_monitoring.model.EnergySummaryJobCheckpoint;
+import com.solar.core_services.energy_monitoring.repository.EnergySummaryJobCheckpointRepository;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.EnergyRollupEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the nightly summary generation in chunks of installation IDs on a bounded pool of virtual threads.
+ * Each chunk derives every due period for its ID range and writes its checkpoint in one transaction,
+ * so a run interrupted by a crash or restart resumes with the chunks that had not committed yet.
+ * Failed chunks are retried within the run, and each run first finishes the chunks of the previous
+ * catch-up-days run dates that never checkpointed, e.g. because the application was down when they were due.
+ * Derivation skips summaries that already exist, so re-running a chunk (e.g. after the chunk size
+ * changed) only repeats work and never duplicates rows.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EnergySummaryJob {
+
+    private final SolarInstallationRepository installationRepository;
+    private final EnergySummaryJobCheckpointRepository checkpointRepository;
+    private final EnergyRollupEngine rollupEngine;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitoring.summary.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${monitoring.summary.parallelism:4}")
+    private int parallelism;
+
+    @Value("${monitoring.summary.cron:0 0 1 * * ?}")
+    private String cron;
+
+    @Value("${monitoring.summary.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    @Value("${monitoring.summary.chunk-retries:2}")
+    private int chunkRetries;
+
+    @Value("${monitoring.summary.chunk-retry-delay-ms:5000}")
+    private long chunkRetryDelayMs;
+
+    @Value("${monitoring.summary.catch-up-days:7}")
+    private int catchUpDays;
+
+    /**
+     * Finish the runs that were due while the application was down or restarting: today's once it is due,
+     * and the earlier run dates still missing chunks
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime dueAt = CronExpression.parse(cron).next(now.toLocalDate().atStartOfDay().minusNanos(1));
+        LocalDate lastDue = dueAt == null || now.isBefore(dueAt) ? now.toLocalDate().minusDays(1) : now.toLocalDate();
+        try {
+            runWithCatchUp(lastDue);
+        } catch (Exception e) {
+            log.error("Failed to resume the summary runs up to {}", lastDue, e);
+        }
+    }
+
+    /**
+     * Finish the earlier run dates within the catch-up window that are missing chunks, then run the given date
+     * @param runDate The day the job runs
+     * @return The number of summaries written across all the run dates
+     */
+    public synchronized int runWithCatchUp(LocalDate runDate) {
+        int written = 0;
+        for (LocalDate date = runDate.minusDays(catchUpDays); date.isBefore(runDate); date = date.plusDays(1)) {
+            written += run(date);
+        }
+        return written + run(runDate);
+    }
+
+    /**
+     * Generate the summaries that are due on a run date for every installation
+     * @param runDate The day the job runs; summaries cover the periods that ended the day before
+     * @return The number of summaries written
+     */
+    public synchronized int run(LocalDate runDate) {
+        List<PeriodRange> periods = duePeriods(runDate);
+        List<Long> installationIds = installationRepository.findAllIds();
+        Set<String> completed = checkpointRepository.findByRunDate(runDate).stream()
+                .map(EnergySummaryJobCheckpoint::getChunkId)
+                .collect(Collectors.toSet());
+
+        List<List<Long>> pendingChunks = new ArrayList<>();
+        for (List<Long> chunk : chunk(installationIds, chunkSize)) {
+            if (!completed.contains(chunkId(runDate, chunk.get(0)))) {
+                pendingChunks.add(chunk);
+            }
+        }
+        if (pendingChunks.isEmpty()) {
+            log.info("Summary run for {} has nothing left to do", runDate);
+            return 0;
+        }
+
+        // Merge buckets still pending in memory once, instead of racing to do it in every chunk
+        rollupEngine.flush();
+
+        log.info("Summary run for {}: {} of {} chunks pending, periods {}", runDate, pendingChunks.size(),
+                (installationIds.size() + chunkSize - 1) / chunkSize,
+                periods.stream().map(PeriodRange::period).toList());
+
+        long start = System.nanoTime();
+        int written = 0;
+        List<List<Long>> remaining = pendingChunks;
+        try (ExecutorService pool = Executors.newFixedThreadPool(parallelism,
+                Thread.ofVirtual().name("energy-summary-", 0).factory())) {
+            for (int attempt = 0; attempt <= chunkRetries && !remaining.isEmpty(); attempt++) {
+                if (attempt > 0) {
+                    log.warn("Retrying {} failed summary chunks for {} (retry {} of {})", remaining.size(), runDate,
+                            attempt, chunkRetries);
+                    sleepBeforeRetry(runDate);
+                }
+                List<List<Long>> submitted = remaining;
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (List<Long> chunk : submitted) {
+                    futures.add(pool.submit(() -> processChunk(runDate, periods, chunk)));
+                }
+                remaining = new ArrayList<>();
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        written += futures.get(i).get();
+                    } catch (ExecutionException e) {
+                        remaining.add(submitted.get(i));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Summary run for " + runDate + " was interrupted", e);
+                    }
+                }
+            }
+        }
+
+        log.info("Summary run for {} wrote {} summaries in {} ms", runDate, written,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (!remaining.isEmpty()) {
+            log.error("{} summary chunks for {} still failed after {} retries; the next run picks them up",
+                    remaining.size(), runDate, chunkRetries);
+        }
+        return written;
+    }
+
+    private void sleepBeforeRetry(LocalDate runDate) {
+        if (chunkRetryDelayMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(chunkRetryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Summary run for " + runDate + " was interrupted", e);
+        }
+    }
+
+    private int processChunk(LocalDate runDate, List<PeriodRange> periods, List<Long> chunk) {
+        Long firstId = chunk.get(0);
+        Long lastId = chunk.get(chunk.size() - 1);
+        long start = System.nanoTime();
+        try {
+            Integer written = new TransactionTemplate(transactionManager).execute(status -> {
+                int total = 0;
+                for (PeriodRange range : periods) {
+                    total += rollupEngine.deriveSummaries(range.period(), range.start(), range.end(), firstId, lastId);
+                }
+
+                EnergySummaryJobCheckpoint checkpoint = new EnergySummaryJobCheckpoint();
+                checkpoint.setChunkId(chunkId(runDate, firstId));
+                checkpoint.setRunDate(runDate);
+                checkpoint.setFirstInstallationId(firstId);
+                checkpoint.setLastInstallationId(lastId);
+                checkpoint.setSummariesWritten(total);
+                checkpoint.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                checkpointRepository.save(checkpoint);
+                return total;
+            });
+            long elapsed = System.nanoTime() - start;
+            chunkTimer("success").record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Summary chunk {}-{} for {} wrote {} summaries in {} ms", firstId, lastId, runDate, written,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return written == null ? 0 : written;
+        } catch (RuntimeException e) {
+            chunkTimer("failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.error("Summary chunk {}-{} for {} failed",
+                    firstId, lastId, runDate, e);
+            throw e;
+        }
+    }
+
+    private Timer chunkTimer(String outcome) {
+        return Timer.builder("energy.summary.chunk.duration")
+                .description("Time taken to derive and checkpoint one chunk of installation summaries")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The summary periods due on a run date: yesterday every day, last week on Mondays,
+     * last month on the 1st and last year on January 1st
+     */
+    static List<PeriodRange> duePeriods(LocalDate runDate) {
+        LocalDate yesterday = runDate.minusDays(1);
+        List<PeriodRange> periods = new ArrayList<>();
+        periods.add(new PeriodRange(EnergySummary.SummaryPeriod.DAILY, yesterday, yesterday));
+        if (runDate.getDayOfWeek().getValue() == 1) {
+            periods.add(new PeriodRange(EnergySummary.SummaryPeriod.WEEKLY, runDate.minusDays(7), yesterday));
+        }
+        if (runDate.getDayOfMonth() == 1) {
+            periods.add(new PeriodRange(EnergySummary.SummaryPeriod.MONTHLY, yesterday.withDayOfMonth(1), yesterday));
+        }
+        if (runDate.getDayOfYear() == 1) {
+            periods.add(new PeriodRange(EnergySummary.SummaryPeriod.YEARLY, yesterday.withDayOfYear(1), yesterday));
+        }
+        return periods;
+    }
+
+    static List<List<Long>> chunk(List<Long> ids, int size) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += size) {
+            chunks.add(ids.subList(from, Math.min(from + size, ids.size())));
+        }
+        return chunks;
+    }
+
+    static String chunkId(LocalDate runDate, Long firstInstallationId) {
+        return runDate + ":" + firstInstallationId;
+    }
+
+    record PeriodRange(EnergySummary.SummaryPeriod period, LocalDate start, LocalDate end) {
+    }
+}
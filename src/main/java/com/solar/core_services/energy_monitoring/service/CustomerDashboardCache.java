@@ -0,0 +1,150 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.dto.DashboardResponse;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Customer dashboards keyed by customer, dropped when a reading of one of the customer's installations commits
+ * on this node or when one of their installations changes.
+ * Readings committed on other nodes are not seen, so entries also expire after the configured time to live.
+ * A dashboard computed while one of its readings commits is not stored: computing starts by reserving the entry,
+ * invalidation removes the reservation, and the result is only stored if the reservation is still there.
+ */
+@Component
+public class CustomerDashboardCache {
+
+    @Value("${monitoring.dashboard-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${monitoring.dashboard-cache.ttl-ms:60000}")
+    private long ttlMillis;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Installation ID -> customer ID, for the installations of cached customers
+    private final Map<Long, Long> owners = new ConcurrentHashMap<>();
+
+    /**
+     * A reserved or stored dashboard; reservations are compared by identity
+     */
+    public static final class Entry {
+        private final DashboardResponse response;
+        private final long storedAt;
+
+        private Entry(DashboardResponse response, long storedAt) {
+            this.response = response;
+            this.storedAt = storedAt;
+        }
+    }
+
+    /**
+     * Get a customer's stored dashboard, if it is still fresh
+     */
+    public Optional<DashboardResponse> get(Long customerId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Entry entry = entries.get(customerId);
+        if (entry == null || entry.response == null) {
+            return Optional.empty();
+        }
+        if (System.nanoTime() - entry.storedAt > ttlMillis * 1_000_000) {
+            entries.remove(customerId, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.response);
+    }
+
+    /**
+     * Reserve a customer's entry before computing their dashboard
+     * @param installationIds The customer's installations, whose readings invalidate the entry
+     * @return The reservation to pass to put, or null when the cache is disabled
+     */
+    public Entry reserve(Long customerId, Collection<Long> installationIds) {
+        if (!enabled) {
+            return null;
+        }
+        for (Long installationId : installationIds) {
+            owners.put(installationId, customerId);
+        }
+        Entry reservation = new Entry(null, System.nanoTime());
+        entries.put(customerId, reservation);
+        return reservation;
+    }
+
+    /**
+     * Store a computed dashboard, unless the entry was invalidated since it was reserved
+     */
+    public void put(Long customerId, Entry reservation, DashboardResponse response) {
+        if (reservation != null) {
+            entries.replace(customerId, reservation, new Entry(response, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Drop the dashboards of saved readings' customers once the current transaction commits,
+     * or right away when there is none
+     */
+    public void invalidateAfterCommit(List<EnergyData> readings) {
+        if (!enabled || readings.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateAll(readings);
+                }
+            });
+        } else {
+            invalidateAll(readings);
+        }
+    }
+
+    /**
+     * Drop the dashboard of the customer owning an installation
+     */
+    public void invalidate(Long installationId) {
+        if (!enabled) {
+            return;
+        }
+        Long customerId = owners.get(installationId);
+        if (customerId != null) {
+            entries.remove(customerId);
+        }
+    }
+
+    /**
+     * Drop the dashboards an installation was or now is part of, after it was created or changed
+     */
+    public void invalidate(SolarInstallation installation) {
+        if (!enabled) {
+            return;
+        }
+        if (installation.getId() != null) {
+            Long previousOwner = owners.remove(installation.getId());
+            if (previousOwner != null) {
+                entries.remove(previousOwner);
+            }
+        }
+        if (installation.getUser() != null && installation.getUser().getId() != null) {
+            entries.remove(installation.getUser().getId());
+        }
+    }
+
+    private void invalidateAll(List<EnergyData> readings) {
+        for (EnergyData reading : readings) {
+            invalidate(reading.getInstallation().getId());
+        }
+    }
+}
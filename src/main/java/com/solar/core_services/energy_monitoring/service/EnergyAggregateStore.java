@@ -0,0 +1,394 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.EnergySummary;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyPeriodTotals;
+import com.solar.core_services.energy_monitoring.repository.EnergyRunningTotals;
+import com.solar.core_services.energy_monitoring.repository.EnergySummaryRepository;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory running totals per installation, so dashboards read today/week/month/year figures
+ * without scanning energy_data.
+ * Each installation owns one slot in a set of primitive arrays. Sums are energy in watt-hours, the same
+ * figures EnergyDataRepository.sumDashboardPeriods returns, and are reset when their period rolls over.
+ * A reading adds the energy of the interval since the installation's newest reading, to the periods it falls in.
+ * An installation is loaded on first use (or at startup) from its DAILY summaries plus aggregate rows over the
+ * readings of days not summarized, without loading the readings; readings accepted after that are added as they
+ * commit. A reading that commits while its installation is being loaded can be missed or counted twice, so loaded
+ * installations are periodically resynced from the database. A reading older than the newest adds no energy
+ * until then.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EnergyAggregateStore {
+
+    static final int DAY = 0;
+    static final int WEEK = 1;
+    static final int MONTH = 2;
+    static final int YEAR = 3;
+    private static final int PERIODS = 4;
+
+    private final EnergyDataRepository energyDataRepository;
+    private final EnergySummaryRepository summaryRepository;
+    private final SolarInstallationRepository installationRepository;
+
+    @Value("${monitoring.aggregates.enabled:true}")
+    private boolean enabled;
+
+    @Value("${monitoring.aggregates.warm-on-startup:true}")
+    private boolean warmOnStartup;
+
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private int size;
+    private double[] currentGeneration = new double[0];
+    private double[] currentConsumption = new double[0];
+    private long[] lastReadingMillis = new long[0];
+    private double[] todayPeakGeneration = new double[0];
+    private long[] todayCount = new long[0];
+    // Indexed slot * PERIODS + period
+    private long[] periodKeys = new long[0];
+    private double[] generationSums = new double[0];
+    private double[] consumptionSums = new double[0];
+
+    /**
+     * A consistent copy of one installation's running totals
+     */
+    public record Snapshot(
+            double currentGenerationWatts,
+            double currentConsumptionWatts,
+            double todayGeneration,
+            double todayConsumption,
+            double weekToDateGeneration,
+            double weekToDateConsumption,
+            double monthToDateGeneration,
+            double monthToDateConsumption,
+            double yearToDateGeneration,
+            double yearToDateConsumption,
+            double todayPeakGenerationWatts,
+            long todayReadingCount) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Load every installation before traffic arrives
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || !warmOnStartup) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<SolarInstallation> installations = installationRepository.findAll();
+        for (SolarInstallation installation : installations) {
+            try {
+                rebuild(installation, LocalDate.now());
+            } catch (Exception e) {
+                log.warn("Failed to load running totals for installation {}", installation.getId(), e);
+            }
+        }
+        log.info("Loaded running totals for {} installations in {} ms",
+                installations.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Reload loaded installations from the database to correct any drift
+     */
+    @Scheduled(cron = "${monitoring.aggregates.resync-cron:0 */15 * * * ?}")
+    public void resync() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> loaded;
+        synchronized (this) {
+            loaded = new ArrayList<>(slots.keySet());
+        }
+        for (Long installationId : loaded) {
+            try {
+                installationRepository.findById(installationId)
+                        .ifPresent(installation -> rebuild(installation, LocalDate.now()));
+            } catch (Exception e) {
+                log.warn("Failed to resync running totals for installation {}", installationId, e);
+            }
+        }
+    }
+
+    /**
+     * Get an installation's running totals, loading them first if needed
+     * @param installation The installation
+     * @return The totals, or empty when the store is disabled
+     */
+    public Optional<Snapshot> snapshot(SolarInstallation installation) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        LocalDate today = LocalDate.now();
+        Optional<Snapshot> snapshot = read(installation.getId(), today);
+        if (snapshot.isPresent()) {
+            return snapshot;
+        }
+        rebuild(installation, today);
+        return read(installation.getId(), today);
+    }
+
+    /**
+     * Add saved readings once the current transaction commits, or right away when there is none
+     */
+    public void recordAfterCommit(List<EnergyData> readings) {
+        if (!enabled || readings.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordAll(readings);
+                }
+            });
+        } else {
+            recordAll(readings);
+        }
+    }
+
+    /**
+     * Add a committed reading to its installation's totals.
+     * Installations that are not loaded yet are skipped; loading reads the reading from the database.
+     */
+    public void record(Long installationId, LocalDateTime timestamp,
+                       double powerGenerationWatts, double powerConsumptionWatts) {
+        if (!enabled) {
+            return;
+        }
+        record(installationId, timestamp, powerGenerationWatts, powerConsumptionWatts, LocalDate.now());
+    }
+
+    private void recordAll(List<EnergyData> readings) {
+        for (EnergyData reading : readings) {
+            record(reading.getInstallation().getId(), reading.getTimestamp(),
+                    reading.getPowerGenerationWatts(), reading.getPowerConsumptionWatts());
+        }
+    }
+
+    synchronized void record(Long installationId, LocalDateTime timestamp,
+                             double powerGenerationWatts, double powerConsumptionWatts, LocalDate today) {
+        Integer slot = slots.get(installationId);
+        if (slot == null || timestamp == null) {
+            return;
+        }
+        rollOver(slot, today);
+
+        // Only readings inside a current period count towards it
+        LocalDate date = timestamp.toLocalDate();
+        if (date.isAfter(today)) {
+            return;
+        }
+        long millis = EnergyDerivedMetrics.epochMillis(timestamp);
+        double generationWh = EnergyDerivedMetrics.intervalWattHours(lastReadingMillis[slot], currentGeneration[slot],
+                millis, powerGenerationWatts, EnergyDerivedMetrics.MAX_GAP_MILLIS);
+        double consumptionWh = EnergyDerivedMetrics.intervalWattHours(lastReadingMillis[slot], currentConsumption[slot],
+                millis, powerConsumptionWatts, EnergyDerivedMetrics.MAX_GAP_MILLIS);
+        long[] readingKeys = periodKeys(date);
+        for (int period = 0; period < PERIODS; period++) {
+            int index = slot * PERIODS + period;
+            if (periodKeys[index] == readingKeys[period]) {
+                generationSums[index] += generationWh;
+                consumptionSums[index] += consumptionWh;
+            }
+        }
+        if (date.equals(today)) {
+            todayPeakGeneration[slot] = Math.max(todayPeakGeneration[slot], powerGenerationWatts);
+            todayCount[slot]++;
+        }
+
+        if (millis >= lastReadingMillis[slot]) {
+            lastReadingMillis[slot] = millis;
+            currentGeneration[slot] = powerGenerationWatts;
+            currentConsumption[slot] = powerConsumptionWatts;
+        }
+    }
+
+    synchronized Optional<Snapshot> read(Long installationId, LocalDate today) {
+        Integer slot = slots.get(installationId);
+        if (slot == null) {
+            return Optional.empty();
+        }
+        rollOver(slot, today);
+        int base = slot * PERIODS;
+        return Optional.of(new Snapshot(
+                currentGeneration[slot],
+                currentConsumption[slot],
+                generationSums[base + DAY],
+                consumptionSums[base + DAY],
+                generationSums[base + WEEK],
+                consumptionSums[base + WEEK],
+                generationSums[base + MONTH],
+                consumptionSums[base + MONTH],
+                generationSums[base + YEAR],
+                consumptionSums[base + YEAR],
+                todayPeakGeneration[slot],
+                todayCount[slot]));
+    }
+
+    /**
+     * Recompute one installation's totals from DAILY summaries plus the raw readings of every day without one
+     */
+    void rebuild(SolarInstallation installation, LocalDate today) {
+        LocalDate[] starts = periodStarts(today);
+        LocalDate scanStartDate = starts[WEEK].isBefore(starts[YEAR]) ? starts[WEEK] : starts[YEAR];
+        double[] generation = new double[PERIODS];
+        double[] consumption = new double[PERIODS];
+
+        // Summarized days, in watt-hours
+        List<EnergySummary> summaries = summaryRepository.findByInstallationAndPeriodAndDateBetweenOrderByDateDesc(
+                installation, EnergySummary.SummaryPeriod.DAILY, scanStartDate, today.minusDays(1));
+        LocalDate rawStartDate = summaries.isEmpty() ? scanStartDate : summaries.get(0).getDate().plusDays(1);
+        LocalDate unsummarizedDate = scanStartDate;
+        for (int i = summaries.size() - 1; i >= 0; i--) {
+            EnergySummary summary = summaries.get(i);
+            // Days before this one that were never summarized, e.g. after a failed summary run, as one aggregate row
+            if (summary.getDate().isAfter(unsummarizedDate)) {
+                LocalDateTime unsummarizedEnd = LocalDateTime.of(summary.getDate().minusDays(1), LocalTime.MAX);
+                add(energyDataRepository.sumDashboardPeriods(installation, starts[DAY].atStartOfDay(),
+                        starts[WEEK].atStartOfDay(), starts[MONTH].atStartOfDay(), starts[YEAR].atStartOfDay(),
+                        unsummarizedDate.atStartOfDay(), unsummarizedEnd), generation, consumption);
+            }
+            unsummarizedDate = summary.getDate().plusDays(1);
+
+            double generationWh = summary.getTotalGenerationKWh() * 1000.0;
+            double consumptionWh = summary.getTotalConsumptionKWh() * 1000.0;
+            for (int period = 0; period < PERIODS; period++) {
+                if (!summary.getDate().isBefore(starts[period])) {
+                    generation[period] += generationWh;
+                    consumption[period] += consumptionWh;
+                }
+            }
+        }
+
+        // Days not summarized yet, including today, with today's peak and count, as one aggregate row
+        LocalDateTime endOfDay = LocalDateTime.of(today, LocalTime.MAX);
+        EnergyRunningTotals running = energyDataRepository.sumRunningTotals(installation,
+                starts[DAY].atStartOfDay(), starts[WEEK].atStartOfDay(), starts[MONTH].atStartOfDay(),
+                starts[YEAR].atStartOfDay(), rawStartDate.atStartOfDay(), endOfDay);
+        add(running != null ? running.periods() : null, generation, consumption);
+
+        double peak = running != null ? orZero(running.todayPeakGenerationWatts()) : 0;
+        long count = running != null ? running.todayReadingsCount() : 0;
+        EnergyData latest = energyDataRepository.findFirstByInstallationOrderByTimestampDescIdDesc(installation)
+                .orElse(null);
+
+        long[] keys = periodKeys(today);
+        synchronized (this) {
+            int slot = slotFor(installation.getId());
+            int base = slot * PERIODS;
+            System.arraycopy(keys, 0, periodKeys, base, PERIODS);
+            System.arraycopy(generation, 0, generationSums, base, PERIODS);
+            System.arraycopy(consumption, 0, consumptionSums, base, PERIODS);
+            todayPeakGeneration[slot] = peak;
+            todayCount[slot] = count;
+            currentGeneration[slot] = latest != null ? latest.getPowerGenerationWatts() : 0;
+            currentConsumption[slot] = latest != null ? latest.getPowerConsumptionWatts() : 0;
+            lastReadingMillis[slot] = latest != null ? EnergyDerivedMetrics.epochMillis(latest.getTimestamp()) : Long.MIN_VALUE;
+        }
+    }
+
+    private static void add(EnergyPeriodTotals raw, double[] generation, double[] consumption) {
+        if (raw == null) {
+            return;
+        }
+        generation[DAY] += orZero(raw.todayGeneration());
+        consumption[DAY] += orZero(raw.todayConsumption());
+        generation[WEEK] += orZero(raw.weekToDateGeneration());
+        consumption[WEEK] += orZero(raw.weekToDateConsumption());
+        generation[MONTH] += orZero(raw.monthToDateGeneration());
+        consumption[MONTH] += orZero(raw.monthToDateConsumption());
+        generation[YEAR] += orZero(raw.yearToDateGeneration());
+        consumption[YEAR] += orZero(raw.yearToDateConsumption());
+    }
+
+    private void rollOver(int slot, LocalDate today) {
+        long[] keys = periodKeys(today);
+        int base = slot * PERIODS;
+        for (int period = 0; period < PERIODS; period++) {
+            if (periodKeys[base + period] != keys[period]) {
+                periodKeys[base + period] = keys[period];
+                generationSums[base + period] = 0;
+                consumptionSums[base + period] = 0;
+                if (period == DAY) {
+                    todayPeakGeneration[slot] = 0;
+                    todayCount[slot] = 0;
+                }
+            }
+        }
+    }
+
+    private int slotFor(Long installationId) {
+        Integer slot = slots.get(installationId);
+        if (slot != null) {
+            return slot;
+        }
+        if (size == currentGeneration.length) {
+            grow(Math.max(16, size * 2));
+        }
+        slots.put(installationId, size);
+        return size++;
+    }
+
+    private void grow(int capacity) {
+        currentGeneration = Arrays.copyOf(currentGeneration, capacity);
+        currentConsumption = Arrays.copyOf(currentConsumption, capacity);
+        lastReadingMillis = Arrays.copyOf(lastReadingMillis, capacity);
+        todayPeakGeneration = Arrays.copyOf(todayPeakGeneration, capacity);
+        todayCount = Arrays.copyOf(todayCount, capacity);
+        periodKeys = Arrays.copyOf(periodKeys, capacity * PERIODS);
+        generationSums = Arrays.copyOf(generationSums, capacity * PERIODS);
+        consumptionSums = Arrays.copyOf(consumptionSums, capacity * PERIODS);
+    }
+
+    // Same period boundaries as the dashboard: ISO week starting Monday, calendar month and year
+    private static LocalDate[] periodStarts(LocalDate date) {
+        LocalDate[] starts = new LocalDate[PERIODS];
+        starts[DAY] = date;
+        starts[WEEK] = date.minusDays(date.getDayOfWeek().getValue() - 1);
+        starts[MONTH] = date.withDayOfMonth(1);
+        starts[YEAR] = date.withDayOfYear(1);
+        return starts;
+    }
+
+    private static long[] periodKeys(LocalDate date) {
+        LocalDate[] starts = periodStarts(date);
+        long[] keys = new long[PERIODS];
+        for (int period = 0; period < PERIODS; period++) {
+            keys[period] = starts[period].toEpochDay();
+        }
+        return keys;
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
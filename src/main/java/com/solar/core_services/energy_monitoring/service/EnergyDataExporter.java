@@ -0,0 +1,141 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams an installation's readings as CSV straight from a forward-only JDBC cursor to the response.
+ * Rows are written as they are fetched (fetchSize at a time, inside a read-only transaction so
+ * PostgreSQL uses a server-side cursor), so memory use does not grow with the size of the export.
+ * Rows come out in (timestamp, id) order; an interrupted download resumes by passing the timestamp
+ * and id of the last complete row received.
+ */
+@Component
+@Slf4j
+public class EnergyDataExporter {
+
+    public static final String CSV_HEADER = "id,installation_id,timestamp,power_generation_watts,"
+            + "power_consumption_watts,daily_yield_kwh,total_yield_kwh,is_simulated";
+
+    private static final String SELECT_SQL = "SELECT e.id, e.timestamp, e.power_generation_watts, "
+            + "e.power_consumption_watts, e.daily_yieldkwh, e.total_yieldkwh, e.is_simulated FROM energy_data e "
+            + "WHERE e.installation_id = ? AND e.timestamp >= ? AND e.timestamp < ?";
+
+    private static final String AFTER_CURSOR_SQL = " AND (e.timestamp > ? OR (e.timestamp = ? AND e.id > ?))";
+
+    private static final String ORDER_SQL = " ORDER BY e.timestamp, e.id";
+
+    private final SolarInstallationRepository installationRepository;
+    private final JdbcTemplate exportJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public EnergyDataExporter(SolarInstallationRepository installationRepository, JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${monitoring.export.fetch-size:1000}") int fetchSize) {
+        this.installationRepository = installationRepository;
+        // A template of its own so the fetch size does not apply to every other query
+        this.exportJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Prepare a CSV export of readings in [start, end); the installation is checked before anything is streamed
+     * @param afterTimestamp Together with afterId, resume after this row; null for a full export
+     * @param afterId The ID of the last row already received
+     * @param gzip Whether to gzip the stream
+     * @return A body that writes the export when the response is sent
+     */
+    public StreamingResponseBody csv(Long installationId, LocalDateTime start, LocalDateTime end,
+                                     LocalDateTime afterTimestamp, Long afterId, boolean gzip) {
+        if (!installationRepository.existsById(installationId)) {
+            throw new ResourceNotFoundException("Solar installation not found with ID: " + installationId);
+        }
+        return out -> writeCsv(installationId, start, end, afterTimestamp, afterId, gzip ? new GZIPOutputStream(out, 65536) : out);
+    }
+
+    /**
+     * Write readings as CSV, header first
+     * @return The number of rows written
+     */
+    public long writeCsv(Long installationId, LocalDateTime start, LocalDateTime end,
+                         LocalDateTime afterTimestamp, Long afterId, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>(List.of(installationId, Timestamp.valueOf(start), Timestamp.valueOf(end)));
+        boolean resuming = afterTimestamp != null && afterId != null;
+        if (resuming) {
+            sql.append(AFTER_CURSOR_SQL);
+            args.add(Timestamp.valueOf(afterTimestamp));
+            args.add(Timestamp.valueOf(afterTimestamp));
+            args.add(afterId);
+        }
+        sql.append(ORDER_SQL);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 65536);
+        long[] rows = {0};
+        // A resumed download continues the file it started, so only a fresh export gets the header
+        if (!resuming) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        RowCallbackHandler rowWriter = rs -> {
+            try {
+                writer.write(Long.toString(rs.getLong(1)));
+                writer.write(',');
+                writer.write(installationId.toString());
+                writer.write(',');
+                writer.write(rs.getTimestamp(2).toLocalDateTime().toString());
+                writer.write(',');
+                writer.write(Double.toString(rs.getDouble(3)));
+                writer.write(',');
+                writer.write(Double.toString(rs.getDouble(4)));
+                writer.write(',');
+                writer.write(Double.toString(rs.getDouble(5)));
+                writer.write(',');
+                writer.write(Double.toString(rs.getDouble(6)));
+                writer.write(',');
+                writer.write(Boolean.toString(rs.getBoolean(7)));
+                writer.write('\n');
+                rows[0]++;
+            } catch (IOException e) {
+                // Usually the client went away; abandon the query
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    exportJdbcTemplate.query(sql.toString(), rowWriter, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        if (out instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        log.debug("Exported {} readings for installation {}", rows[0], installationId);
+        return rows[0];
+    }
+}
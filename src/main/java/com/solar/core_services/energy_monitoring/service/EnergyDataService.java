@@ -1,9 +1,12 @@
 package com.solar.core_services.energy_monitoring.service;
 
+import com.solar.core_services.energy_monitoring.dto.BulkImportResultDTO;
 import com.solar.core_services.energy_monitoring.dto.DashboardResponse;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataRequest;
+import com.solar.core_services.energy_monitoring.dto.EnergyHistorySeriesDTO;
 import com.solar.core_services.energy_monitoring.dto.EnergyReadingBatchDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingPageDTO;
 import com.solar.core_services.energy_monitoring.model.EnergyData;
 
 import java.time.LocalDateTime;
@@ -23,6 +26,15 @@ public interface EnergyDataService {
      * @return List of processed and stored energy data
      */
     List<EnergyDataDTO> processEnergyDataBatch(EnergyReadingBatchDTO batchRequest);
+
+    /**
+     * Bulk-load a large backlog of readings without going through JPA.
+     * Readings are committed in chunks together with a checkpoint, so resubmitting the same
+     * batch with the same import ID continues from the last committed offset.
+     * @param batchRequest The batch of readings from the device
+     * @return The import outcome including throughput
+     */
+    BulkImportResultDTO importEnergyDataBatch(EnergyReadingBatchDTO batchRequest);
     
     /**
      * Get recent energy readings for a specific installation
@@ -32,6 +44,28 @@ public interface EnergyDataService {
      */
     List<EnergyDataDTO> getRecentReadings(Long installationId, int limit);
     
+    /**
+     * Get one page of an installation's reading history, newest first, using a keyset cursor
+     * @param installationId The ID of the installation
+     * @param cursor The nextCursor of the previous page, or null for the first page
+     * @param limit The maximum number of readings in the page
+     * @return The page of readings and the cursor for the next page
+     */
+    EnergyReadingPageDTO getReadingsPage(Long installationId, String cursor, int limit);
+
+    /**
+     * Get an installation's readings aggregated into fixed-width buckets, computed in the database
+     * @param installationId The ID of the installation
+     * @param startDate The start of the range, inclusive
+     * @param endDate The end of the range, exclusive
+     * @param resolution 1m, 5m, 1h or 1d; auto or null picks the finest that fits maxPoints
+     * @param maxPoints The points budget for automatic resolution
+     * @return The bucketed series, oldest bucket first
+     * @throws com.solar.exception.InvalidHistoryQueryException if the resolution is unknown or needs too many points
+     */
+    EnergyHistorySeriesDTO getDownsampledHistory(Long installationId, LocalDateTime startDate, LocalDateTime endDate,
+                                                 String resolution, int maxPoints);
+
     /**
      * Get energy readings for a specific installation within a date range
      * @param installationId The ID of the installation
@@ -0,0 +1,157 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Metrics derived from a reading's generation and consumption and its installation's capacity:
+ * net export, utilization of the installed capacity, generation/consumption efficiency and the
+ * utilization-banded efficiency dashboards report as average efficiency.
+ * The batch methods loop over primitive arrays with conditional expressions rather than if statements, so
+ * C2 can vectorize them with superword; the single-value methods apply the same formulas to one reading.
+ */
+public final class EnergyDerivedMetrics {
+
+    /**
+     * Longest interval between two readings that is integrated (see EnergyData.MAX_READING_GAP_SECONDS)
+     */
+    public static final long MAX_GAP_MILLIS = EnergyData.MAX_READING_GAP_SECONDS * 1000L;
+
+    private EnergyDerivedMetrics() {
+    }
+
+    /**
+     * Generation as a fraction of installed capacity, at most 1; 0 without a known capacity
+     */
+    public static double utilization(double powerGenerationWatts, double installedCapacityKW) {
+        double capacityWatts = installedCapacityKW * 1000;
+        return capacityWatts > 0 ? Math.min(1.0, powerGenerationWatts / capacityWatts) : 0;
+    }
+
+    /**
+     * Generation as a percentage of consumption; 0 without consumption
+     */
+    public static double efficiencyPercentage(double powerGenerationWatts, double powerConsumptionWatts) {
+        return normalizePercentage(powerConsumptionWatts > 0 ? powerGenerationWatts / powerConsumptionWatts * 100 : 0);
+    }
+
+    /**
+     * Efficiencies in (0, 1] are taken to be fractions and scaled to a percentage
+     */
+    public static double normalizePercentage(double efficiency) {
+        return efficiency > 0 && efficiency <= 1.0 ? efficiency * 100.0 : efficiency;
+    }
+
+    /**
+     * Efficiency banded by utilization: 90-100% near capacity, 70-90% at medium utilization, and at low
+     * utilization the larger of the efficiency (capped at 100%) and a 0-70% ramp. Without production it is the
+     * capped efficiency, and 0 without a known capacity.
+     * @param efficiencyPercentage An already normalized efficiency
+     */
+    public static double bandedEfficiency(double utilization, double efficiencyPercentage, double installedCapacityKW) {
+        double capped = Math.min(100.0, efficiencyPercentage);
+        double high = 90.0 + 10.0 * utilization;
+        double medium = 70.0 + 20.0 * ((utilization - 0.3) / 0.4);
+        double low = Math.max(capped, utilization * 70.0 / 0.3);
+        double banded = utilization > 0.7 ? high : utilization > 0.3 ? medium : utilization > 0 ? low : capped;
+        return installedCapacityKW > 0 ? banded : 0;
+    }
+
+    /**
+     * Derive the metrics of the first length readings. Each reading has its own capacity, so one call can cover
+     * readings of several installations.
+     */
+    public static void derive(double[] powerGenerationWatts, double[] powerConsumptionWatts,
+                              double[] installedCapacityKW, int length, double[] netPowerWatts,
+                              double[] utilization, double[] efficiencyPercentage, double[] bandedEfficiency) {
+        for (int i = 0; i < length; i++) {
+            double generation = powerGenerationWatts[i];
+            double consumption = powerConsumptionWatts[i];
+            double capacity = installedCapacityKW[i];
+            double rate = utilization(generation, capacity);
+            double efficiency = efficiencyPercentage(generation, consumption);
+            netPowerWatts[i] = generation - consumption;
+            utilization[i] = rate;
+            efficiencyPercentage[i] = efficiency;
+            bandedEfficiency[i] = bandedEfficiency(rate, efficiency, capacity);
+        }
+    }
+
+    /**
+     * Set a reading's derived metrics
+     */
+    public static void apply(EnergyData reading, double installedCapacityKW) {
+        double generation = reading.getPowerGenerationWatts();
+        double consumption = reading.getPowerConsumptionWatts();
+        double rate = utilization(generation, installedCapacityKW);
+        double efficiency = efficiencyPercentage(generation, consumption);
+        reading.setNetPowerWatts(generation - consumption);
+        reading.setUtilizationRate(rate);
+        reading.setEfficiencyPercentage(efficiency);
+        reading.setBandedEfficiencyPercentage(bandedEfficiency(rate, efficiency, installedCapacityKW));
+    }
+
+    /**
+     * Set the derived metrics of readings of one installation, running derive over their values in one pass
+     */
+    public static void apply(List<EnergyData> readings, double installedCapacityKW) {
+        int length = readings.size();
+        double[] generation = new double[length];
+        double[] consumption = new double[length];
+        double[] capacity = new double[length];
+        for (int i = 0; i < length; i++) {
+            EnergyData reading = readings.get(i);
+            generation[i] = reading.getPowerGenerationWatts();
+            consumption[i] = reading.getPowerConsumptionWatts();
+            capacity[i] = installedCapacityKW;
+        }
+        double[] netPower = new double[length];
+        double[] utilization = new double[length];
+        double[] efficiency = new double[length];
+        double[] banded = new double[length];
+        derive(generation, consumption, capacity, length, netPower, utilization, efficiency, banded);
+        for (int i = 0; i < length; i++) {
+            EnergyData reading = readings.get(i);
+            reading.setNetPowerWatts(netPower[i]);
+            reading.setUtilizationRate(utilization[i]);
+            reading.setEfficiencyPercentage(efficiency[i]);
+            reading.setBandedEfficiencyPercentage(banded[i]);
+        }
+    }
+
+    /**
+     * Energy in watt-hours of a series of power readings, integrating each interval with the trapezoid rule.
+     * Intervals that are not positive (duplicate or out of order timestamps) or longer than maxGapMillis
+     * (the device was offline) contribute nothing.
+     * @param epochMillis Reading timestamps in ascending order
+     */
+    public static double integrateWattHours(long[] epochMillis, double[] watts, int length, long maxGapMillis) {
+        double wattMillis = 0;
+        for (int i = 1; i < length; i++) {
+            long interval = epochMillis[i] - epochMillis[i - 1];
+            double area = (watts[i] + watts[i - 1]) * 0.5 * interval;
+            wattMillis += interval > 0 && interval <= maxGapMillis ? area : 0;
+        }
+        return wattMillis / 3_600_000.0;
+    }
+
+    /**
+     * Energy in watt-hours of the interval between two readings, integrated the same way as integrateWattHours
+     */
+    public static double intervalWattHours(long fromMillis, double fromWatts, long toMillis, double toWatts,
+                                           long maxGapMillis) {
+        long interval = toMillis - fromMillis;
+        double area = (fromWatts + toWatts) * 0.5 * interval;
+        return (interval > 0 && interval <= maxGapMillis ? area : 0) / 3_600_000.0;
+    }
+
+    /**
+     * A reading timestamp as milliseconds for integration; timestamps are local, so any fixed offset will do
+     */
+    public static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
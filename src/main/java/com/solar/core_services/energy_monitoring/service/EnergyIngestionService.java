@@ -0,0 +1,40 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyDataRequest;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingFrameResultDTO;
+
+import java.nio.ByteBuffer;
+
+public interface EnergyIngestionService {
+    /**
+     * Whether device readings should be acknowledged immediately and persisted
+     * asynchronously by the background flusher instead of in the request thread
+     * @return True if write-behind ingestion is enabled
+     */
+    boolean isWriteBehindEnabled();
+
+    /**
+     * Queue a device reading for a later group commit
+     * @param request The energy data request from the device
+     * @return The accepted reading (without a database ID, which is assigned on flush)
+     * @throws com.solar.exception.IngestionOverloadedException if the ingestion queue is full
+     */
+    EnergyDataDTO enqueue(EnergyDataRequest request);
+
+    /**
+     * Decode a binary reading frame straight into the ingestion queue.
+     * Without write-behind the frame's readings are written before returning, without going through the queue.
+     * @param frame The frame in the EnergyReadingFrame layout
+     * @return The installation, number of readings accepted, and whether all of them are stored
+     * @throws com.solar.exception.InvalidReadingFrameException if the frame is malformed
+     * @throws com.solar.exception.IngestionOverloadedException if the queue cannot hold the frame
+     */
+    EnergyReadingFrameResultDTO enqueueFrame(ByteBuffer frame);
+
+    /**
+     * Get the number of readings waiting to be flushed
+     * @return The current queue depth
+     */
+    int getQueueDepth();
+}
@@ -0,0 +1,456 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The newest readings of each installation in a fixed-size memory-mapped file, so recent readings,
+ * dashboard "current" figures and short-range history are served without querying energy_data.
+ * Each installation owns a ring of slots stored as primitive columns (ids, timestamps, four value
+ * columns, utilization and banded efficiency, flags). Committed readings are appended as they are written; an installation's ring is
+ * loaded from the database on first use.
+ * The file outlives restarts: after a clean shutdown a ring only fetches the readings committed since
+ * its newest one, after a crash it is reloaded. Readings committed by other nodes are not seen, so the
+ * store should only be enabled where a single node ingests each installation's readings.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EnergyRecentReadingStore {
+
+    private static final int MAGIC = 0x31525253; // "SRR1" little-endian
+    // Version 2 added the derived utilization and banded efficiency columns
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int CLEAN_SHUTDOWN_OFFSET = 16;
+    private static final int DIRECTORY_ENTRY_BYTES = 16;
+    // id, timestamp, generation, consumption, daily yield, total yield, utilization, banded efficiency
+    // (8 bytes each) and a flag byte
+    private static final int READING_BYTES = 8 * 8 + 1;
+    private static final int FLAG_COLUMN = 8;
+
+    // Ring states: readings may be missing, readings after the newest may be missing, up to date
+    private static final byte STALE = 0;
+    private static final byte BEHIND = 1;
+    private static final byte CURRENT = 2;
+
+    private final EnergyDataRepository energyDataRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitoring.recent-store.enabled:false}")
+    private boolean enabled;
+
+    @Value("${monitoring.recent-store.path:data/recent-readings.ring}")
+    private String path;
+
+    @Value("${monitoring.recent-store.max-installations:1024}")
+    private int maxInstallations;
+
+    @Value("${monitoring.recent-store.slots-per-installation:2160}")
+    private int slotsPerInstallation;
+
+    private MappedByteBuffer buffer;
+    private final Map<Long, Integer> rings = new HashMap<>();
+    private int used;
+    private byte[] states;
+    // Whether a ring holds the installation's entire history, not only its newest readings
+    private boolean[] complete;
+    private Counter hits;
+    private Counter misses;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long size = HEADER_BYTES + (long) maxInstallations * DIRECTORY_ENTRY_BYTES
+                + (long) maxInstallations * slotsPerInstallation * READING_BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Recent reading store of " + size + " bytes exceeds the 2 GB mapping limit; "
+                    + "lower monitoring.recent-store.max-installations or slots-per-installation");
+        }
+        hits = Counter.builder("energy.recent.store.reads").tag("outcome", "hit")
+                .description("Reads served from the recent reading store").register(meterRegistry);
+        misses = Counter.builder("energy.recent.store.reads").tag("outcome", "miss")
+                .description("Reads the recent reading store could not serve").register(meterRegistry);
+
+        Path file = Path.of(path).toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            boolean compatible = channel.size() == size;
+            if (!compatible) {
+                channel.truncate(0);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            compatible = compatible && buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION
+                    && buffer.getInt(8) == maxInstallations && buffer.getInt(12) == slotsPerInstallation;
+            states = new byte[maxInstallations];
+            complete = new boolean[maxInstallations];
+            if (!compatible) {
+                log.info("Initializing recent reading store {} ({} installations x {} readings, {} MB)", file,
+                        maxInstallations, slotsPerInstallation, size >> 20);
+                for (int offset = 0; offset < HEADER_BYTES + maxInstallations * DIRECTORY_ENTRY_BYTES; offset += 8) {
+                    buffer.putLong(offset, 0L);
+                }
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, maxInstallations);
+                buffer.putInt(12, slotsPerInstallation);
+                buffer.force();
+                return;
+            }
+
+            // Rings written before a clean shutdown only miss what was committed since; others are reloaded
+            boolean clean = buffer.getInt(CLEAN_SHUTDOWN_OFFSET) == 1;
+            for (int ring = 0; ring < maxInstallations; ring++) {
+                long installationId = buffer.getLong(directoryOffset(ring));
+                if (installationId == 0) {
+                    break;
+                }
+                rings.put(installationId, ring);
+                states[ring] = clean ? BEHIND : STALE;
+                used = ring + 1;
+            }
+            log.info("Opened recent reading store {} with {} installations ({} shutdown)", file, used,
+                    clean ? "clean" : "unclean");
+        } finally {
+            if (buffer != null) {
+                buffer.putInt(CLEAN_SHUTDOWN_OFFSET, 0);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (buffer == null) {
+            return;
+        }
+        buffer.force();
+        buffer.putInt(CLEAN_SHUTDOWN_OFFSET, 1);
+        buffer.force();
+        buffer = null;
+    }
+
+    /**
+     * The newest readings of an installation, newest first
+     * @return The readings, or empty when the store cannot answer and the database should be asked
+     */
+    public synchronized Optional<List<EnergyData>> recent(SolarInstallation installation, int limit) {
+        Integer ring = ensure(installation);
+        if (ring == null) {
+            return miss();
+        }
+        int count = count(ring);
+        if (limit > count && !complete[ring]) {
+            return miss();
+        }
+        int n = Math.min(limit, count);
+        List<EnergyData> readings = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            readings.add(read(installation, ring, newest(ring, i)));
+        }
+        hits.increment();
+        return Optional.of(readings);
+    }
+
+    /**
+     * An installation's readings in [start, end], newest first, when the ring reaches back to start
+     * @return The readings, or empty when the store cannot answer and the database should be asked
+     */
+    public synchronized Optional<List<EnergyData>> range(SolarInstallation installation, LocalDateTime start,
+                                                         LocalDateTime end) {
+        Integer ring = ensure(installation);
+        if (ring == null) {
+            return miss();
+        }
+        int count = count(ring);
+        long startMicros = toMicros(start);
+        long endMicros = toMicros(end);
+        // A reading at the oldest timestamp may have had an evicted twin, so the ring must reach past start
+        if (!complete[ring] && (count == 0 || timestamp(ring, newest(ring, count - 1)) >= startMicros)) {
+            return miss();
+        }
+        List<EnergyData> readings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int slot = newest(ring, i);
+            long micros = timestamp(ring, slot);
+            if (micros < startMicros) {
+                break;
+            }
+            if (micros <= endMicros) {
+                readings.add(read(installation, ring, slot));
+            }
+        }
+        hits.increment();
+        return Optional.of(readings);
+    }
+
+    /**
+     * Append saved readings once the current transaction commits, or right away when there is none
+     */
+    public void recordAfterCommit(List<EnergyData> readings) {
+        if (!enabled || readings.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordAll(readings);
+                }
+            });
+        } else {
+            recordAll(readings);
+        }
+    }
+
+    private void recordAll(List<EnergyData> readings) {
+        for (EnergyData reading : readings) {
+            record(reading.getInstallation().getId(), reading.getId(), reading.getTimestamp(),
+                    reading.getPowerGenerationWatts(), reading.getPowerConsumptionWatts(),
+                    reading.getDailyYieldKWh(), reading.getTotalYieldKWh(), toColumn(reading.getUtilizationRate()),
+                    toColumn(reading.getBandedEfficiencyPercentage()), reading.isSimulated());
+        }
+    }
+
+    /**
+     * Append a committed reading to its installation's ring.
+     * Installations without a ring are skipped (loading reads the reading from the database), and a reading
+     * older than the ring's newest marks the ring for reloading rather than being inserted out of order.
+     * Derived metrics that were not calculated are passed as NaN.
+     */
+    public synchronized void record(Long installationId, long id, LocalDateTime timestamp,
+                                    double powerGenerationWatts, double powerConsumptionWatts,
+                                    double dailyYieldKWh, double totalYieldKWh, double utilizationRate,
+                                    double bandedEfficiencyPercentage, boolean simulated) {
+        if (buffer == null || timestamp == null) {
+            return;
+        }
+        Integer ring = rings.get(installationId);
+        if (ring == null || states[ring] != CURRENT) {
+            return;
+        }
+        long micros = toMicros(timestamp);
+        if (count(ring) > 0) {
+            int newest = newest(ring, 0);
+            long newestMicros = timestamp(ring, newest);
+            if (micros < newestMicros || (micros == newestMicros && id < buffer.getLong(offset(ring, 0, newest)))) {
+                states[ring] = STALE;
+                return;
+            }
+        }
+        append(ring, id, micros, powerGenerationWatts, powerConsumptionWatts, dailyYieldKWh, totalYieldKWh,
+                utilizationRate, bandedEfficiencyPercentage, simulated);
+    }
+
+    /**
+     * Reload an installation's ring on its next read, e.g. after readings were imported out of order
+     */
+    public synchronized void invalidate(Long installationId) {
+        Integer ring = rings.get(installationId);
+        if (ring != null) {
+            states[ring] = STALE;
+        }
+    }
+
+    private Optional<List<EnergyData>> miss() {
+        if (misses != null) {
+            misses.increment();
+        }
+        return Optional.empty();
+    }
+
+    // Find or create an installation's ring and bring it up to date; null when disabled or full
+    private Integer ensure(SolarInstallation installation) {
+        if (buffer == null) {
+            return null;
+        }
+        Integer ring = rings.get(installation.getId());
+        if (ring == null) {
+            if (used == maxInstallations) {
+                return null;
+            }
+            ring = used++;
+            int entry = directoryOffset(ring);
+            buffer.putInt(entry + 8, 0);
+            buffer.putInt(entry + 12, 0);
+            buffer.putLong(entry, installation.getId());
+            rings.put(installation.getId(), ring);
+            states[ring] = STALE;
+        }
+        if (states[ring] == BEHIND) {
+            catchUp(installation, ring);
+        }
+        if (states[ring] == STALE) {
+            reload(installation, ring);
+        }
+        return ring;
+    }
+
+    private void reload(SolarInstallation installation, int ring) {
+        List<EnergyData> newestFirst = energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(
+                installation, Limit.of(slotsPerInstallation));
+        setHead(ring, 0, 0);
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            append(ring, newestFirst.get(i));
+        }
+        complete[ring] = newestFirst.size() < slotsPerInstallation;
+        states[ring] = CURRENT;
+    }
+
+    private void catchUp(SolarInstallation installation, int ring) {
+        int count = count(ring);
+        if (count == 0) {
+            states[ring] = STALE;
+            return;
+        }
+        int newest = newest(ring, 0);
+        long newestMicros = timestamp(ring, newest);
+        List<EnergyData> missed = energyDataRepository.findByInstallationAndTimestampGreaterThanEqualOrderByTimestampAscIdAsc(
+                installation, fromMicros(newestMicros), Limit.of(slotsPerInstallation));
+        if (missed.size() == slotsPerInstallation) {
+            // More was missed than the ring holds
+            states[ring] = STALE;
+            return;
+        }
+        long newestId = buffer.getLong(offset(ring, 0, newest));
+        for (EnergyData reading : missed) {
+            long micros = toMicros(reading.getTimestamp());
+            if (micros > newestMicros || reading.getId() > newestId) {
+                append(ring, reading);
+            }
+        }
+        states[ring] = CURRENT;
+    }
+
+    private void append(int ring, EnergyData reading) {
+        append(ring, reading.getId(), toMicros(reading.getTimestamp()), reading.getPowerGenerationWatts(),
+                reading.getPowerConsumptionWatts(), reading.getDailyYieldKWh(), reading.getTotalYieldKWh(),
+                toColumn(reading.getUtilizationRate()), toColumn(reading.getBandedEfficiencyPercentage()),
+                reading.isSimulated());
+    }
+
+    private void append(int ring, long id, long micros, double generation, double consumption,
+                        double dailyYield, double totalYield, double utilization, double bandedEfficiency,
+                        boolean simulated) {
+        int entry = directoryOffset(ring);
+        int head = buffer.getInt(entry + 8);
+        int count = buffer.getInt(entry + 12);
+        buffer.putLong(offset(ring, 0, head), id);
+        buffer.putLong(offset(ring, 1, head), micros);
+        buffer.putDouble(offset(ring, 2, head), generation);
+        buffer.putDouble(offset(ring, 3, head), consumption);
+        buffer.putDouble(offset(ring, 4, head), dailyYield);
+        buffer.putDouble(offset(ring, 5, head), totalYield);
+        buffer.putDouble(offset(ring, 6, head), utilization);
+        buffer.putDouble(offset(ring, 7, head), bandedEfficiency);
+        buffer.put(offset(ring, FLAG_COLUMN, head), (byte) (simulated ? 1 : 0));
+        if (count == slotsPerInstallation) {
+            complete[ring] = false;
+        }
+        // The slot is written before the head moves, so a crash never exposes a half-written reading
+        setHead(ring, (head + 1) % slotsPerInstallation, Math.min(count + 1, slotsPerInstallation));
+    }
+
+    private EnergyData read(SolarInstallation installation, int ring, int slot) {
+        EnergyData reading = new EnergyData();
+        reading.setId(buffer.getLong(offset(ring, 0, slot)));
+        reading.setInstallation(installation);
+        reading.setTimestamp(fromMicros(timestamp(ring, slot)));
+        reading.setPowerGenerationWatts(buffer.getDouble(offset(ring, 2, slot)));
+        reading.setPowerConsumptionWatts(buffer.getDouble(offset(ring, 3, slot)));
+        reading.setDailyYieldKWh(buffer.getDouble(offset(ring, 4, slot)));
+        reading.setTotalYieldKWh(buffer.getDouble(offset(ring, 5, slot)));
+        reading.setSimulated(buffer.get(offset(ring, FLAG_COLUMN, slot)) == 1);
+        // Net power and efficiency follow from generation and consumption, so only the capacity-dependent
+        // metrics are stored
+        double utilization = buffer.getDouble(offset(ring, 6, slot));
+        if (!Double.isNaN(utilization)) {
+            double generation = reading.getPowerGenerationWatts();
+            double consumption = reading.getPowerConsumptionWatts();
+            reading.setNetPowerWatts(generation - consumption);
+            reading.setUtilizationRate(utilization);
+            reading.setEfficiencyPercentage(EnergyDerivedMetrics.efficiencyPercentage(generation, consumption));
+            reading.setBandedEfficiencyPercentage(buffer.getDouble(offset(ring, 7, slot)));
+        }
+        return reading;
+    }
+
+    private long timestamp(int ring, int slot) {
+        return buffer.getLong(offset(ring, 1, slot));
+    }
+
+    // The slot holding the i-th newest reading
+    private int newest(int ring, int i) {
+        int head = buffer.getInt(directoryOffset(ring) + 8);
+        return Math.floorMod(head - 1 - i, slotsPerInstallation);
+    }
+
+    private int count(int ring) {
+        return buffer.getInt(directoryOffset(ring) + 12);
+    }
+
+    private void setHead(int ring, int head, int count) {
+        int entry = directoryOffset(ring);
+        buffer.putInt(entry + 8, head);
+        buffer.putInt(entry + 12, count);
+    }
+
+    private int directoryOffset(int ring) {
+        return HEADER_BYTES + ring * DIRECTORY_ENTRY_BYTES;
+    }
+
+    // Position of one slot of a ring's column; the flag column is one byte per slot, the others eight.
+    // open() keeps the file under 2 GB, so positions fit in an int
+    private int offset(int ring, int column, int slot) {
+        long ringStart = HEADER_BYTES + (long) maxInstallations * DIRECTORY_ENTRY_BYTES
+                + (long) ring * slotsPerInstallation * READING_BYTES;
+        return (int) (ringStart + (long) column * slotsPerInstallation * 8 + (column < FLAG_COLUMN ? slot * 8L : slot));
+    }
+
+    private static double toColumn(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,709 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.EnergyRollupBucket;
+import com.solar.core_services.energy_monitoring.model.EnergySummary;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepositoryCustom;
+import com.solar.core_services.energy_monitoring.repository.EnergySummaryIdAllocator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rolls readings up from the finest grain: readings into 5-minute and hourly buckets as they arrive,
+ * and hourly buckets into DAILY, WEEKLY, MONTHLY and YEARLY summaries with set-based SQL.
+ * Accepted readings are folded into in-memory partial buckets and merged into energy_rollup_buckets
+ * on a short interval by a single writer. Summaries are derived with one GROUP BY query over the buckets and
+ * written in a JDBC batch, taking their ids from Hibernate's pool, so no reading is ever loaded as an entity.
+ * Energy is integrated as readings arrive: each reading adds the trapezoid between it and the installation's
+ * previous reading to its buckets (see EnergyDerivedMetrics.intervalWattHours). The previous reading is kept in
+ * memory and read from energy_data once per installation after a restart. A reading older than the installation's
+ * newest splits an interval that was already integrated: the next flush reads the readings around it back and
+ * adds the difference it makes to the buckets of the intervals it changes.
+ * Each flush also adds its hourly changes to the summaries already derived for the days they fall on, so readings
+ * that arrive after a summary was written correct it without deriving it again.
+ * Partials still pending when the process dies are lost, and history written before the engine existed has no
+ * buckets. Both are repaired from energy_data: before deriving a period, the hours in which energy_data holds more
+ * readings than the hourly buckets counted are rebuilt, as are the hours of the last day at startup. rebuildBuckets
+ * recomputes a range on request (POST /monitoring/summaries/rollups/rebuild) in one transaction, holding the flush
+ * lock so no flush merges into the range meanwhile, and corrects the summaries already derived for its days.
+ * Installation-days already compacted into cold blocks keep their buckets, since energy_data no longer holds them.
+ */
+@Component
+@Slf4j
+public class EnergyRollupEngine implements ApplicationRunner {
+
+    private static final String BUCKET_COLUMNS = "installation_id, bucket_seconds, bucket_start, generation_sum_watts, "
+            + "consumption_sum_watts, peak_generation_watts, peak_consumption_watts, readings_count, "
+            + "generation_wh, consumption_wh";
+
+    private static final String MERGE_SQL = "MERGE INTO energy_rollup_buckets b USING (SELECT "
+            + "CAST(? AS BIGINT) AS installation_id, CAST(? AS INTEGER) AS bucket_seconds, "
+            + "CAST(? AS TIMESTAMP) AS bucket_start, CAST(? AS DOUBLE PRECISION) AS generation_sum_watts, "
+            + "CAST(? AS DOUBLE PRECISION) AS consumption_sum_watts, CAST(? AS DOUBLE PRECISION) AS peak_generation_watts, "
+            + "CAST(? AS DOUBLE PRECISION) AS peak_consumption_watts, CAST(? AS BIGINT) AS readings_count, "
+            + "CAST(? AS DOUBLE PRECISION) AS generation_wh, CAST(? AS DOUBLE PRECISION) AS consumption_wh) s "
+            + "ON (b.installation_id = s.installation_id AND b.bucket_seconds = s.bucket_seconds "
+            + "AND b.bucket_start = s.bucket_start) "
+            + "WHEN MATCHED THEN UPDATE SET "
+            + "generation_sum_watts = b.generation_sum_watts + s.generation_sum_watts, "
+            + "consumption_sum_watts = b.consumption_sum_watts + s.consumption_sum_watts, "
+            + "peak_generation_watts = GREATEST(b.peak_generation_watts, s.peak_generation_watts), "
+            + "peak_consumption_watts = GREATEST(b.peak_consumption_watts, s.peak_consumption_watts), "
+            + "readings_count = b.readings_count + s.readings_count, "
+            + "generation_wh = COALESCE(b.generation_wh, 0) + s.generation_wh, "
+            + "consumption_wh = COALESCE(b.consumption_wh, 0) + s.consumption_wh "
+            + "WHEN NOT MATCHED THEN INSERT (" + BUCKET_COLUMNS + ") "
+            + "VALUES (s.installation_id, s.bucket_seconds, s.bucket_start, s.generation_sum_watts, "
+            + "s.consumption_sum_watts, s.peak_generation_watts, s.peak_consumption_watts, s.readings_count, "
+            + "s.generation_wh, s.consumption_wh)";
+
+    private static final String PREVIOUS_READING_SQL = "SELECT e.timestamp, e.power_generation_watts, "
+            + "e.power_consumption_watts FROM energy_data e WHERE e.installation_id = ? "
+            + "AND e.timestamp >= ? AND e.timestamp < ? ORDER BY e.timestamp DESC, e.id DESC FETCH FIRST 1 ROWS ONLY";
+
+    private static final String LATE_WINDOW_SQL = "SELECT e.timestamp, e.power_generation_watts, "
+            + "e.power_consumption_watts FROM energy_data e WHERE e.installation_id = ? "
+            + "AND e.timestamp >= ? AND e.timestamp <= ? ORDER BY e.timestamp, e.id";
+
+    // Every summary whose period contains the day: periods start at most a year before it
+    private static final String CORRECT_SUMMARIES_SQL = "UPDATE energy_summaries s SET "
+            + "total_generationkwh = total_generationkwh + ?, total_consumptionkwh = total_consumptionkwh + ?, "
+            + "peak_generation_watts = GREATEST(peak_generation_watts, ?), "
+            + "peak_consumption_watts = GREATEST(peak_consumption_watts, ?), readings_count = readings_count + ?, "
+            + "efficiency_percentage = CASE WHEN total_consumptionkwh + ? > 0 "
+            + "THEN (total_generationkwh + ?) / (total_consumptionkwh + ?) * 100 ELSE 0 END "
+            + "WHERE s.installation_id = ? AND s.date >= ? AND s.date <= ? AND s.period_end >= ?";
+
+    // Compacted installation-days have no readings left in energy_data, so rebuilds keep the buckets they have
+    private static final String NOT_COMPACTED = "NOT EXISTS (SELECT 1 FROM energy_cold_blocks c "
+            + "WHERE c.installation_id = %1$s.installation_id AND c.block_date = CAST(%1$s.%2$s AS DATE))";
+
+    private static final String DELETE_BUCKETS_SQL = "DELETE FROM energy_rollup_buckets "
+            + "WHERE bucket_start >= ? AND bucket_start < ? AND installation_id BETWEEN ? AND ? "
+            + "AND " + NOT_COMPACTED.formatted("energy_rollup_buckets", "bucket_start");
+
+    // Starts one maximum gap early, so the first interval of the range has its previous reading
+    private static final String REBUILD_FIVE_MINUTE_SQL = "INSERT INTO energy_rollup_buckets (" + BUCKET_COLUMNS + ") "
+            + "SELECT r.installation_id, " + EnergyRollupBucket.FIVE_MINUTES + ", r.bucket_start, "
+            + "SUM(r.power_generation_watts), SUM(r.power_consumption_watts), "
+            + "MAX(r.power_generation_watts), MAX(r.power_consumption_watts), COUNT(*), "
+            + "SUM(r.generation_wh), SUM(r.consumption_wh) "
+            + "FROM (SELECT i.installation_id, i.power_generation_watts, i.power_consumption_watts, "
+            + "i.generation_wh, i.consumption_wh, DATE_TRUNC('HOUR', i.timestamp) "
+            + "+ CAST(EXTRACT(MINUTE FROM i.timestamp) AS INTEGER) / 5 * 5 * INTERVAL '1' MINUTE AS bucket_start FROM ("
+            + EnergyDataRepositoryCustom.READING_INTERVALS_SQL.formatted(
+                    "WHERE e.timestamp >= ? AND e.timestamp < ? AND e.installation_id BETWEEN ? AND ?")
+            + ") i WHERE i.timestamp >= ? AND " + NOT_COMPACTED.formatted("i", "timestamp") + ") r "
+            + "GROUP BY r.installation_id, r.bucket_start";
+
+    private static final String REBUILD_HOURLY_SQL = "INSERT INTO energy_rollup_buckets (" + BUCKET_COLUMNS + ") "
+            + "SELECT r.installation_id, " + EnergyRollupBucket.HOUR + ", r.bucket_start, "
+            + "SUM(r.generation_sum_watts), SUM(r.consumption_sum_watts), "
+            + "MAX(r.peak_generation_watts), MAX(r.peak_consumption_watts), SUM(r.readings_count), "
+            + "SUM(r.generation_wh), SUM(r.consumption_wh) "
+            + "FROM (SELECT b.installation_id, DATE_TRUNC('HOUR', b.bucket_start) AS bucket_start, b.generation_sum_watts, "
+            + "b.consumption_sum_watts, b.peak_generation_watts, b.peak_consumption_watts, b.readings_count, "
+            + "b.generation_wh, b.consumption_wh "
+            + "FROM energy_rollup_buckets b WHERE b.bucket_seconds = " + EnergyRollupBucket.FIVE_MINUTES + " "
+            + "AND b.bucket_start >= ? AND b.bucket_start < ? AND b.installation_id BETWEEN ? AND ? "
+            + "AND " + NOT_COMPACTED.formatted("b", "bucket_start") + ") r "
+            + "GROUP BY r.installation_id, r.bucket_start";
+
+    // Per day in the partial layout; energy falls back to average power for buckets stored before integration
+    private static final String DAY_TOTALS_SQL = "SELECT b.installation_id, CAST(b.bucket_start AS DATE), "
+            + "SUM(b.generation_sum_watts), SUM(b.consumption_sum_watts), MAX(b.peak_generation_watts), "
+            + "MAX(b.peak_consumption_watts), SUM(b.readings_count), "
+            + "SUM(COALESCE(b.generation_wh, b.generation_sum_watts / b.readings_count * b.bucket_seconds / 3600.0)), "
+            + "SUM(COALESCE(b.consumption_wh, b.consumption_sum_watts / b.readings_count * b.bucket_seconds / 3600.0)) "
+            + "FROM energy_rollup_buckets b WHERE b.bucket_seconds = " + EnergyRollupBucket.HOUR + " "
+            + "AND b.bucket_start >= ? AND b.bucket_start < ? AND b.installation_id BETWEEN ? AND ? "
+            + "GROUP BY b.installation_id, CAST(b.bucket_start AS DATE)";
+
+    // Hours whose readings did not all reach the buckets; fewer stored readings than counted means a compacted day
+    private static final String MISSING_HOURS_SQL = "SELECT r.installation_id, r.reading_hour FROM "
+            + "(SELECT e.installation_id, DATE_TRUNC('HOUR', e.timestamp) AS reading_hour, COUNT(*) AS readings_count "
+            + "FROM energy_data e WHERE e.timestamp >= ? AND e.timestamp < ? AND e.installation_id BETWEEN ? AND ? "
+            + "GROUP BY e.installation_id, DATE_TRUNC('HOUR', e.timestamp)) r "
+            + "LEFT JOIN energy_rollup_buckets b ON b.installation_id = r.installation_id "
+            + "AND b.bucket_seconds = " + EnergyRollupBucket.HOUR + " AND b.bucket_start = r.reading_hour "
+            + "WHERE r.readings_count > COALESCE(b.readings_count, 0) ORDER BY r.installation_id, r.reading_hour";
+
+    private static final String SUMMARY_NOT_EXISTS = "NOT EXISTS (SELECT 1 FROM energy_summaries s "
+            + "WHERE s.installation_id = %s AND s.period = ? AND s.date = ?)";
+
+    // Daily kWh adds up the integrated energy of the day's buckets; buckets written before energy was
+    // integrated count as their average power over the bucket. Longer periods add up days.
+    private static final String PERIOD_TOTALS_SQL = "SELECT d.installation_id, SUM(d.generation_kwh), "
+            + "SUM(d.consumption_kwh), MAX(d.peak_generation), MAX(d.peak_consumption), SUM(d.readings_count) "
+            + "FROM (SELECT b.installation_id, CAST(b.bucket_start AS DATE) AS reading_day, "
+            + "SUM(COALESCE(b.generation_wh, b.generation_sum_watts / b.readings_count * b.bucket_seconds / 3600.0)) "
+            + "/ 1000.0 AS generation_kwh, "
+            + "SUM(COALESCE(b.consumption_wh, b.consumption_sum_watts / b.readings_count * b.bucket_seconds / 3600.0)) "
+            + "/ 1000.0 AS consumption_kwh, "
+            + "MAX(b.peak_generation_watts) AS peak_generation, MAX(b.peak_consumption_watts) AS peak_consumption, "
+            + "SUM(b.readings_count) AS readings_count "
+            + "FROM energy_rollup_buckets b WHERE b.bucket_seconds = " + EnergyRollupBucket.HOUR + " "
+            + "AND b.bucket_start >= ? AND b.bucket_start < ? AND b.installation_id BETWEEN ? AND ? "
+            + "GROUP BY b.installation_id, CAST(b.bucket_start AS DATE)) d "
+            + "WHERE " + SUMMARY_NOT_EXISTS.formatted("d.installation_id") + " "
+            + "GROUP BY d.installation_id ORDER BY d.installation_id";
+
+    // Installations without readings still get a zero summary, as before
+    private static final String UNSUMMARIZED_INSTALLATIONS_SQL = "SELECT i.id FROM solar_installations i "
+            + "WHERE i.id BETWEEN ? AND ? AND " + SUMMARY_NOT_EXISTS.formatted("i.id") + " ORDER BY i.id";
+
+    private static final String INSERT_SUMMARY_SQL = "INSERT INTO energy_summaries (id, installation_id, date, "
+            + "period, total_generationkwh, total_consumptionkwh, peak_generation_watts, peak_consumption_watts, "
+            + "efficiency_percentage, readings_count, period_start, period_end) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final TransactionTemplate rebuildTransaction;
+    // Held by flushes and rebuilds, so a rebuild's DELETE and INSERT never interleave with a MERGE
+    private final Object flushLock = new Object();
+    private final EnergySummaryIdAllocator summaryIdAllocator;
+
+    @Value("${monitoring.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${monitoring.rollup.reconcile-on-startup-hours:24}")
+    private int reconcileOnStartupHours;
+
+    private Map<BucketKey, double[]> pending = new HashMap<>();
+    // Newest reading per installation: epoch millis, generation, consumption
+    private final Map<Long, double[]> lastReadings = new HashMap<>();
+    // Readings older than their installation's newest, whose energy the next flush corrects
+    private Map<Long, List<LocalDateTime>> lateReadings = new HashMap<>();
+
+    public EnergyRollupEngine(JdbcTemplate jdbcTemplate, EnergySummaryIdAllocator summaryIdAllocator,
+                              PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Summary ids come from Hibernate's own pool, so they never collide with summaries saved as entities
+        this.summaryIdAllocator = summaryIdAllocator;
+        // Buckets commit on their own, so a caller's rollback cannot discard readings taken off the pending map
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // A rebuild joins the caller's transaction, such as a summary chunk, and commits with it
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Fold a committed reading, and the energy of the interval it ends, into its 5-minute and hourly buckets
+     */
+    public void record(Long installationId, LocalDateTime timestamp,
+                       double powerGenerationWatts, double powerConsumptionWatts) {
+        if (!enabled || timestamp == null) {
+            return;
+        }
+        LocalDateTime hour = timestamp.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime fiveMinutes = hour.plusMinutes(timestamp.getMinute() / 5 * 5);
+        long millis = EnergyDerivedMetrics.epochMillis(timestamp);
+        boolean known;
+        synchronized (this) {
+            known = lastReadings.containsKey(installationId);
+        }
+        // The database is only asked outside the lock, once per installation
+        double[] loaded = known ? null : loadPrevious(installationId, timestamp);
+        synchronized (this) {
+            double[] previous = lastReadings.getOrDefault(installationId, loaded);
+            double generationWh = 0;
+            double consumptionWh = 0;
+            if (previous != null) {
+                generationWh = EnergyDerivedMetrics.intervalWattHours((long) previous[0], previous[1],
+                        millis, powerGenerationWatts, EnergyDerivedMetrics.MAX_GAP_MILLIS);
+                consumptionWh = EnergyDerivedMetrics.intervalWattHours((long) previous[0], previous[2],
+                        millis, powerConsumptionWatts, EnergyDerivedMetrics.MAX_GAP_MILLIS);
+            }
+            if (previous == null || millis >= previous[0]) {
+                lastReadings.put(installationId, new double[] {millis, powerGenerationWatts, powerConsumptionWatts});
+            } else {
+                lateReadings.computeIfAbsent(installationId, id -> new ArrayList<>()).add(timestamp);
+            }
+            add(new BucketKey(installationId, EnergyRollupBucket.FIVE_MINUTES, fiveMinutes),
+                    powerGenerationWatts, powerConsumptionWatts, generationWh, consumptionWh);
+            add(new BucketKey(installationId, EnergyRollupBucket.HOUR, hour),
+                    powerGenerationWatts, powerConsumptionWatts, generationWh, consumptionWh);
+        }
+    }
+
+    /**
+     * Add saved readings once the current transaction commits, or right away when there is none
+     */
+    public void recordAfterCommit(List<EnergyData> readings) {
+        if (!enabled || readings.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordAll(readings);
+                }
+            });
+        } else {
+            recordAll(readings);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${monitoring.rollup.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flushPending() {
+        flush();
+    }
+
+    /**
+     * Rebuild the hours of the last day whose partials were still pending when the previous process stopped
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || reconcileOnStartupHours <= 0) {
+            return;
+        }
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        try {
+            reconcileBuckets(end.minusHours(reconcileOnStartupHours + 1L), end, 0, Long.MAX_VALUE);
+        } catch (Exception e) {
+            log.error("Failed to reconcile rollup buckets at startup", e);
+        }
+    }
+
+    /**
+     * Merge the pending partial buckets into energy_rollup_buckets, and add them to the summaries already derived
+     * for their days, in a transaction of its own
+     * @return The number of buckets written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            return flushPendingBuckets();
+        }
+    }
+
+    private int flushPendingBuckets() {
+        correctLateReadings();
+        Map<BucketKey, double[]> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+
+        List<Map.Entry<BucketKey, double[]>> rows = new ArrayList<>(batch.entrySet());
+        List<Map.Entry<DayKey, double[]>> days = new ArrayList<>(dailyChanges(batch).entrySet());
+        try {
+            flushTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(MERGE_SQL, rows, 500, (ps, row) -> {
+                    BucketKey key = row.getKey();
+                    double[] partial = row.getValue();
+                    ps.setLong(1, key.installationId());
+                    ps.setInt(2, key.bucketSeconds());
+                    ps.setTimestamp(3, Timestamp.valueOf(key.bucketStart()));
+                    ps.setDouble(4, partial[0]);
+                    ps.setDouble(5, partial[1]);
+                    ps.setDouble(6, partial[2]);
+                    ps.setDouble(7, partial[3]);
+                    ps.setLong(8, (long) partial[4]);
+                    ps.setDouble(9, partial[5]);
+                    ps.setDouble(10, partial[6]);
+                });
+                correctSummaries(days);
+            });
+        } catch (Exception e) {
+            // Put the partials back so the next flush retries them
+            synchronized (this) {
+                batch.forEach((key, partial) -> pending.merge(key, partial, EnergyRollupEngine::combine));
+            }
+            log.error("Failed to flush {} rollup buckets", rows.size(), e);
+            return 0;
+        }
+        return rows.size();
+    }
+
+    /**
+     * Recompute buckets for a time range straight from energy_data, for backfills and repairs
+     * @param start Start of the range, inclusive; should fall on an hour
+     * @param end End of the range, exclusive; should fall on an hour
+     * @return The number of hourly buckets written
+     */
+    public int rebuildBuckets(LocalDateTime start, LocalDateTime end) {
+        return rebuildBuckets(start, end, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Recompute the buckets of a range of installations for a time range straight from energy_data, and add the
+     * difference to the summaries already derived for its days. Installation-days with a cold block are left as
+     * they are. Runs in one transaction, joining the caller's, and holds the flush lock throughout.
+     * @param start Start of the range, inclusive; should fall on an hour
+     * @param end End of the range, exclusive; should fall on an hour
+     * @param fromInstallationId The lowest installation ID to rebuild
+     * @param toInstallationId The highest installation ID to rebuild
+     * @return The number of hourly buckets written
+     */
+    public int rebuildBuckets(LocalDateTime start, LocalDateTime end, long fromInstallationId, long toInstallationId) {
+        Timestamp from = Timestamp.valueOf(start);
+        Timestamp to = Timestamp.valueOf(end);
+        synchronized (flushLock) {
+            flushPendingBuckets();
+            Integer hourlyBuckets = rebuildTransaction.execute(status -> {
+                Map<DayKey, double[]> before = dayTotals(from, to, fromInstallationId, toInstallationId);
+                // Readings recorded since the flush above were committed before this point, so the rebuild counts them
+                discardPending(start, end, fromInstallationId, toInstallationId);
+                jdbcTemplate.update(DELETE_BUCKETS_SQL, from, to, fromInstallationId, toInstallationId);
+                int fiveMinuteBuckets = jdbcTemplate.update(REBUILD_FIVE_MINUTE_SQL,
+                        Timestamp.valueOf(start.minusSeconds(EnergyData.MAX_READING_GAP_SECONDS)), to,
+                        fromInstallationId, toInstallationId, from);
+                int hourly = jdbcTemplate.update(REBUILD_HOURLY_SQL, from, to, fromInstallationId, toInstallationId);
+                Map<DayKey, double[]> after = dayTotals(from, to, fromInstallationId, toInstallationId);
+                correctSummaries(new ArrayList<>(differences(before, after).entrySet()));
+                log.info("Rebuilt {} 5-minute and {} hourly rollup buckets for {} to {}, installations {} to {}",
+                        fiveMinuteBuckets, hourly, start, end, fromInstallationId, toInstallationId);
+                return hourly;
+            });
+            return hourlyBuckets != null ? hourlyBuckets : 0;
+        }
+    }
+
+    /**
+     * Rebuild the hours in which energy_data holds readings the hourly buckets did not count: partials lost when
+     * the process stopped before flushing them, or history stored before the engine existed
+     * @param start Start of the range, inclusive; should fall on an hour
+     * @param end End of the range, exclusive; should fall on an hour
+     * @param fromInstallationId The lowest installation ID to check
+     * @param toInstallationId The highest installation ID to check
+     * @return The number of hours rebuilt
+     */
+    public int reconcileBuckets(LocalDateTime start, LocalDateTime end, long fromInstallationId, long toInstallationId) {
+        flush();
+        List<InstallationHour> missing = jdbcTemplate.query(MISSING_HOURS_SQL,
+                (rs, rowNum) -> new InstallationHour(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime()),
+                Timestamp.valueOf(start), Timestamp.valueOf(end), fromInstallationId, toInstallationId);
+        // Consecutive hours of an installation are rebuilt together
+        int i = 0;
+        while (i < missing.size()) {
+            InstallationHour first = missing.get(i);
+            LocalDateTime runEnd = first.hour().plusHours(1);
+            i++;
+            while (i < missing.size() && missing.get(i).installationId() == first.installationId()
+                    && missing.get(i).hour().equals(runEnd)) {
+                runEnd = runEnd.plusHours(1);
+                i++;
+            }
+            rebuildBuckets(first.hour(), runEnd, first.installationId(), first.installationId());
+        }
+        if (!missing.isEmpty()) {
+            log.warn("Rebuilt {} hours of rollup buckets that missed readings between {} and {}",
+                    missing.size(), start, end);
+        }
+        return missing.size();
+    }
+
+    /**
+     * Derive summaries for a period from the hourly buckets, skipping installations that already have one
+     * @param period The summary period
+     * @param periodStart The first day of the period; also the summary date
+     * @param periodEnd The last day of the period, inclusive
+     * @param fromInstallationId The lowest installation ID to summarize
+     * @param toInstallationId The highest installation ID to summarize
+     * @return The number of summaries written
+     */
+    public int deriveSummaries(EnergySummary.SummaryPeriod period, LocalDate periodStart, LocalDate periodEnd,
+                               long fromInstallationId, long toInstallationId) {
+        reconcileBuckets(periodStart.atStartOfDay(), periodEnd.plusDays(1).atStartOfDay(),
+                fromInstallationId, toInstallationId);
+        Date date = Date.valueOf(periodStart);
+        String periodName = period.name();
+
+        List<PeriodTotals> totals = jdbcTemplate.query(PERIOD_TOTALS_SQL,
+                (rs, rowNum) -> new PeriodTotals(rs.getLong(1), rs.getDouble(2), rs.getDouble(3), rs.getDouble(4),
+                        rs.getDouble(5), rs.getLong(6)),
+                Timestamp.valueOf(periodStart.atStartOfDay()), Timestamp.valueOf(periodEnd.plusDays(1).atStartOfDay()),
+                fromInstallationId, toInstallationId, periodName, date);
+        int written = insertSummaries(period, periodStart, periodEnd, totals);
+        List<PeriodTotals> empty = jdbcTemplate.query(UNSUMMARIZED_INSTALLATIONS_SQL,
+                (rs, rowNum) -> new PeriodTotals(rs.getLong(1), 0, 0, 0, 0, 0),
+                fromInstallationId, toInstallationId, periodName, date);
+        written += insertSummaries(period, periodStart, periodEnd, empty);
+        return written;
+    }
+
+    private int insertSummaries(EnergySummary.SummaryPeriod period, LocalDate periodStart, LocalDate periodEnd,
+                                List<PeriodTotals> totals) {
+        if (totals.isEmpty()) {
+            return 0;
+        }
+        long[] ids = summaryIdAllocator.allocate(totals.size());
+        Date date = Date.valueOf(periodStart);
+        Date end = Date.valueOf(periodEnd);
+        jdbcTemplate.batchUpdate(INSERT_SUMMARY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int index) throws SQLException {
+                PeriodTotals row = totals.get(index);
+                ps.setLong(1, ids[index]);
+                ps.setLong(2, row.installationId());
+                ps.setDate(3, date);
+                ps.setString(4, period.name());
+                ps.setDouble(5, row.generationKWh());
+                ps.setDouble(6, row.consumptionKWh());
+                ps.setDouble(7, row.peakGenerationWatts());
+                ps.setDouble(8, row.peakConsumptionWatts());
+                ps.setDouble(9, row.consumptionKWh() > 0 ? row.generationKWh() / row.consumptionKWh() * 100 : 0);
+                ps.setLong(10, row.readingsCount());
+                ps.setDate(11, date);
+                ps.setDate(12, end);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return totals.size();
+            }
+        });
+        return totals.size();
+    }
+
+    /**
+     * Add the energy the late readings recorded since the last flush make to the intervals around them.
+     * The readings around them are read back and integrated with and without them; the difference goes to the
+     * buckets of the intervals that change, including the one after each late reading.
+     */
+    private void correctLateReadings() {
+        Map<Long, List<LocalDateTime>> late;
+        synchronized (this) {
+            if (lateReadings.isEmpty()) {
+                return;
+            }
+            late = lateReadings;
+            lateReadings = new HashMap<>();
+        }
+        for (Map.Entry<Long, List<LocalDateTime>> entry : late.entrySet()) {
+            Long installationId = entry.getKey();
+            try {
+                Map<BucketKey, double[]> changes = lateReadingChanges(installationId, entry.getValue());
+                synchronized (this) {
+                    changes.forEach((key, change) -> pending.merge(key, change, EnergyRollupEngine::combine));
+                }
+            } catch (Exception e) {
+                // Keep them for the next flush
+                synchronized (this) {
+                    lateReadings.computeIfAbsent(installationId, id -> new ArrayList<>()).addAll(entry.getValue());
+                }
+                log.error("Failed to correct the energy of {} late readings of installation {}",
+                        entry.getValue().size(), installationId, e);
+            }
+        }
+    }
+
+    private Map<BucketKey, double[]> lateReadingChanges(Long installationId, List<LocalDateTime> late) {
+        Set<Long> lateMillis = new HashSet<>();
+        for (LocalDateTime timestamp : late) {
+            lateMillis.add(EnergyDerivedMetrics.epochMillis(timestamp));
+        }
+        // One maximum gap on either side holds every reading the late ones can be integrated with
+        List<WindowReading> window = jdbcTemplate.query(LATE_WINDOW_SQL,
+                (rs, rowNum) -> {
+                    LocalDateTime timestamp = rs.getTimestamp(1).toLocalDateTime();
+                    return new WindowReading(timestamp, EnergyDerivedMetrics.epochMillis(timestamp),
+                            rs.getDouble(2), rs.getDouble(3));
+                },
+                installationId,
+                Timestamp.valueOf(Collections.min(late).minusSeconds(EnergyData.MAX_READING_GAP_SECONDS)),
+                Timestamp.valueOf(Collections.max(late).plusSeconds(EnergyData.MAX_READING_GAP_SECONDS)));
+        Map<BucketKey, double[]> changes = new HashMap<>();
+        integrate(installationId, window, Set.of(), 1, changes);
+        integrate(installationId, window, lateMillis, -1, changes);
+        return changes;
+    }
+
+    /**
+     * Add the energy of each interval between the window's readings, leaving out the skipped ones, times sign
+     * to the buckets of the reading that ends it
+     */
+    private static void integrate(Long installationId, List<WindowReading> window, Set<Long> skipped, double sign,
+                                  Map<BucketKey, double[]> changes) {
+        WindowReading previous = null;
+        for (WindowReading reading : window) {
+            if (skipped.contains(reading.millis())) {
+                continue;
+            }
+            if (previous != null) {
+                double generationWh = sign * EnergyDerivedMetrics.intervalWattHours(previous.millis(),
+                        previous.generation(), reading.millis(), reading.generation(),
+                        EnergyDerivedMetrics.MAX_GAP_MILLIS);
+                double consumptionWh = sign * EnergyDerivedMetrics.intervalWattHours(previous.millis(),
+                        previous.consumption(), reading.millis(), reading.consumption(),
+                        EnergyDerivedMetrics.MAX_GAP_MILLIS);
+                LocalDateTime hour = reading.timestamp().truncatedTo(ChronoUnit.HOURS);
+                LocalDateTime fiveMinutes = hour.plusMinutes(reading.timestamp().getMinute() / 5 * 5);
+                for (BucketKey key : List.of(
+                        new BucketKey(installationId, EnergyRollupBucket.FIVE_MINUTES, fiveMinutes),
+                        new BucketKey(installationId, EnergyRollupBucket.HOUR, hour))) {
+                    double[] change = changes.computeIfAbsent(key, k -> new double[7]);
+                    change[5] += generationWh;
+                    change[6] += consumptionWh;
+                }
+            }
+            previous = reading;
+        }
+    }
+
+    /**
+     * Add each day's change to the summaries covering it; matches no rows unless such a summary was already derived
+     */
+    private void correctSummaries(List<Map.Entry<DayKey, double[]>> days) {
+        jdbcTemplate.batchUpdate(CORRECT_SUMMARIES_SQL, days, 500, (ps, row) -> {
+            DayKey key = row.getKey();
+            double[] change = row.getValue();
+            double generationKWh = change[5] / 1000.0;
+            double consumptionKWh = change[6] / 1000.0;
+            ps.setDouble(1, generationKWh);
+            ps.setDouble(2, consumptionKWh);
+            ps.setDouble(3, change[2]);
+            ps.setDouble(4, change[3]);
+            ps.setLong(5, (long) change[4]);
+            ps.setDouble(6, consumptionKWh);
+            ps.setDouble(7, generationKWh);
+            ps.setDouble(8, consumptionKWh);
+            ps.setLong(9, key.installationId());
+            ps.setDate(10, Date.valueOf(key.day().minusYears(1)));
+            ps.setDate(11, Date.valueOf(key.day()));
+            ps.setDate(12, Date.valueOf(key.day()));
+        });
+    }
+
+    private Map<DayKey, double[]> dayTotals(Timestamp from, Timestamp to, long fromInstallationId, long toInstallationId) {
+        Map<DayKey, double[]> totals = new HashMap<>();
+        jdbcTemplate.query(DAY_TOTALS_SQL, rs -> {
+            totals.put(new DayKey(rs.getLong(1), rs.getDate(2).toLocalDate()), new double[] {rs.getDouble(3),
+                    rs.getDouble(4), rs.getDouble(5), rs.getDouble(6), rs.getLong(7), rs.getDouble(8), rs.getDouble(9)});
+        }, from, to, fromInstallationId, toInstallationId);
+        return totals;
+    }
+
+    /**
+     * What a rebuild changed per day; peaks can only be raised, as in flushes
+     */
+    private static Map<DayKey, double[]> differences(Map<DayKey, double[]> before, Map<DayKey, double[]> after) {
+        Map<DayKey, double[]> changes = new HashMap<>();
+        Set<DayKey> days = new HashSet<>(before.keySet());
+        days.addAll(after.keySet());
+        for (DayKey day : days) {
+            double[] old = before.getOrDefault(day, new double[7]);
+            double[] rebuilt = after.getOrDefault(day, new double[7]);
+            double[] change = new double[7];
+            for (int i = 0; i < change.length; i++) {
+                change[i] = i == 2 || i == 3 ? rebuilt[i] : rebuilt[i] - old[i];
+            }
+            changes.put(day, change);
+        }
+        return changes;
+    }
+
+    private synchronized void discardPending(LocalDateTime start, LocalDateTime end,
+                                             long fromInstallationId, long toInstallationId) {
+        pending.keySet().removeIf(key -> key.installationId() >= fromInstallationId
+                && key.installationId() <= toInstallationId
+                && !key.bucketStart().isBefore(start) && key.bucketStart().isBefore(end));
+        lateReadings.entrySet().removeIf(entry -> {
+            if (entry.getKey() < fromInstallationId || entry.getKey() > toInstallationId) {
+                return false;
+            }
+            entry.getValue().removeIf(timestamp -> !timestamp.isBefore(start) && timestamp.isBefore(end));
+            return entry.getValue().isEmpty();
+        });
+    }
+
+    /**
+     * The hourly partials added up per installation and day, in the partial layout
+     */
+    private static Map<DayKey, double[]> dailyChanges(Map<BucketKey, double[]> batch) {
+        Map<DayKey, double[]> days = new HashMap<>();
+        batch.forEach((key, partial) -> {
+            if (key.bucketSeconds() == EnergyRollupBucket.HOUR) {
+                days.merge(new DayKey(key.installationId(), key.bucketStart().toLocalDate()), partial,
+                        EnergyRollupEngine::combine);
+            }
+        });
+        return days;
+    }
+
+    private void recordAll(List<EnergyData> readings) {
+        for (EnergyData reading : readings) {
+            record(reading.getInstallation().getId(), reading.getTimestamp(),
+                    reading.getPowerGenerationWatts(), reading.getPowerConsumptionWatts());
+        }
+    }
+
+    /**
+     * The installation's newest reading before timestamp, if it is close enough to integrate from
+     */
+    private double[] loadPrevious(Long installationId, LocalDateTime timestamp) {
+        List<double[]> previous = jdbcTemplate.query(PREVIOUS_READING_SQL,
+                (rs, rowNum) -> new double[] {EnergyDerivedMetrics.epochMillis(rs.getTimestamp(1).toLocalDateTime()),
+                        rs.getDouble(2), rs.getDouble(3)},
+                installationId, Timestamp.valueOf(timestamp.minusSeconds(EnergyData.MAX_READING_GAP_SECONDS)),
+                Timestamp.valueOf(timestamp));
+        return previous.isEmpty() ? null : previous.get(0);
+    }
+
+    // Partial layout: generation sum, consumption sum, peak generation, peak consumption, count,
+    // generation watt-hours, consumption watt-hours
+    private void add(BucketKey key, double generation, double consumption, double generationWh, double consumptionWh) {
+        double[] partial = pending.computeIfAbsent(key, k -> new double[7]);
+        partial[0] += generation;
+        partial[1] += consumption;
+        partial[2] = Math.max(partial[2], generation);
+        partial[3] = Math.max(partial[3], consumption);
+        partial[4]++;
+        partial[5] += generationWh;
+        partial[6] += consumptionWh;
+    }
+
+    private static double[] combine(double[] a, double[] b) {
+        return new double[] {a[0] + b[0], a[1] + b[1], Math.max(a[2], b[2]), Math.max(a[3], b[3]), a[4] + b[4],
+                a[5] + b[5], a[6] + b[6]};
+    }
+
+    private record BucketKey(Long installationId, int bucketSeconds, LocalDateTime bucketStart) {
+    }
+
+    private record DayKey(Long installationId, LocalDate day) {
+    }
+
+    private record InstallationHour(long installationId, LocalDateTime hour) {
+    }
+
+    private record PeriodTotals(long installationId, double generationKWh, double consumptionKWh,
+                                double peakGenerationWatts, double peakConsumptionWatts, long readingsCount) {
+    }
+
+    private record WindowReading(LocalDateTime timestamp, long millis, double generation, double consumption) {
+    }
+}
@@ -30,6 +30,14 @@ public interface EnergySummaryService {
      * @return The generated energy summary DTO
      */
     EnergySummaryDTO generateMonthlySummary(Long installationId, LocalDate monthStartDate);
+
+    /**
+     * Generate yearly summary for a specific installation and year
+     * @param installationId The ID of the installation
+     * @param yearStartDate The start date of the year
+     * @return The generated energy summary DTO
+     */
+    EnergySummaryDTO generateYearlySummary(Long installationId, LocalDate yearStartDate);
     
     /**
      * Get summaries for a specific installation and period type
@@ -53,6 +61,16 @@ public interface EnergySummaryService {
             LocalDate startDate, 
             LocalDate endDate);
     
+    /**
+     * Recompute the rollup buckets for a range of days from the stored readings, and correct the summaries
+     * already derived for those days
+     * @param startDate The first day to rebuild
+     * @param endDate The last day to rebuild, inclusive
+     * @param installationId The installation to rebuild, or null for all of them
+     * @return The number of hourly buckets written
+     */
+    int rebuildRollups(LocalDate startDate, LocalDate endDate, Long installationId);
+
     /**
      * Schedule the generation of all summary types
      * This method should be called by a scheduler to generate summaries automatically
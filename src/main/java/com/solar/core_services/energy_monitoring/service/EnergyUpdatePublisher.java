@@ -0,0 +1,146 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalescing fan-out of energy readings to /topic/installation/{id}/energy-data.
+ * Updates are handed over once the writing transaction commits and only the newest reading per
+ * installation is kept; a tick sends at most a configured number of frames, and installations left
+ * over keep their place in line for the next tick while newer readings keep replacing older ones.
+ * A replay of hundreds of readings therefore costs subscribers one frame per tick instead of one per reading.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EnergyUpdatePublisher {
+
+    private final WebSocketService webSocketService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitoring.websocket.coalesce.enabled:true}")
+    private boolean coalesce;
+
+    @Value("${monitoring.websocket.max-frames-per-tick:1000}")
+    private int maxFramesPerTick;
+
+    // Insertion-ordered so installations waiting longest are sent first when a tick is capped
+    private final Map<Long, EnergyDataDTO> pending = new LinkedHashMap<>();
+
+    private Counter sentCounter;
+    private Counter coalescedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("energy.websocket.pending", this, EnergyUpdatePublisher::pendingCount)
+                .description("Installations with an energy update waiting for the next tick")
+                .register(meterRegistry);
+        sentCounter = meterRegistry.counter("energy.websocket.frames", "outcome", "sent");
+        coalescedCounter = meterRegistry.counter("energy.websocket.frames", "outcome", "coalesced");
+        failedCounter = meterRegistry.counter("energy.websocket.frames", "outcome", "failed");
+    }
+
+    /**
+     * Publish a reading once the current transaction commits, or right away when there is none
+     * @param update The reading to publish
+     */
+    public void publish(EnergyDataDTO update) {
+        publishAll(List.of(update));
+    }
+
+    /**
+     * Publish readings once the current transaction commits, or right away when there is none
+     * @param updates The readings to publish
+     */
+    public void publishAll(List<EnergyDataDTO> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offerAll(updates);
+                }
+            });
+        } else {
+            offerAll(updates);
+        }
+    }
+
+    /**
+     * Send the newest pending update of each installation, up to the per-tick limit
+     */
+    @Scheduled(fixedDelayString = "${monitoring.websocket.tick-ms:1000}")
+    public void tick() {
+        List<EnergyDataDTO> frames;
+        synchronized (pending) {
+            frames = new ArrayList<>(Math.min(maxFramesPerTick, pending.size()));
+            Iterator<EnergyDataDTO> iterator = pending.values().iterator();
+            while (iterator.hasNext() && frames.size() < maxFramesPerTick) {
+                frames.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        frames.forEach(this::send);
+    }
+
+    int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private void offerAll(List<EnergyDataDTO> updates) {
+        if (!coalesce) {
+            updates.forEach(this::send);
+            return;
+        }
+        synchronized (pending) {
+            for (EnergyDataDTO update : updates) {
+                EnergyDataDTO previous = pending.get(update.getInstallationId());
+                if (previous == null) {
+                    pending.put(update.getInstallationId(), update);
+                    continue;
+                }
+                // One of the two is dropped; a late reading never replaces a newer one
+                coalescedCounter.increment();
+                if (isNewer(update, previous)) {
+                    pending.put(update.getInstallationId(), update);
+                }
+            }
+        }
+    }
+
+    private void send(EnergyDataDTO update) {
+        try {
+            webSocketService.sendEnergyDataUpdate(update.getInstallationId(), update);
+            sentCounter.increment();
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.warn("Failed to push energy update for installation {}", update.getInstallationId(), e);
+        }
+    }
+
+    private static boolean isNewer(EnergyDataDTO update, EnergyDataDTO previous) {
+        return previous.getTimestamp() == null || update.getTimestamp() == null
+                || !update.getTimestamp().isBefore(previous.getTimestamp());
+    }
+}
@@ -0,0 +1,89 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solar.core_services.energy_monitoring.dto.SystemOverviewResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+/**
+ * The admin system overview, computed by a background task and served from memory, so any number of open
+ * admin dashboards cost one overview computation per refresh interval.
+ * Each refresh that changes the overview is pushed to /topic/admin/system-update. The overview's lastUpdated
+ * says when it was computed; a failed refresh keeps the previous overview, which then ages visibly.
+ * When disabled, every request computes the overview itself.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FleetOverviewSnapshot {
+
+    private final SolarInstallationService installationService;
+    private final WebSocketService webSocketService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${monitoring.fleet-overview.enabled:true}")
+    private boolean enabled;
+
+    private volatile Overview current;
+
+    /**
+     * An overview with the entity tag of its JSON form
+     */
+    public record Overview(SystemOverviewResponse response, String etag) {
+    }
+
+    /**
+     * Recompute the overview and push it to admin subscribers if it changed
+     */
+    @Scheduled(fixedDelayString = "${monitoring.fleet-overview.refresh-ms:30000}",
+            initialDelayString = "${monitoring.fleet-overview.refresh-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Overview previous = current;
+            Overview refreshed = compute();
+            current = refreshed;
+            if (previous == null || !previous.etag().equals(refreshed.etag())) {
+                webSocketService.sendAdminSystemUpdate(refreshed.response());
+            }
+        } catch (Exception e) {
+            log.error("Error refreshing fleet overview", e);
+        }
+    }
+
+    /**
+     * Get the latest overview, computing it first if no refresh has completed yet
+     */
+    public Overview current() {
+        if (!enabled) {
+            return compute();
+        }
+        Overview overview = current;
+        if (overview != null) {
+            return overview;
+        }
+        synchronized (this) {
+            if (current == null) {
+                current = compute();
+            }
+            return current;
+        }
+    }
+
+    private Overview compute() {
+        SystemOverviewResponse response = installationService.getSystemOverview();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(response);
+            return new Overview(response, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize fleet overview", e);
+        }
+    }
+}
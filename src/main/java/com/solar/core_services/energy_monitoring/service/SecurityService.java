@@ -1,8 +1,5 @@
 package com.solar.core_services.energy_monitoring.service;
 
-import com.solar.core_services.energy_monitoring.model.SolarInstallation;
-import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
-import com.solar.user_management.model.User;
 import com.solar.user_management.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
@@ -15,7 +12,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class SecurityService {
 
-    private final SolarInstallationRepository installationRepository;
+    private final SolarInstallationCache installationCache;
 
     /**
      * Check if the current user is the specified user
@@ -69,21 +66,22 @@ public class SecurityService {
             Long userId = ((UserPrincipal) principal).getId();
             System.out.println("- User ID from principal: " + userId);
             
-            Optional<SolarInstallation> installation = installationRepository.findById(installationId);
+            // Ownership comes from the installation cache rather than a SELECT on every request
+            Optional<SolarInstallationCache.Metadata> installation = installationCache.find(installationId);
             
             if (!installation.isPresent()) {
                 System.out.println("Access denied: Installation not found with ID: " + installationId);
                 return false;
             }
             
-            User installationUser = installation.get().getUser();
+            Long installationUserId = installation.get().userId();
             
-            if (installationUser == null) {
+            if (installationUserId == null) {
                 System.out.println("Access denied: Installation has no assigned user. ID: " + installationId);
                 return false;
             }
             
-            boolean hasAccess = installationUser.getId().equals(userId);
+            boolean hasAccess = installationUserId.equals(userId);
             System.out.println(hasAccess 
                 ? "Access granted: User owns installation ID: " + installationId
                 : "Access denied: User does not own installation ID: " + installationId);
@@ -0,0 +1,185 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Installation metadata kept in memory, so hot paths that only check an installation exists, who owns it or
+ * what its status is do not each run a primary key SELECT.
+ * Entries hold an immutable copy, never the entity, and are evicted least recently used beyond the maximum size
+ * and after the time to live, which bounds staleness from changes made on other nodes. Changes made on this node
+ * invalidate the entry right away and again after commit.
+ * Paths that only need the installation as a foreign key combine exists with getReferenceById (see reference).
+ */
+@Component
+@RequiredArgsConstructor
+public class SolarInstallationCache {
+
+    private final SolarInstallationRepository installationRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitoring.installation-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${monitoring.installation-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${monitoring.installation-cache.ttl-ms:300000}")
+    private long ttlMillis;
+
+    private Map<Long, Entry> entries;
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+
+    /**
+     * The fields hot paths read, copied from the entity when it was loaded
+     */
+    public record Metadata(
+            Long id,
+            Long userId,
+            String name,
+            String location,
+            double installedCapacityKW,
+            SolarInstallation.InstallationType type,
+            SolarInstallation.InstallationStatus status,
+            boolean tamperDetected) {
+
+        public static Metadata of(SolarInstallation installation) {
+            return new Metadata(
+                    installation.getId(),
+                    installation.getUser() != null ? installation.getUser().getId() : null,
+                    installation.getName(),
+                    installation.getLocation(),
+                    installation.getInstalledCapacityKW(),
+                    installation.getType(),
+                    installation.getStatus(),
+                    installation.isTamperDetected());
+        }
+    }
+
+    private record Entry(Metadata metadata, long loadedAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        // Access order, so the eldest entry is the least recently used
+        entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                boolean full = size() > maxSize;
+                if (full) {
+                    evictions.increment();
+                }
+                return full;
+            }
+        };
+        hits = Counter.builder("installation.cache.gets").tag("result", "hit")
+                .description("Installation lookups served from memory").register(meterRegistry);
+        misses = Counter.builder("installation.cache.gets").tag("result", "miss")
+                .description("Installation lookups that went to the database").register(meterRegistry);
+        evictions = Counter.builder("installation.cache.evictions")
+                .description("Installations evicted to stay within the maximum size").register(meterRegistry);
+        Gauge.builder("installation.cache.size", this, SolarInstallationCache::size)
+                .description("Installations held in memory").register(meterRegistry);
+    }
+
+    /**
+     * Get an installation's metadata, loading it on a miss. Missing installations are not remembered.
+     */
+    public Optional<Metadata> find(Long installationId) {
+        if (installationId == null) {
+            return Optional.empty();
+        }
+        if (!enabled) {
+            return installationRepository.findById(installationId).map(Metadata::of);
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            Entry entry = entries.get(installationId);
+            if (entry != null) {
+                if (now - entry.loadedAt() <= ttlMillis * 1_000_000) {
+                    hits.increment();
+                    return Optional.of(entry.metadata());
+                }
+                entries.remove(installationId);
+            }
+        }
+        misses.increment();
+        Optional<Metadata> loaded = installationRepository.findById(installationId).map(Metadata::of);
+        loaded.ifPresent(metadata -> {
+            synchronized (this) {
+                entries.put(installationId, new Entry(metadata, now));
+            }
+        });
+        return loaded;
+    }
+
+    public boolean exists(Long installationId) {
+        return find(installationId).isPresent();
+    }
+
+    /**
+     * Get an installation's metadata
+     * @throws ResourceNotFoundException if the installation does not exist
+     */
+    public Metadata require(Long installationId) {
+        return find(installationId).orElseThrow(
+                () -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
+    }
+
+    /**
+     * An installation to set as a foreign key, without loading it when it is known to exist.
+     * The reference is a lazy proxy: reading anything but its ID loads it.
+     * @throws ResourceNotFoundException if the installation does not exist
+     */
+    public SolarInstallation reference(Long installationId) {
+        if (!enabled) {
+            return installationRepository.findById(installationId).orElseThrow(
+                    () -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
+        }
+        require(installationId);
+        return installationRepository.getReferenceById(installationId);
+    }
+
+    /**
+     * Drop an installation after it was created or changed, now and once the current transaction commits,
+     * so a lookup racing with the transaction cannot keep the old metadata
+     */
+    public void invalidate(Long installationId) {
+        if (!enabled || installationId == null) {
+            return;
+        }
+        remove(installationId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(installationId);
+                }
+            });
+        }
+    }
+
+    private synchronized void remove(Long installationId) {
+        entries.remove(installationId);
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+}
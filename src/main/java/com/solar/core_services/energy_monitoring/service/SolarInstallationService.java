@@ -3,6 +3,9 @@ package com.solar.core_services.energy_monitoring.service;
 import com.solar.core_services.energy_monitoring.dto.DeviceStatusRequest;
 import com.solar.core_services.energy_monitoring.dto.SolarInstallationDTO;
 import com.solar.core_services.energy_monitoring.dto.SystemOverviewResponse;
+import com.solar.core_services.energy_monitoring.dto.TopProducerDTO;
+import com.solar.core_services.energy_monitoring.dto.TopProducerRanking;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 
 import java.util.List;
 
@@ -49,6 +52,15 @@ public interface SolarInstallationService {
      */
     SystemOverviewResponse getSystemOverview();
     
+    /**
+     * Get today's top producing active installations
+     * @param ranking The order of the leaderboard
+     * @param type The installation type, or null for all installations
+     * @param limit The maximum number of installations to return
+     * @return Top producers, best first
+     */
+    List<TopProducerDTO> getTopProducers(TopProducerRanking ranking, SolarInstallation.InstallationType type, int limit);
+    
     /**
      * Get all installations with tamper alerts
      * @return A list of solar installation DTOs with tamper alerts
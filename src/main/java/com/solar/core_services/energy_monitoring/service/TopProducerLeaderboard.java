@@ -0,0 +1,434 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.dto.TopProducerRanking;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.InstallationEnergyTotals;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Today's ranking of active installations, kept sorted as readings commit so top-K lookups walk the
+ * first K entries of a skip list instead of sorting every installation.
+ * There is one skip list per ranking for the whole fleet and one per ranking and installation type.
+ * Only installations with a reading today are ranked. The board is loaded from the database on first use
+ * (or at startup), starts a new day at local midnight and is periodically reloaded to pick up installations
+ * created on another node and correct readings that committed while it was loading.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TopProducerLeaderboard {
+
+    private static final Comparator<Rank> ORDER = Comparator.comparingDouble(Rank::score).reversed()
+            .thenComparingLong(Rank::installationId);
+
+    private final EnergyDataRepository energyDataRepository;
+    private final SolarInstallationRepository installationRepository;
+
+    @Value("${monitoring.leaderboard.enabled:true}")
+    private boolean enabled;
+
+    @Value("${monitoring.leaderboard.warm-on-startup:true}")
+    private boolean warmOnStartup;
+
+    // Readings update the board under the read lock; loading and the day rollover swap it under the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Board board;
+
+    /**
+     * One installation's figures for today; energy is in watt-hours
+     */
+    public record Standing(
+            Long installationId,
+            SolarInstallation.InstallationType type,
+            double installedCapacityKW,
+            double todayGeneration,
+            double todayConsumption,
+            double currentGenerationWatts,
+            double currentConsumptionWatts,
+            LocalDateTime lastReadingAt,
+            boolean readToday) {
+
+        /**
+         * Current generation as a share of installed capacity, capped at 1
+         */
+        public double utilization() {
+            return installedCapacityKW > 0 ? Math.min(1.0, currentGenerationWatts / (installedCapacityKW * 1000)) : 0;
+        }
+
+        /**
+         * Today's generation as a percentage of today's consumption, or 0 without consumption
+         */
+        public double efficiency() {
+            return todayConsumption > 0 ? (todayGeneration / todayConsumption) * 100 : 0;
+        }
+
+        double score(TopProducerRanking ranking) {
+            return switch (ranking) {
+                case GENERATION -> todayGeneration;
+                case UTILIZATION -> utilization();
+                case EFFICIENCY -> efficiency();
+            };
+        }
+
+        /**
+         * Add the energy of the interval since the newest reading; an older reading adds none
+         */
+        Standing plus(LocalDateTime timestamp, double powerGenerationWatts, double powerConsumptionWatts) {
+            boolean newest = lastReadingAt == null || !timestamp.isBefore(lastReadingAt);
+            double generationWh = 0;
+            double consumptionWh = 0;
+            if (lastReadingAt != null) {
+                long from = EnergyDerivedMetrics.epochMillis(lastReadingAt);
+                long to = EnergyDerivedMetrics.epochMillis(timestamp);
+                generationWh = EnergyDerivedMetrics.intervalWattHours(from, currentGenerationWatts,
+                        to, powerGenerationWatts, EnergyDerivedMetrics.MAX_GAP_MILLIS);
+                consumptionWh = EnergyDerivedMetrics.intervalWattHours(from, currentConsumptionWatts,
+                        to, powerConsumptionWatts, EnergyDerivedMetrics.MAX_GAP_MILLIS);
+            }
+            return new Standing(installationId, type, installedCapacityKW,
+                    todayGeneration + generationWh,
+                    todayConsumption + consumptionWh,
+                    newest ? powerGenerationWatts : currentGenerationWatts,
+                    newest ? powerConsumptionWatts : currentConsumptionWatts,
+                    newest ? timestamp : lastReadingAt,
+                    true);
+        }
+
+        // The newest reading carries over, so the first interval of the day integrates from it
+        Standing nextDay() {
+            return new Standing(installationId, type, installedCapacityKW, 0, 0, currentGenerationWatts,
+                    currentConsumptionWatts, lastReadingAt, false);
+        }
+    }
+
+    private record Rank(double score, long installationId) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Load the board before traffic arrives
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || !warmOnStartup) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Failed to load the top producers leaderboard", e);
+        }
+    }
+
+    /**
+     * Reload the board from the database to pick up new installations and correct any drift
+     */
+    @Scheduled(cron = "${monitoring.leaderboard.resync-cron:0 */15 * * * ?}")
+    public void resync() {
+        if (!enabled || board == null) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Failed to resync the top producers leaderboard", e);
+        }
+    }
+
+    /**
+     * Start a new day at local midnight, so the board is empty before the first reading of the day
+     */
+    @Scheduled(cron = "0 0 0 * * ?")
+    public void startNewDay() {
+        if (enabled) {
+            rollOver(LocalDate.now());
+        }
+    }
+
+    /**
+     * The first installations of a ranking, optionally only those of one type.
+     * When the leaderboard is disabled the ranking is computed from the database on every call.
+     * @param type The installation type, or null for the whole fleet
+     */
+    public List<Standing> top(TopProducerRanking ranking, SolarInstallation.InstallationType type, int limit) {
+        LocalDate today = LocalDate.now();
+        return (enabled ? loaded(today) : load(today)).top(ranking, type, limit);
+    }
+
+    /**
+     * Add saved readings once the current transaction commits, or right away when there is none
+     */
+    public void recordAfterCommit(List<EnergyData> readings) {
+        if (!enabled || readings.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordAll(readings);
+                }
+            });
+        } else {
+            recordAll(readings);
+        }
+    }
+
+    /**
+     * Add the energy since the previous reading to its installation's standing.
+     * Readings of other days, and of installations the board does not hold, are skipped; a reading older than the
+     * installation's latest adds no energy until the next refresh.
+     */
+    public void record(Long installationId, LocalDateTime timestamp,
+                       double powerGenerationWatts, double powerConsumptionWatts) {
+        if (!enabled || timestamp == null) {
+            return;
+        }
+        record(installationId, timestamp, powerGenerationWatts, powerConsumptionWatts, LocalDate.now());
+    }
+
+    /**
+     * Add, update or drop an installation after it was created or changed on this node
+     */
+    public void track(SolarInstallation installation) {
+        if (!enabled || installation.getId() == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            Board current = board;
+            if (current == null) {
+                return;
+            }
+            current.standings.compute(installation.getId(), (id, old) -> {
+                if (old != null) {
+                    current.unrank(old);
+                }
+                if (installation.getStatus() != SolarInstallation.InstallationStatus.ACTIVE) {
+                    return null;
+                }
+                Standing updated = old != null
+                        ? new Standing(id, typeOf(installation), installation.getInstalledCapacityKW(), old.todayGeneration(),
+                                old.todayConsumption(), old.currentGenerationWatts(), old.currentConsumptionWatts(),
+                                old.lastReadingAt(), old.readToday())
+                        : new Standing(id, typeOf(installation), installation.getInstalledCapacityKW(), 0, 0, 0, 0, null, false);
+                current.rank(updated);
+                return updated;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void recordAll(List<EnergyData> readings) {
+        for (EnergyData reading : readings) {
+            record(reading.getInstallation().getId(), reading.getTimestamp(),
+                    reading.getPowerGenerationWatts(), reading.getPowerConsumptionWatts());
+        }
+    }
+
+    void record(Long installationId, LocalDateTime timestamp,
+                double powerGenerationWatts, double powerConsumptionWatts, LocalDate today) {
+        rollOver(today);
+        lock.readLock().lock();
+        try {
+            Board current = board;
+            if (current == null || !timestamp.toLocalDate().equals(current.day)) {
+                return;
+            }
+            // compute serializes updates of one installation; other installations update concurrently
+            current.standings.computeIfPresent(installationId, (id, old) -> {
+                Standing updated = old.plus(timestamp, powerGenerationWatts, powerConsumptionWatts);
+                current.unrank(old);
+                current.rank(updated);
+                return updated;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Board loaded(LocalDate today) {
+        rollOver(today);
+        Board current = board;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (board == null) {
+                reload();
+            }
+            return board;
+        }
+    }
+
+    private void reload() {
+        Board loaded = load(LocalDate.now());
+        lock.writeLock().lock();
+        try {
+            board = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Loaded the top producers leaderboard with {} installations", loaded.standings.size());
+    }
+
+    void rollOver(LocalDate today) {
+        Board current = board;
+        if (current == null || !current.day.isBefore(today)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            current = board;
+            if (current != null && current.day.isBefore(today)) {
+                Board next = new Board(today);
+                for (Standing standing : current.standings.values()) {
+                    next.put(standing.nextDay());
+                }
+                board = next;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Build a board from active installations, their energy for the day and their newest reading
+     */
+    Board load(LocalDate today) {
+        Map<Long, InstallationEnergyTotals> totals = new HashMap<>();
+        for (InstallationEnergyTotals installationTotals : energyDataRepository.findTopGenerators(
+                SolarInstallation.InstallationStatus.ACTIVE, today.atStartOfDay(), LocalDateTime.of(today, LocalTime.MAX),
+                Limit.unlimited())) {
+            totals.put(installationTotals.installationId(), installationTotals);
+        }
+        Map<Long, EnergyData> latest = new HashMap<>();
+        for (EnergyData reading : energyDataRepository.findLatestByInstallationStatus(
+                SolarInstallation.InstallationStatus.ACTIVE.name(), 1)) {
+            latest.put(reading.getInstallation().getId(), reading);
+        }
+
+        Board loaded = new Board(today);
+        for (SolarInstallation installation : installationRepository.findByStatusOrderByIdAsc(
+                SolarInstallation.InstallationStatus.ACTIVE, Limit.unlimited())) {
+            InstallationEnergyTotals dayTotals = totals.get(installation.getId());
+            EnergyData newest = latest.get(installation.getId());
+            loaded.put(new Standing(
+                    installation.getId(),
+                    typeOf(installation),
+                    installation.getInstalledCapacityKW(),
+                    dayTotals != null && dayTotals.generation() != null ? dayTotals.generation() : 0,
+                    dayTotals != null && dayTotals.consumption() != null ? dayTotals.consumption() : 0,
+                    newest != null ? newest.getPowerGenerationWatts() : 0,
+                    newest != null ? newest.getPowerConsumptionWatts() : 0,
+                    newest != null ? newest.getTimestamp() : null,
+                    dayTotals != null));
+        }
+        return loaded;
+    }
+
+    private static SolarInstallation.InstallationType typeOf(SolarInstallation installation) {
+        return installation.getType() != null ? installation.getType() : SolarInstallation.InstallationType.RESIDENTIAL;
+    }
+
+    /**
+     * The standings of one day and the skip lists ranking them
+     */
+    static final class Board {
+
+        private final LocalDate day;
+        private final Map<Long, Standing> standings = new ConcurrentHashMap<>();
+        private final Map<TopProducerRanking, ConcurrentSkipListSet<Rank>> fleet = new EnumMap<>(TopProducerRanking.class);
+        private final Map<SolarInstallation.InstallationType, Map<TopProducerRanking, ConcurrentSkipListSet<Rank>>> byType =
+                new EnumMap<>(SolarInstallation.InstallationType.class);
+
+        Board(LocalDate day) {
+            this.day = day;
+            for (TopProducerRanking ranking : TopProducerRanking.values()) {
+                fleet.put(ranking, new ConcurrentSkipListSet<>(ORDER));
+            }
+            for (SolarInstallation.InstallationType type : SolarInstallation.InstallationType.values()) {
+                Map<TopProducerRanking, ConcurrentSkipListSet<Rank>> rankings = new EnumMap<>(TopProducerRanking.class);
+                for (TopProducerRanking ranking : TopProducerRanking.values()) {
+                    rankings.put(ranking, new ConcurrentSkipListSet<>(ORDER));
+                }
+                byType.put(type, rankings);
+            }
+        }
+
+        void put(Standing standing) {
+            standings.put(standing.installationId(), standing);
+            rank(standing);
+        }
+
+        void rank(Standing standing) {
+            if (!standing.readToday()) {
+                return;
+            }
+            for (TopProducerRanking ranking : TopProducerRanking.values()) {
+                Rank rank = new Rank(standing.score(ranking), standing.installationId());
+                fleet.get(ranking).add(rank);
+                byType.get(standing.type()).get(ranking).add(rank);
+            }
+        }
+
+        void unrank(Standing standing) {
+            if (!standing.readToday()) {
+                return;
+            }
+            for (TopProducerRanking ranking : TopProducerRanking.values()) {
+                Rank rank = new Rank(standing.score(ranking), standing.installationId());
+                fleet.get(ranking).remove(rank);
+                byType.get(standing.type()).get(ranking).remove(rank);
+            }
+        }
+
+        List<Standing> top(TopProducerRanking ranking, SolarInstallation.InstallationType type, int limit) {
+            ConcurrentSkipListSet<Rank> ranks = type == null ? fleet.get(ranking) : byType.get(type).get(ranking);
+            List<Standing> top = new ArrayList<>(Math.min(limit, standings.size()));
+            // The iterator is weakly consistent, so an installation being re-ranked can show up twice
+            Set<Long> seen = new HashSet<>();
+            Iterator<Rank> iterator = ranks.iterator();
+            while (top.size() < limit && iterator.hasNext()) {
+                long installationId = iterator.next().installationId();
+                Standing standing = standings.get(installationId);
+                if (standing != null && seen.add(installationId)) {
+                    top.add(standing);
+                }
+            }
+            return top;
+        }
+    }
+}
@@ -1,54 +1,126 @@
 package com.solar.core_services.energy_monitoring.service.impl;
 
+import com.solar.core_services.energy_monitoring.dto.BulkImportResultDTO;
 import com.solar.core_services.energy_monitoring.dto.DashboardResponse;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataRequest;
+import com.solar.core_services.energy_monitoring.dto.EnergyHistorySeriesDTO;
 import com.solar.core_services.energy_monitoring.dto.EnergyReadingBatchDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingPageDTO;
+import com.solar.core_services.energy_monitoring.dto.HistoryResolution;
 import com.solar.core_services.energy_monitoring.dto.SolarInstallationDTO;
 import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.EnergyImportCheckpoint;
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyBulkLoader;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdReadingFilter;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataIdAllocator;
 import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyHistoryBucketQuery;
+import com.solar.core_services.energy_monitoring.repository.EnergyImportCheckpointRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyPeriodTotals;
+import com.solar.core_services.energy_monitoring.repository.InstallationPeriodTotals;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.CustomerDashboardCache;
+import com.solar.core_services.energy_monitoring.service.EnergyAggregateStore;
 import com.solar.core_services.energy_monitoring.service.EnergyDataService;
+import com.solar.core_services.energy_monitoring.service.EnergyDerivedMetrics;
+import com.solar.core_services.energy_monitoring.service.EnergyRecentReadingStore;
+import com.solar.core_services.energy_monitoring.service.EnergyRollupEngine;
+import com.solar.core_services.energy_monitoring.service.EnergyUpdatePublisher;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
 import com.solar.core_services.energy_monitoring.service.SolarInstallationService;
-import com.solar.core_services.energy_monitoring.service.WebSocketService;
+import com.solar.core_services.energy_monitoring.service.TopProducerLeaderboard;
+import com.solar.exception.InvalidCursorException;
+import com.solar.exception.InvalidHistoryQueryException;
+import com.solar.exception.InvalidImportBatchException;
 import com.solar.exception.ResourceNotFoundException;
 import com.solar.user_management.model.User;
 import com.solar.user_management.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class EnergyDataServiceImpl implements EnergyDataService {
 
     private final EnergyDataRepository energyDataRepository;
     private final SolarInstallationRepository installationRepository;
     private final UserRepository userRepository;
     private final SolarInstallationService installationService;
-    private final WebSocketService webSocketService;
+    private final EnergyUpdatePublisher updatePublisher;
+    private final EnergyBulkLoader bulkLoader;
+    private final EnergyDataIdAllocator idAllocator;
+    private final EnergyImportCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EnergyAggregateStore aggregateStore;
+    private final EnergyRollupEngine rollupEngine;
+    private final EnergyHistoryBucketQuery historyBucketQuery;
+    private final EnergyRecentReadingStore recentReadingStore;
+    private final TopProducerLeaderboard topProducerLeaderboard;
+    private final CustomerDashboardCache customerDashboardCache;
+    private final SolarInstallationCache installationCache;
+    private final EnergyColdReadingFilter coldReadingFilter;
+
+    @Value("${monitoring.import.chunk-size:5000}")
+    private int importChunkSize;
+
+    @Value("${monitoring.history.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${monitoring.history.max-points:10000}")
+    private int maxHistoryPoints;
 
     @Override
-    @Transactional
     public EnergyDataDTO processEnergyData(EnergyDataRequest request) {
-        // Verify the installation exists
-        SolarInstallation installation = installationRepository.findById(request.getInstallationId())
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "Solar installation not found with ID: " + request.getInstallationId()));
+        LocalDateTime timestamp = request.getTimestamp() != null ? request.getTimestamp() : LocalDateTime.now();
+        return retryingDuplicateInsert(() -> storeEnergyData(request, timestamp));
+    }
+
+    private EnergyDataDTO storeEnergyData(EnergyDataRequest request, LocalDateTime timestamp) {
+        // Verify the installation exists; the reading only needs it as a foreign key
+        SolarInstallation installation = installationCache.reference(request.getInstallationId());
+
+        // A retried or replayed reading is already stored under its (installation, timestamp) key
+        Optional<EnergyData> stored = energyDataRepository.findByInstallationAndTimestamp(installation, timestamp);
+        if (stored.isPresent()) {
+            return convertToDTO(stored.get());
+        }
 
         // Create and save the energy data
         EnergyData energyData = new EnergyData();
         energyData.setInstallation(installation);
         energyData.setPowerGenerationWatts(request.getPowerGenerationWatts());
         energyData.setPowerConsumptionWatts(request.getPowerConsumptionWatts());
-        energyData.setTimestamp(request.getTimestamp() != null ? request.getTimestamp() : LocalDateTime.now());
+        energyData.setTimestamp(timestamp);
         energyData.setDailyYieldKWh(request.getDailyYieldKWh());
         energyData.setTotalYieldKWh(request.getTotalYieldKWh());
         energyData.setSimulated(true); // Assuming all data is simulated for now
@@ -56,28 +128,43 @@ public class EnergyDataServiceImpl implements EnergyDataService {
         // Calculate derived metrics
         energyData = calculateDerivedMetrics(energyData);
 
-        // Save the energy data
-        EnergyData savedData = energyDataRepository.save(energyData);
+        // A resent reading of a day already moved to cold storage is acknowledged without being stored again
+        if (coldReadingFilter.withoutCompacted(List.of(energyData), reading -> request.getInstallationId(),
+                EnergyData::getTimestamp).isEmpty()) {
+            return convertToDTO(energyData);
+        }
+
+        // Save the energy data; flushed so a concurrent copy of the reading fails here, before anything is recorded
+        EnergyData savedData = energyDataRepository.saveAndFlush(energyData);
+        aggregateStore.recordAfterCommit(List.of(savedData));
+        rollupEngine.recordAfterCommit(List.of(savedData));
+        recentReadingStore.recordAfterCommit(List.of(savedData));
+        topProducerLeaderboard.recordAfterCommit(List.of(savedData));
+        customerDashboardCache.invalidateAfterCommit(List.of(savedData));
 
         // Convert to DTO
         EnergyDataDTO energyDataDTO = convertToDTO(savedData);
 
-        // Send real-time update via WebSocket
-        webSocketService.sendEnergyDataUpdate(installation.getId(), energyDataDTO);
+        // Send real-time update via WebSocket once the reading is committed
+        updatePublisher.publish(energyDataDTO);
 
         return energyDataDTO;
     }
 
     @Override
-    @Transactional
     public List<EnergyDataDTO> processEnergyDataBatch(EnergyReadingBatchDTO batchRequest) {
-        // Verify the installation exists
-        SolarInstallation installation = installationRepository.findById(batchRequest.getInstallationId())
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "Solar installation not found with ID: " + batchRequest.getInstallationId()));
+        return retryingDuplicateInsert(() -> storeEnergyDataBatch(batchRequest));
+    }
 
-        // Process each reading in the batch
-        List<EnergyData> processedReadings = batchRequest.getReadings().stream()
+    private List<EnergyDataDTO> storeEnergyDataBatch(EnergyReadingBatchDTO batchRequest) {
+        // Verify the installation exists; the readings only need it as a foreign key
+        SolarInstallation installation = installationCache.reference(batchRequest.getInstallationId());
+
+        // Process each reading in the batch that is not stored yet, in energy_data or a cold block
+        List<EnergyReadingDTO> newReadings = coldReadingFilter.withoutCompacted(
+                withoutStored(installation, batchRequest.getReadings()),
+                reading -> batchRequest.getInstallationId(), EnergyReadingDTO::getTimestamp);
+        List<EnergyData> processedReadings = newReadings.stream()
                 .map(reading -> {
                     // Create energy data from reading
                     EnergyData energyData = new EnergyData();
@@ -94,42 +181,174 @@ public class EnergyDataServiceImpl implements EnergyDataService {
 
                     // Flag as simulated for now
                     energyData.setSimulated(true);
-
-                    // Calculate derived metrics
-                    return calculateDerivedMetrics(energyData);
+                    return energyData;
                 })
                 .collect(Collectors.toList());
 
+        // Calculate derived metrics for the whole batch at once
+        EnergyDerivedMetrics.apply(processedReadings,
+                installationCache.require(batchRequest.getInstallationId()).installedCapacityKW());
+
         // Save all readings in batch
         List<EnergyData> savedReadings = energyDataRepository.saveAll(processedReadings);
-
-        // Convert to DTOs and send WebSocket updates
+        energyDataRepository.flush();
+        aggregateStore.recordAfterCommit(savedReadings);
+        rollupEngine.recordAfterCommit(savedReadings);
+        recentReadingStore.recordAfterCommit(savedReadings);
+        topProducerLeaderboard.recordAfterCommit(savedReadings);
+        customerDashboardCache.invalidateAfterCommit(savedReadings);
+
+        // Convert to DTOs; subscribers get the newest reading after commit rather than one frame per reading
         List<EnergyDataDTO> responseList = savedReadings.stream()
-                .map(data -> {
-                    EnergyDataDTO dto = convertToDTO(data);
-                    // Send real-time update via WebSocket for each reading
-                    webSocketService.sendEnergyDataUpdate(installation.getId(), dto);
-                    return dto;
-                })
+                .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        updatePublisher.publishAll(responseList);
 
         return responseList;
     }
 
+    /**
+     * Run a store in its own transaction. A request racing another one with the same reading can pass the check for
+     * stored readings before the other commits, and then hits the unique (installation, timestamp) index. The store
+     * is run once more in a new transaction, which finds the other request's reading and leaves it alone.
+     */
+    private <T> T retryingDuplicateInsert(Supplier<T> store) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            return transactionTemplate.execute(status -> store.get());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Reading stored concurrently, retrying against the stored rows: {}", e.getMessage());
+            return transactionTemplate.execute(status -> store.get());
+        }
+    }
+
+    /**
+     * The readings whose (installation, timestamp) key is neither stored nor repeated earlier in the list
+     */
+    private List<EnergyReadingDTO> withoutStored(SolarInstallation installation, List<EnergyReadingDTO> readings) {
+        List<LocalDateTime> timestamps = readings.stream()
+                .map(EnergyReadingDTO::getTimestamp)
+                .filter(Objects::nonNull)
+                .toList();
+        if (timestamps.isEmpty()) {
+            return readings;
+        }
+        Set<LocalDateTime> seen = new HashSet<>(energyDataRepository.findTimestampsBetween(installation,
+                Collections.min(timestamps), Collections.max(timestamps)));
+        return readings.stream()
+                .filter(reading -> reading.getTimestamp() == null || seen.add(reading.getTimestamp()))
+                .collect(Collectors.toList());
+    }
+
     @Override
-    public List<EnergyDataDTO> getRecentReadings(Long installationId, int limit) {
+    public BulkImportResultDTO importEnergyDataBatch(EnergyReadingBatchDTO batchRequest) {
         // Verify the installation exists
-        SolarInstallation installation = installationRepository.findById(installationId)
-                .orElseThrow(
-                        () -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
+        Long installationId = batchRequest.getInstallationId();
+        if (!installationCache.exists(installationId)) {
+            throw new ResourceNotFoundException("Solar installation not found with ID: " + installationId);
+        }
 
-        // Get recent readings
-        List<EnergyData> readings = energyDataRepository.findByInstallationOrderByTimestampDesc(installation);
+        String importId = batchRequest.getImportId() != null ? batchRequest.getImportId() : UUID.randomUUID().toString();
+        List<EnergyReadingDTO> readings = batchRequest.getReadings() != null ? batchRequest.getReadings() : List.of();
+        validateImportReadings(installationId, readings);
+
+        // Pick up where a previous attempt with the same import ID stopped
+        EnergyImportCheckpoint checkpoint = checkpointRepository.findById(importId).orElseGet(() -> {
+            EnergyImportCheckpoint created = new EnergyImportCheckpoint();
+            created.setImportId(importId);
+            created.setInstallationId(installationId);
+            return created;
+        });
+        if (!checkpoint.getInstallationId().equals(installationId)) {
+            throw new InvalidImportBatchException(
+                    "Import " + importId + " belongs to installation " + checkpoint.getInstallationId());
+        }
+        int resumedFrom = Math.min(checkpoint.getCommittedOffset(), readings.size());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int chunkSize = Math.max(1, importChunkSize);
+        long imported = 0;
+        long start = System.nanoTime();
+
+        for (int offset = resumedFrom; offset < readings.size(); offset += chunkSize) {
+            List<EnergyReadingDTO> chunk = readings.subList(offset, Math.min(offset + chunkSize, readings.size()));
+            int nextOffset = offset + chunk.size();
+
+            // Rows and checkpoint commit together, so a crash never leaves the offset behind the data
+            List<EnergyReadingDTO> written = transactionTemplate.execute(status -> {
+                // Readings of compacted days that a cold block already holds are skipped like stored ones
+                List<EnergyReadingDTO> fresh = coldReadingFilter.withoutCompacted(chunk, reading -> installationId,
+                        EnergyReadingDTO::getTimestamp);
+                List<EnergyReadingDTO> rows = fresh.isEmpty() ? List.of()
+                        : bulkLoader.load(installationId, fresh, idAllocator.allocate(fresh.size()));
+                checkpoint.setCommittedOffset(nextOffset);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(checkpoint);
+                return rows;
+            });
+            if (written == null) {
+                continue;
+            }
+            // Readings that were already stored are skipped by the loader and not counted again
+            imported += written.size();
+            for (EnergyReadingDTO reading : written) {
+                double produced = reading.getEnergyProduced() != null ? reading.getEnergyProduced() : 0;
+                double consumed = reading.getEnergyConsumed() != null ? reading.getEnergyConsumed() : 0;
+                aggregateStore.record(installationId, reading.getTimestamp(), produced, consumed);
+                rollupEngine.record(installationId, reading.getTimestamp(), produced, consumed);
+                topProducerLeaderboard.record(installationId, reading.getTimestamp(), produced, consumed);
+            }
+        }
+
+        // Imported readings are usually older than the newest ones, so the recent ring is rebuilt
+        if (imported > 0) {
+            recentReadingStore.invalidate(installationId);
+            customerDashboardCache.invalidate(installationId);
+        }
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        double rowsPerSecond = durationMillis > 0 ? imported * 1000.0 / durationMillis : imported;
+        log.info("Bulk import {} for installation {}: {} rows from offset {} in {} ms ({} rows/sec)",
+                importId, installationId, imported, resumedFrom, durationMillis, Math.round(rowsPerSecond));
+
+        return BulkImportResultDTO.builder()
+                .importId(importId)
+                .installationId(installationId)
+                .totalReadings(readings.size())
+                .resumedFromOffset(resumedFrom)
+                .rowsImported(imported)
+                .durationMillis(durationMillis)
+                .rowsPerSecond(rowsPerSecond)
+                .build();
+    }
 
-        // Limit the results
-        if (readings.size() > limit) {
-            readings = readings.subList(0, limit);
+    /**
+     * Refuse the whole import before any chunk is written: the loaders need a timestamp for every reading
+     * and store every reading under the batch's installation
+     */
+    private void validateImportReadings(Long installationId, List<EnergyReadingDTO> readings) {
+        for (int i = 0; i < readings.size(); i++) {
+            EnergyReadingDTO reading = readings.get(i);
+            if (reading == null || reading.getTimestamp() == null) {
+                throw new InvalidImportBatchException("Reading " + i + " has no timestamp");
+            }
+            if (reading.getInstallationId() != null && !reading.getInstallationId().equals(installationId)) {
+                throw new InvalidImportBatchException("Reading " + i + " belongs to installation "
+                        + reading.getInstallationId() + ", not " + installationId);
+            }
         }
+    }
+
+    @Override
+    public List<EnergyDataDTO> getRecentReadings(Long installationId, int limit) {
+        // Verify the installation exists
+        SolarInstallation installation = installationCache.reference(installationId);
+
+        // Get recent readings from the local ring store, or limited in the database
+        int size = Math.max(1, limit);
+        List<EnergyData> readings = recentReadingStore.recent(installation, size)
+                .orElseGet(() -> energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(
+                        installation, Limit.of(size)));
 
         // Convert to DTOs and return
         return readings.stream()
@@ -137,17 +356,85 @@ public class EnergyDataServiceImpl implements EnergyDataService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public EnergyReadingPageDTO getReadingsPage(Long installationId, String cursor, int limit) {
+        // Verify the installation exists
+        SolarInstallation installation = installationCache.reference(installationId);
+
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize > 0 ? maxPageSize : limit));
+
+        // Fetch one extra row to find out whether another page follows
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<EnergyData> readings;
+        if (cursor == null || cursor.isBlank()) {
+            readings = energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, fetchLimit);
+        } else {
+            EnergyData position = decodeCursor(cursor);
+            readings = energyDataRepository.findPageAfterCursor(
+                    installation, position.getTimestamp(), position.getId(), fetchLimit);
+        }
+
+        boolean hasMore = readings.size() > pageSize;
+        if (hasMore) {
+            readings = readings.subList(0, pageSize);
+        }
+
+        return EnergyReadingPageDTO.builder()
+                .installationId(installationId)
+                .readings(readings.stream()
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList()))
+                .nextCursor(hasMore ? encodeCursor(readings.get(readings.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Override
+    public EnergyHistorySeriesDTO getDownsampledHistory(Long installationId, LocalDateTime startDate,
+            LocalDateTime endDate, String resolution, int maxPoints) {
+        // Verify the installation exists
+        if (!installationCache.exists(installationId)) {
+            throw new ResourceNotFoundException("Solar installation not found with ID: " + installationId);
+        }
+        if (!endDate.isAfter(startDate)) {
+            throw new InvalidHistoryQueryException("endDate must be after startDate");
+        }
+
+        HistoryResolution bucketWidth;
+        if (resolution == null || resolution.isBlank() || HistoryResolution.AUTO.equalsIgnoreCase(resolution)) {
+            int budget = Math.max(1, Math.min(maxPoints, maxHistoryPoints));
+            bucketWidth = HistoryResolution.auto(startDate, endDate, budget);
+        } else {
+            bucketWidth = HistoryResolution.fromCode(resolution).orElseThrow(() -> new InvalidHistoryQueryException(
+                    "Unknown resolution: " + resolution + " (use 1m, 5m, 1h, 1d or auto)"));
+        }
+
+        // Keep the response bounded whatever the range
+        long buckets = bucketWidth.bucketCount(startDate, endDate);
+        if (buckets > maxHistoryPoints) {
+            throw new InvalidHistoryQueryException("Resolution " + bucketWidth.getCode() + " needs " + buckets
+                    + " points for this range, more than the limit of " + maxHistoryPoints);
+        }
+
+        return EnergyHistorySeriesDTO.builder()
+                .installationId(installationId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .resolution(bucketWidth.getCode())
+                .points(historyBucketQuery.findBuckets(installationId, bucketWidth, startDate, endDate))
+                .build();
+    }
+
     @Override
     public List<EnergyDataDTO> getReadingsInDateRange(Long installationId, LocalDateTime startDate,
             LocalDateTime endDate) {
         // Verify the installation exists
-        SolarInstallation installation = installationRepository.findById(installationId)
-                .orElseThrow(
-                        () -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
+        SolarInstallation installation = installationCache.reference(installationId);
 
-        // Get readings in date range
-        List<EnergyData> readings = energyDataRepository.findByInstallationAndTimestampBetweenOrderByTimestampDesc(
-                installation, startDate, endDate);
+        // Get readings in date range; short recent ranges are served by the local ring store
+        List<EnergyData> readings = recentReadingStore.range(installation, startDate, endDate)
+                .orElseGet(() -> energyDataRepository.findByInstallationAndTimestampBetweenOrderByTimestampDesc(
+                        installation, startDate, endDate));
 
         // Convert to DTOs and return
         return readings.stream()
@@ -157,6 +444,11 @@ public class EnergyDataServiceImpl implements EnergyDataService {
 
     @Override
     public DashboardResponse getDashboardData(Long customerId) {
+        Optional<DashboardResponse> cached = customerDashboardCache.get(customerId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
         // Verify the customer exists
         User customer = userRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found with ID: " + customerId));
@@ -167,13 +459,83 @@ public class EnergyDataServiceImpl implements EnergyDataService {
         if (installations.isEmpty()) {
             throw new ResourceNotFoundException("No solar installations found for customer with ID: " + customerId);
         }
+        CustomerDashboardCache.Entry reservation = customerDashboardCache.reserve(customerId,
+                installations.stream().map(SolarInstallation::getId).collect(Collectors.toList()));
+
+        // Recent readings come from the ring where it has them; the rest from one windowed query for all installations
+        Map<Long, List<EnergyData>> recentByInstallation = new HashMap<>();
+        for (SolarInstallation installation : installations) {
+            recentReadingStore.recent(installation, 10)
+                    .ifPresent(readings -> recentByInstallation.put(installation.getId(), readings));
+        }
+        if (recentByInstallation.size() < installations.size()) {
+            Map<Long, List<EnergyData>> latest = new HashMap<>();
+            for (EnergyData reading : energyDataRepository.findLatestByUser(customerId, 10)) {
+                latest.computeIfAbsent(reading.getInstallation().getId(), id -> new ArrayList<>()).add(reading);
+            }
+            latest.forEach(recentByInstallation::putIfAbsent);
+        }
 
-        // For simplicity, we'll just use the first installation for now
-        // In a real application, you might want to aggregate data from all
-        // installations
-        SolarInstallation primaryInstallation = installations.get(0);
+        // Running totals come from the in-memory store; fall back to one grouped query when it is disabled
+        DashboardPeriods periods = DashboardPeriods.of(LocalDate.now());
+        Map<Long, EnergyPeriodTotals> totalsByInstallation = new HashMap<>();
+        if (!aggregateStore.isEnabled()) {
+            for (InstallationPeriodTotals totals : energyDataRepository.sumDashboardPeriodsByUser(customer,
+                    periods.startOfDay(), periods.startOfWeek(), periods.startOfMonth(), periods.startOfYear(),
+                    periods.scanStart(), periods.endOfDay())) {
+                totalsByInstallation.put(totals.installationId(), totals.totals());
+            }
+        }
+
+        // Per-installation figures, then the same figures combined across installations
+        List<DashboardResponse> sites = new ArrayList<>(installations.size());
+        List<EnergyData> combinedReadings = new ArrayList<>();
+        double combinedCapacityKW = 0;
+        double combinedGeneration = 0;
+        double combinedConsumption = 0;
+        double[] combinedSums = new double[8];
+        for (SolarInstallation installation : installations) {
+            List<EnergyData> recentReadings = recentByInstallation.getOrDefault(installation.getId(), List.of());
+            Optional<EnergyAggregateStore.Snapshot> snapshot = aggregateStore.snapshot(installation);
+            double currentPowerGeneration = snapshot.map(EnergyAggregateStore.Snapshot::currentGenerationWatts)
+                    .orElse(recentReadings.isEmpty() ? 0 : recentReadings.get(0).getPowerGenerationWatts());
+            double currentPowerConsumption = snapshot.map(EnergyAggregateStore.Snapshot::currentConsumptionWatts)
+                    .orElse(recentReadings.isEmpty() ? 0 : recentReadings.get(0).getPowerConsumptionWatts());
+            EnergyPeriodTotals totals = snapshot.map(EnergyDataServiceImpl::toPeriodTotals)
+                    .orElse(totalsByInstallation.get(installation.getId()));
+
+            DashboardResponse site = buildDashboard(installation, installation.getInstalledCapacityKW(), recentReadings,
+                    currentPowerGeneration, currentPowerConsumption, totals);
+            site.setRecentReadings(List.of());
+            sites.add(site);
+
+            combinedReadings.addAll(recentReadings);
+            combinedCapacityKW += installation.getInstalledCapacityKW();
+            combinedGeneration += currentPowerGeneration;
+            combinedConsumption += currentPowerConsumption;
+            if (totals != null) {
+                combinedSums[0] += orZero(totals.todayGeneration());
+                combinedSums[1] += orZero(totals.todayConsumption());
+                combinedSums[2] += orZero(totals.weekToDateGeneration());
+                combinedSums[3] += orZero(totals.weekToDateConsumption());
+                combinedSums[4] += orZero(totals.monthToDateGeneration());
+                combinedSums[5] += orZero(totals.monthToDateConsumption());
+                combinedSums[6] += orZero(totals.yearToDateGeneration());
+                combinedSums[7] += orZero(totals.yearToDateConsumption());
+            }
+        }
+        combinedReadings.sort(Comparator.comparing(EnergyData::getTimestamp).thenComparing(EnergyData::getId).reversed());
 
-        return getInstallationDashboard(primaryInstallation.getId());
+        // The first installation stays the customer's primary one for installationId and installationDetails
+        DashboardResponse response = buildDashboard(installations.get(0), combinedCapacityKW,
+                combinedReadings.subList(0, Math.min(10, combinedReadings.size())),
+                combinedGeneration, combinedConsumption,
+                new EnergyPeriodTotals(combinedSums[0], combinedSums[1], combinedSums[2], combinedSums[3],
+                        combinedSums[4], combinedSums[5], combinedSums[6], combinedSums[7]));
+        response.setInstallations(sites);
+
+        customerDashboardCache.put(customerId, reservation, response);
+        return response;
     }
 
     @Override
@@ -184,98 +546,72 @@ public class EnergyDataServiceImpl implements EnergyDataService {
                         () -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
 
         // Get recent readings
-        List<EnergyData> recentReadings = energyDataRepository.findByInstallationOrderByTimestampDesc(installation);
-
-        // Get today's data
-        LocalDateTime startOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MIDNIGHT);
-        LocalDateTime endOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-
-        // Get week-to-date data
-        LocalDateTime startOfWeek = LocalDateTime.of(LocalDate.now().minusDays(LocalDate.now().getDayOfWeek().getValue() - 1), LocalTime.MIDNIGHT);
-
-        // Get month-to-date data
-        LocalDateTime startOfMonth = LocalDateTime.of(LocalDate.now().withDayOfMonth(1), LocalTime.MIDNIGHT);
-
-        // Get year-to-date data
-        LocalDateTime startOfYear = LocalDateTime.of(LocalDate.now().withDayOfYear(1), LocalTime.MIDNIGHT);
-
-        // Calculate current values
-        double currentPowerGeneration = recentReadings.isEmpty() ? 0 : recentReadings.get(0).getPowerGenerationWatts();
-        double currentPowerConsumption = recentReadings.isEmpty() ? 0
-                : recentReadings.get(0).getPowerConsumptionWatts();
-
-        // Calculate today's generation and consumption
-        Double todayGeneration = energyDataRepository.sumPowerGenerationForPeriod(installation, startOfDay, endOfDay);
-        Double todayConsumption = energyDataRepository.sumPowerConsumptionForPeriod(installation, startOfDay, endOfDay);
-
-        // Calculate week-to-date generation and consumption
-        Double weekToDateGeneration = energyDataRepository.sumPowerGenerationForPeriod(installation, startOfWeek, endOfDay);
-        Double weekToDateConsumption = energyDataRepository.sumPowerConsumptionForPeriod(installation, startOfWeek, endOfDay);
-
-        // Calculate month-to-date generation and consumption
-        Double monthToDateGeneration = energyDataRepository.sumPowerGenerationForPeriod(installation, startOfMonth,
-                endOfDay);
-        Double monthToDateConsumption = energyDataRepository.sumPowerConsumptionForPeriod(installation, startOfMonth,
-                endOfDay);
-
-        // Calculate year-to-date generation and consumption
-        Double yearToDateGeneration = energyDataRepository.sumPowerGenerationForPeriod(installation, startOfYear, endOfDay);
-        Double yearToDateConsumption = energyDataRepository.sumPowerConsumptionForPeriod(installation, startOfYear, endOfDay);
-
-        // Convert kWh values (assuming readings are in watts and timestamps are in seconds)
-        double todayGenerationKWh = (todayGeneration != null ? todayGeneration : 0) / 1000.0 / 3600.0;
-        double todayConsumptionKWh = (todayConsumption != null ? todayConsumption : 0) / 1000.0 / 3600.0;
-        double weekToDateGenerationKWh = (weekToDateGeneration != null ? weekToDateGeneration : 0) / 1000.0 / 3600.0;
-        double weekToDateConsumptionKWh = (weekToDateConsumption != null ? weekToDateConsumption : 0) / 1000.0 / 3600.0;
-        double monthToDateGenerationKWh = (monthToDateGeneration != null ? monthToDateGeneration : 0) / 1000.0 / 3600.0;
-        double monthToDateConsumptionKWh = (monthToDateConsumption != null ? monthToDateConsumption : 0) / 1000.0
-                / 3600.0;
-        double yearToDateGenerationKWh = (yearToDateGeneration != null ? yearToDateGeneration : 0) / 1000.0 / 3600.0;
-        double yearToDateConsumptionKWh = (yearToDateConsumption != null ? yearToDateConsumption : 0) / 1000.0 / 3600.0;
-
-        // Calculate efficiency
-        double currentEfficiency = 0;
-        if (currentPowerConsumption > 0) {
-            currentEfficiency = (currentPowerGeneration / currentPowerConsumption) * 100;
+        List<EnergyData> recentReadings = recentReadingStore.recent(installation, 10)
+                .orElseGet(() -> energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(
+                        installation, Limit.of(10)));
+
+        // Running totals come from the in-memory store; fall back to one aggregation query when it is disabled
+        Optional<EnergyAggregateStore.Snapshot> snapshot = aggregateStore.snapshot(installation);
+        double currentPowerGeneration;
+        double currentPowerConsumption;
+        EnergyPeriodTotals totals;
+        if (snapshot.isPresent()) {
+            currentPowerGeneration = snapshot.get().currentGenerationWatts();
+            currentPowerConsumption = snapshot.get().currentConsumptionWatts();
+            totals = toPeriodTotals(snapshot.get());
+        } else {
+            currentPowerGeneration = recentReadings.isEmpty() ? 0 : recentReadings.get(0).getPowerGenerationWatts();
+            currentPowerConsumption = recentReadings.isEmpty() ? 0
+                    : recentReadings.get(0).getPowerConsumptionWatts();
+
+            // Sum all eight period totals in a single scan
+            DashboardPeriods periods = DashboardPeriods.of(LocalDate.now());
+            totals = energyDataRepository.sumDashboardPeriods(installation, periods.startOfDay(), periods.startOfWeek(),
+                    periods.startOfMonth(), periods.startOfYear(), periods.scanStart(), periods.endOfDay());
         }
 
-        // Make sure efficiency is a percentage value (0-100 range)
-        if (currentEfficiency > 0 && currentEfficiency <= 1.0) {
-            currentEfficiency = currentEfficiency * 100.0; // Convert from decimal to percentage
-        }
+        return buildDashboard(installation, installation.getInstalledCapacityKW(), recentReadings,
+                currentPowerGeneration, currentPowerConsumption, totals);
+    }
 
-        // Cap efficiency at 100% for more reasonable values
-        double cappedEfficiency = Math.min(100.0, currentEfficiency);
-
-        // Calculate average efficiency based on utilization and capacity
-        double averageEfficiency = 0;
-
-        // Calculate utilization rate (currentGeneration as percentage of installed capacity)
-        double utilizationRate = 0;
-        if (installation.getInstalledCapacityKW() > 0) {
-            utilizationRate = Math.min(1.0, currentPowerGeneration / (installation.getInstalledCapacityKW() * 1000));
-
-            // Calculate average efficiency based on utilization rate
-            // At high utilization (near capacity), efficiency should be close to 100%
-            // At low utilization, use the capped efficiency value
-            if (utilizationRate > 0.7) {
-                // High production time - efficiency close to 100%
-                averageEfficiency = 90.0 + (10.0 * utilizationRate);
-            } else if (utilizationRate > 0.3) {
-                // Medium production time - efficiency between 70-90%
-                averageEfficiency = 70.0 + (20.0 * ((utilizationRate - 0.3) / 0.4));
-            } else if (utilizationRate > 0) {
-                // Low production time - efficiency between 0-70% based on utilization
-                averageEfficiency = Math.max(cappedEfficiency, utilizationRate * 70.0 / 0.3);
-            } else {
-                // No production - use capped efficiency or 0
-                averageEfficiency = cappedEfficiency;
-            }
-        }
+    /**
+     * Dashboard figures from current power and period energy
+     * @param installation The installation reported as installationId and installationDetails
+     * @param installedCapacityKW The capacity utilization is measured against
+     * @param totals The period energy in watt-hours, or null without readings
+     */
+    private DashboardResponse buildDashboard(SolarInstallation installation, double installedCapacityKW,
+                                             List<EnergyData> recentReadings, double currentPowerGeneration,
+                                             double currentPowerConsumption, EnergyPeriodTotals totals) {
+        Double todayGeneration = totals != null ? totals.todayGeneration() : null;
+        Double todayConsumption = totals != null ? totals.todayConsumption() : null;
+        Double weekToDateGeneration = totals != null ? totals.weekToDateGeneration() : null;
+        Double weekToDateConsumption = totals != null ? totals.weekToDateConsumption() : null;
+        Double monthToDateGeneration = totals != null ? totals.monthToDateGeneration() : null;
+        Double monthToDateConsumption = totals != null ? totals.monthToDateConsumption() : null;
+        Double yearToDateGeneration = totals != null ? totals.yearToDateGeneration() : null;
+        Double yearToDateConsumption = totals != null ? totals.yearToDateConsumption() : null;
+
+        // Convert watt-hours to kWh
+        double todayGenerationKWh = (todayGeneration != null ? todayGeneration : 0) / 1000.0;
+        double todayConsumptionKWh = (todayConsumption != null ? todayConsumption : 0) / 1000.0;
+        double weekToDateGenerationKWh = (weekToDateGeneration != null ? weekToDateGeneration : 0) / 1000.0;
+        double weekToDateConsumptionKWh = (weekToDateConsumption != null ? weekToDateConsumption : 0) / 1000.0;
+        double monthToDateGenerationKWh = (monthToDateGeneration != null ? monthToDateGeneration : 0) / 1000.0;
+        double monthToDateConsumptionKWh = (monthToDateConsumption != null ? monthToDateConsumption : 0) / 1000.0;
+        double yearToDateGenerationKWh = (yearToDateGeneration != null ? yearToDateGeneration : 0) / 1000.0;
+        double yearToDateConsumptionKWh = (yearToDateConsumption != null ? yearToDateConsumption : 0) / 1000.0;
+
+        // Efficiency and utilization-banded efficiency of the current figures
+        double currentEfficiency = EnergyDerivedMetrics.efficiencyPercentage(currentPowerGeneration,
+                currentPowerConsumption);
+        double averageEfficiency = EnergyDerivedMetrics.bandedEfficiency(
+                EnergyDerivedMetrics.utilization(currentPowerGeneration, installedCapacityKW),
+                currentEfficiency, installedCapacityKW);
 
         // Build the dashboard response
         DashboardResponse response = DashboardResponse.builder()
-                .installationId(installationId)
+                .installationId(installation.getId())
                 .currentPowerGenerationWatts(currentPowerGeneration)
                 .currentPowerConsumptionWatts(currentPowerConsumption)
                 .todayGenerationKWh(todayGenerationKWh)
@@ -286,13 +622,12 @@ public class EnergyDataServiceImpl implements EnergyDataService {
                 .monthToDateConsumptionKWh(monthToDateConsumptionKWh)
                 .yearToDateGenerationKWh(yearToDateGenerationKWh)
                 .yearToDateConsumptionKWh(yearToDateConsumptionKWh)
-                .lifetimeGenerationKWh(installation.getInstalledCapacityKW() * 24 * 30 * 12) // Placeholder calculation
-                .lifetimeConsumptionKWh(installation.getInstalledCapacityKW() * 24 * 30 * 12 * 0.8) // Placeholder calculation
+                .lifetimeGenerationKWh(installedCapacityKW * 24 * 30 * 12) // Placeholder calculation
+                .lifetimeConsumptionKWh(installedCapacityKW * 24 * 30 * 12 * 0.8) // Placeholder calculation
                 .currentEfficiencyPercentage(currentEfficiency)
                 .averageEfficiencyPercentage(averageEfficiency)
                 .lastUpdated(recentReadings.isEmpty() ? LocalDateTime.now() : recentReadings.get(0).getTimestamp())
                 .recentReadings(recentReadings.stream()
-                        .limit(10)
                         .map(this::convertToDTO)
                         .collect(Collectors.toList()))
                 .installationDetails(convertToDTO(installation))
@@ -301,13 +636,63 @@ public class EnergyDataServiceImpl implements EnergyDataService {
         return response;
     }
 
+    private static EnergyPeriodTotals toPeriodTotals(EnergyAggregateStore.Snapshot snapshot) {
+        return new EnergyPeriodTotals(snapshot.todayGeneration(), snapshot.todayConsumption(),
+                snapshot.weekToDateGeneration(), snapshot.weekToDateConsumption(),
+                snapshot.monthToDateGeneration(), snapshot.monthToDateConsumption(),
+                snapshot.yearToDateGeneration(), snapshot.yearToDateConsumption());
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    /**
+     * Dashboard period boundaries: ISO week starting Monday, calendar month and year.
+     * The scan starts at whichever of week and year starts first, as the week can start before the year does.
+     */
+    private record DashboardPeriods(LocalDateTime startOfDay, LocalDateTime startOfWeek, LocalDateTime startOfMonth,
+                                    LocalDateTime startOfYear, LocalDateTime scanStart, LocalDateTime endOfDay) {
+
+        static DashboardPeriods of(LocalDate today) {
+            LocalDateTime startOfWeek = LocalDateTime.of(today.minusDays(today.getDayOfWeek().getValue() - 1), LocalTime.MIDNIGHT);
+            LocalDateTime startOfYear = LocalDateTime.of(today.withDayOfYear(1), LocalTime.MIDNIGHT);
+            return new DashboardPeriods(
+                    LocalDateTime.of(today, LocalTime.MIDNIGHT),
+                    startOfWeek,
+                    LocalDateTime.of(today.withDayOfMonth(1), LocalTime.MIDNIGHT),
+                    startOfYear,
+                    startOfWeek.isBefore(startOfYear) ? startOfWeek : startOfYear,
+                    LocalDateTime.of(today, LocalTime.MAX));
+        }
+    }
+
     @Override
     public EnergyData calculateDerivedMetrics(EnergyData energyData) {
-        // For now, we'll just return the data as is
-        // In a real application, you might want to calculate additional metrics
+        double installedCapacityKW = installationCache.require(energyData.getInstallation().getId()).installedCapacityKW();
+        EnergyDerivedMetrics.apply(energyData, installedCapacityKW);
         return energyData;
     }
 
+    // Cursors are the (timestamp, id) of the last reading on a page, base64url-encoded
+    private String encodeCursor(EnergyData last) {
+        String raw = last.getTimestamp() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private EnergyData decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            EnergyData position = new EnergyData();
+            position.setTimestamp(LocalDateTime.parse(raw.substring(0, separator)));
+            position.setId(Long.parseLong(raw.substring(separator + 1)));
+            return position;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
     // Helper methods for DTO conversion
     private EnergyDataDTO convertToDTO(EnergyData energyData) {
         return EnergyDataDTO.builder()
@@ -319,6 +704,10 @@ public class EnergyDataServiceImpl implements EnergyDataService {
                 .dailyYieldKWh(energyData.getDailyYieldKWh())
                 .totalYieldKWh(energyData.getTotalYieldKWh())
                 .isSimulated(energyData.isSimulated())
+                .netPowerWatts(energyData.getNetPowerWatts())
+                .utilizationRate(energyData.getUtilizationRate())
+                .efficiencyPercentage(energyData.getEfficiencyPercentage())
+                .bandedEfficiencyPercentage(energyData.getBandedEfficiencyPercentage())
                 .build();
     }
 
@@ -0,0 +1,617 @@
+package com.solar.core_services.energy_monitoring.service.impl;
+
+import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyDataRequest;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingFrame;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingFrameResultDTO;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdReadingFilter;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataIdAllocator;
+import com.solar.core_services.energy_monitoring.service.CustomerDashboardCache;
+import com.solar.core_services.energy_monitoring.service.EnergyAggregateStore;
+import com.solar.core_services.energy_monitoring.service.EnergyDerivedMetrics;
+import com.solar.core_services.energy_monitoring.service.EnergyIngestionService;
+import com.solar.core_services.energy_monitoring.service.EnergyRecentReadingStore;
+import com.solar.core_services.energy_monitoring.service.EnergyRollupEngine;
+import com.solar.core_services.energy_monitoring.service.EnergyUpdatePublisher;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
+import com.solar.core_services.energy_monitoring.service.TopProducerLeaderboard;
+import com.solar.exception.IngestionOverloadedException;
+import com.solar.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind ingestion pipeline for device readings.
+ * Readings are acknowledged as soon as they are queued; a single background flusher
+ * group-commits them as JDBC batch inserts once either the batch size or the maximum
+ * flush delay is reached.
+ * Inserts are idempotent on (installation, timestamp): a reading that is already stored, such as a gateway retry
+ * or a replay after reconnecting, is skipped by ON CONFLICT DO NOTHING on PostgreSQL and by MERGE elsewhere,
+ * and is neither aggregated nor published again. So is a reading of a compacted day that its cold block holds.
+ * Readings are acknowledged before they are stored, so a batch that fails is never dropped: it is retried with
+ * exponential backoff, which holds the queue back so devices see back-pressure while the database recovers, then
+ * row by row, and only the rows that still fail go to energy_ingest_dead_letters.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EnergyIngestionServiceImpl implements EnergyIngestionService {
+
+    private static final String COLUMNS = "id, installation_id, power_generation_watts, power_consumption_watts, "
+            + "timestamp, daily_yieldkwh, total_yieldkwh, is_simulated, net_power_watts, utilization_rate, "
+            + "efficiency_percentage, banded_efficiency_percentage";
+
+    // No conflict target, so it also works before the unique index is in place
+    private static final String INSERT_SQL = "INSERT INTO energy_data (" + COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    // H2 has no ON CONFLICT; the parameters are bound in the same order as INSERT_SQL
+    private static final String MERGE_SQL = "MERGE INTO energy_data e USING (SELECT CAST(? AS BIGINT) AS id, "
+            + "CAST(? AS BIGINT) AS installation_id, CAST(? AS DOUBLE PRECISION) AS power_generation_watts, "
+            + "CAST(? AS DOUBLE PRECISION) AS power_consumption_watts, CAST(? AS TIMESTAMP) AS reading_time, "
+            + "CAST(? AS DOUBLE PRECISION) AS daily_yieldkwh, CAST(? AS DOUBLE PRECISION) AS total_yieldkwh, "
+            + "CAST(? AS BOOLEAN) AS is_simulated, CAST(? AS DOUBLE PRECISION) AS net_power_watts, "
+            + "CAST(? AS DOUBLE PRECISION) AS utilization_rate, CAST(? AS DOUBLE PRECISION) AS efficiency_percentage, "
+            + "CAST(? AS DOUBLE PRECISION) AS banded_efficiency_percentage) s "
+            + "ON (e.installation_id = s.installation_id AND e.timestamp = s.reading_time) "
+            + "WHEN NOT MATCHED THEN INSERT (" + COLUMNS + ") VALUES (s.id, s.installation_id, "
+            + "s.power_generation_watts, s.power_consumption_watts, s.reading_time, s.daily_yieldkwh, s.total_yieldkwh, "
+            + "s.is_simulated, s.net_power_watts, s.utilization_rate, s.efficiency_percentage, "
+            + "s.banded_efficiency_percentage)";
+
+    // Ids are allocated before the insert, so the rows carrying them are exactly the readings written
+    private static final String INSERTED_IDS_SQL = "SELECT id FROM energy_data "
+            + "WHERE id BETWEEN ? AND ? AND timestamp BETWEEN ? AND ?";
+
+    private static final String DEAD_LETTER_SQL = "INSERT INTO energy_ingest_dead_letters "
+            + "(installation_id, timestamp, power_generation_watts, power_consumption_watts, daily_yieldkwh, "
+            + "total_yieldkwh, error, failed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final SolarInstallationCache installationCache;
+    private final EnergyDataIdAllocator idAllocator;
+    private final EnergyColdReadingFilter coldReadingFilter;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final EnergyUpdatePublisher updatePublisher;
+    private final EnergyAggregateStore aggregateStore;
+    private final EnergyRollupEngine rollupEngine;
+    private final EnergyRecentReadingStore recentReadingStore;
+    private final TopProducerLeaderboard topProducerLeaderboard;
+    private final CustomerDashboardCache customerDashboardCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitoring.ingest.write-behind.enabled:true}")
+    private boolean writeBehindEnabled;
+
+    @Value("${monitoring.ingest.queue-capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${monitoring.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${monitoring.ingest.max-flush-delay-ms:200}")
+    private long maxFlushDelayMs;
+
+    @Value("${monitoring.ingest.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Value("${monitoring.ingest.flush-retries:4}")
+    private int flushRetries;
+
+    @Value("${monitoring.ingest.flush-retry-backoff-ms:250}")
+    private long flushRetryBackoffMs;
+
+    private BlockingQueue<PendingReading> queue;
+    private TransactionTemplate transactionTemplate;
+    private Timer flushTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+    private Counter duplicateCounter;
+    private Counter retryCounter;
+    private volatile String insertSql;
+    private Thread flusherThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("energy.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Readings waiting to be flushed to the database")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("energy.ingest.flush.latency")
+                .description("Time taken to group-commit one batch of readings")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("energy.ingest.flush.batch.size")
+                .description("Number of readings written per group commit")
+                .register(meterRegistry);
+        acceptedCounter = meterRegistry.counter("energy.ingest.readings", "outcome", "accepted");
+        rejectedCounter = meterRegistry.counter("energy.ingest.readings", "outcome", "rejected");
+        failedCounter = meterRegistry.counter("energy.ingest.readings", "outcome", "failed");
+        duplicateCounter = meterRegistry.counter("energy.ingest.readings", "outcome", "duplicate");
+        retryCounter = meterRegistry.counter("energy.ingest.flush.retries");
+
+        if (writeBehindEnabled) {
+            running = true;
+            flusherThread = new Thread(this::runFlusher, "energy-ingest-flusher");
+            flusherThread.setDaemon(true);
+            flusherThread.start();
+            log.info("Write-behind ingestion started (capacity={}, batchSize={}, maxFlushDelayMs={})",
+                    queueCapacity, batchSize, maxFlushDelayMs);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flusherThread != null) {
+            flusherThread.interrupt();
+            try {
+                flusherThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Persist anything that arrived after the flusher stopped
+        flushPending();
+    }
+
+    @Override
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+
+    @Override
+    public EnergyDataDTO enqueue(EnergyDataRequest request) {
+        // Verify the installation exists so a bad reading cannot poison a whole batch
+        if (!installationCache.exists(request.getInstallationId())) {
+            throw new ResourceNotFoundException(
+                    "Solar installation not found with ID: " + request.getInstallationId());
+        }
+
+        PendingReading reading = new PendingReading(
+                request.getInstallationId(),
+                request.getPowerGenerationWatts(),
+                request.getPowerConsumptionWatts(),
+                request.getTimestamp() != null ? request.getTimestamp() : LocalDateTime.now(),
+                request.getDailyYieldKWh(),
+                request.getTotalYieldKWh());
+
+        if (!queue.offer(reading)) {
+            rejectedCounter.increment();
+            throw new IngestionOverloadedException(
+                    "Ingestion queue is full, retry in " + retryAfterSeconds + " seconds", retryAfterSeconds);
+        }
+        acceptedCounter.increment();
+
+        return reading.toDTO(null);
+    }
+
+    @Override
+    public EnergyReadingFrameResultDTO enqueueFrame(ByteBuffer frame) {
+        int count = EnergyReadingFrame.validate(frame);
+        long installationId = EnergyReadingFrame.installationId(frame);
+        if (!installationCache.exists(installationId)) {
+            throw new ResourceNotFoundException("Solar installation not found with ID: " + installationId);
+        }
+
+        // Without write-behind only this frame's readings are written, on the request thread, leaving the queue alone
+        if (!writeBehindEnabled) {
+            List<PendingReading> readings = new ArrayList<>(count);
+            EnergyReadingFrame.decode(frame, (id, timestamp, generation, consumption) ->
+                    readings.add(new PendingReading(id, generation, consumption, timestamp, 0, 0)));
+            acceptedCounter.increment(count);
+            int deadLettered = 0;
+            for (int from = 0; from < count; from += batchSize) {
+                deadLettered += flush(readings.subList(from, Math.min(from + batchSize, count))).deadLettered();
+            }
+            return EnergyReadingFrameResultDTO.builder()
+                    .installationId(installationId)
+                    .readingsAccepted(count)
+                    .persisted(deadLettered == 0)
+                    .build();
+        }
+
+        // Refuse the frame as a whole rather than acknowledging part of it
+        if (queue.remainingCapacity() < count) {
+            rejectedCounter.increment(count);
+            throw new IngestionOverloadedException(
+                    "Ingestion queue is full, retry in " + retryAfterSeconds + " seconds", retryAfterSeconds);
+        }
+
+        int[] accepted = {0};
+        EnergyReadingFrame.decode(frame, (id, timestamp, generation, consumption) -> {
+            PendingReading reading = new PendingReading(id, generation, consumption, timestamp, 0, 0);
+            try {
+                // Single readings may have taken the space since the check; give the flusher one cycle to free it
+                if (queue.offer(reading, maxFlushDelayMs, TimeUnit.MILLISECONDS)) {
+                    accepted[0]++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        acceptedCounter.increment(accepted[0]);
+        if (accepted[0] < count) {
+            rejectedCounter.increment(count - accepted[0]);
+            log.warn("Queued only {} of {} readings from a frame for installation {}", accepted[0], count, installationId);
+        }
+
+        return EnergyReadingFrameResultDTO.builder()
+                .installationId(installationId)
+                .readingsAccepted(accepted[0])
+                .persisted(false)
+                .build();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Drain and write everything currently queued, in batches of at most the configured size
+     * @return The number of readings written; readings that were already stored are not counted
+     */
+    public int flushPending() {
+        int written = 0;
+        List<PendingReading> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            written += flush(batch).written();
+            batch.clear();
+        }
+        return written;
+    }
+
+    private void runFlusher() {
+        List<PendingReading> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingReading first = queue.poll(maxFlushDelayMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep collecting until the batch is full or the oldest reading has waited long enough
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxFlushDelayMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingReading next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Shutdown requested; write the partial batch, stop() drains whatever is left
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                }
+                break;
+            } catch (Exception e) {
+                log.error("Unexpected error in ingestion flusher", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private FlushResult flush(List<PendingReading> batch) {
+        List<PendingReading> fresh = batch;
+        try {
+            fresh = coldReadingFilter.withoutCompacted(batch, PendingReading::installationId, PendingReading::timestamp);
+        } catch (RuntimeException e) {
+            // The batch is already acknowledged; the next compaction run drops any reading its block already holds
+            log.warn("Failed to check {} energy readings against cold storage, writing them all", batch.size(), e);
+        }
+        duplicateCounter.increment(batch.size() - fresh.size());
+        return fresh.isEmpty() ? new FlushResult(0, 0) : write(fresh);
+    }
+
+    private FlushResult write(List<PendingReading> batch) {
+        long start = System.nanoTime();
+        DerivedMetrics derived = null;
+        long[] ids = null;
+        Set<Long> inserted = null;
+        boolean[] deadLettered = new boolean[batch.size()];
+        boolean interrupted = false;
+        long backoff = flushRetryBackoffMs;
+        try {
+            for (int attempt = 0; inserted == null; attempt++) {
+                try {
+                    if (derived == null) {
+                        derived = derive(batch);
+                    }
+                    if (ids == null) {
+                        ids = idAllocator.allocate(batch.size());
+                    }
+                    inserted = insert(batch, ids, derived, 0, batch.size());
+                } catch (Exception e) {
+                    if (attempt >= flushRetries) {
+                        log.warn("Failed to flush {} energy readings after {} retries, writing them one by one",
+                                batch.size(), flushRetries, e);
+                        inserted = insertEachRow(batch, ids, derived, e, deadLettered);
+                        break;
+                    }
+                    retryCounter.increment();
+                    log.warn("Failed to flush {} energy readings, retrying in {} ms", batch.size(), backoff, e);
+                    // Keep retrying through a shutdown, just without waiting
+                    if (!interrupted) {
+                        try {
+                            Thread.sleep(backoff);
+                        } catch (InterruptedException ie) {
+                            interrupted = true;
+                        }
+                    }
+                    backoff *= 2;
+                }
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        batchSizeSummary.record(batch.size());
+
+        // Running totals and real-time updates only change once the readings are durable
+        List<EnergyDataDTO> updates = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingReading reading = batch.get(i);
+            if (deadLettered[i]) {
+                continue;
+            }
+            if (!inserted.contains(ids[i])) {
+                duplicateCounter.increment();
+                continue;
+            }
+            aggregateStore.record(reading.installationId(), reading.timestamp(),
+                    reading.powerGenerationWatts(), reading.powerConsumptionWatts());
+            rollupEngine.record(reading.installationId(), reading.timestamp(),
+                    reading.powerGenerationWatts(), reading.powerConsumptionWatts());
+            topProducerLeaderboard.record(reading.installationId(), reading.timestamp(),
+                    reading.powerGenerationWatts(), reading.powerConsumptionWatts());
+            customerDashboardCache.invalidate(reading.installationId());
+            recentReadingStore.record(reading.installationId(), ids[i], reading.timestamp(),
+                    reading.powerGenerationWatts(), reading.powerConsumptionWatts(),
+                    reading.dailyYieldKWh(), reading.totalYieldKWh(), derived.utilizationRate()[i],
+                    derived.bandedEfficiencyPercentage()[i], true);
+            updates.add(derived.apply(reading.toDTO(ids[i]), i));
+        }
+        if (!updates.isEmpty()) {
+            updatePublisher.publishAll(updates);
+        }
+        int deadLetteredCount = 0;
+        for (boolean failed : deadLettered) {
+            if (failed) {
+                deadLetteredCount++;
+            }
+        }
+        return new FlushResult(updates.size(), deadLetteredCount);
+    }
+
+    /**
+     * Insert the readings from, inclusive, to to, exclusive, in one transaction
+     * @return The ids of the readings that were inserted
+     */
+    private Set<Long> insert(List<PendingReading> batch, long[] ids, DerivedMetrics derived, int from, int to) {
+        String sql = insertSql();
+        int[] index = {from};
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(sql, batch.subList(from, to), to - from, (ps, reading) -> {
+                int i = index[0]++;
+                ps.setLong(1, ids[i]);
+                ps.setLong(2, reading.installationId());
+                ps.setDouble(3, reading.powerGenerationWatts());
+                ps.setDouble(4, reading.powerConsumptionWatts());
+                ps.setTimestamp(5, Timestamp.valueOf(reading.timestamp()));
+                ps.setDouble(6, reading.dailyYieldKWh());
+                ps.setDouble(7, reading.totalYieldKWh());
+                ps.setBoolean(8, true); // Assuming all data is simulated for now
+                ps.setDouble(9, derived.netPowerWatts()[i]);
+                ps.setDouble(10, derived.utilizationRate()[i]);
+                ps.setDouble(11, derived.efficiencyPercentage()[i]);
+                ps.setDouble(12, derived.bandedEfficiencyPercentage()[i]);
+            });
+            return insertedIds(batch, ids, from, to);
+        });
+    }
+
+    /**
+     * Insert each reading on its own, so one bad row cannot take the rest of its batch down, and dead-letter
+     * the readings that still fail
+     * @param ids The batch's ids, or null if none could be allocated
+     * @param derived The batch's derived metrics, or null if they could not be derived
+     * @param batchFailure Why the batch failed, recorded for readings that could not be tried on their own
+     * @param deadLettered Set for each reading that was dead-lettered
+     */
+    private Set<Long> insertEachRow(List<PendingReading> batch, long[] ids, DerivedMetrics derived,
+                                    Exception batchFailure, boolean[] deadLettered) {
+        Set<Long> inserted = new HashSet<>();
+        List<PendingReading> failed = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                if (ids == null || derived == null) {
+                    throw batchFailure;
+                }
+                inserted.addAll(insert(batch, ids, derived, i, i + 1));
+            } catch (Exception e) {
+                deadLettered[i] = true;
+                failed.add(batch.get(i));
+                errors.add(String.valueOf(e.getMessage()));
+            }
+        }
+        if (!failed.isEmpty()) {
+            deadLetter(failed, errors);
+        }
+        return inserted;
+    }
+
+    private void deadLetter(List<PendingReading> readings, List<String> errors) {
+        failedCounter.increment(readings.size());
+        Timestamp failedAt = Timestamp.valueOf(LocalDateTime.now());
+        int[] index = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(DEAD_LETTER_SQL, readings, readings.size(), (ps, reading) -> {
+                        String error = errors.get(index[0]++);
+                        ps.setLong(1, reading.installationId());
+                        ps.setTimestamp(2, Timestamp.valueOf(reading.timestamp()));
+                        ps.setDouble(3, reading.powerGenerationWatts());
+                        ps.setDouble(4, reading.powerConsumptionWatts());
+                        ps.setDouble(5, reading.dailyYieldKWh());
+                        ps.setDouble(6, reading.totalYieldKWh());
+                        ps.setString(7, error.length() > 1000 ? error.substring(0, 1000) : error);
+                        ps.setTimestamp(8, failedAt);
+                    }));
+            log.error("Moved {} energy readings that could not be stored to energy_ingest_dead_letters",
+                    readings.size());
+        } catch (Exception e) {
+            // Nothing left to write them to; log enough to replay them by hand
+            log.error("Failed to dead-letter {} energy readings: {}", readings.size(), readings, e);
+        }
+    }
+
+    /**
+     * The ids of the readings from, inclusive, to to, exclusive, that were inserted. Update counts cannot tell:
+     * the PostgreSQL driver rewrites batches into multi-row inserts (reWriteBatchedInserts) and then reports no
+     * per-row counts.
+     */
+    private Set<Long> insertedIds(List<PendingReading> batch, long[] ids, int from, int to) {
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            minId = Math.min(minId, ids[i]);
+            maxId = Math.max(maxId, ids[i]);
+        }
+        LocalDateTime first = batch.get(from).timestamp();
+        LocalDateTime last = first;
+        for (PendingReading reading : batch.subList(from, to)) {
+            first = reading.timestamp().isBefore(first) ? reading.timestamp() : first;
+            last = reading.timestamp().isAfter(last) ? reading.timestamp() : last;
+        }
+        // The timestamp range only lets PostgreSQL prune partitions
+        return new HashSet<>(jdbcTemplate.queryForList(INSERTED_IDS_SQL, Long.class,
+                minId, maxId, Timestamp.valueOf(first), Timestamp.valueOf(last)));
+    }
+
+    private String insertSql() {
+        if (insertSql == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            insertSql = "PostgreSQL".equalsIgnoreCase(product) ? INSERT_SQL : MERGE_SQL;
+        }
+        return insertSql;
+    }
+
+    /**
+     * Derive the metrics of a batch in one pass; the batch can mix installations, each with its own capacity
+     */
+    private DerivedMetrics derive(List<PendingReading> batch) {
+        int length = batch.size();
+        double[] generation = new double[length];
+        double[] consumption = new double[length];
+        double[] capacity = new double[length];
+        Long installationId = null;
+        double installedCapacityKW = 0;
+        for (int i = 0; i < length; i++) {
+            PendingReading reading = batch.get(i);
+            // Readings of one installation usually arrive together, so look its capacity up once per run
+            if (!reading.installationId().equals(installationId)) {
+                installationId = reading.installationId();
+                installedCapacityKW = installationCache.find(installationId)
+                        .map(SolarInstallationCache.Metadata::installedCapacityKW)
+                        .orElse(0.0);
+            }
+            generation[i] = reading.powerGenerationWatts();
+            consumption[i] = reading.powerConsumptionWatts();
+            capacity[i] = installedCapacityKW;
+        }
+        DerivedMetrics derived = new DerivedMetrics(new double[length], new double[length], new double[length],
+                new double[length]);
+        EnergyDerivedMetrics.derive(generation, consumption, capacity, length, derived.netPowerWatts(),
+                derived.utilizationRate(), derived.efficiencyPercentage(), derived.bandedEfficiencyPercentage());
+        return derived;
+    }
+
+    /**
+     * @param written Readings inserted; readings that were already stored are not counted
+     * @param deadLettered Readings that could not be stored and went to energy_ingest_dead_letters
+     */
+    private record FlushResult(int written, int deadLettered) {
+    }
+
+    private record DerivedMetrics(
+            double[] netPowerWatts,
+            double[] utilizationRate,
+            double[] efficiencyPercentage,
+            double[] bandedEfficiencyPercentage) {
+
+        EnergyDataDTO apply(EnergyDataDTO dto, int i) {
+            dto.setNetPowerWatts(netPowerWatts[i]);
+            dto.setUtilizationRate(utilizationRate[i]);
+            dto.setEfficiencyPercentage(efficiencyPercentage[i]);
+            dto.setBandedEfficiencyPercentage(bandedEfficiencyPercentage[i]);
+            return dto;
+        }
+    }
+
+    private record PendingReading(
+            Long installationId,
+            double powerGenerationWatts,
+            double powerConsumptionWatts,
+            LocalDateTime timestamp,
+            double dailyYieldKWh,
+            double totalYieldKWh) {
+
+        EnergyDataDTO toDTO(Long id) {
+            return EnergyDataDTO.builder()
+                    .id(id)
+                    .installationId(installationId)
+                    .powerGenerationWatts(powerGenerationWatts)
+                    .powerConsumptionWatts(powerConsumptionWatts)
+                    .timestamp(timestamp)
+                    .dailyYieldKWh(dailyYieldKWh)
+                    .totalYieldKWh(totalYieldKWh)
+                    .isSimulated(true)
+                    .build();
+        }
+    }
+}
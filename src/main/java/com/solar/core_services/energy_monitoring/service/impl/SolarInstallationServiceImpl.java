@@ -5,18 +5,27 @@ import com.solar.core_services.energy_monitoring.dto.SolarInstallationDTO;
 import com.solar.core_services.energy_monitoring.dto.SystemOverviewResponse;
 import com.solar.core_services.energy_monitoring.dto.EnergyReadingDTO;
 import com.solar.core_services.energy_monitoring.dto.TopProducerDTO;
+import com.solar.core_services.energy_monitoring.dto.TopProducerRanking;
 import com.solar.core_services.energy_monitoring.model.EnergyData;
 import com.solar.core_services.energy_monitoring.model.EnergySummary;
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockRepository;
 import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyPeriodTotals;
 import com.solar.core_services.energy_monitoring.repository.EnergySummaryRepository;
+import com.solar.core_services.energy_monitoring.repository.InstallationStatusTotals;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.CustomerDashboardCache;
+import com.solar.core_services.energy_monitoring.service.EnergyDerivedMetrics;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
 import com.solar.core_services.energy_monitoring.service.SolarInstallationService;
+import com.solar.core_services.energy_monitoring.service.TopProducerLeaderboard;
 import com.solar.core_services.energy_monitoring.service.WebSocketService;
 import com.solar.exception.ResourceNotFoundException;
 import com.solar.user_management.model.User;
 import com.solar.user_management.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,7 +33,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -34,11 +46,17 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class SolarInstallationServiceImpl implements SolarInstallationService {
 
+    private static final int MAX_TOP_PRODUCERS = 100;
+
     private final SolarInstallationRepository installationRepository;
     private final UserRepository userRepository;
     private final EnergyDataRepository energyDataRepository;
     private final EnergySummaryRepository energySummaryRepository;
+    private final EnergyColdBlockRepository coldBlockRepository;
     private final WebSocketService webSocketService;
+    private final TopProducerLeaderboard topProducerLeaderboard;
+    private final CustomerDashboardCache customerDashboardCache;
+    private final SolarInstallationCache installationCache;
 
     @Override
     public List<SolarInstallationDTO> getInstallationsByCustomer(Long customerId) {
@@ -109,6 +127,9 @@ public class SolarInstallationServiceImpl implements SolarInstallationService {
 
         // Save the installation
         SolarInstallation savedInstallation = installationRepository.save(installation);
+        topProducerLeaderboard.track(savedInstallation);
+        customerDashboardCache.invalidate(savedInstallation);
+        installationCache.invalidate(savedInstallation.getId());
 
         // Convert to DTO and return
         return convertToDTO(savedInstallation);
@@ -147,6 +168,9 @@ public class SolarInstallationServiceImpl implements SolarInstallationService {
 
         // Save the installation
         SolarInstallation savedInstallation = installationRepository.save(installation);
+        topProducerLeaderboard.track(savedInstallation);
+        customerDashboardCache.invalidate(savedInstallation);
+        installationCache.invalidate(savedInstallation.getId());
 
         // Convert to DTO and return
         return convertToDTO(savedInstallation);
@@ -179,6 +203,9 @@ public class SolarInstallationServiceImpl implements SolarInstallationService {
 
         // Save the installation
         SolarInstallation savedInstallation = installationRepository.save(installation);
+        topProducerLeaderboard.track(savedInstallation);
+        customerDashboardCache.invalidate(savedInstallation);
+        installationCache.invalidate(savedInstallation.getId());
 
         // Convert to DTO
         SolarInstallationDTO installationDTO = convertToDTO(savedInstallation);
@@ -194,131 +221,107 @@ public class SolarInstallationServiceImpl implements SolarInstallationService {
         return installationDTO;
     }
 
+    /**
+     * Built from a fixed number of set-based queries (status totals, fleet period sums over both storage
+     * tiers and the newest readings per installation) plus the top producers leaderboard, so the query
+     * count does not grow with the number of installations.
+     */
     @Override
     public SystemOverviewResponse getSystemOverview() {
-        // Get all installations
-        List<SolarInstallation> allInstallations = installationRepository.findAll();
-
-        // Get active and suspended counts
-        long activeCount = allInstallations.stream()
-                .filter(i -> i.getStatus() == SolarInstallation.InstallationStatus.ACTIVE)
-                .count();
-
-        long suspendedCount = allInstallations.stream()
-                .filter(i -> i.getStatus() == SolarInstallation.InstallationStatus.SUSPENDED)
-                .count();
-
-        // Get installations with tamper alerts
-        List<SolarInstallation> tamperAlertInstallations = allInstallations.stream()
-                .filter(SolarInstallation::isTamperDetected)
-                .collect(Collectors.toList());
-
-        // Calculate total capacity
-        double totalCapacity = allInstallations.stream()
-                .mapToDouble(SolarInstallation::getInstalledCapacityKW)
-                .sum();
+        // Count, capacity and tamper alerts per status
+        List<InstallationStatusTotals> statusTotals = installationRepository.summarizeByStatus();
+
+        Map<String, Long> installationsByStatus = new HashMap<>();
+        long activeCount = 0;
+        long suspendedCount = 0;
+        long tamperAlertCount = 0;
+        double totalCapacity = 0;
+        for (InstallationStatusTotals totals : statusTotals) {
+            installationsByStatus.put(totals.status().name(), totals.installations());
+            if (totals.status() == SolarInstallation.InstallationStatus.ACTIVE) {
+                activeCount = totals.installations();
+            } else if (totals.status() == SolarInstallation.InstallationStatus.SUSPENDED) {
+                suspendedCount = totals.installations();
+            }
+            tamperAlertCount += totals.tamperAlerts() != null ? totals.tamperAlerts() : 0;
+            totalCapacity += totals.capacityKW() != null ? totals.capacityKW() : 0;
+        }
 
         // Define time periods
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MIDNIGHT);
-        LocalDateTime endOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
+        LocalDate todayDate = LocalDate.now();
+        LocalDateTime startOfDay = LocalDateTime.of(todayDate, LocalTime.MIDNIGHT);
+        LocalDateTime endOfDay = LocalDateTime.of(todayDate, LocalTime.MAX);
 
         // Get week-to-date data
-        LocalDateTime startOfWeek = LocalDateTime.of(LocalDate.now().minusDays(LocalDate.now().getDayOfWeek().getValue() - 1), LocalTime.MIDNIGHT);
+        LocalDateTime startOfWeek = LocalDateTime.of(todayDate.minusDays(todayDate.getDayOfWeek().getValue() - 1), LocalTime.MIDNIGHT);
 
         // Get month-to-date data
-        LocalDateTime startOfMonth = LocalDateTime.of(LocalDate.now().withDayOfMonth(1), LocalTime.MIDNIGHT);
+        LocalDateTime startOfMonth = LocalDateTime.of(todayDate.withDayOfMonth(1), LocalTime.MIDNIGHT);
 
         // Get year-to-date data
-        LocalDateTime startOfYear = LocalDateTime.of(LocalDate.now().withDayOfYear(1), LocalTime.MIDNIGHT);
-
-        // Calculate system-wide values from actual data
-        double currentSystemGeneration = 0;
-        double todayTotalGeneration = 0;
-        double todayTotalConsumption = 0;
-        double weekToDateGeneration = 0;
-        double weekToDateConsumption = 0;
-        double monthToDateGeneration = 0;
-        double monthToDateConsumption = 0;
-        double yearToDateGeneration = 0;
-        double yearToDateConsumption = 0;
+        LocalDateTime startOfYear = LocalDateTime.of(todayDate.withDayOfYear(1), LocalTime.MIDNIGHT);
+
+        // The week can start in the previous year
+        LocalDateTime from = startOfWeek.isBefore(startOfYear) ? startOfWeek : startOfYear;
+
+        // Sum today, week, month and year for all active installations, hot rows and cold blocks
+        EnergyPeriodTotals hot = energyDataRepository.sumFleetPeriods(SolarInstallation.InstallationStatus.ACTIVE,
+                startOfDay, startOfWeek, startOfMonth, startOfYear, from, endOfDay);
+        EnergyPeriodTotals cold = coldBlockRepository.sumFleetPeriods(SolarInstallation.InstallationStatus.ACTIVE,
+                startOfDay.toLocalDate(), startOfWeek.toLocalDate(), startOfMonth.toLocalDate(),
+                startOfYear.toLocalDate(), from.toLocalDate(), todayDate);
+
+        // Add to totals (convert from watt-hours to kWh)
+        double todayTotalGeneration = toKWh(hot.todayGeneration(), cold.todayGeneration());
+        double todayTotalConsumption = toKWh(hot.todayConsumption(), cold.todayConsumption());
+        double weekToDateGeneration = toKWh(hot.weekToDateGeneration(), cold.weekToDateGeneration());
+        double weekToDateConsumption = toKWh(hot.weekToDateConsumption(), cold.weekToDateConsumption());
+        double monthToDateGeneration = toKWh(hot.monthToDateGeneration(), cold.monthToDateGeneration());
+        double monthToDateConsumption = toKWh(hot.monthToDateConsumption(), cold.monthToDateConsumption());
+        double yearToDateGeneration = toKWh(hot.yearToDateGeneration(), cold.yearToDateGeneration());
+        double yearToDateConsumption = toKWh(hot.yearToDateConsumption(), cold.yearToDateConsumption());
         double averageEfficiency = 0;
 
-        // Get all active installations
-        List<SolarInstallation> activeInstallations = allInstallations.stream()
-                .filter(i -> i.getStatus() == SolarInstallation.InstallationStatus.ACTIVE)
-                .collect(Collectors.toList());
+        // Up to 10 most recent readings of every active installation, newest first within each
+        Map<Long, List<EnergyData>> recentReadingsByInstallation = new LinkedHashMap<>();
+        for (EnergyData reading : energyDataRepository.findLatestByInstallationStatus(
+                SolarInstallation.InstallationStatus.ACTIVE.name(), 10)) {
+            recentReadingsByInstallation.computeIfAbsent(reading.getInstallation().getId(), id -> new ArrayList<>())
+                    .add(reading);
+        }
 
-        // Sum up today's generation and consumption for all active installations
-        for (SolarInstallation installation : activeInstallations) {
-            // Get most recent reading for current generation
-            List<EnergyData> recentReadings = energyDataRepository.findByInstallationOrderByTimestampDesc(installation);
-            if (!recentReadings.isEmpty()) {
-                // Instead of just using the most recent reading, calculate a more stable value
-                // Take up to 10 most recent readings for smoothing
-                int readingsToConsider = Math.min(10, recentReadings.size());
-                List<EnergyData> recentSubset = recentReadings.subList(0, readingsToConsider);
-
-                // Calculate average generation, but filter out extreme outliers
-                double sum = 0;
-                int count = 0;
-
-                // First pass - calculate median value
-                double[] values = recentSubset.stream()
-                    .mapToDouble(EnergyData::getPowerGenerationWatts)
-                    .toArray();
-                Arrays.sort(values);
-                double median = values.length % 2 == 0 ? 
-                    (values[values.length/2] + values[values.length/2 - 1]) / 2 : 
-                    values[values.length/2];
-
-                // Second pass - use values within reasonable range of median
-                for (EnergyData reading : recentSubset) {
-                    double value = reading.getPowerGenerationWatts();
-                    // Include only if within 3x the median (to filter extreme outliers)
-                    if (median == 0 || (value <= median * 3 && value >= median / 3)) {
-                        sum += value;
-                        count++;
-                    }
+        // Sum up the current generation of all active installations
+        double currentSystemGeneration = 0;
+        for (List<EnergyData> recentReadings : recentReadingsByInstallation.values()) {
+            // Instead of just using the most recent reading, calculate a more stable value
+            // Take up to 10 most recent readings for smoothing
+            List<EnergyData> recentSubset = recentReadings;
+
+            // Calculate average generation, but filter out extreme outliers
+            double sum = 0;
+            int count = 0;
+
+            // First pass - calculate median value
+            double[] values = recentSubset.stream()
+                .mapToDouble(EnergyData::getPowerGenerationWatts)
+                .toArray();
+            Arrays.sort(values);
+            double median = values.length % 2 == 0 ? 
+                (values[values.length/2] + values[values.length/2 - 1]) / 2 : 
+                values[values.length/2];
+
+            // Second pass - use values within reasonable range of median
+            for (EnergyData reading : recentSubset) {
+                double value = reading.getPowerGenerationWatts();
+                // Include only if within 3x the median (to filter extreme outliers)
+                if (median == 0 || (value <= median * 3 && value >= median / 3)) {
+                    sum += value;
+                    count++;
                 }
-
-                double avgGeneration = count > 0 ? sum / count : 0;
-                currentSystemGeneration += avgGeneration;
             }
 
-            // Get today's generation and consumption
-            Double installationTodayGeneration = energyDataRepository.sumPowerGenerationForPeriod(
-                    installation, startOfDay, endOfDay);
-            Double installationTodayConsumption = energyDataRepository.sumPowerConsumptionForPeriod(
-                    installation, startOfDay, endOfDay);
-
-            // Get week-to-date generation and consumption
-            Double installationWeekGeneration = energyDataRepository.sumPowerGenerationForPeriod(
-                    installation, startOfWeek, endOfDay);
-            Double installationWeekConsumption = energyDataRepository.sumPowerConsumptionForPeriod(
-                    installation, startOfWeek, endOfDay);
-
-            // Get month-to-date generation and consumption
-            Double installationMonthGeneration = energyDataRepository.sumPowerGenerationForPeriod(
-                    installation, startOfMonth, endOfDay);
-            Double installationMonthConsumption = energyDataRepository.sumPowerConsumptionForPeriod(
-                    installation, startOfMonth, endOfDay);
-
-            // Get year-to-date generation and consumption
-            Double installationYearGeneration = energyDataRepository.sumPowerGenerationForPeriod(
-                    installation, startOfYear, endOfDay);
-            Double installationYearConsumption = energyDataRepository.sumPowerConsumptionForPeriod(
-                    installation, startOfYear, endOfDay);
-
-            // Add to totals (convert from Watt-seconds to kWh)
-            todayTotalGeneration += (installationTodayGeneration != null ? installationTodayGeneration : 0) / 1000.0 / 3600.0;
-            todayTotalConsumption += (installationTodayConsumption != null ? installationTodayConsumption : 0) / 1000.0 / 3600.0;
-            weekToDateGeneration += (installationWeekGeneration != null ? installationWeekGeneration : 0) / 1000.0 / 3600.0;
-            weekToDateConsumption += (installationWeekConsumption != null ? installationWeekConsumption : 0) / 1000.0 / 3600.0;
-            monthToDateGeneration += (installationMonthGeneration != null ? installationMonthGeneration : 0) / 1000.0 / 3600.0;
-            monthToDateConsumption += (installationMonthConsumption != null ? installationMonthConsumption : 0) / 1000.0 / 3600.0;
-            yearToDateGeneration += (installationYearGeneration != null ? installationYearGeneration : 0) / 1000.0 / 3600.0;
-            yearToDateConsumption += (installationYearConsumption != null ? installationYearConsumption : 0) / 1000.0 / 3600.0;
+            double avgGeneration = count > 0 ? sum / count : 0;
+            currentSystemGeneration += avgGeneration;
         }
 
         // Calculate average efficiency
@@ -411,69 +414,27 @@ public class SolarInstallationServiceImpl implements SolarInstallationService {
             }
         }
 
-        // Get installations by status distribution
-        Map<String, Long> installationsByStatus = allInstallations.stream()
-                .collect(Collectors.groupingBy(
-                        installation -> installation.getStatus().name(),
-                        Collectors.counting()
-                ));
-
         // Get recent readings from all installations (last reading from each active installation)
-        List<EnergyReadingDTO> recentInstallationReadings = activeInstallations.stream()
-                .map(installation -> {
-                    List<EnergyData> readings = energyDataRepository.findByInstallationOrderByTimestampDesc(installation);
-                    if (readings.isEmpty()) {
-                        return null;
-                    }
+        List<EnergyReadingDTO> recentInstallationReadings = recentReadingsByInstallation.values().stream()
+                .map(readings -> {
                     EnergyData latestReading = readings.get(0);
                     return new EnergyReadingDTO(
-                            installation.getId(),
+                            latestReading.getInstallation().getId(),
                             latestReading.getTimestamp(),
                             latestReading.getPowerGenerationWatts(),
                             latestReading.getPowerConsumptionWatts()
                     );
                 })
-                .filter(reading -> reading != null)
                 .collect(Collectors.toList());
 
-        // Get top producers
-        List<TopProducerDTO> topProducers = activeInstallations.stream()
-                .sorted((i1, i2) -> {
-                    Double i1Gen = energyDataRepository.sumPowerGenerationForPeriod(i1, startOfDay, endOfDay);
-                    Double i2Gen = energyDataRepository.sumPowerGenerationForPeriod(i2, startOfDay, endOfDay);
-                    return Double.compare(
-                            i2Gen != null ? i2Gen : 0,
-                            i1Gen != null ? i1Gen : 0
-                    );
-                })
-                .limit(5)
-                .map(installation -> {
-                    // Get installation's generation data
-                    Double todayGeneration = energyDataRepository.sumPowerGenerationForPeriod(
-                            installation, startOfDay, endOfDay);
-                    Double todayConsumption = energyDataRepository.sumPowerConsumptionForPeriod(
-                            installation, startOfDay, endOfDay);
-
-                    // Get most recent reading for current generation
-                    List<EnergyData> recentReadings = energyDataRepository.findByInstallationOrderByTimestampDesc(installation);
-                    Double currentGenerationWatts = recentReadings.isEmpty() ? 0 : recentReadings.get(0).getPowerGenerationWatts();
-
-                    // Calculate efficiency
-                    Double efficiency = 0.0;
-                    if (todayConsumption != null && todayConsumption > 0) {
-                        efficiency = (todayGeneration / todayConsumption) * 100;
-                    }
-
-                    // Convert to TopProducerDTO with production and efficiency metrics
-                    return convertToTopProducerDTO(installation, todayGeneration, currentGenerationWatts, efficiency);
-                })
-                .collect(Collectors.toList());
+        // Get top producers from the leaderboard
+        List<TopProducerDTO> topProducers = getTopProducers(TopProducerRanking.GENERATION, null, 5);
 
         // Build the system overview response
         SystemOverviewResponse response = SystemOverviewResponse.builder()
                 .totalActiveInstallations((int) activeCount)
                 .totalSuspendedInstallations((int) suspendedCount)
-                .totalInstallationsWithTamperAlerts(tamperAlertInstallations.size())
+                .totalInstallationsWithTamperAlerts((int) tamperAlertCount)
                 .totalSystemCapacityKW(totalCapacity)
                 .currentSystemGenerationWatts(currentSystemGeneration)
                 .todayTotalGenerationKWh(todayTotalGeneration)
@@ -486,9 +447,8 @@ public class SolarInstallationServiceImpl implements SolarInstallationService {
                 .yearToDateConsumptionKWh(yearToDateConsumption)
                 .averageSystemEfficiency(averageEfficiency)
                 .lastUpdated(LocalDateTime.now())
-                .recentlyActiveInstallations(allInstallations.stream()
-                        .filter(i -> i.getStatus() == SolarInstallation.InstallationStatus.ACTIVE)
-                        .limit(5)
+                .recentlyActiveInstallations(installationRepository.findByStatusOrderByIdAsc(
+                                SolarInstallation.InstallationStatus.ACTIVE, Limit.of(5)).stream()
                         .map(this::convertToDTO)
                         .collect(Collectors.toList()))
                 .topProducers(topProducers)
@@ -499,6 +459,33 @@ public class SolarInstallationServiceImpl implements SolarInstallationService {
         return response;
     }
 
+    /**
+     * Combine the hot and cold energy of a period and convert it from watt-hours to kWh
+     */
+    private static double toKWh(Double hot, Double cold) {
+        return ((hot != null ? hot : 0) + (cold != null ? cold : 0)) / 1000.0;
+    }
+
+    @Override
+    public List<TopProducerDTO> getTopProducers(TopProducerRanking ranking, SolarInstallation.InstallationType type, int limit) {
+        List<TopProducerLeaderboard.Standing> standings = topProducerLeaderboard.top(
+                ranking, type, Math.max(1, Math.min(limit, MAX_TOP_PRODUCERS)));
+        if (standings.isEmpty()) {
+            return List.of();
+        }
+
+        // One query for the installations (and their users) on the board
+        Map<Long, SolarInstallation> installations = installationRepository.findByIdIn(
+                        standings.stream().map(TopProducerLeaderboard.Standing::installationId).toList())
+                .stream()
+                .collect(Collectors.toMap(SolarInstallation::getId, installation -> installation));
+        return standings.stream()
+                .filter(standing -> installations.containsKey(standing.installationId()))
+                .map(standing -> convertToTopProducerDTO(installations.get(standing.installationId()),
+                        standing.todayGeneration(), standing.currentGenerationWatts(), standing.efficiency()))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public List<SolarInstallationDTO> getInstallationsWithTamperAlerts() {
         // Get installations with tamper alerts
@@ -541,7 +528,7 @@ public class SolarInstallationServiceImpl implements SolarInstallationService {
 
     private TopProducerDTO convertToTopProducerDTO(SolarInstallation installation, Double todayGeneration, Double currentGenerationWatts, Double efficiencyValue) {
         // Calculate sensible default values if metrics are null
-        double todayGenerationKWh = (todayGeneration != null ? todayGeneration : 0) / 1000.0 / 3600.0;
+        double todayGenerationKWh = (todayGeneration != null ? todayGeneration : 0) / 1000.0;
         double currentGeneration = (currentGenerationWatts != null ? currentGenerationWatts : 0);
 
         // Get the efficiency from energy summaries if current calculation is zero
@@ -566,39 +553,11 @@ public class SolarInstallationServiceImpl implements SolarInstallationService {
             }
         }
 
-        // Make sure efficiency is a percentage value (0-100 range)
-        if (efficiency > 0 && efficiency <= 1.0) {
-            efficiency = efficiency * 100.0; // Convert from decimal to percentage
-        }
-
-        // Cap efficiency at 100% for more reasonable values
-        double cappedEfficiency = Math.min(100.0, efficiency);
-
-        // Calculate average efficiency based on utilization and capacity
-        double averageEfficiency = 0;
-
-        // Calculate utilization rate (currentGeneration as percentage of installed capacity)
-        double utilizationRate = 0;
-        if (installation.getInstalledCapacityKW() > 0) {
-            utilizationRate = Math.min(1.0, currentGeneration / (installation.getInstalledCapacityKW() * 1000));
-
-            // Calculate average efficiency based on utilization rate
-            // At high utilization (near capacity), efficiency should be close to 100%
-            // At low utilization, use the capped efficiency value
-            if (utilizationRate > 0.7) {
-                // High production time - efficiency close to 100%
-                averageEfficiency = 90.0 + (10.0 * utilizationRate);
-            } else if (utilizationRate > 0.3) {
-                // Medium production time - efficiency between 70-90%
-                averageEfficiency = 70.0 + (20.0 * ((utilizationRate - 0.3) / 0.4));
-            } else if (utilizationRate > 0) {
-                // Low production time - efficiency between 0-70% based on utilization
-                averageEfficiency = Math.max(cappedEfficiency, utilizationRate * 70.0 / 0.3);
-            } else {
-                // No production - use capped efficiency or 0
-                averageEfficiency = cappedEfficiency;
-            }
-        }
+        // Make sure efficiency is a percentage value, then band it by utilization
+        efficiency = EnergyDerivedMetrics.normalizePercentage(efficiency);
+        double utilizationRate = EnergyDerivedMetrics.utilization(currentGeneration, installation.getInstalledCapacityKW());
+        double averageEfficiency = EnergyDerivedMetrics.bandedEfficiency(utilizationRate, efficiency,
+                installation.getInstalledCapacityKW());
 
         return TopProducerDTO.builder()
                 .id(installation.getId())
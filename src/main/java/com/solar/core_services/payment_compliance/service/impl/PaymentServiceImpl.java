@@ -2,6 +2,7 @@ package com.solar.core_services.payment_compliance.service.impl;
 
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
 import com.solar.core_services.payment_compliance.dto.MakePaymentRequest;
 import com.solar.core_services.payment_compliance.dto.PaymentDTO;
 import com.solar.core_services.payment_compliance.dto.PaymentDashboardDTO;
@@ -55,6 +56,7 @@ public class PaymentServiceImpl implements PaymentService {
     private final GracePeriodConfigService gracePeriodConfigService;
     private final PaymentEventPublisher paymentEventPublisher;
     private final ReminderConfigService reminderConfigService;
+    private final SolarInstallationCache installationCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -595,6 +597,7 @@ public class PaymentServiceImpl implements PaymentService {
             // Restore the installation service
             payment.getInstallation().setStatus(SolarInstallation.InstallationStatus.ACTIVE);
             installationRepository.save(payment.getInstallation());
+            installationCache.invalidate(payment.getInstallation().getId());
 
             // Notify service control
             paymentEventPublisher.publishPaymentReceived(payment);
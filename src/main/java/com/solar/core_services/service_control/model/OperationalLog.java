@@ -11,10 +11,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "operational_logs")
+@Table(name = "operational_logs", indexes = {
+        @Index(name = "idx_operational_logs_installation_timestamp", columnList = "installation_id, timestamp DESC")
+})
 public class OperationalLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operational_logs_seq")
+    @SequenceGenerator(name = "operational_logs_seq", sequenceName = "operational_logs_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
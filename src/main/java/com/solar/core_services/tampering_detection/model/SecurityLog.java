@@ -11,10 +11,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "security_logs")
+@Table(name = "security_logs", indexes = {
+        @Index(name = "idx_security_logs_installation_timestamp", columnList = "installation_id, timestamp DESC")
+})
 public class SecurityLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "security_logs_seq")
+    @SequenceGenerator(name = "security_logs_seq", sequenceName = "security_logs_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
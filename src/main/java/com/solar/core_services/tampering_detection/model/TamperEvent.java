@@ -11,10 +11,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "tamper_events")
+@Table(name = "tamper_events", indexes = {
+        @Index(name = "idx_tamper_events_installation_timestamp", columnList = "installation_id, timestamp DESC")
+})
 public class TamperEvent {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tamper_events_seq")
+    @SequenceGenerator(name = "tamper_events_seq", sequenceName = "tamper_events_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -2,6 +2,7 @@ package com.solar.core_services.tampering_detection.service.impl;
 
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
 import com.solar.core_services.tampering_detection.dto.AlertConfigDTO;
 import com.solar.core_services.tampering_detection.dto.AlertConfigUpdateDTO;
 import com.solar.core_services.tampering_detection.model.AlertConfig;
@@ -29,13 +30,13 @@ public class AlertConfigServiceImpl implements AlertConfigService {
     private final AlertConfigRepository alertConfigRepository;
     private final SolarInstallationRepository solarInstallationRepository;
     private final SecurityLogService securityLogService;
+    private final SolarInstallationCache installationCache;
 
     @Override
     public AlertConfigDTO getAlertConfigByInstallationId(Long installationId) {
         log.info("Getting alert config for installation ID: {}", installationId);
         
-        SolarInstallation installation = solarInstallationRepository.findById(installationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
+        SolarInstallation installation = installationCache.reference(installationId);
         
         AlertConfig alertConfig = alertConfigRepository.findByInstallation(installation)
                 .orElseGet(() -> createDefaultAlertConfigEntity(installation));
@@ -163,8 +164,7 @@ public class AlertConfigServiceImpl implements AlertConfigService {
     public boolean isAutoResponseEnabled(Long installationId) {
         log.info("Checking if auto response is enabled for installation ID: {}", installationId);
         
-        SolarInstallation installation = solarInstallationRepository.findById(installationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
+        SolarInstallation installation = installationCache.reference(installationId);
         
         return alertConfigRepository.findByInstallation(installation)
                 .map(AlertConfig::isAutoResponseEnabled)
@@ -175,8 +175,7 @@ public class AlertConfigServiceImpl implements AlertConfigService {
     public double getThresholdForEventType(Long installationId, String eventType) {
         log.info("Getting threshold for installation ID: {} and event type: {}", installationId, eventType);
         
-        SolarInstallation installation = solarInstallationRepository.findById(installationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
+        SolarInstallation installation = installationCache.reference(installationId);
         
         AlertConfig alertConfig = alertConfigRepository.findByInstallation(installation)
                 .orElseGet(() -> createDefaultAlertConfigEntity(installation));
@@ -198,8 +197,7 @@ public class AlertConfigServiceImpl implements AlertConfigService {
     public int getSamplingRateSeconds(Long installationId) {
         log.info("Getting sampling rate for installation ID: {}", installationId);
         
-        SolarInstallation installation = solarInstallationRepository.findById(installationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
+        SolarInstallation installation = installationCache.reference(installationId);
         
         return alertConfigRepository.findByInstallation(installation)
                 .map(AlertConfig::getSamplingRateSeconds)
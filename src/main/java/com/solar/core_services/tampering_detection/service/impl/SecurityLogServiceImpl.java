@@ -2,6 +2,7 @@ package com.solar.core_services.tampering_detection.service.impl;
 
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
 import com.solar.core_services.tampering_detection.dto.SecurityLogDTO;
 import com.solar.core_services.tampering_detection.model.SecurityLog;
 import com.solar.core_services.tampering_detection.repository.SecurityLogRepository;
@@ -24,17 +25,18 @@ public class SecurityLogServiceImpl implements SecurityLogService {
 
     private final SecurityLogRepository securityLogRepository;
     private final SolarInstallationRepository solarInstallationRepository;
+    private final SolarInstallationCache installationCache;
 
     @Override
     public SecurityLogDTO createSecurityLog(Long installationId, SecurityLog.ActivityType activityType, 
                                           String details, String ipAddress, String location, String userId) {
         log.info("Creating security log for installation ID: {} with activity type: {}", installationId, activityType);
 
-        SolarInstallation installation = solarInstallationRepository.findById(installationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
+        // The log only needs the installation as a foreign key, and its location for the response
+        SolarInstallationCache.Metadata installation = installationCache.require(installationId);
 
         SecurityLog securityLog = new SecurityLog();
-        securityLog.setInstallation(installation);
+        securityLog.setInstallation(solarInstallationRepository.getReferenceById(installationId));
         securityLog.setTimestamp(LocalDateTime.now());
         securityLog.setActivityType(activityType);
         securityLog.setDetails(details);
@@ -44,7 +46,7 @@ public class SecurityLogServiceImpl implements SecurityLogService {
 
         SecurityLog savedLog = securityLogRepository.save(securityLog);
 
-        return convertToDTO(savedLog);
+        return convertToDTO(savedLog, installation.location());
     }
 
     @Override
@@ -205,10 +207,14 @@ public class SecurityLogServiceImpl implements SecurityLogService {
     }
 
     private SecurityLogDTO convertToDTO(SecurityLog securityLog) {
+        return convertToDTO(securityLog, securityLog.getInstallation().getLocation());
+    }
+
+    private SecurityLogDTO convertToDTO(SecurityLog securityLog, String installationLocation) {
         SecurityLogDTO dto = new SecurityLogDTO();
         dto.setId(securityLog.getId());
         dto.setInstallationId(securityLog.getInstallation().getId());
-        dto.setInstallationLocation(securityLog.getInstallation().getLocation());
+        dto.setInstallationLocation(installationLocation);
         dto.setTimestamp(securityLog.getTimestamp());
         dto.setActivityType(securityLog.getActivityType().name());
         dto.setDetails(securityLog.getDetails());
@@ -2,6 +2,7 @@ package com.solar.core_services.tampering_detection.service.impl;
 
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
 import com.solar.core_services.tampering_detection.dto.TamperEventCreateDTO;
 import com.solar.core_services.tampering_detection.dto.TamperEventDTO;
 import com.solar.core_services.tampering_detection.dto.TamperEventUpdateDTO;
@@ -29,6 +30,7 @@ public class TamperEventServiceImpl implements TamperEventService {
     private final TamperEventRepository tamperEventRepository;
     private final SolarInstallationRepository solarInstallationRepository;
     private final SecurityLogService securityLogService;
+    private final SolarInstallationCache installationCache;
 
     @Override
     @Transactional
@@ -67,6 +69,7 @@ public class TamperEventServiceImpl implements TamperEventService {
         installation.setTamperDetected(true);
         installation.setLastTamperCheck(LocalDateTime.now());
         solarInstallationRepository.save(installation);
+        installationCache.invalidate(installation.getId());
 
         // Log the tamper event creation
         securityLogService.logTamperEventCreated(
@@ -191,6 +194,7 @@ public class TamperEventServiceImpl implements TamperEventService {
                 installation.setTamperDetected(false);
                 installation.setLastTamperCheck(LocalDateTime.now());
                 solarInstallationRepository.save(installation);
+                installationCache.invalidate(installation.getId());
             }
         }
 
@@ -233,8 +237,7 @@ public class TamperEventServiceImpl implements TamperEventService {
     @Override
     public void validateTamperEvent(TamperEventCreateDTO createDTO) {
         // Validate that the installation exists
-        solarInstallationRepository.findById(createDTO.getInstallationId())
-                .orElseThrow(() -> new ResourceNotFoundException("Solar installation not found with ID: " + createDTO.getInstallationId()));
+        installationCache.require(createDTO.getInstallationId());
 
         // Validate confidence score is between 0 and 1
         if (createDTO.getConfidenceScore() < 0 || createDTO.getConfidenceScore() > 1) {
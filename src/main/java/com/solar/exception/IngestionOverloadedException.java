@@ -0,0 +1,19 @@
+package com.solar.exception;
+
+/**
+ * Exception thrown when the write-behind ingestion queue cannot accept more readings.
+ * Devices are expected to back off for the suggested number of seconds and retry.
+ */
+public class IngestionOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public IngestionOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
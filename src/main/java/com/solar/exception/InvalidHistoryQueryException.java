@@ -0,0 +1,11 @@
+package com.solar.exception;
+
+/**
+ * Exception thrown when a history query asks for an unknown resolution or too many points.
+ */
+public class InvalidHistoryQueryException extends RuntimeException {
+
+    public InvalidHistoryQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.solar.exception;
+
+/**
+ * Exception thrown when a bulk import has readings that cannot be stored or reuses another installation's import ID.
+ */
+public class InvalidImportBatchException extends RuntimeException {
+
+    public InvalidImportBatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.solar.exception;
+
+/**
+ * Exception thrown when a binary reading frame cannot be decoded.
+ */
+public class InvalidReadingFrameException extends RuntimeException {
+
+    public InvalidReadingFrameException(String message) {
+        super(message);
+    }
+}
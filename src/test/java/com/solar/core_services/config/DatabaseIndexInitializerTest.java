@@ -0,0 +1,174 @@
+package com.solar.core_services.config;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.user_management.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for DatabaseIndexInitializer
+ * Source file: src/main/java/com/solar/core_services/config/DatabaseIndexInitializer.java
+ */
+@DataJpaTest
+public class DatabaseIndexInitializerTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private DatabaseIndexInitializer initializer;
+
+    @BeforeEach
+    public void setup() {
+        initializer = new DatabaseIndexInitializer(jdbcTemplate);
+        ReflectionTestUtils.setField(initializer, "autoCreate", true);
+    }
+
+    @Test
+    public void testRun_EntityIndexesArePresent() {
+        // When/Then
+        assertDoesNotThrow(() -> initializer.run(null));
+        assertDoesNotThrow(() -> initializer.verifyIndexes(false));
+    }
+
+    @Test
+    public void testRun_FailsFastWhenIndexIsMissing() {
+        // Given
+        jdbcTemplate.execute("DROP INDEX idx_tamper_events_installation_timestamp");
+        ReflectionTestUtils.setField(initializer, "autoCreate", false);
+
+        // When/Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> initializer.run(null));
+        assertThat(exception.getMessage()).contains("tamper_events.idx_tamper_events_installation_timestamp");
+
+        // Given auto-create is enabled again
+        ReflectionTestUtils.setField(initializer, "autoCreate", true);
+
+        // When/Then the index is recreated
+        assertDoesNotThrow(() -> initializer.run(null));
+    }
+
+    @Test
+    public void testRun_MakesReadingIndexUnique() {
+        // Given the reading index as it was before readings had an idempotency key
+        makeReadingIndexNonUnique();
+        ReflectionTestUtils.setField(initializer, "autoCreate", false);
+
+        // When/Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> initializer.run(null));
+        assertThat(exception.getMessage()).contains("energy_data.idx_energy_data_installation_timestamp (not unique)");
+
+        // Given auto-create is enabled again
+        ReflectionTestUtils.setField(initializer, "autoCreate", true);
+
+        // When/Then the index is replaced with a unique one
+        assertDoesNotThrow(() -> initializer.run(null));
+        assertDoesNotThrow(() -> initializer.verifyIndexes(false));
+    }
+
+    @Test
+    public void testRun_RefusesToMakeReadingIndexUniqueOverDuplicates() {
+        // Given a reading stored twice under the old index
+        makeReadingIndexNonUnique();
+        SolarInstallation installation = persistInstallation();
+        LocalDateTime timestamp = LocalDateTime.of(2025, 4, 15, 10, 0);
+        persistReading(installation, timestamp);
+        persistReading(installation, timestamp);
+        entityManager.flush();
+
+        // When/Then: nothing is deleted without the migration
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> initializer.run(null));
+        assertThat(exception.getMessage()).contains("monitoring.dedupe-readings.enabled=true");
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM energy_data", Integer.class));
+    }
+
+    @Test
+    public void testCreatePostgresIndex_BuildsPartitionIndexesConcurrently() {
+        // Given a partitioned energy_data on PostgreSQL, where CONCURRENTLY only works per partition
+        JdbcTemplate postgres = mock(JdbcTemplate.class);
+        when(postgres.queryForList(contains("relkind"), eq(String.class), eq("energy_data"))).thenReturn(List.of("p"));
+        when(postgres.queryForList(contains("pg_inherits"), eq(String.class), eq("energy_data")))
+                .thenReturn(List.of("energy_data_legacy", "energy_data_p202504"));
+        DatabaseIndexInitializer postgresInitializer = new DatabaseIndexInitializer(postgres);
+
+        // When
+        postgresInitializer.createPostgresIndex(DatabaseIndexInitializer.REQUIRED_INDEXES.get(0),
+                "idx_energy_data_installation_timestamp");
+
+        // Then
+        InOrder order = inOrder(postgres);
+        order.verify(postgres).execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_energy_data_installation_timestamp "
+                + "ON ONLY energy_data (installation_id, timestamp DESC) "
+                + "INCLUDE (power_generation_watts, power_consumption_watts)");
+        order.verify(postgres).execute("CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS "
+                + "idx_energy_data_installation_timestamp_legacy ON energy_data_legacy (installation_id, timestamp DESC) "
+                + "INCLUDE (power_generation_watts, power_consumption_watts)");
+        order.verify(postgres).execute("ALTER INDEX idx_energy_data_installation_timestamp "
+                + "ATTACH PARTITION idx_energy_data_installation_timestamp_legacy");
+        order.verify(postgres).execute("CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS "
+                + "idx_energy_data_installation_timestamp_p202504 ON energy_data_p202504 (installation_id, timestamp DESC) "
+                + "INCLUDE (power_generation_watts, power_consumption_watts)");
+        order.verify(postgres).execute("ALTER INDEX idx_energy_data_installation_timestamp "
+                + "ATTACH PARTITION idx_energy_data_installation_timestamp_p202504");
+    }
+
+    private void makeReadingIndexNonUnique() {
+        // Hibernate creates the unique index as a constraint on H2, the initializer as an index
+        jdbcTemplate.execute("ALTER TABLE energy_data DROP CONSTRAINT IF EXISTS idx_energy_data_installation_timestamp");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_energy_data_installation_timestamp");
+        jdbcTemplate.execute("CREATE INDEX idx_energy_data_installation_timestamp "
+                + "ON energy_data (installation_id, timestamp DESC)");
+    }
+
+    private SolarInstallation persistInstallation() {
+        User user = new User();
+        user.setEmail("indexes@example.com");
+        user.setPassword("password");
+        user.setFullName("Index User");
+        user.setPhoneNumber("+12345678901");
+        user.setRole(User.UserRole.CUSTOMER);
+        user.setEnabled(true);
+        entityManager.persist(user);
+
+        SolarInstallation installation = new SolarInstallation();
+        installation.setName("Index Installation");
+        installation.setCapacity(5.0);
+        installation.setInstalledCapacityKW(5.0);
+        installation.setLocation("Test Location");
+        installation.setInstallationDate(LocalDateTime.now().minusDays(30));
+        installation.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        installation.setUser(user);
+        return entityManager.persist(installation);
+    }
+
+    private void persistReading(SolarInstallation installation, LocalDateTime timestamp) {
+        EnergyData reading = new EnergyData();
+        reading.setInstallation(installation);
+        reading.setTimestamp(timestamp);
+        reading.setPowerGenerationWatts(1000.0);
+        reading.setPowerConsumptionWatts(400.0);
+        entityManager.persist(reading);
+    }
+}
@@ -0,0 +1,160 @@
+package com.solar.core_services.energy_monitoring.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * A minimal STOMP 1.2 broker over plain TCP standing in for ActiveMQ/RabbitMQ in relay tests.
+ * It acknowledges CONNECT/STOMP frames without heart-beats, fans SEND frames out as MESSAGE frames to
+ * matching SUBSCRIBE frames from any connection, and records every frame it receives.
+ */
+class StompBrokerStandIn implements AutoCloseable {
+
+    record Frame(String command, Map<String, String> headers, String body) {
+    }
+
+    private record Subscription(OutputStream out, String id, String destination) {
+    }
+
+    private final ServerSocket serverSocket;
+    private final List<Frame> received = new CopyOnWriteArrayList<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private StompBrokerStandIn(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+    }
+
+    static StompBrokerStandIn start() {
+        try {
+            StompBrokerStandIn broker = new StompBrokerStandIn(new ServerSocket(0, 50, InetAddress.getLoopbackAddress()));
+            Thread acceptor = new Thread(broker::acceptConnections, "stomp-stand-in-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            return broker;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the STOMP stand-in", e);
+        }
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Wait for a received frame matching a condition
+     */
+    Optional<Frame> awaitFrame(Predicate<Frame> condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            Optional<Frame> match = received.stream().filter(condition).findFirst();
+            if (match.isPresent()) {
+                return match;
+            }
+            Thread.sleep(20);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread reader = new Thread(() -> serve(socket), "stomp-stand-in-connection");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket; InputStream in = socket.getInputStream(); OutputStream out = socket.getOutputStream()) {
+            Frame frame;
+            while ((frame = readFrame(in)) != null) {
+                received.add(frame);
+                switch (frame.command()) {
+                    case "CONNECT", "STOMP" -> write(out, "CONNECTED", Map.of("version", "1.2", "heart-beat", "0,0"), "");
+                    case "SUBSCRIBE" -> subscriptions.add(
+                            new Subscription(out, frame.headers().get("id"), frame.headers().get("destination")));
+                    case "SEND" -> {
+                        for (Subscription subscription : subscriptions) {
+                            if (subscription.destination().equals(frame.headers().get("destination"))) {
+                                Map<String, String> headers = new LinkedHashMap<>(frame.headers());
+                                headers.put("subscription", subscription.id());
+                                headers.put("message-id", String.valueOf(received.size()));
+                                write(subscription.out(), "MESSAGE", headers, frame.body());
+                            }
+                        }
+                    }
+                    case "DISCONNECT" -> {
+                        return;
+                    }
+                    default -> {
+                        // UNSUBSCRIBE, ACK and the like need no reply here
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Connection closed by the client
+        }
+    }
+
+    static Frame readFrame(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int b;
+        // Skip heart-beat end-of-lines between frames
+        while ((b = in.read()) == '\n' || b == '\r') {
+            // keep skipping
+        }
+        while (b != -1 && b != 0) {
+            buffer.write(b);
+            b = in.read();
+        }
+        if (b == -1) {
+            return null;
+        }
+
+        String text = buffer.toString(StandardCharsets.UTF_8);
+        int headerEnd = text.indexOf("\n\n");
+        String head = headerEnd >= 0 ? text.substring(0, headerEnd) : text;
+        String body = headerEnd >= 0 ? text.substring(headerEnd + 2) : "";
+        String[] lines = head.split("\r?\n");
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                headers.putIfAbsent(lines[i].substring(0, colon), lines[i].substring(colon + 1));
+            }
+        }
+        return new Frame(lines[0], headers, body);
+    }
+
+    static void write(OutputStream out, String command, Map<String, String> headers, String body)
+            throws IOException {
+        StringBuilder frame = new StringBuilder(command).append('\n');
+        headers.forEach((name, value) -> frame.append(name).append(':').append(value).append('\n'));
+        frame.append('\n').append(body).append('\0');
+        synchronized (out) {
+            out.write(frame.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.solar.core_services.energy_monitoring.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test for the broker fan-out with the channel pool sizes WebSocketConfig uses by default.
+ * 10,000 subscribers (100 admins, the rest spread over 1,000 installation topics) receive messages
+ * published the way SimpMessagingTemplate does; the test reports delivered frames per second and the
+ * p99 latency from publish to the outbound channel handing the frame to a session.
+ * Network writes are not part of the measurement.
+ * Run with: mvn test -Dtest=WebSocketBrokerLoadTest -Dwebsocket.load-test=true
+ */
+@EnabledIfSystemProperty(named = "websocket.load-test", matches = "true")
+public class WebSocketBrokerLoadTest {
+
+    private static final int SUBSCRIBERS = 10_000;
+    private static final int ADMIN_SUBSCRIBERS = 100;
+    private static final int INSTALLATION_TOPICS = 1_000;
+    private static final int MESSAGES = 5_000;
+    private static final String ADMIN_TOPIC = "/topic/admin/system-update";
+
+    @Test
+    public void measureFanOutThroughputAndLatency() throws InterruptedException {
+        // Given the default broker and outbound pool sizes
+        ThreadPoolTaskExecutor brokerExecutor = executor("load-broker-", 4, 16, 10_000);
+        ThreadPoolTaskExecutor outboundExecutor = executor("load-outbound-", 16, 64, 50_000);
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel(outboundExecutor);
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel(brokerExecutor);
+        SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(
+                clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+        broker.start();
+
+        int[] subscribersPerTopic = new int[INSTALLATION_TOPICS];
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            String destination;
+            if (i < ADMIN_SUBSCRIBERS) {
+                destination = ADMIN_TOPIC;
+            } else {
+                int topic = i % INSTALLATION_TOPICS;
+                subscribersPerTopic[topic]++;
+                destination = installationTopic(topic);
+            }
+            broker.handleMessage(subscribe("session-" + i, destination));
+        }
+
+        // Every 50th message goes to the admins, the rest round-robin over the installations
+        long expected = 0;
+        for (int m = 0; m < MESSAGES; m++) {
+            expected += m % 50 == 0 ? ADMIN_SUBSCRIBERS : subscribersPerTopic[m % INSTALLATION_TOPICS];
+        }
+        long[] latencies = new long[(int) expected];
+        AtomicInteger delivered = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch((int) expected);
+        clientOutbound.subscribe(message -> {
+            if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+                latencies[delivered.getAndIncrement()] = System.nanoTime() - (Long) message.getPayload();
+                done.countDown();
+            }
+        });
+
+        // When
+        long start = System.nanoTime();
+        for (int m = 0; m < MESSAGES; m++) {
+            String destination = m % 50 == 0 ? ADMIN_TOPIC : installationTopic(m % INSTALLATION_TOPICS);
+            brokerChannel.send(message(destination, System.nanoTime()));
+        }
+        boolean completed = done.await(2, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+        broker.stop();
+        brokerExecutor.shutdown();
+        outboundExecutor.shutdown();
+
+        // Then
+        assertTrue(completed, "Only " + delivered.get() + " of " + expected + " frames were delivered");
+        Arrays.sort(latencies);
+        double seconds = elapsed / 1e9;
+        System.out.printf("WebSocket broker load: %d subscribers, %d messages, %d frames in %.2f s "
+                        + "(%.0f frames/s), p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                SUBSCRIBERS, MESSAGES, expected, seconds, expected / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static ThreadPoolTaskExecutor executor(String prefix, int core, int max, int queue) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(core);
+        executor.setMaxPoolSize(max);
+        executor.setQueueCapacity(queue);
+        executor.initialize();
+        return executor;
+    }
+
+    private static String installationTopic(int installation) {
+        return "/topic/installation/" + installation + "/energy-data";
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<Long> message(String destination, long sentAt) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(sentAt, accessor.getMessageHeaders());
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+}
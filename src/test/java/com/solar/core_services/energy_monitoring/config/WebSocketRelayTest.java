@@ -0,0 +1,104 @@
+package com.solar.core_services.energy_monitoring.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class for the STOMP broker relay mode of WebSocketConfig
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/config/WebSocketConfig.java
+ */
+@SpringBootTest(properties = {
+        "monitoring.websocket.relay.enabled=true",
+        "monitoring.websocket.relay.host=127.0.0.1",
+        "monitoring.websocket.relay.system-login=relay-system",
+        "monitoring.websocket.relay.system-passcode=relay-secret"
+})
+@ActiveProfiles("test")
+public class WebSocketRelayTest {
+
+    private static final String TOPIC = "/topic/installation/1/energy-data";
+    private static final StompBrokerStandIn broker = StompBrokerStandIn.start();
+
+    @DynamicPropertySource
+    static void relayPort(DynamicPropertyRegistry registry) {
+        registry.add("monitoring.websocket.relay.port", broker::getPort);
+    }
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    @Qualifier("stompBrokerRelayMessageHandler")
+    private AbstractBrokerMessageHandler relayHandler;
+
+    @AfterAll
+    public static void stopBroker() throws IOException {
+        broker.close();
+    }
+
+    @Test
+    public void testRelay_ConnectsWithSystemCredentials() throws InterruptedException {
+        // Then
+        StompBrokerStandIn.Frame connect = broker.awaitFrame(frame -> frame.command().equals("CONNECT"), 10_000)
+                .orElseThrow(() -> new AssertionError("Relay never connected to the broker"));
+        assertEquals("relay-system", connect.headers().get("login"));
+        assertEquals("relay-secret", connect.headers().get("passcode"));
+        assertTrue(awaitBrokerAvailable());
+    }
+
+    @Test
+    public void testRelay_DeliversToSubscribersOfAnotherNode() throws Exception {
+        // Given a subscriber connected to the shared broker through some other application node
+        assertTrue(awaitBrokerAvailable());
+        try (Socket subscriber = new Socket(InetAddress.getLoopbackAddress(), broker.getPort())) {
+            subscriber.setSoTimeout(10_000);
+            OutputStream out = subscriber.getOutputStream();
+            InputStream in = subscriber.getInputStream();
+            StompBrokerStandIn.write(out, "CONNECT", Map.of("accept-version", "1.2", "host", "localhost"), "");
+            assertEquals("CONNECTED", StompBrokerStandIn.readFrame(in).command());
+            StompBrokerStandIn.write(out, "SUBSCRIBE", Map.of("id", "sub-0", "destination", TOPIC), "");
+            broker.awaitFrame(frame -> frame.command().equals("SUBSCRIBE") && TOPIC.equals(frame.headers().get("destination")),
+                    5_000).orElseThrow();
+
+            // When this node publishes
+            messagingTemplate.convertAndSend(TOPIC, Map.of("installationId", 1, "powerGenerationWatts", 1234.5));
+
+            // Then (skipping anything else published to the topic meanwhile, e.g. by the simulator)
+            StompBrokerStandIn.Frame message;
+            do {
+                message = StompBrokerStandIn.readFrame(in);
+            } while (message != null && !message.body().contains("1234.5"));
+            assertThat(message).isNotNull();
+            assertEquals("MESSAGE", message.command());
+            assertEquals(TOPIC, message.headers().get("destination"));
+            assertEquals("sub-0", message.headers().get("subscription"));
+        }
+    }
+
+    private boolean awaitBrokerAvailable() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!relayHandler.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        return relayHandler.isBrokerAvailable();
+    }
+}
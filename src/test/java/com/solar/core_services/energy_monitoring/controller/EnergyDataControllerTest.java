@@ -4,8 +4,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.solar.core_services.energy_monitoring.dto.DashboardResponse;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataRequest;
+import com.solar.core_services.energy_monitoring.dto.EnergyHistoryPointDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyHistorySeriesDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingFrame;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingFrameResultDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingPageDTO;
+import com.solar.core_services.energy_monitoring.service.EnergyDataExporter;
 import com.solar.core_services.energy_monitoring.service.EnergyDataService;
+import com.solar.core_services.energy_monitoring.service.EnergyIngestionService;
 import com.solar.core_services.energy_monitoring.service.SecurityService;
+import com.solar.exception.IngestionOverloadedException;
+import com.solar.exception.InvalidCursorException;
+import com.solar.exception.InvalidReadingFrameException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +26,11 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -24,11 +38,17 @@ import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -49,6 +69,12 @@ public class EnergyDataControllerTest {
     @MockBean
     private EnergyDataService energyDataService;
 
+    @MockBean
+    private EnergyIngestionService energyIngestionService;
+
+    @MockBean
+    private EnergyDataExporter energyDataExporter;
+
     @MockBean
     private SecurityService securityService;
 
@@ -134,6 +160,87 @@ public class EnergyDataControllerTest {
                 .andExpect(jsonPath("$.simulated", is(true)));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testSubmitEnergyReading_WriteBehind_Accepted() throws Exception {
+        // Given
+        EnergyDataDTO queued = EnergyDataDTO.builder()
+                .installationId(1L)
+                .powerGenerationWatts(1500.0)
+                .powerConsumptionWatts(1000.0)
+                .timestamp(now)
+                .isSimulated(true)
+                .build();
+        when(energyIngestionService.isWriteBehindEnabled()).thenReturn(true);
+        when(energyIngestionService.enqueue(any(EnergyDataRequest.class))).thenReturn(queued);
+
+        // When/Then
+        mockMvc.perform(post("/monitoring/readings")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.installationId", is(1)))
+                .andExpect(jsonPath("$.powerGenerationWatts", is(1500.0)));
+
+        verify(energyDataService, never()).processEnergyData(any(EnergyDataRequest.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testSubmitEnergyReading_WriteBehind_QueueFull() throws Exception {
+        // Given
+        when(energyIngestionService.isWriteBehindEnabled()).thenReturn(true);
+        when(energyIngestionService.enqueue(any(EnergyDataRequest.class)))
+                .thenThrow(new IngestionOverloadedException("Ingestion queue is full", 5));
+
+        // When/Then
+        mockMvc.perform(post("/monitoring/readings")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testSubmitEnergyReadingFrame_WriteBehind() throws Exception {
+        // Given
+        byte[] frame = EnergyReadingFrame.encode(1L, new LocalDateTime[]{now, now.plusSeconds(10)},
+                new double[]{1500.0, 1510.0}, new double[]{1000.0, 990.0});
+        when(energyIngestionService.isWriteBehindEnabled()).thenReturn(true);
+        when(energyIngestionService.enqueueFrame(any(ByteBuffer.class))).thenReturn(
+                EnergyReadingFrameResultDTO.builder().installationId(1L).readingsAccepted(2).persisted(false).build());
+
+        // When/Then
+        mockMvc.perform(post("/monitoring/readings/batch")
+                .with(csrf())
+                .contentType(EnergyReadingFrame.MEDIA_TYPE)
+                .content(frame))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.installationId", is(1)))
+                .andExpect(jsonPath("$.readingsAccepted", is(2)));
+
+        verify(energyIngestionService).enqueueFrame(argThat(buffer -> buffer.remaining() == frame.length));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testSubmitEnergyReadingFrame_Malformed() throws Exception {
+        // Given
+        when(energyIngestionService.enqueueFrame(any(ByteBuffer.class)))
+                .thenThrow(new InvalidReadingFrameException("Frame does not start with SRB1"));
+
+        // When/Then
+        mockMvc.perform(post("/monitoring/readings/batch")
+                .with(csrf())
+                .contentType(EnergyReadingFrame.MEDIA_TYPE)
+                .content(new byte[]{1, 2, 3}))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Frame does not start with SRB1")));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     public void testGetCustomerDashboard_AsAdmin() throws Exception {
@@ -258,6 +365,132 @@ public class EnergyDataControllerTest {
                 .andExpect(status().isForbidden()); // Updated to expect 403 Forbidden instead of 500 Internal Server Error
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testGetReadingsHistoryPage_AsAdmin() throws Exception {
+        // Given
+        EnergyReadingPageDTO page = EnergyReadingPageDTO.builder()
+                .installationId(1L)
+                .readings(Arrays.asList(energyDataDTO2, energyDataDTO1))
+                .nextCursor("next-cursor")
+                .hasMore(true)
+                .build();
+        when(energyDataService.getReadingsPage(1L, "cursor-1", 2)).thenReturn(page);
+
+        // When/Then
+        mockMvc.perform(get("/monitoring/readings/history")
+                .param("installationId", "1")
+                .param("cursor", "cursor-1")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.readings", hasSize(2)))
+                .andExpect(jsonPath("$.readings[0].id", is(2)))
+                .andExpect(jsonPath("$.nextCursor", is("next-cursor")))
+                .andExpect(jsonPath("$.hasMore", is(true)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testGetReadingsHistoryPage_InvalidCursor() throws Exception {
+        // Given
+        when(energyDataService.getReadingsPage(eq(1L), eq("bad"), anyInt()))
+                .thenThrow(new InvalidCursorException("Invalid cursor: bad"));
+
+        // When/Then
+        mockMvc.perform(get("/monitoring/readings/history")
+                .param("installationId", "1")
+                .param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testGetDownsampledHistory_AsAdmin() throws Exception {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2025, 4, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 5, 1, 0, 0);
+        EnergyHistorySeriesDTO series = EnergyHistorySeriesDTO.builder()
+                .installationId(1L)
+                .startDate(start)
+                .endDate(end)
+                .resolution("1h")
+                .points(List.of(EnergyHistoryPointDTO.builder()
+                        .bucketStart(start.plusHours(12))
+                        .readingsCount(360)
+                        .avgGenerationWatts(4200.0)
+                        .maxGenerationWatts(5100.0)
+                        .build()))
+                .build();
+        when(energyDataService.getDownsampledHistory(1L, start, end, "auto", 1000)).thenReturn(series);
+
+        // When/Then
+        mockMvc.perform(get("/monitoring/readings/history/1/downsampled")
+                .param("startDate", start.toString())
+                .param("endDate", end.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resolution", is("1h")))
+                .andExpect(jsonPath("$.points", hasSize(1)))
+                .andExpect(jsonPath("$.points[0].readingsCount", is(360)))
+                .andExpect(jsonPath("$.points[0].maxGenerationWatts", is(5100.0)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testExportReadings_StreamsCsv() throws Exception {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2025, 4, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 5, 1, 0, 0);
+        StreamingResponseBody body = out -> out.write("id,installation_id\n1,1\n".getBytes(StandardCharsets.UTF_8));
+        when(energyDataExporter.csv(1L, start, end, null, null, false)).thenReturn(body);
+
+        // When
+        MvcResult result = mockMvc.perform(get("/monitoring/readings/export/1")
+                .param("startDate", start.toString())
+                .param("endDate", end.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"energy-data-1-2025-04-01-2025-05-01.csv\""))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string("id,installation_id\n1,1\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testExportReadings_GzipWhenAccepted() throws Exception {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2025, 4, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 5, 1, 0, 0);
+        LocalDateTime after = LocalDateTime.of(2025, 4, 10, 8, 30);
+        when(energyDataExporter.csv(1L, start, end, after, 42L, true)).thenReturn(out -> { });
+
+        // When/Then
+        mockMvc.perform(get("/monitoring/readings/export/1")
+                .header("Accept-Encoding", "gzip, deflate")
+                .param("startDate", start.toString())
+                .param("endDate", end.toString())
+                .param("afterTimestamp", after.toString())
+                .param("afterId", "42"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Encoding", "gzip"));
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    public void testGetReadingsHistoryPage_AsCustomer_Unauthorized() throws Exception {
+        // Given
+        when(securityService.hasAccessToInstallation(1L)).thenReturn(false);
+
+        // When/Then
+        mockMvc.perform(get("/monitoring/readings/history")
+                .param("installationId", "1"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     public void testGetReadingsHistory_AsAdmin() throws Exception {
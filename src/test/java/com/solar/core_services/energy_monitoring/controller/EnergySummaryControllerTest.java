@@ -300,4 +300,54 @@ public class EnergySummaryControllerTest {
                 .andExpect(jsonPath("$.period", is("MONTHLY")))
                 .andExpect(jsonPath("$.totalGenerationKWh", is(600.0)));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testGenerateYearlySummary() throws Exception {
+        // Given
+        EnergySummaryDTO yearlySummaryDTO = EnergySummaryDTO.builder()
+                .id(4L)
+                .installationId(1L)
+                .date(today.withDayOfYear(1))
+                .period(EnergySummary.SummaryPeriod.YEARLY)
+                .totalGenerationKWh(7200.0)
+                .build();
+        when(summaryService.generateYearlySummary(eq(1L), any(LocalDate.class))).thenReturn(yearlySummaryDTO);
+
+        // When/Then
+        mockMvc.perform(post("/monitoring/summaries/1/generate/yearly")
+                .with(csrf())
+                .param("yearStartDate", today.withDayOfYear(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(4)))
+                .andExpect(jsonPath("$.period", is("YEARLY")))
+                .andExpect(jsonPath("$.totalGenerationKWh", is(7200.0)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testRebuildRollups() throws Exception {
+        // Given
+        when(summaryService.rebuildRollups(today.minusDays(7), today, 1L)).thenReturn(192);
+
+        // When/Then
+        mockMvc.perform(post("/monitoring/summaries/rollups/rebuild")
+                .with(csrf())
+                .param("startDate", today.minusDays(7).toString())
+                .param("endDate", today.toString())
+                .param("installationId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", is(192)));
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    public void testRebuildRollups_AdminOnly() throws Exception {
+        // When/Then
+        mockMvc.perform(post("/monitoring/summaries/rollups/rebuild")
+                .with(csrf())
+                .param("startDate", today.toString())
+                .param("endDate", today.toString()))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -5,6 +5,8 @@ import com.solar.SolarApplication;
 import com.solar.core_services.energy_monitoring.dto.DeviceStatusRequest;
 import com.solar.core_services.energy_monitoring.dto.SolarInstallationDTO;
 import com.solar.core_services.energy_monitoring.dto.SystemOverviewResponse;
+import com.solar.core_services.energy_monitoring.dto.TopProducerDTO;
+import com.solar.core_services.energy_monitoring.dto.TopProducerRanking;
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.core_services.energy_monitoring.service.SolarInstallationService;
 import com.solar.core_services.energy_monitoring.service.SecurityService;
@@ -365,6 +367,26 @@ public class SolarInstallationControllerTest {
                                 .andExpect(jsonPath("$.recentlyActiveInstallations", hasSize(2)));
         }
 
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        public void testGetSystemOverview_NotModifiedWhenETagMatches() throws Exception {
+                // Given
+                when(installationService.getSystemOverview()).thenReturn(systemOverviewResponse);
+                String etag = mockMvc.perform(get("/monitoring/installations/overview"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().exists("ETag"))
+                                .andReturn().getResponse().getHeader("ETag");
+
+                // When/Then
+                mockMvc.perform(get("/monitoring/installations/overview").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string("ETag", etag))
+                                .andExpect(content().string(""));
+                mockMvc.perform(get("/monitoring/installations/overview").header("If-None-Match", "\"stale\""))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalActiveInstallations", is(2)));
+        }
+
         @Test
         @WithMockUser(roles = "CUSTOMER")
         public void testGetSystemOverview_Unauthorized() throws Exception {
@@ -373,6 +395,38 @@ public class SolarInstallationControllerTest {
                                 .andExpect(status().isForbidden()); // Updated to expect 403 (Forbidden) instead of 500
         }
 
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        public void testGetTopProducers() throws Exception {
+                // Given
+                TopProducerDTO producer = new TopProducerDTO();
+                producer.setId(2L);
+                producer.setName("Test Installation 2");
+                producer.setType(SolarInstallation.InstallationType.COMMERCIAL);
+                producer.setUtilizationRate(0.8);
+                when(installationService.getTopProducers(TopProducerRanking.UTILIZATION,
+                                SolarInstallation.InstallationType.COMMERCIAL, 3))
+                                .thenReturn(Collections.singletonList(producer));
+
+                // When/Then
+                mockMvc.perform(get("/monitoring/installations/top-producers")
+                                .param("by", "UTILIZATION")
+                                .param("type", "COMMERCIAL")
+                                .param("limit", "3"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(1)))
+                                .andExpect(jsonPath("$[0].id", is(2)))
+                                .andExpect(jsonPath("$[0].utilizationRate", is(0.8)));
+        }
+
+        @Test
+        @WithMockUser(roles = "CUSTOMER")
+        public void testGetTopProducers_Unauthorized() throws Exception {
+                // When/Then
+                mockMvc.perform(get("/monitoring/installations/top-producers"))
+                                .andExpect(status().isForbidden());
+        }
+
         @Test
         @WithMockUser(roles = "ADMIN")
         public void testGetTamperAlerts() throws Exception {
@@ -0,0 +1,99 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a gateway batch as JSON (what POST /monitoring/readings/batch does with Jackson)
+ * with decoding the same readings from an EnergyReadingFrame. Both paths hand every reading's values
+ * to a Blackhole, the way the ingestion pipeline consumes them. Run with -prof gc for allocation rates:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.solar.core_services.energy_monitoring.dto.EnergyReadingFrameBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnergyReadingFrameBenchmark {
+
+    @Param({"1", "60", "1000"})
+    private int readings;
+
+    // Configured like the application's mapper for LocalDateTime
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private byte[] json;
+    private byte[] frame;
+
+    @Setup
+    public void prepare() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 1, 12, 0, 0);
+        LocalDateTime[] timestamps = new LocalDateTime[readings];
+        double[] generation = new double[readings];
+        double[] consumption = new double[readings];
+        List<EnergyReadingDTO> dtos = new ArrayList<>(readings);
+        for (int i = 0; i < readings; i++) {
+            timestamps[i] = start.plusSeconds(10L * i);
+            generation[i] = 4000.0 + i % 500 + 0.25;
+            consumption[i] = 2500.0 - i % 300 + 0.5;
+            dtos.add(new EnergyReadingDTO(1L, timestamps[i], generation[i], consumption[i]));
+        }
+        json = objectMapper.writeValueAsBytes(EnergyReadingBatchDTO.builder()
+                .installationId(1L)
+                .deviceToken("SIM-TOKEN-1")
+                .readings(dtos)
+                .build());
+        frame = EnergyReadingFrame.encode(1L, timestamps, generation, consumption);
+    }
+
+    @Benchmark
+    public void json(Blackhole blackhole) throws IOException {
+        EnergyReadingBatchDTO batch = objectMapper.readValue(json, EnergyReadingBatchDTO.class);
+        for (EnergyReadingDTO reading : batch.getReadings()) {
+            blackhole.consume(batch.getInstallationId());
+            blackhole.consume(reading.getTimestamp());
+            blackhole.consume(reading.getEnergyProduced().doubleValue());
+            blackhole.consume(reading.getEnergyConsumed().doubleValue());
+        }
+    }
+
+    @Benchmark
+    public void binaryFrame(Blackhole blackhole) {
+        EnergyReadingFrame.decode(ByteBuffer.wrap(frame), (installationId, timestamp, generation, consumption) -> {
+            blackhole.consume(installationId);
+            blackhole.consume(timestamp);
+            blackhole.consume(generation);
+            blackhole.consume(consumption);
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EnergyReadingFrameBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.solar.core_services.energy_monitoring.dto;
+
+import com.solar.exception.InvalidReadingFrameException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test class for EnergyReadingFrame
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/dto/EnergyReadingFrame.java
+ */
+public class EnergyReadingFrameTest {
+
+    // Produced by pi_simulation/reading_codec.py for the readings in testEncode_MatchesGatewayEncoder
+    private static final String GATEWAY_FRAME = "53524231070000000000000000c2abd38f01000002000000"
+            + "0000000000000000007097400000000000408f40"
+            + "0a28000000000000009a97400000000000f28e40";
+
+    private record Reading(long installationId, LocalDateTime timestamp, double generation, double consumption) {
+    }
+
+    @Test
+    public void testEncode_MatchesGatewayEncoder() {
+        // Given
+        LocalDateTime first = LocalDateTime.of(2024, 6, 1, 12, 0, 0);
+        LocalDateTime second = LocalDateTime.of(2024, 6, 1, 12, 0, 10, 250_000_000);
+
+        // When
+        byte[] frame = EnergyReadingFrame.encode(7L, new LocalDateTime[]{first, second},
+                new double[]{1500.0, 1510.5}, new double[]{1000.0, 990.25});
+
+        // Then
+        assertEquals(GATEWAY_FRAME, HexFormat.of().formatHex(frame));
+    }
+
+    @Test
+    public void testDecode_GatewayFrame() {
+        // Given
+        ByteBuffer frame = ByteBuffer.wrap(HexFormat.of().parseHex(GATEWAY_FRAME));
+        List<Reading> readings = new ArrayList<>();
+
+        // When
+        int count = EnergyReadingFrame.decode(frame, (id, timestamp, generation, consumption) ->
+                readings.add(new Reading(id, timestamp, generation, consumption)));
+
+        // Then
+        assertEquals(2, count);
+        assertEquals(7L, EnergyReadingFrame.installationId(frame));
+        assertThat(readings).containsExactly(
+                new Reading(7L, LocalDateTime.of(2024, 6, 1, 12, 0, 0), 1500.0, 1000.0),
+                new Reading(7L, LocalDateTime.of(2024, 6, 1, 12, 0, 10, 250_000_000), 1510.5, 990.25));
+        assertEquals(0, frame.position());
+    }
+
+    @Test
+    public void testValidate_RejectsWrongMagic() {
+        // Given
+        byte[] frame = HexFormat.of().parseHex(GATEWAY_FRAME);
+        frame[0] = 'X';
+
+        // When/Then
+        Exception exception = assertThrows(InvalidReadingFrameException.class,
+                () -> EnergyReadingFrame.validate(ByteBuffer.wrap(frame)));
+        assertThat(exception.getMessage()).contains("SRB1");
+    }
+
+    @Test
+    public void testValidate_RejectsTruncatedFrame() {
+        // Given
+        byte[] frame = HexFormat.of().parseHex(GATEWAY_FRAME);
+        ByteBuffer truncated = ByteBuffer.wrap(frame, 0, frame.length - 1);
+
+        // When/Then
+        Exception exception = assertThrows(InvalidReadingFrameException.class,
+                () -> EnergyReadingFrame.validate(truncated));
+        assertThat(exception.getMessage()).contains("reading count of 2");
+    }
+
+    @Test
+    public void testValidate_RejectsNonFiniteValues() {
+        // Given
+        byte[] frame = HexFormat.of().parseHex(GATEWAY_FRAME);
+        ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN)
+                .putDouble(EnergyReadingFrame.HEADER_BYTES + EnergyReadingFrame.READING_BYTES + 4, Double.NaN);
+        List<Reading> readings = new ArrayList<>();
+
+        // When/Then
+        assertThrows(InvalidReadingFrameException.class, () -> EnergyReadingFrame.decode(ByteBuffer.wrap(frame),
+                (id, timestamp, generation, consumption) -> readings.add(new Reading(id, timestamp, generation, consumption))));
+        assertThat(readings).isEmpty();
+    }
+}
@@ -0,0 +1,120 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test class for EnergyColdBlockCodec
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/repository/EnergyColdBlockCodec.java
+ */
+public class EnergyColdBlockCodecTest {
+
+    private final SolarInstallation installation = new SolarInstallation();
+
+    @Test
+    public void testRoundTrip_DayOfReadings() {
+        // Given: a day at 10 s intervals with millisecond jitter, gaps in the ids and a flat night
+        Random random = new Random(42);
+        List<EnergyData> readings = new ArrayList<>();
+        LocalDateTime timestamp = LocalDateTime.of(2024, 3, 1, 0, 0, 0);
+        long id = 1000;
+        double totalYield = 12_345.678;
+        for (int i = 0; i < 8640; i++) {
+            timestamp = timestamp.plusNanos((10_000L + random.nextInt(41) - 20) * 1_000_000L);
+            id += i % 500 == 0 ? 100 : 1;
+            boolean daylight = i > 2160 && i < 6480;
+            double generation = daylight ? Math.round(random.nextDouble() * 500_000) / 100.0 : 0.0;
+            totalYield += generation * 10 / 3_600_000;
+            readings.add(reading(id, timestamp, generation, 750.5, generation / 1000.0, totalYield, i % 2 == 0));
+        }
+
+        // When
+        byte[] block = EnergyColdBlockCodec.encode(readings);
+        List<EnergyData> decoded = EnergyColdBlockCodec.decode(block, installation);
+
+        // Then
+        assertEquals(readings.size(), decoded.size());
+        for (int i = 0; i < readings.size(); i++) {
+            assertSameReading(readings.get(i), decoded.get(i));
+            assertSame(installation, decoded.get(i).getInstallation());
+        }
+        assertThat(block.length).isLessThan(readings.size() * EnergyColdBlockCodec.RAW_READING_BYTES / 2);
+    }
+
+    @Test
+    public void testRoundTrip_ExtremeValues() {
+        // Given
+        List<EnergyData> readings = List.of(
+                reading(Long.MAX_VALUE, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000),
+                        Double.NaN, Double.NEGATIVE_INFINITY, -0.0, Double.MIN_VALUE, true),
+                reading(1L, LocalDateTime.of(2099, 1, 1, 0, 0, 0), Double.MAX_VALUE, -1.5, 0.0, 1e300, false),
+                reading(2L, LocalDateTime.of(2099, 1, 1, 0, 0, 0), Double.MAX_VALUE, -1.5, 0.0, 1e300, false));
+
+        // When
+        List<EnergyData> decoded = EnergyColdBlockCodec.decode(EnergyColdBlockCodec.encode(readings), installation);
+
+        // Then
+        for (int i = 0; i < readings.size(); i++) {
+            assertSameReading(readings.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    public void testRoundTrip_EmptyBlock() {
+        // When
+        List<EnergyData> decoded = EnergyColdBlockCodec.decode(EnergyColdBlockCodec.encode(List.of()), installation);
+
+        // Then
+        assertThat(decoded).isEmpty();
+    }
+
+    @Test
+    public void testDecode_TruncatedBlock() {
+        // Given
+        byte[] block = EnergyColdBlockCodec.encode(List.of(
+                reading(1L, LocalDateTime.of(2024, 3, 1, 12, 0), 1000.0, 500.0, 1.0, 100.0, false)));
+
+        // When/Then
+        assertThrows(IllegalStateException.class,
+                () -> EnergyColdBlockCodec.decode(Arrays.copyOf(block, block.length - 2), installation));
+    }
+
+    private EnergyData reading(long id, LocalDateTime timestamp, double generation, double consumption,
+                               double dailyYield, double totalYield, boolean simulated) {
+        EnergyData reading = new EnergyData();
+        reading.setId(id);
+        reading.setTimestamp(timestamp);
+        reading.setPowerGenerationWatts(generation);
+        reading.setPowerConsumptionWatts(consumption);
+        reading.setDailyYieldKWh(dailyYield);
+        reading.setTotalYieldKWh(totalYield);
+        reading.setSimulated(simulated);
+        return reading;
+    }
+
+    private void assertSameReading(EnergyData expected, EnergyData actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(Double.doubleToRawLongBits(expected.getPowerGenerationWatts()),
+                Double.doubleToRawLongBits(actual.getPowerGenerationWatts()));
+        assertEquals(Double.doubleToRawLongBits(expected.getPowerConsumptionWatts()),
+                Double.doubleToRawLongBits(actual.getPowerConsumptionWatts()));
+        assertEquals(Double.doubleToRawLongBits(expected.getDailyYieldKWh()),
+                Double.doubleToRawLongBits(actual.getDailyYieldKWh()));
+        assertEquals(Double.doubleToRawLongBits(expected.getTotalYieldKWh()),
+                Double.doubleToRawLongBits(actual.getTotalYieldKWh()));
+        assertEquals(expected.isSimulated(), actual.isSimulated());
+    }
+}
@@ -1,32 +1,66 @@
 package com.solar.core_services.energy_monitoring.repository;
 
+import com.solar.core_services.energy_monitoring.model.EnergyColdBlock;
 import com.solar.core_services.energy_monitoring.model.EnergyData;
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.user_management.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * Test class for EnergyDataRepository
  * Source file: src/main/java/com/solar/core_services/energy_monitoring/repository/EnergyDataRepository.java
  */
-@DataJpaTest
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session.events.auto="
+                + "com.solar.core_services.energy_monitoring.repository.EnergyDataRepositoryTest$BatchCounter"
+})
 public class EnergyDataRepositoryTest {
 
+    /**
+     * Counts JDBC batch executions, each one round trip, across all sessions
+     */
+    public static class BatchCounter implements SessionEventListener {
+        static final AtomicInteger EXECUTIONS = new AtomicInteger();
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            EXECUTIONS.incrementAndGet();
+        }
+    }
+
     @Autowired
     private TestEntityManager entityManager;
 
     @Autowired
     private EnergyDataRepository energyDataRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
     private SolarInstallation installation;
     private EnergyData energyData1;
     private EnergyData energyData2;
@@ -36,7 +70,7 @@ public class EnergyDataRepositoryTest {
     @BeforeEach
     public void setup() {
         // Create a user
-        User user = new User();
+        user = new User();
         user.setEmail("test@example.com");
         user.setPassword("password");
         user.setFullName("Test User");
@@ -91,9 +125,10 @@ public class EnergyDataRepositoryTest {
     }
 
     @Test
-    public void testFindByInstallationOrderByTimestampDesc() {
+    public void testFindByInstallationOrderByTimestampDescIdDesc() {
         // When
-        List<EnergyData> result = energyDataRepository.findByInstallationOrderByTimestampDesc(installation);
+        List<EnergyData> result = energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(
+                installation, Limit.unlimited());
 
         // Then
         assertThat(result).isNotEmpty();
@@ -103,6 +138,79 @@ public class EnergyDataRepositoryTest {
         assertThat(result.get(2).getTimestamp()).isEqualTo(now.minusHours(2));
     }
 
+    @Test
+    public void testFindByInstallationOrderByTimestampDescIdDesc_AppliesLimit() {
+        // When
+        List<EnergyData> result = energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(
+                installation, Limit.of(2));
+
+        // Then
+        assertThat(result).extracting(EnergyData::getTimestamp).containsExactly(now, now.minusHours(1));
+    }
+
+    @Test
+    public void testFindFirstByInstallationOrderByTimestampDescIdDesc() {
+        // When
+        Optional<EnergyData> result = energyDataRepository.findFirstByInstallationOrderByTimestampDescIdDesc(installation);
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get().getTimestamp()).isEqualTo(now);
+    }
+
+    @Test
+    public void testFindPageAfterCursor_ContinuesAfterTheCursor() {
+        // Given cursors built from rows as stored, with the database's timestamp precision
+        entityManager.flush();
+        entityManager.clear();
+
+        List<EnergyData> firstPage = energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(
+                installation, Limit.of(1));
+        EnergyData last = firstPage.get(0);
+
+        // When
+        List<EnergyData> secondPage = energyDataRepository.findPageAfterCursor(
+                installation, last.getTimestamp(), last.getId(), Limit.of(2));
+
+        // Then
+        assertThat(secondPage).hasSize(2);
+        assertThat(secondPage.get(0).getTimestamp()).isBefore(last.getTimestamp());
+        assertThat(secondPage.get(1).getTimestamp()).isBefore(secondPage.get(0).getTimestamp());
+    }
+
+    @Test
+    public void testSaveAndFlush_RejectsReadingWithStoredTimestamp() {
+        // Given a retried reading with the same installation and timestamp as a stored one
+        EnergyData retried = new EnergyData();
+        retried.setInstallation(installation);
+        retried.setPowerGenerationWatts(1400.0);
+        retried.setPowerConsumptionWatts(1000.0);
+        retried.setTimestamp(now);
+        retried.setDailyYieldKWh(7.5);
+        retried.setTotalYieldKWh(102.5);
+
+        // When/Then
+        assertThatThrownBy(() -> energyDataRepository.saveAndFlush(retried))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void testFindByInstallationAndTimestamp() {
+        // Given the newest timestamp as stored, with the database's timestamp precision
+        entityManager.clear();
+        LocalDateTime newest = energyDataRepository.findById(energyData3.getId()).orElseThrow().getTimestamp();
+
+        // When
+        Optional<EnergyData> stored = energyDataRepository.findByInstallationAndTimestamp(installation, newest);
+        List<LocalDateTime> timestamps = energyDataRepository.findTimestampsBetween(
+                installation, newest.minusMinutes(90), newest);
+
+        // Then
+        assertThat(stored).map(EnergyData::getId).contains(energyData3.getId());
+        assertThat(energyDataRepository.findByInstallationAndTimestamp(installation, newest.minusMinutes(1))).isEmpty();
+        assertThat(timestamps).hasSize(2).contains(newest);
+    }
+
     @Test
     public void testFindByInstallationAndTimestampBetweenOrderByTimestampDesc() {
         // When
@@ -139,7 +247,201 @@ public class EnergyDataRepositoryTest {
     }
 
     @Test
-    public void testFindByInstallationOrderByTimestampDesc_EmptyResult() {
+    public void testSumDashboardPeriods_IntegratesIntervalsPerPeriod() {
+        // Given pairs of readings on a Wednesday, its Monday, earlier in the month and earlier in the year
+        LocalDate day = LocalDate.of(2025, 4, 16);
+        persistReading(installation, 1000.0, 400.0, day.atTime(10, 0));
+        persistReading(installation, 2000.0, 600.0, day.atTime(10, 5));
+        persistReading(installation, 3000.0, 800.0, day.atTime(10, 30)); // after a 25 minute gap
+        persistReading(installation, 600.0, 200.0, LocalDate.of(2025, 4, 13).atTime(23, 55));
+        persistReading(installation, 600.0, 200.0, LocalDate.of(2025, 4, 14).atTime(0, 5));
+        persistReading(installation, 600.0, 200.0, LocalDate.of(2025, 4, 2).atTime(8, 0));
+        persistReading(installation, 600.0, 200.0, LocalDate.of(2025, 4, 2).atTime(8, 6));
+        persistReading(installation, 500.0, 200.0, LocalDate.of(2025, 2, 10).atTime(9, 0));
+        persistReading(installation, 700.0, 200.0, LocalDate.of(2025, 2, 10).atTime(9, 3));
+        entityManager.flush();
+
+        LocalDateTime startOfDay = day.atStartOfDay();
+        LocalDateTime startOfWeek = LocalDate.of(2025, 4, 14).atStartOfDay();
+        LocalDateTime startOfMonth = LocalDate.of(2025, 4, 1).atStartOfDay();
+        LocalDateTime startOfYear = LocalDate.of(2025, 1, 1).atStartOfDay();
+
+        // When
+        EnergyPeriodTotals totals = energyDataRepository.sumDashboardPeriods(installation, startOfDay, startOfWeek,
+                startOfMonth, startOfYear, startOfYear, LocalDateTime.of(day, LocalTime.MAX));
+
+        // Then each interval counts as (previous + current) / 2 x its length, towards the day it ends in
+        assertThat(totals.todayGeneration()).isCloseTo(125.0, within(1e-9));       // 1500 W x 5 min
+        assertThat(totals.todayConsumption()).isCloseTo(500.0 / 12, within(1e-9)); // 500 W x 5 min
+        // The interval from Sunday 23:55 ends on Monday, so it counts towards the week
+        assertThat(totals.weekToDateGeneration()).isCloseTo(225.0, within(1e-9));
+        assertThat(totals.monthToDateGeneration()).isCloseTo(285.0, within(1e-9));
+        assertThat(totals.yearToDateGeneration()).isCloseTo(315.0, within(1e-9));
+    }
+
+    @Test
+    public void testSumRunningTotals_AddsTodaysPeakAndCount() {
+        // Given two readings today and one yesterday
+        LocalDate day = LocalDate.of(2025, 4, 15);
+        persistReading(installation, 900.0, 300.0, day.minusDays(1).atTime(12, 0));
+        persistReading(installation, 1000.0, 400.0, day.atTime(10, 0));
+        persistReading(installation, 2000.0, 600.0, day.atTime(10, 6));
+        entityManager.flush();
+
+        LocalDateTime startOfDay = day.atStartOfDay();
+        LocalDateTime startOfWeek = LocalDate.of(2025, 4, 14).atStartOfDay();
+        LocalDateTime startOfMonth = LocalDate.of(2025, 4, 1).atStartOfDay();
+        LocalDateTime startOfYear = LocalDate.of(2025, 1, 1).atStartOfDay();
+        LocalDateTime endOfDay = LocalDateTime.of(day, LocalTime.MAX);
+
+        // When
+        EnergyRunningTotals running = energyDataRepository.sumRunningTotals(installation, startOfDay, startOfWeek,
+                startOfMonth, startOfYear, startOfYear, endOfDay);
+
+        // Then the period sums match sumDashboardPeriods
+        assertThat(running.periods()).isEqualTo(energyDataRepository.sumDashboardPeriods(installation, startOfDay,
+                startOfWeek, startOfMonth, startOfYear, startOfYear, endOfDay));
+        assertThat(running.todayPeakGenerationWatts()).isEqualTo(2000.0);
+        assertThat(running.todayReadingsCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSumDashboardPeriods_NoDataInRange() {
+        // When
+        EnergyPeriodTotals totals = energyDataRepository.sumDashboardPeriods(installation,
+                now.plusHours(1), now.plusHours(1), now.plusHours(1), now.plusHours(1), now.plusHours(1), now.plusHours(2));
+
+        // Then
+        assertThat(totals).isNotNull();
+        assertThat(totals.todayGeneration()).isNull();
+        assertThat(totals.yearToDateConsumption()).isNull();
+    }
+
+    @Test
+    public void testSumDashboardPeriodsByUser_GroupsByInstallation() {
+        // Given a second installation of the same customer and one of another customer
+        SolarInstallation second = persistInstallation("Second Installation", user);
+        User otherUser = new User();
+        otherUser.setEmail("other@example.com");
+        otherUser.setPassword("password");
+        otherUser.setFullName("Other User");
+        otherUser.setPhoneNumber("+12345678902");
+        otherUser.setRole(User.UserRole.CUSTOMER);
+        otherUser.setEnabled(true);
+        entityManager.persist(otherUser);
+        SolarInstallation otherCustomers = persistInstallation("Other Installation", otherUser);
+        persistReading(second, 400.0, 100.0, now.minusMinutes(30));
+        persistReading(otherCustomers, 9000.0, 9000.0, now.minusMinutes(30));
+        entityManager.flush();
+
+        LocalDate today = LocalDate.now();
+        LocalDateTime startOfDay = LocalDateTime.of(today, LocalTime.MIDNIGHT);
+        LocalDateTime endOfDay = LocalDateTime.of(today, LocalTime.MAX);
+        LocalDateTime startOfWeek = LocalDateTime.of(today.minusDays(today.getDayOfWeek().getValue() - 1), LocalTime.MIDNIGHT);
+        LocalDateTime startOfMonth = LocalDateTime.of(today.withDayOfMonth(1), LocalTime.MIDNIGHT);
+        LocalDateTime startOfYear = LocalDateTime.of(today.withDayOfYear(1), LocalTime.MIDNIGHT);
+        LocalDateTime scanStart = startOfWeek.isBefore(startOfYear) ? startOfWeek : startOfYear;
+
+        // When
+        List<InstallationPeriodTotals> totals = energyDataRepository.sumDashboardPeriodsByUser(
+                user, startOfDay, startOfWeek, startOfMonth, startOfYear, scanStart, endOfDay);
+
+        // Then each installation matches its own sumDashboardPeriods
+        assertThat(totals).extracting(InstallationPeriodTotals::installationId)
+                .containsExactlyInAnyOrder(installation.getId(), second.getId());
+        for (InstallationPeriodTotals installationTotals : totals) {
+            SolarInstallation site = installationTotals.installationId().equals(installation.getId()) ? installation : second;
+            assertThat(installationTotals.totals()).isEqualTo(energyDataRepository.sumDashboardPeriods(
+                    site, startOfDay, startOfWeek, startOfMonth, startOfYear, scanStart, endOfDay));
+        }
+    }
+
+    @Test
+    public void testSumDashboardPeriods_AddsColdBlocks() {
+        // Given hot readings today and days already compacted into blocks, one of them from before energy was stored
+        LocalDate day = LocalDate.of(2025, 4, 15);
+        persistReading(installation, 1000.0, 400.0, day.atTime(10, 0));
+        persistReading(installation, 2000.0, 600.0, day.atTime(10, 6));
+        persistColdBlock(installation.getId(), LocalDate.of(2025, 4, 2), 2400.0, 1200.0, null, null);
+        persistColdBlock(installation.getId(), LocalDate.of(2025, 3, 10), 0.0, 0.0, 1000.0, 400.0);
+        SolarInstallation coldOnly = persistInstallation("Cold Installation", user);
+        persistColdBlock(coldOnly.getId(), LocalDate.of(2025, 4, 3), 0.0, 0.0, 500.0, 100.0);
+        entityManager.flush();
+
+        LocalDateTime startOfDay = day.atStartOfDay();
+        LocalDateTime startOfWeek = LocalDate.of(2025, 4, 14).atStartOfDay();
+        LocalDateTime startOfMonth = LocalDate.of(2025, 4, 1).atStartOfDay();
+        LocalDateTime startOfYear = LocalDate.of(2025, 1, 1).atStartOfDay();
+        LocalDateTime endOfDay = LocalDateTime.of(day, LocalTime.MAX);
+
+        // When
+        EnergyPeriodTotals totals = energyDataRepository.sumDashboardPeriods(installation, startOfDay, startOfWeek,
+                startOfMonth, startOfYear, startOfYear, endOfDay);
+        List<InstallationPeriodTotals> byUser = energyDataRepository.sumDashboardPeriodsByUser(
+                user, startOfDay, startOfWeek, startOfMonth, startOfYear, startOfYear, endOfDay);
+
+        // Then the old block counts as its average power over the whole day
+        assertThat(totals.todayGeneration()).isCloseTo(150.0, within(1e-9));
+        assertThat(totals.weekToDateGeneration()).isCloseTo(150.0, within(1e-9));
+        assertThat(totals.monthToDateGeneration()).isCloseTo(2550.0, within(1e-9));
+        assertThat(totals.monthToDateConsumption()).isCloseTo(1250.0, within(1e-9));
+        assertThat(totals.yearToDateGeneration()).isCloseTo(3550.0, within(1e-9));
+        assertThat(totals.yearToDateConsumption()).isCloseTo(1650.0, within(1e-9));
+        assertThat(byUser).extracting(InstallationPeriodTotals::installationId)
+                .containsExactlyInAnyOrder(installation.getId(), coldOnly.getId());
+        for (InstallationPeriodTotals installationTotals : byUser) {
+            if (installationTotals.installationId().equals(installation.getId())) {
+                assertThat(installationTotals.totals()).isEqualTo(totals);
+            } else {
+                assertThat(installationTotals.todayGeneration()).isEqualTo(0.0);
+                assertThat(installationTotals.monthToDateGeneration()).isCloseTo(500.0, within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    public void testFindLatestByUser_LimitsReadingsPerInstallation() {
+        // Given
+        SolarInstallation second = persistInstallation("Second Installation", user);
+        persistReading(second, 400.0, 100.0, now.minusMinutes(30));
+        entityManager.flush();
+
+        // When
+        List<EnergyData> latest = energyDataRepository.findLatestByUser(user.getId(), 2);
+
+        // Then
+        assertThat(latest).hasSize(3);
+        assertThat(latest.subList(0, 2)).extracting(EnergyData::getId)
+                .containsExactly(energyData3.getId(), energyData2.getId());
+        assertThat(latest.get(2).getInstallation().getId()).isEqualTo(second.getId());
+    }
+
+    private SolarInstallation persistInstallation(String name, User owner) {
+        SolarInstallation created = new SolarInstallation();
+        created.setName(name);
+        created.setCapacity(10.0);
+        created.setInstalledCapacityKW(10.0);
+        created.setLocation("Test Location");
+        created.setInstallationDate(LocalDateTime.now().minusDays(30));
+        created.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        created.setUser(owner);
+        entityManager.persist(created);
+        return created;
+    }
+
+    private void persistReading(SolarInstallation target, double generation, double consumption, LocalDateTime timestamp) {
+        EnergyData reading = new EnergyData();
+        reading.setInstallation(target);
+        reading.setPowerGenerationWatts(generation);
+        reading.setPowerConsumptionWatts(consumption);
+        reading.setTimestamp(timestamp);
+        reading.setDailyYieldKWh(1.0);
+        reading.setTotalYieldKWh(10.0);
+        entityManager.persist(reading);
+    }
+
+    @Test
+    public void testFindByInstallationOrderByTimestampDescIdDesc_EmptyResult() {
         // Create a new installation that has no energy data
         SolarInstallation newInstallation = new SolarInstallation();
         newInstallation.setName("New Installation");
@@ -153,7 +455,8 @@ public class EnergyDataRepositoryTest {
         entityManager.flush();
 
         // When
-        List<EnergyData> result = energyDataRepository.findByInstallationOrderByTimestampDesc(newInstallation);
+        List<EnergyData> result = energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(
+                newInstallation, Limit.of(10));
 
         // Then
         assertThat(result).isEmpty();
@@ -188,4 +491,47 @@ public class EnergyDataRepositoryTest {
         // Then
         assertThat(result).isNull();
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testSaveAll_InsertsAreBatched() {
+        // Given
+        List<EnergyData> readings = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            EnergyData reading = new EnergyData();
+            reading.setInstallation(installation);
+            reading.setPowerGenerationWatts(1000.0 + i);
+            reading.setPowerConsumptionWatts(800.0);
+            reading.setTimestamp(now.minusSeconds(30).minusMinutes(i));
+            reading.setDailyYieldKWh(5.0);
+            reading.setTotalYieldKWh(100.0);
+            reading.setSimulated(true);
+            readings.add(reading);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BatchCounter.EXECUTIONS.set(0);
+
+        // When
+        energyDataRepository.saveAll(readings);
+        entityManager.flush();
+
+        // Then 1000 rows are sent in 10 batches of 100
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1000);
+        assertThat(BatchCounter.EXECUTIONS.get()).isEqualTo(10);
+    }
+
+    private void persistColdBlock(Long installationId, LocalDate day, double generationSumWatts,
+                                  double consumptionSumWatts, Double generationWh, Double consumptionWh) {
+        EnergyColdBlock block = new EnergyColdBlock();
+        block.setInstallationId(installationId);
+        block.setBlockDate(day);
+        block.setReadingsCount(24);
+        block.setGenerationSumWatts(generationSumWatts);
+        block.setConsumptionSumWatts(consumptionSumWatts);
+        block.setGenerationWh(generationWh);
+        block.setConsumptionWh(consumptionWh);
+        block.setPayload(new byte[] {1});
+        block.setCompactedAt(day.plusDays(90).atStartOfDay());
+        entityManager.persist(block);
+    }
+}
@@ -0,0 +1,131 @@
+package com.solar.core_services.energy_monitoring.repository;
+
+import com.solar.core_services.energy_monitoring.dto.EnergyHistoryPointDTO;
+import com.solar.core_services.energy_monitoring.dto.HistoryResolution;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.user_management.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for EnergyHistoryBucketQuery
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/repository/EnergyHistoryBucketQuery.java
+ */
+@DataJpaTest
+@Import(EnergyHistoryBucketQuery.class)
+public class EnergyHistoryBucketQueryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 4, 15);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EnergyHistoryBucketQuery bucketQuery;
+
+    private SolarInstallation installation;
+
+    @BeforeEach
+    public void setup() {
+        User user = new User();
+        user.setEmail("history@example.com");
+        user.setPassword("password");
+        user.setFullName("History User");
+        user.setPhoneNumber("+12345678901");
+        user.setRole(User.UserRole.CUSTOMER);
+        user.setEnabled(true);
+        entityManager.persist(user);
+
+        installation = new SolarInstallation();
+        installation.setName("History Installation");
+        installation.setCapacity(5.0);
+        installation.setInstalledCapacityKW(5.0);
+        installation.setLocation("Test Location");
+        installation.setInstallationDate(LocalDateTime.now().minusDays(30));
+        installation.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        installation.setUser(user);
+        entityManager.persist(installation);
+
+        // Two readings in the 10:00 5-minute bucket, one at 10:07, one the next day
+        persistReading(DAY.atTime(10, 1, 30), 1000.0, 400.0);
+        persistReading(DAY.atTime(10, 4), 2000.0, 600.0);
+        persistReading(DAY.atTime(10, 7), 3000.0, 800.0);
+        persistReading(DAY.plusDays(1).atTime(9, 0), 500.0, 200.0);
+        entityManager.flush();
+    }
+
+    @Test
+    public void testFindBuckets_FiveMinutes() {
+        // When
+        List<EnergyHistoryPointDTO> points = bucketQuery.findBuckets(installation.getId(),
+                HistoryResolution.FIVE_MINUTES, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+
+        // Then
+        assertThat(points).extracting(EnergyHistoryPointDTO::getBucketStart)
+                .containsExactly(DAY.atTime(10, 0), DAY.atTime(10, 5));
+        EnergyHistoryPointDTO first = points.get(0);
+        assertEquals(2, first.getReadingsCount());
+        assertEquals(1500.0, first.getAvgGenerationWatts(), 1e-9);
+        assertEquals(1000.0, first.getMinGenerationWatts());
+        assertEquals(2000.0, first.getMaxGenerationWatts());
+        assertEquals(500.0, first.getAvgConsumptionWatts(), 1e-9);
+        // 150 s between the two readings at an average of 1500 W; the first reading has no previous one
+        assertEquals(1500.0 * 150 / 3600 / 1000.0, first.getGenerationKWh(), 1e-9);
+        // The interval from 10:04 to 10:07 counts towards the bucket of the reading that ends it
+        assertEquals(2500.0 * 180 / 3600 / 1000.0, points.get(1).getGenerationKWh(), 1e-9);
+        assertEquals(700.0 * 180 / 3600 / 1000.0, points.get(1).getConsumptionKWh(), 1e-9);
+    }
+
+    @Test
+    public void testFindBuckets_DaysWithEndExclusive() {
+        // When
+        List<EnergyHistoryPointDTO> points = bucketQuery.findBuckets(installation.getId(),
+                HistoryResolution.ONE_DAY, DAY.atStartOfDay(), DAY.plusDays(1).atTime(9, 0));
+
+        // Then
+        assertThat(points).hasSize(1);
+        assertEquals(DAY.atStartOfDay(), points.get(0).getBucketStart());
+        assertEquals(3, points.get(0).getReadingsCount());
+        assertEquals(3000.0, points.get(0).getMaxGenerationWatts());
+        assertEquals(400.0, points.get(0).getMinConsumptionWatts());
+        assertEquals(0.1875, points.get(0).getGenerationKWh(), 1e-9);
+    }
+
+    @Test
+    public void testFindBuckets_GapsAddNoEnergy() {
+        // Given a reading after a two hour outage
+        persistReading(DAY.atTime(12, 7), 3000.0, 800.0);
+        entityManager.flush();
+
+        // When
+        List<EnergyHistoryPointDTO> points = bucketQuery.findBuckets(installation.getId(),
+                HistoryResolution.ONE_HOUR, DAY.atTime(10, 5), DAY.atTime(13, 0));
+
+        // Then the 10:07 reading integrates from 10:04, before the range, and the 12:07 one adds nothing
+        assertThat(points).extracting(EnergyHistoryPointDTO::getBucketStart)
+                .containsExactly(DAY.atTime(10, 0), DAY.atTime(12, 0));
+        assertEquals(0.125, points.get(0).getGenerationKWh(), 1e-9);
+        assertEquals(0.0, points.get(1).getGenerationKWh());
+    }
+
+    private void persistReading(LocalDateTime timestamp, double generation, double consumption) {
+        EnergyData reading = new EnergyData();
+        reading.setInstallation(installation);
+        reading.setTimestamp(timestamp);
+        reading.setPowerGenerationWatts(generation);
+        reading.setPowerConsumptionWatts(consumption);
+        entityManager.persist(reading);
+    }
+}
@@ -0,0 +1,224 @@
+package com.solar.core_services.energy_monitoring.scheduler;
+
+import com.solar.core_services.energy_monitoring.model.EnergyColdBlock;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.user_management.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test class for EnergyColdStorageCompactor
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/scheduler/EnergyColdStorageCompactor.java
+ */
+@DataJpaTest
+@Import({EnergyColdStorageCompactor.class, SimpleMeterRegistry.class})
+public class EnergyColdStorageCompactorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 30);
+    private static final LocalDate COLD_DAY = TODAY.minusDays(120);
+    private static final LocalDate HOT_DAY = TODAY.minusDays(10);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EnergyColdStorageCompactor compactor;
+
+    @Autowired
+    private EnergyDataRepository energyDataRepository;
+
+    @Autowired
+    private EnergyColdBlockRepository coldBlockRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SolarInstallation installation;
+
+    @BeforeEach
+    public void setup() {
+        User user = new User();
+        user.setEmail("cold@example.com");
+        user.setPassword("password");
+        user.setFullName("Cold Storage User");
+        user.setPhoneNumber("+12345678901");
+        user.setRole(User.UserRole.CUSTOMER);
+        user.setEnabled(true);
+        entityManager.persist(user);
+
+        installation = new SolarInstallation();
+        installation.setName("Cold Storage Installation");
+        installation.setCapacity(5.0);
+        installation.setInstalledCapacityKW(5.0);
+        installation.setLocation("Test Location");
+        installation.setInstallationDate(LocalDateTime.now().minusYears(1));
+        installation.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        installation.setUser(user);
+        entityManager.persist(installation);
+
+        persistReading(COLD_DAY.atTime(10, 0), 1000.0, 400.0);
+        persistReading(COLD_DAY.atTime(12, 0), 3000.0, 600.0);
+        persistReading(COLD_DAY.atTime(14, 0), 2000.0, 500.0);
+        persistReading(HOT_DAY.atTime(12, 0), 4000.0, 700.0);
+        entityManager.flush();
+    }
+
+    @Test
+    public void testCompact_MovesExpiredDayIntoBlock() {
+        // Given the meters other tests already recorded into
+        double compactedBefore = meterRegistry.counter("energy.cold.readings.compacted").count();
+        long blocksBefore = meterRegistry.summary("energy.cold.block.size").count();
+
+        // When
+        int blocks = compactor.compact(TODAY);
+        flushAndClear();
+
+        // Then
+        assertEquals(1, blocks);
+        assertThat(energyDataRepository.findAll()).extracting(EnergyData::getTimestamp)
+                .containsExactly(HOT_DAY.atTime(12, 0));
+        EnergyColdBlock block = coldBlockRepository.findById(
+                new EnergyColdBlock.Key(installation.getId(), COLD_DAY)).orElseThrow();
+        assertEquals(3, block.getReadingsCount());
+        assertEquals(6000.0, block.getGenerationSumWatts());
+        assertEquals(1500.0, block.getConsumptionSumWatts());
+        assertEquals(3.0, meterRegistry.counter("energy.cold.readings.compacted").count() - compactedBefore);
+        assertEquals(1, meterRegistry.get("energy.cold.block.size").summary().count() - blocksBefore);
+    }
+
+    @Test
+    public void testCompact_IntegratesTheDaysEnergy() {
+        // Given a reading ten minutes after the noon one; the others are two hours apart
+        persistReading(COLD_DAY.atTime(12, 10), 2000.0, 600.0);
+        entityManager.flush();
+
+        // When
+        compactor.compact(TODAY);
+        flushAndClear();
+
+        // Then only the ten minute interval adds energy
+        EnergyColdBlock block = coldBlockRepository.findById(
+                new EnergyColdBlock.Key(installation.getId(), COLD_DAY)).orElseThrow();
+        assertEquals(2500.0 / 6, block.getGenerationWh(), 1e-9);
+        assertEquals(100.0, block.getConsumptionWh(), 1e-9);
+    }
+
+    @Test
+    public void testCompact_MergesLateReadingsIntoExistingBlock() {
+        // Given
+        compactor.compact(TODAY);
+        persistReading(COLD_DAY.atTime(11, 0), 1500.0, 450.0);
+        entityManager.flush();
+
+        // When
+        int blocks = compactor.compact(TODAY);
+        flushAndClear();
+
+        // Then
+        assertEquals(1, blocks);
+        EnergyColdBlock block = coldBlockRepository.findById(
+                new EnergyColdBlock.Key(installation.getId(), COLD_DAY)).orElseThrow();
+        assertEquals(4, block.getReadingsCount());
+        assertThat(energyDataRepository.findByInstallationAndTimestampBetweenOrderByTimestampDesc(
+                installation, COLD_DAY.atStartOfDay(), COLD_DAY.atTime(LocalTime.MAX)))
+                .extracting(EnergyData::getPowerGenerationWatts)
+                .containsExactly(2000.0, 3000.0, 1500.0, 1000.0);
+    }
+
+    @Test
+    public void testCompact_DropsLateReadingsTheBlockAlreadyHolds() {
+        // Given a replay of the noon reading stored again after its day was compacted
+        compactor.compact(TODAY);
+        persistReading(COLD_DAY.atTime(12, 0), 3000.0, 600.0);
+        persistReading(COLD_DAY.atTime(11, 0), 1500.0, 450.0);
+        entityManager.flush();
+
+        // When
+        compactor.compact(TODAY);
+        flushAndClear();
+
+        // Then the replayed copy is deleted without being merged
+        EnergyColdBlock block = coldBlockRepository.findById(
+                new EnergyColdBlock.Key(installation.getId(), COLD_DAY)).orElseThrow();
+        assertEquals(4, block.getReadingsCount());
+        assertEquals(7500.0, block.getGenerationSumWatts());
+        assertThat(energyDataRepository.findByInstallationAndTimestampBetweenOrderByTimestampDesc(
+                installation, COLD_DAY.atStartOfDay(), COLD_DAY.atTime(LocalTime.MAX)))
+                .extracting(EnergyData::getTimestamp)
+                .containsExactly(COLD_DAY.atTime(14, 0), COLD_DAY.atTime(12, 0), COLD_DAY.atTime(11, 0),
+                        COLD_DAY.atTime(10, 0));
+        assertThat(energyDataRepository.findAll()).extracting(EnergyData::getTimestamp)
+                .containsExactly(HOT_DAY.atTime(12, 0));
+    }
+
+    @Test
+    public void testRangeQueries_MergeHotAndColdReadings() {
+        // Given
+        compactor.compact(TODAY);
+        flushAndClear();
+        SolarInstallation reloaded = entityManager.find(SolarInstallation.class, installation.getId());
+
+        // When
+        List<EnergyData> readings = energyDataRepository.findByInstallationAndTimestampBetweenOrderByTimestampDesc(
+                reloaded, COLD_DAY.atTime(11, 0), TODAY.atStartOfDay());
+        Double wholeDays = energyDataRepository.sumPowerGenerationForPeriod(
+                reloaded, COLD_DAY.atStartOfDay(), TODAY.atTime(LocalTime.MAX));
+        Double partialDay = energyDataRepository.sumPowerConsumptionForPeriod(
+                reloaded, COLD_DAY.atTime(11, 0), TODAY.atStartOfDay());
+        Double empty = energyDataRepository.sumPowerGenerationForPeriod(
+                reloaded, COLD_DAY.atTime(15, 0), COLD_DAY.atTime(16, 0));
+
+        // Then
+        assertThat(readings).extracting(EnergyData::getTimestamp).containsExactly(
+                HOT_DAY.atTime(12, 0), COLD_DAY.atTime(14, 0), COLD_DAY.atTime(12, 0));
+        assertEquals(10_000.0, wholeDays);
+        assertEquals(1_800.0, partialDay);
+        assertNull(empty);
+    }
+
+    @Test
+    public void testCompact_LeavesRecentReadingsHot() {
+        // When
+        int blocks = compactor.compact(COLD_DAY.plusDays(90));
+
+        // Then
+        assertEquals(0, blocks);
+        assertThat(coldBlockRepository.findAll()).isEmpty();
+        assertEquals(4, energyDataRepository.count());
+    }
+
+    /**
+     * The compaction joins the test's transaction, so its block is only written when flushed
+     */
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void persistReading(LocalDateTime timestamp, double generation, double consumption) {
+        EnergyData reading = new EnergyData();
+        reading.setInstallation(installation);
+        reading.setTimestamp(timestamp);
+        reading.setPowerGenerationWatts(generation);
+        reading.setPowerConsumptionWatts(consumption);
+        entityManager.persist(reading);
+    }
+}
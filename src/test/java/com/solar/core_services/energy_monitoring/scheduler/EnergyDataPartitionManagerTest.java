@@ -0,0 +1,156 @@
+package com.solar.core_services.energy_monitoring.scheduler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for EnergyDataPartitionManager
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/scheduler/EnergyDataPartitionManager.java
+ */
+@ExtendWith(MockitoExtension.class)
+public class EnergyDataPartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private EnergyDataPartitionManager partitionManager;
+
+    private final LocalDate today = LocalDate.of(2025, 4, 15);
+
+    @Test
+    public void testCreatePartitionSql_CoversOneMonth() {
+        // When
+        String sql = EnergyDataPartitionManager.createPartitionSql(YearMonth.of(2024, 12));
+
+        // Then
+        assertEquals("CREATE TABLE IF NOT EXISTS energy_data_p202412 PARTITION OF energy_data "
+                + "FOR VALUES FROM ('2024-12-01 00:00:00') TO ('2025-01-01 00:00:00')", sql);
+    }
+
+    @Test
+    public void testPartitionMonth_ParsesOnlyMonthlyPartitions() {
+        assertEquals(Optional.of(YearMonth.of(2025, 3)), EnergyDataPartitionManager.partitionMonth("energy_data_p202503"));
+        assertEquals(Optional.empty(), EnergyDataPartitionManager.partitionMonth("energy_data_legacy"));
+        assertEquals(Optional.empty(), EnergyDataPartitionManager.partitionMonth("energy_data_p2025"));
+    }
+
+    @Test
+    public void testIsExpired_KeepsRetentionWindow() {
+        assertTrue(EnergyDataPartitionManager.isExpired(YearMonth.of(2024, 3), today, 12));
+        assertFalse(EnergyDataPartitionManager.isExpired(YearMonth.of(2024, 4), today, 12));
+        assertFalse(EnergyDataPartitionManager.isExpired(YearMonth.of(2025, 4), today, 12));
+    }
+
+    @Test
+    public void testLegacyUpperBound() {
+        assertEquals(YearMonth.of(2025, 4), EnergyDataPartitionManager.legacyUpperBound(null, today));
+        assertEquals(YearMonth.of(2025, 4),
+                EnergyDataPartitionManager.legacyUpperBound(LocalDateTime.of(2025, 1, 20, 10, 0), today));
+        assertEquals(YearMonth.of(2025, 5),
+                EnergyDataPartitionManager.legacyUpperBound(LocalDateTime.of(2025, 4, 15, 9, 0), today));
+    }
+
+    @Test
+    public void testMaintainPartitions_CreatesUpcomingAndDetachesExpired() {
+        // Given
+        ReflectionTestUtils.setField(partitionManager, "premakeMonths", 2);
+        ReflectionTestUtils.setField(partitionManager, "retentionMonths", 12);
+        when(jdbcTemplate.queryForList(contains("pg_get_expr"), eq(String.class), any()))
+                .thenReturn(List.of("FOR VALUES FROM (MINVALUE) TO ('2025-05-01 00:00:00')"));
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), any()))
+                .thenReturn(List.of("energy_data_legacy", "energy_data_p202402", "energy_data_p202405"));
+
+        // When
+        partitionManager.maintainPartitions(today);
+
+        // Then
+        // April is still covered by the legacy partition
+        verify(jdbcTemplate, never()).execute(contains("energy_data_p202504"));
+        verify(jdbcTemplate).execute(EnergyDataPartitionManager.createPartitionSql(YearMonth.of(2025, 5)));
+        verify(jdbcTemplate).execute(EnergyDataPartitionManager.createPartitionSql(YearMonth.of(2025, 6)));
+        verify(jdbcTemplate).execute("ALTER TABLE energy_data DETACH PARTITION energy_data_p202402");
+        verify(jdbcTemplate, never()).execute(contains("DETACH PARTITION energy_data_p202405"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+        verify(jdbcTemplate).execute(EnergyDataPartitionManager.createDefaultPartitionSql());
+    }
+
+    @Test
+    public void testMaintainPartitions_MovesDefaultPartitionRowsIntoNewPartition() {
+        // Given: readings for June arrived before June's partition was created
+        ReflectionTestUtils.setField(partitionManager, "premakeMonths", 2);
+        when(jdbcTemplate.queryForList(contains("pg_get_expr"), eq(String.class), any()))
+                .thenReturn(List.of("FOR VALUES FROM (MINVALUE) TO ('2025-05-01 00:00:00')"));
+        when(jdbcTemplate.queryForObject(contains("FROM energy_data_default"), eq(Boolean.class), any(), any()))
+                .thenReturn(false);
+        when(jdbcTemplate.queryForObject(contains("FROM energy_data_default"), eq(Boolean.class),
+                eq("2025-06-01 00:00:00"), eq("2025-07-01 00:00:00"))).thenReturn(true);
+
+        // When
+        partitionManager.maintainPartitions(today);
+
+        // Then
+        verify(jdbcTemplate).execute(EnergyDataPartitionManager.createPartitionSql(YearMonth.of(2025, 5)));
+        verify(jdbcTemplate).execute("ALTER TABLE energy_data DETACH PARTITION energy_data_default");
+        verify(jdbcTemplate).execute(EnergyDataPartitionManager.createPartitionSql(YearMonth.of(2025, 6)));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO energy_data SELECT * FROM energy_data_default"),
+                eq("2025-06-01 00:00:00"), eq("2025-07-01 00:00:00"));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM energy_data_default"),
+                eq("2025-06-01 00:00:00"), eq("2025-07-01 00:00:00"));
+        verify(jdbcTemplate).execute("ALTER TABLE energy_data ATTACH PARTITION energy_data_default DEFAULT");
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void testEnsurePartitioned_ConvertsPlainTable() {
+        // Given
+        when(jdbcTemplate.queryForList(contains("relkind"), eq(String.class), any())).thenReturn(List.of("r"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(LocalDateTime.class)))
+                .thenReturn(LocalDateTime.of(2025, 4, 14, 12, 0));
+        when(jdbcTemplate.queryForList(contains("pg_indexes"), eq(String.class), any()))
+                .thenReturn(List.of("idx_energy_data_installation_timestamp"));
+
+        // When
+        partitionManager.ensurePartitioned(today);
+
+        // Then
+        verify(jdbcTemplate).execute("ALTER TABLE energy_data RENAME TO energy_data_legacy");
+        verify(jdbcTemplate).execute(contains("PARTITION BY RANGE (\"timestamp\")"));
+        verify(jdbcTemplate).execute("DROP INDEX idx_energy_data_installation_timestamp");
+        verify(jdbcTemplate).execute("ALTER TABLE energy_data ATTACH PARTITION energy_data_legacy "
+                + "FOR VALUES FROM (MINVALUE) TO ('2025-05-01 00:00:00')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS energy_data_default PARTITION OF energy_data DEFAULT");
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void testEnsurePartitioned_SkipsPartitionedTable() {
+        // Given
+        when(jdbcTemplate.queryForList(contains("relkind"), eq(String.class), any())).thenReturn(List.of("p"));
+
+        // When
+        partitionManager.ensurePartitioned(today);
+
+        // Then
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -0,0 +1,126 @@
+package com.solar.core_services.energy_monitoring.scheduler;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.EnergyRollupBucket;
+import com.solar.core_services.energy_monitoring.model.EnergySummary;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyRollupBucketRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergySummaryIdAllocator;
+import com.solar.core_services.energy_monitoring.repository.EnergySummaryRepository;
+import com.solar.core_services.energy_monitoring.service.EnergyRollupEngine;
+import com.solar.user_management.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for EnergyReadingDeduplicator
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/scheduler/EnergyReadingDeduplicator.java
+ */
+@DataJpaTest
+@Import({EnergyRollupEngine.class, EnergySummaryIdAllocator.class, EnergyReadingDeduplicator.class})
+public class EnergyReadingDeduplicatorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 4, 15);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EnergyRollupEngine rollupEngine;
+
+    @Autowired
+    private EnergyReadingDeduplicator deduplicator;
+
+    @Autowired
+    private EnergyRollupBucketRepository bucketRepository;
+
+    @Autowired
+    private EnergySummaryRepository summaryRepository;
+
+    private SolarInstallation installation;
+
+    @BeforeEach
+    public void setup() {
+        // energy_data as it was before (installation, timestamp) was unique
+        jdbcTemplate.execute("ALTER TABLE energy_data DROP CONSTRAINT IF EXISTS idx_energy_data_installation_timestamp");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_energy_data_installation_timestamp");
+        ReflectionTestUtils.setField(deduplicator, "batchSize", 2);
+
+        User user = new User();
+        user.setEmail("dedupe@example.com");
+        user.setPassword("password");
+        user.setFullName("Dedupe User");
+        user.setPhoneNumber("+12345678901");
+        user.setRole(User.UserRole.CUSTOMER);
+        user.setEnabled(true);
+        entityManager.persist(user);
+
+        installation = new SolarInstallation();
+        installation.setName("Dedupe Installation");
+        installation.setCapacity(5.0);
+        installation.setInstalledCapacityKW(5.0);
+        installation.setLocation("Test Location");
+        installation.setInstallationDate(LocalDateTime.now().minusDays(30));
+        installation.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        installation.setUser(user);
+        entityManager.persist(installation);
+    }
+
+    @Test
+    public void testDeduplicate_DeletesCopiesAndCorrectsBucketsAndSummaries() {
+        // Given four readings, three of them stored again by gateway retries, all counted by buckets and the summary
+        persistReading(DAY.atTime(10, 0), 1000.0, 400.0, 2);
+        persistReading(DAY.atTime(10, 5), 2000.0, 600.0, 2);
+        persistReading(DAY.atTime(12, 0), 3000.0, 800.0, 1);
+        persistReading(DAY.atTime(12, 5), 3000.0, 800.0, 2);
+        entityManager.flush();
+        rollupEngine.rebuildBuckets(DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+        rollupEngine.deriveSummaries(EnergySummary.SummaryPeriod.DAILY, DAY, DAY,
+                installation.getId(), installation.getId());
+
+        // When
+        int deleted = deduplicator.deduplicate();
+        entityManager.clear();
+
+        // Then the first copy of each reading is kept
+        assertEquals(3, deleted);
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM energy_data", Integer.class));
+        EnergyRollupBucket morning = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.HOUR, DAY.atTime(10, 0))).orElseThrow();
+        assertEquals(2, morning.getReadingsCount());
+        assertEquals(3000.0, morning.getGenerationSumWatts());
+        EnergySummary summary = summaryRepository.findByInstallationAndPeriodAndDate(
+                installation, EnergySummary.SummaryPeriod.DAILY, DAY).orElseThrow();
+        assertEquals(4, summary.getReadingsCount());
+        // 10:00 to 10:05 and 12:00 to 12:05
+        assertEquals((1500.0 + 3000.0) / 12 / 1000, summary.getTotalGenerationKWh(), 1e-9);
+
+        // Running it again finds nothing
+        assertEquals(0, deduplicator.deduplicate());
+    }
+
+    private void persistReading(LocalDateTime timestamp, double generation, double consumption, int copies) {
+        for (int i = 0; i < copies; i++) {
+            EnergyData reading = new EnergyData();
+            reading.setInstallation(installation);
+            reading.setTimestamp(timestamp);
+            reading.setPowerGenerationWatts(generation);
+            reading.setPowerConsumptionWatts(consumption);
+            entityManager.persist(reading);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.solar.core_services.energy_monitoring.scheduler;
+
+import com.solar.core_services.energy_monitoring.model.EnergySummary;
+import com.solar.core_services.energy_monitoring.model.EnergySummaryJobCheckpoint;
+import com.solar.core_services.energy_monitoring.repository.EnergySummaryJobCheckpointRepository;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.EnergyRollupEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for EnergySummaryJob
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/scheduler/EnergySummaryJob.java
+ */
+@ExtendWith(MockitoExtension.class)
+public class EnergySummaryJobTest {
+
+    // A Wednesday in the middle of the month: only daily summaries are due
+    private static final LocalDate RUN_DATE = LocalDate.of(2025, 4, 16);
+
+    @Mock
+    private SolarInstallationRepository installationRepository;
+
+    @Mock
+    private EnergySummaryJobCheckpointRepository checkpointRepository;
+
+    @Mock
+    private EnergyRollupEngine rollupEngine;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EnergySummaryJob summaryJob;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        summaryJob = new EnergySummaryJob(installationRepository, checkpointRepository, rollupEngine,
+                transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(summaryJob, "chunkSize", 2);
+        ReflectionTestUtils.setField(summaryJob, "parallelism", 2);
+        ReflectionTestUtils.setField(summaryJob, "chunkRetries", 2);
+        ReflectionTestUtils.setField(summaryJob, "catchUpDays", 2);
+    }
+
+    @Test
+    public void testDuePeriods_AddsLongerPeriodsOnTheirBoundaries() {
+        assertThat(EnergySummaryJob.duePeriods(RUN_DATE)).containsExactly(
+                new EnergySummaryJob.PeriodRange(EnergySummary.SummaryPeriod.DAILY, RUN_DATE.minusDays(1), RUN_DATE.minusDays(1)));
+
+        // 2024-01-01 was a Monday, so every period is due
+        LocalDate newYear = LocalDate.of(2024, 1, 1);
+        LocalDate lastDay = LocalDate.of(2023, 12, 31);
+        assertThat(EnergySummaryJob.duePeriods(newYear)).containsExactly(
+                new EnergySummaryJob.PeriodRange(EnergySummary.SummaryPeriod.DAILY, lastDay, lastDay),
+                new EnergySummaryJob.PeriodRange(EnergySummary.SummaryPeriod.WEEKLY, LocalDate.of(2023, 12, 25), lastDay),
+                new EnergySummaryJob.PeriodRange(EnergySummary.SummaryPeriod.MONTHLY, LocalDate.of(2023, 12, 1), lastDay),
+                new EnergySummaryJob.PeriodRange(EnergySummary.SummaryPeriod.YEARLY, LocalDate.of(2023, 1, 1), lastDay));
+    }
+
+    @Test
+    public void testChunk_SplitsIdsInOrder() {
+        assertEquals(List.of(List.of(1L, 4L), List.of(7L, 9L), List.of(12L)),
+                EnergySummaryJob.chunk(List.of(1L, 4L, 7L, 9L, 12L), 2));
+        assertEquals(List.of(), EnergySummaryJob.chunk(List.of(), 2));
+    }
+
+    @Test
+    public void testRun_SkipsCheckpointedChunksAndCheckpointsTheRest() {
+        // Given the first chunk committed before a restart
+        when(installationRepository.findAllIds()).thenReturn(List.of(1L, 4L, 7L, 9L, 12L));
+        EnergySummaryJobCheckpoint done = new EnergySummaryJobCheckpoint();
+        done.setChunkId(EnergySummaryJob.chunkId(RUN_DATE, 1L));
+        when(checkpointRepository.findByRunDate(RUN_DATE)).thenReturn(List.of(done));
+        when(rollupEngine.deriveSummaries(eq(EnergySummary.SummaryPeriod.DAILY), any(), any(), anyLong(), anyLong()))
+                .thenReturn(2);
+
+        // When
+        int written = summaryJob.run(RUN_DATE);
+
+        // Then only the remaining chunks are derived, each over its own ID range
+        assertEquals(4, written);
+        verify(rollupEngine, never()).deriveSummaries(any(), any(), any(), eq(1L), anyLong());
+        verify(rollupEngine).deriveSummaries(EnergySummary.SummaryPeriod.DAILY, RUN_DATE.minusDays(1), RUN_DATE.minusDays(1), 7L, 9L);
+        verify(rollupEngine).deriveSummaries(EnergySummary.SummaryPeriod.DAILY, RUN_DATE.minusDays(1), RUN_DATE.minusDays(1), 12L, 12L);
+
+        ArgumentCaptor<EnergySummaryJobCheckpoint> saved = ArgumentCaptor.forClass(EnergySummaryJobCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues()).extracting(EnergySummaryJobCheckpoint::getChunkId)
+                .containsExactlyInAnyOrder("2025-04-16:7", "2025-04-16:12");
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(2, meterRegistry.get("energy.summary.chunk.duration").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    public void testRun_FailedChunkIsNotCheckpointed() {
+        // Given
+        when(installationRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(checkpointRepository.findByRunDate(RUN_DATE)).thenReturn(List.of());
+        when(rollupEngine.deriveSummaries(any(), any(), any(), eq(1L), anyLong())).thenReturn(2);
+        when(rollupEngine.deriveSummaries(any(), any(), any(), eq(3L), anyLong()))
+                .thenThrow(new IllegalStateException("database unavailable"));
+
+        // When
+        int written = summaryJob.run(RUN_DATE);
+
+        // Then the other chunk still commits, and the failed one is rolled back on every retry for the next run
+        assertEquals(2, written);
+        verify(checkpointRepository, times(1)).save(any());
+        verify(rollupEngine, times(3)).deriveSummaries(any(), any(), any(), eq(3L), anyLong());
+        verify(transactionManager, times(3)).rollback(any());
+        assertEquals(3, meterRegistry.get("energy.summary.chunk.duration").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    public void testRun_RetriesFailedChunkWithinTheRun() {
+        // Given a chunk that fails once
+        when(installationRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(checkpointRepository.findByRunDate(RUN_DATE)).thenReturn(List.of());
+        when(rollupEngine.deriveSummaries(any(), any(), any(), eq(1L), anyLong())).thenReturn(2);
+        when(rollupEngine.deriveSummaries(any(), any(), any(), eq(3L), anyLong()))
+                .thenThrow(new IllegalStateException("deadlock detected"))
+                .thenReturn(1);
+
+        // When
+        int written = summaryJob.run(RUN_DATE);
+
+        // Then only the failed chunk is derived again, and both end up checkpointed
+        assertEquals(3, written);
+        verify(rollupEngine, times(1)).deriveSummaries(any(), any(), any(), eq(1L), anyLong());
+        verify(rollupEngine, times(2)).deriveSummaries(any(), any(), any(), eq(3L), anyLong());
+        ArgumentCaptor<EnergySummaryJobCheckpoint> saved = ArgumentCaptor.forClass(EnergySummaryJobCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues()).extracting(EnergySummaryJobCheckpoint::getChunkId)
+                .containsExactlyInAnyOrder("2025-04-16:1", "2025-04-16:3");
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    public void testRunWithCatchUp_FinishesEarlierRunDatesMissingCheckpoints() {
+        // Given the run two days ago completed and yesterday's never ran
+        LocalDate twoDaysAgo = RUN_DATE.minusDays(2);
+        LocalDate yesterday = RUN_DATE.minusDays(1);
+        when(installationRepository.findAllIds()).thenReturn(List.of(1L));
+        EnergySummaryJobCheckpoint done = new EnergySummaryJobCheckpoint();
+        done.setChunkId(EnergySummaryJob.chunkId(twoDaysAgo, 1L));
+        when(checkpointRepository.findByRunDate(twoDaysAgo)).thenReturn(List.of(done));
+        when(checkpointRepository.findByRunDate(yesterday)).thenReturn(List.of());
+        when(checkpointRepository.findByRunDate(RUN_DATE)).thenReturn(List.of());
+        when(rollupEngine.deriveSummaries(eq(EnergySummary.SummaryPeriod.DAILY), any(), any(), anyLong(), anyLong()))
+                .thenReturn(1);
+
+        // When
+        int written = summaryJob.runWithCatchUp(RUN_DATE);
+
+        // Then yesterday's run derives the day before it, and today's run follows
+        assertEquals(2, written);
+        verify(rollupEngine, never()).deriveSummaries(any(), eq(twoDaysAgo.minusDays(1)), any(), anyLong(), anyLong());
+        verify(rollupEngine).deriveSummaries(EnergySummary.SummaryPeriod.DAILY, twoDaysAgo, twoDaysAgo, 1L, 1L);
+        verify(rollupEngine).deriveSummaries(EnergySummary.SummaryPeriod.DAILY, yesterday, yesterday, 1L, 1L);
+        ArgumentCaptor<EnergySummaryJobCheckpoint> saved = ArgumentCaptor.forClass(EnergySummaryJobCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues()).extracting(EnergySummaryJobCheckpoint::getChunkId)
+                .containsExactly("2025-04-15:1", "2025-04-16:1");
+    }
+
+    @Test
+    public void testRun_NothingPendingDoesNotTouchRollups() {
+        // Given
+        when(installationRepository.findAllIds()).thenReturn(List.of(1L));
+        EnergySummaryJobCheckpoint done = new EnergySummaryJobCheckpoint();
+        done.setChunkId(EnergySummaryJob.chunkId(RUN_DATE, 1L));
+        when(checkpointRepository.findByRunDate(RUN_DATE)).thenReturn(List.of(done));
+
+        // When
+        assertEquals(0, summaryJob.run(RUN_DATE));
+
+        // Then
+        verifyNoInteractions(rollupEngine);
+    }
+}
@@ -0,0 +1,133 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.dto.DashboardResponse;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.user_management.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class for CustomerDashboardCache
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/CustomerDashboardCache.java
+ */
+public class CustomerDashboardCacheTest {
+
+    private CustomerDashboardCache cache;
+    private DashboardResponse dashboard;
+
+    @BeforeEach
+    public void setup() {
+        cache = new CustomerDashboardCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlMillis", 60000L);
+        dashboard = DashboardResponse.builder().installationId(1L).build();
+    }
+
+    @Test
+    public void testGet_ServesStoredDashboardUntilAReadingCommits() {
+        // Given
+        CustomerDashboardCache.Entry reservation = cache.reserve(7L, List.of(1L, 2L));
+        cache.put(7L, reservation, dashboard);
+
+        // When
+        DashboardResponse beforeReading = cache.get(7L).orElseThrow();
+        cache.invalidateAfterCommit(List.of(reading(2L)));
+
+        // Then
+        assertSame(dashboard, beforeReading);
+        assertTrue(cache.get(7L).isEmpty());
+    }
+
+    @Test
+    public void testPut_SkippedWhenAReadingCommittedWhileComputing() {
+        // Given
+        CustomerDashboardCache.Entry reservation = cache.reserve(7L, List.of(1L));
+
+        // When
+        cache.invalidate(1L);
+        cache.put(7L, reservation, dashboard);
+
+        // Then
+        assertTrue(cache.get(7L).isEmpty());
+    }
+
+    @Test
+    public void testInvalidate_OtherCustomersKeepTheirDashboards() {
+        // Given
+        cache.put(7L, cache.reserve(7L, List.of(1L)), dashboard);
+        DashboardResponse other = DashboardResponse.builder().installationId(3L).build();
+        cache.put(8L, cache.reserve(8L, List.of(3L)), other);
+
+        // When
+        cache.invalidate(1L);
+
+        // Then
+        assertTrue(cache.get(7L).isEmpty());
+        assertSame(other, cache.get(8L).orElseThrow());
+    }
+
+    @Test
+    public void testInvalidate_InstallationMovedToAnotherCustomer() {
+        // Given
+        cache.put(7L, cache.reserve(7L, List.of(1L)), dashboard);
+        DashboardResponse other = DashboardResponse.builder().installationId(3L).build();
+        cache.put(8L, cache.reserve(8L, List.of(3L)), other);
+        User newOwner = new User();
+        newOwner.setId(8L);
+        SolarInstallation installation = new SolarInstallation();
+        installation.setId(1L);
+        installation.setUser(newOwner);
+
+        // When
+        cache.invalidate(installation);
+
+        // Then both the previous and the new owner's dashboards are dropped
+        assertTrue(cache.get(7L).isEmpty());
+        assertTrue(cache.get(8L).isEmpty());
+    }
+
+    @Test
+    public void testGet_ExpiresAfterTimeToLive() throws InterruptedException {
+        // Given
+        ReflectionTestUtils.setField(cache, "ttlMillis", 1L);
+        cache.put(7L, cache.reserve(7L, List.of(1L)), dashboard);
+
+        // When
+        Thread.sleep(5);
+
+        // Then
+        assertTrue(cache.get(7L).isEmpty());
+    }
+
+    @Test
+    public void testReserve_DisabledCacheStoresNothing() {
+        // Given
+        ReflectionTestUtils.setField(cache, "enabled", false);
+
+        // When
+        CustomerDashboardCache.Entry reservation = cache.reserve(7L, List.of(1L));
+        cache.put(7L, reservation, dashboard);
+
+        // Then
+        assertNull(reservation);
+        assertTrue(cache.get(7L).isEmpty());
+    }
+
+    private EnergyData reading(Long installationId) {
+        SolarInstallation installation = new SolarInstallation();
+        installation.setId(installationId);
+        EnergyData reading = new EnergyData();
+        reading.setInstallation(installation);
+        reading.setTimestamp(LocalDateTime.now());
+        return reading;
+    }
+}
@@ -0,0 +1,217 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.EnergySummary;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyPeriodTotals;
+import com.solar.core_services.energy_monitoring.repository.EnergyRunningTotals;
+import com.solar.core_services.energy_monitoring.repository.EnergySummaryRepository;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for EnergyAggregateStore
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/EnergyAggregateStore.java
+ */
+@ExtendWith(MockitoExtension.class)
+public class EnergyAggregateStoreTest {
+
+    // A Wednesday: the week started on Monday 2026-10-12
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 14);
+
+    @Mock
+    private EnergyDataRepository energyDataRepository;
+
+    @Mock
+    private EnergySummaryRepository summaryRepository;
+
+    @Mock
+    private SolarInstallationRepository installationRepository;
+
+    private EnergyAggregateStore store;
+    private SolarInstallation installation;
+
+    @BeforeEach
+    public void setup() {
+        store = new EnergyAggregateStore(energyDataRepository, summaryRepository, installationRepository);
+        ReflectionTestUtils.setField(store, "enabled", true);
+
+        installation = new SolarInstallation();
+        installation.setId(1L);
+        installation.setName("Test Installation");
+    }
+
+    @Test
+    public void testRebuild_CombinesSummariesAndRawReadings() {
+        // Given a summarized day this week and one last month, 1 kWh each
+        EnergySummary monday = dailySummary(TODAY.minusDays(1));
+        EnergySummary lastMonth = dailySummary(LocalDate.of(2026, 9, 30));
+        when(summaryRepository.findByInstallationAndPeriodAndDateBetweenOrderByDateDesc(
+                eq(installation), eq(EnergySummary.SummaryPeriod.DAILY), any(), eq(TODAY.minusDays(1))))
+                .thenReturn(Arrays.asList(monday, lastMonth));
+
+        // Raw readings are only aggregated after the last summarized day
+        when(energyDataRepository.sumRunningTotals(eq(installation), any(), any(), any(), any(),
+                eq(TODAY.atStartOfDay()), any()))
+                .thenReturn(new EnergyRunningTotals(
+                        new EnergyPeriodTotals(500.0, 300.0, 500.0, 300.0, 500.0, 300.0, 500.0, 300.0), 700.0, 2));
+
+        EnergyData reading = reading(TODAY.atTime(10, 0), 500.0, 300.0);
+        when(energyDataRepository.findFirstByInstallationOrderByTimestampDescIdDesc(installation))
+                .thenReturn(Optional.of(reading));
+
+        // When
+        store.rebuild(installation, TODAY);
+        EnergyAggregateStore.Snapshot snapshot = store.read(1L, TODAY).orElseThrow();
+
+        // Then
+        assertEquals(500.0, snapshot.currentGenerationWatts());
+        assertEquals(500.0, snapshot.todayGeneration());
+        assertEquals(1500.0, snapshot.weekToDateGeneration());
+        assertEquals(1500.0, snapshot.monthToDateGeneration());
+        assertEquals(2500.0, snapshot.yearToDateGeneration());
+        assertEquals(1100.0, snapshot.weekToDateConsumption());
+        assertEquals(700.0, snapshot.todayPeakGenerationWatts());
+        assertEquals(2, snapshot.todayReadingCount());
+    }
+
+    @Test
+    public void testRebuild_AddsRawReadingsOfDaysWithoutASummary() {
+        // Given New Year's Day and yesterday summarized, but none of the days in between
+        EnergySummary yesterday = dailySummary(TODAY.minusDays(1));
+        EnergySummary newYear = dailySummary(LocalDate.of(2026, 1, 1));
+        when(summaryRepository.findByInstallationAndPeriodAndDateBetweenOrderByDateDesc(
+                eq(installation), eq(EnergySummary.SummaryPeriod.DAILY), any(), eq(TODAY.minusDays(1))))
+                .thenReturn(Arrays.asList(yesterday, newYear));
+
+        // The days in between are aggregated from their raw readings
+        when(energyDataRepository.sumDashboardPeriods(eq(installation), any(), any(), any(), any(),
+                eq(LocalDate.of(2026, 1, 2).atStartOfDay()), eq(LocalDateTime.of(TODAY.minusDays(2), LocalTime.MAX))))
+                .thenReturn(new EnergyPeriodTotals(0.0, 0.0, 400.0, 200.0, 3000.0, 2000.0, 8000.0, 5000.0));
+
+        // When
+        store.rebuild(installation, TODAY);
+        EnergyAggregateStore.Snapshot snapshot = store.read(1L, TODAY).orElseThrow();
+
+        // Then they count alongside the summaries
+        assertEquals(0.0, snapshot.todayGeneration());
+        assertEquals(1400.0, snapshot.weekToDateGeneration());
+        assertEquals(4000.0, snapshot.monthToDateGeneration());
+        assertEquals(10000.0, snapshot.yearToDateGeneration());
+        assertEquals(2800.0, snapshot.monthToDateConsumption(), 1e-9);
+    }
+
+    @Test
+    public void testRecord_RollsOverAtPeriodBoundaries() {
+        // Given an installation with no history
+        store.rebuild(installation, TODAY);
+
+        // When
+        store.record(1L, TODAY.atTime(12, 0), 1000.0, 400.0, TODAY);
+        store.record(1L, TODAY.atTime(12, 10), 800.0, 200.0, TODAY);
+
+        // Then the newest reading is the current one and the ten minutes between them count towards every period
+        EnergyAggregateStore.Snapshot today = store.read(1L, TODAY).orElseThrow();
+        assertEquals(800.0, today.currentGenerationWatts());
+        assertEquals(150.0, today.todayGeneration(), 1e-9);
+        assertEquals(50.0, today.todayConsumption(), 1e-9);
+        assertEquals(1000.0, today.todayPeakGenerationWatts());
+        assertEquals(2, today.todayReadingCount());
+
+        // The next day only the day resets
+        EnergyAggregateStore.Snapshot tomorrow = store.read(1L, TODAY.plusDays(1)).orElseThrow();
+        assertEquals(0.0, tomorrow.todayGeneration());
+        assertEquals(0, tomorrow.todayReadingCount());
+        assertEquals(150.0, tomorrow.weekToDateGeneration(), 1e-9);
+
+        // The next Monday the week resets too, the month keeps going
+        EnergyAggregateStore.Snapshot nextWeek = store.read(1L, LocalDate.of(2026, 10, 19)).orElseThrow();
+        assertEquals(0.0, nextWeek.weekToDateGeneration());
+        assertEquals(150.0, nextWeek.monthToDateGeneration(), 1e-9);
+        assertEquals(150.0, nextWeek.yearToDateGeneration(), 1e-9);
+    }
+
+    @Test
+    public void testRecord_GapsAndLateReadingsAddNoEnergy() {
+        // Given
+        store.rebuild(installation, TODAY);
+        store.record(1L, TODAY.atTime(9, 0), 100.0, 50.0, TODAY);
+
+        // When a reading follows a one hour outage, and a reading from last week arrives late
+        store.record(1L, TODAY.atTime(10, 0), 300.0, 50.0, TODAY);
+        store.record(1L, LocalDate.of(2026, 10, 9).atTime(9, 0), 700.0, 70.0, TODAY);
+
+        // Then
+        EnergyAggregateStore.Snapshot snapshot = store.read(1L, TODAY).orElseThrow();
+        assertEquals(0.0, snapshot.todayGeneration());
+        assertEquals(0.0, snapshot.monthToDateGeneration());
+        assertEquals(300.0, snapshot.currentGenerationWatts());
+        assertEquals(2, snapshot.todayReadingCount());
+    }
+
+    @Test
+    public void testRecord_IntegratesFromTheLoadedNewestReading() {
+        // Given a stored reading from five minutes ago
+        EnergyData stored = reading(TODAY.atTime(10, 0), 1200.0, 600.0);
+        when(energyDataRepository.findFirstByInstallationOrderByTimestampDescIdDesc(installation))
+                .thenReturn(Optional.of(stored));
+        store.rebuild(installation, TODAY);
+
+        // When
+        store.record(1L, TODAY.atTime(10, 5), 2400.0, 600.0, TODAY);
+
+        // Then
+        EnergyAggregateStore.Snapshot snapshot = store.read(1L, TODAY).orElseThrow();
+        assertEquals(150.0, snapshot.todayGeneration(), 1e-9);
+        assertEquals(50.0, snapshot.weekToDateConsumption(), 1e-9);
+    }
+
+    @Test
+    public void testRecord_IgnoresInstallationsNotLoaded() {
+        // When
+        store.record(2L, TODAY.atTime(9, 0), 100.0, 50.0, TODAY);
+
+        // Then
+        assertTrue(store.read(2L, TODAY).isEmpty());
+    }
+
+    private EnergySummary dailySummary(LocalDate date) {
+        EnergySummary summary = new EnergySummary();
+        summary.setInstallation(installation);
+        summary.setDate(date);
+        summary.setPeriod(EnergySummary.SummaryPeriod.DAILY);
+        summary.setTotalGenerationKWh(1.0);
+        summary.setTotalConsumptionKWh(0.8);
+        summary.setReadingsCount(24);
+        summary.setPeriodStart(date);
+        summary.setPeriodEnd(date);
+        return summary;
+    }
+
+    private EnergyData reading(LocalDateTime timestamp, double generation, double consumption) {
+        EnergyData reading = new EnergyData();
+        reading.setInstallation(installation);
+        reading.setTimestamp(timestamp);
+        reading.setPowerGenerationWatts(generation);
+        reading.setPowerConsumptionWatts(consumption);
+        return reading;
+    }
+}
@@ -0,0 +1,142 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.exception.ResourceNotFoundException;
+import com.solar.user_management.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test class for EnergyDataExporter
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/EnergyDataExporter.java
+ */
+@DataJpaTest(properties = "monitoring.export.fetch-size=2")
+@Import(EnergyDataExporter.class)
+public class EnergyDataExporterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 4, 15);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EnergyDataExporter exporter;
+
+    private SolarInstallation installation;
+    private EnergyData first;
+    private EnergyData second;
+    private EnergyData third;
+
+    @BeforeEach
+    public void setup() {
+        User user = new User();
+        user.setEmail("export@example.com");
+        user.setPassword("password");
+        user.setFullName("Export User");
+        user.setPhoneNumber("+12345678901");
+        user.setRole(User.UserRole.CUSTOMER);
+        user.setEnabled(true);
+        entityManager.persist(user);
+
+        installation = new SolarInstallation();
+        installation.setName("Export Installation");
+        installation.setCapacity(5.0);
+        installation.setInstalledCapacityKW(5.0);
+        installation.setLocation("Test Location");
+        installation.setInstallationDate(LocalDateTime.now().minusDays(30));
+        installation.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        installation.setUser(user);
+        entityManager.persist(installation);
+
+        // Persisted out of order; the export is sorted by timestamp
+        third = persistReading(DAY.atTime(12, 0), 3000.0);
+        first = persistReading(DAY.atTime(10, 0), 1000.0);
+        second = persistReading(DAY.atTime(11, 0), 2000.5);
+        persistReading(DAY.plusDays(1).atTime(10, 0), 4000.0);
+        entityManager.flush();
+    }
+
+    @Test
+    public void testWriteCsv_StreamsRowsInTimestampOrder() throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = exporter.writeCsv(installation.getId(), DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(),
+                null, null, out);
+
+        // Then
+        assertEquals(3, rows);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(EnergyDataExporter.CSV_HEADER, lines[0]);
+        assertThat(lines).hasSize(4);
+        assertEquals(first.getId() + "," + installation.getId() + ",2025-04-15T10:00,1000.0,500.0,0.0,0.0,true", lines[1]);
+        assertThat(lines[2]).startsWith(second.getId() + ",").contains(",2000.5,");
+        assertThat(lines[3]).startsWith(third.getId() + ",");
+    }
+
+    @Test
+    public void testWriteCsv_ResumesAfterLastRow() throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = exporter.writeCsv(installation.getId(), DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(),
+                first.getTimestamp(), first.getId(), out);
+
+        // Then: no header, only the rows after the cursor
+        assertEquals(2, rows);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith(second.getId() + ",");
+    }
+
+    @Test
+    public void testCsv_Gzip() throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        exporter.csv(installation.getId(), DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(), null, null, true)
+                .writeTo(out);
+
+        // Then
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(csv).startsWith(EnergyDataExporter.CSV_HEADER).contains(",3000.0,");
+        }
+    }
+
+    @Test
+    public void testCsv_InstallationNotFound() {
+        // When/Then
+        assertThrows(ResourceNotFoundException.class, () -> exporter.csv(-1L, DAY.atStartOfDay(),
+                DAY.plusDays(1).atStartOfDay(), null, null, false));
+    }
+
+    private EnergyData persistReading(LocalDateTime timestamp, double generation) {
+        EnergyData reading = new EnergyData();
+        reading.setInstallation(installation);
+        reading.setTimestamp(timestamp);
+        reading.setPowerGenerationWatts(generation);
+        reading.setPowerConsumptionWatts(500.0);
+        return entityManager.persist(reading);
+    }
+}
@@ -1,12 +1,34 @@
 package com.solar.core_services.energy_monitoring.service;
 
+import com.solar.core_services.energy_monitoring.dto.BulkImportResultDTO;
+import com.solar.core_services.energy_monitoring.dto.DashboardResponse;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
 import com.solar.core_services.energy_monitoring.dto.EnergyDataRequest;
+import com.solar.core_services.energy_monitoring.dto.EnergyHistoryPointDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyHistorySeriesDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingBatchDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingPageDTO;
+import com.solar.core_services.energy_monitoring.dto.HistoryResolution;
+import com.solar.core_services.energy_monitoring.model.EnergyColdBlock;
 import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.EnergyImportCheckpoint;
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyBulkLoader;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockCodec;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdReadingFilter;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataIdAllocator;
 import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyHistoryBucketQuery;
+import com.solar.core_services.energy_monitoring.repository.EnergyImportCheckpointRepository;
+import com.solar.core_services.energy_monitoring.repository.InstallationPeriodTotals;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
 import com.solar.core_services.energy_monitoring.service.impl.EnergyDataServiceImpl;
+import com.solar.exception.InvalidCursorException;
+import com.solar.exception.InvalidHistoryQueryException;
+import com.solar.exception.InvalidImportBatchException;
+import com.solar.exception.ResourceNotFoundException;
 import com.solar.user_management.model.User;
 import com.solar.user_management.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,16 +37,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -45,7 +75,43 @@ public class EnergyDataServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private WebSocketService webSocketService;
+    private EnergyUpdatePublisher updatePublisher;
+
+    @Mock
+    private EnergyBulkLoader bulkLoader;
+
+    @Mock
+    private EnergyDataIdAllocator idAllocator;
+
+    @Mock
+    private EnergyImportCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EnergyAggregateStore aggregateStore;
+
+    @Mock
+    private EnergyRollupEngine rollupEngine;
+
+    @Mock
+    private EnergyHistoryBucketQuery historyBucketQuery;
+
+    @Mock
+    private EnergyRecentReadingStore recentReadingStore;
+
+    @Mock
+    private TopProducerLeaderboard topProducerLeaderboard;
+
+    @Mock
+    private CustomerDashboardCache customerDashboardCache;
+
+    @Mock
+    private SolarInstallationCache installationCache;
+
+    @Mock
+    private EnergyColdBlockRepository coldBlockRepository;
 
     @InjectMocks
     private EnergyDataServiceImpl dataService;
@@ -59,6 +125,8 @@ public class EnergyDataServiceTest {
 
     @BeforeEach
     public void setup() {
+        ReflectionTestUtils.setField(dataService, "coldReadingFilter", new EnergyColdReadingFilter(coldBlockRepository));
+
         // Create user
         user = new User();
         user.setId(1L);
@@ -113,16 +181,14 @@ public class EnergyDataServiceTest {
     @Test
     public void testProcessEnergyData_Success() {
         // Given
-        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
-        when(dataRepository.save(any(EnergyData.class))).thenAnswer(invocation -> {
+        when(installationCache.reference(1L)).thenReturn(installation);
+        when(installationCache.require(1L)).thenReturn(SolarInstallationCache.Metadata.of(installation));
+        when(dataRepository.saveAndFlush(any(EnergyData.class))).thenAnswer(invocation -> {
             EnergyData savedData = invocation.getArgument(0);
             savedData.setId(3L);
             return savedData;
         });
         
-        // Mock the WebSocketService to do nothing when called
-        lenient().doNothing().when(webSocketService).sendEnergyDataUpdate(anyLong(), any(EnergyDataDTO.class));
-
         // When
         EnergyDataDTO result = dataService.processEnergyData(energyDataRequest);
 
@@ -133,16 +199,146 @@ public class EnergyDataServiceTest {
         assertEquals(3000.0, result.getPowerGenerationWatts());
         assertEquals(2000.0, result.getPowerConsumptionWatts());
         assertEquals(15.0, result.getDailyYieldKWh());
+        assertEquals(1000.0, result.getNetPowerWatts());
+        assertEquals(0.6, result.getUtilizationRate(), 0.0001);
+        assertEquals(150.0, result.getEfficiencyPercentage(), 0.0001);
+        assertEquals(85.0, result.getBandedEfficiencyPercentage(), 0.0001);
+
+        verify(installationCache, times(1)).reference(1L);
+        verify(dataRepository, times(1)).saveAndFlush(any(EnergyData.class));
+        verify(updatePublisher, times(1)).publish(argThat(dto -> dto.getInstallationId() == 1L));
+        verify(customerDashboardCache, times(1)).invalidateAfterCommit(anyList());
+    }
+
+    @Test
+    public void testProcessEnergyData_ReturnsReadingAlreadyStored() {
+        // Given a retry of a reading that is already stored
+        when(installationCache.reference(1L)).thenReturn(installation);
+        energyDataRequest.setTimestamp(energyData1.getTimestamp());
+        when(dataRepository.findByInstallationAndTimestamp(installation, energyData1.getTimestamp()))
+                .thenReturn(Optional.of(energyData1));
 
-        verify(installationRepository, times(1)).findById(1L);
-        verify(dataRepository, times(1)).save(any(EnergyData.class));
-        verify(webSocketService, times(1)).sendEnergyDataUpdate(eq(1L), any(EnergyDataDTO.class));
+        // When
+        EnergyDataDTO result = dataService.processEnergyData(energyDataRequest);
+
+        // Then
+        assertEquals(1L, result.getId());
+        assertEquals(2000.0, result.getPowerGenerationWatts());
+        verify(dataRepository, never()).saveAndFlush(any(EnergyData.class));
+        verify(updatePublisher, never()).publish(any(EnergyDataDTO.class));
+        verify(rollupEngine, never()).recordAfterCommit(anyList());
+    }
+
+    @Test
+    public void testProcessEnergyData_ReturnsReadingStoredConcurrently() {
+        // Given a concurrent request that stores the same reading after the lookup
+        when(installationCache.reference(1L)).thenReturn(installation);
+        when(installationCache.require(1L)).thenReturn(SolarInstallationCache.Metadata.of(installation));
+        energyDataRequest.setTimestamp(energyData1.getTimestamp());
+        when(dataRepository.findByInstallationAndTimestamp(installation, energyData1.getTimestamp()))
+                .thenReturn(Optional.empty(), Optional.of(energyData1));
+        when(dataRepository.saveAndFlush(any(EnergyData.class)))
+                .thenThrow(new DataIntegrityViolationException("idx_energy_data_installation_timestamp"));
+
+        // When
+        EnergyDataDTO result = dataService.processEnergyData(energyDataRequest);
+
+        // Then the stored reading is returned in a second transaction
+        assertEquals(1L, result.getId());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(updatePublisher, never()).publish(any(EnergyDataDTO.class));
+        verify(rollupEngine, never()).recordAfterCommit(anyList());
+    }
+
+    @Test
+    public void testProcessEnergyData_AcknowledgesReadingAColdBlockHolds() {
+        // Given a resent reading of a day that was compacted after it was first stored
+        when(installationCache.reference(1L)).thenReturn(installation);
+        when(installationCache.require(1L)).thenReturn(SolarInstallationCache.Metadata.of(installation));
+        when(coldBlockRepository.findByInstallationIdInAndBlockDateBetween(
+                Set.of(1L), now.toLocalDate(), now.toLocalDate())).thenReturn(List.of(coldBlock(now)));
+
+        // When
+        EnergyDataDTO result = dataService.processEnergyData(energyDataRequest);
+
+        // Then it is acknowledged as sent, without being stored or counted again
+        assertEquals(3000.0, result.getPowerGenerationWatts());
+        verify(dataRepository, never()).saveAndFlush(any(EnergyData.class));
+        verify(updatePublisher, never()).publish(any(EnergyDataDTO.class));
+        verify(rollupEngine, never()).recordAfterCommit(anyList());
+    }
+
+    @Test
+    public void testImportEnergyDataBatch_SkipsReadingsAColdBlockHolds() {
+        // Given an import whose second reading a cold block already holds
+        ReflectionTestUtils.setField(dataService, "importChunkSize", 10);
+        EnergyReadingBatchDTO batch = createImportBatch("import-cold", 3);
+        List<EnergyReadingDTO> readings = batch.getReadings();
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(checkpointRepository.findById("import-cold")).thenReturn(Optional.empty());
+        when(coldBlockRepository.findByInstallationIdInAndBlockDateBetween(eq(Set.of(1L)), any(), any()))
+                .thenReturn(List.of(coldBlock(readings.get(1).getTimestamp())));
+        when(idAllocator.allocate(2)).thenReturn(new long[]{401L, 402L});
+        when(bulkLoader.load(eq(1L), anyList(), any(long[].class))).thenAnswer(invocation -> invocation.getArgument(1));
+
+        // When
+        BulkImportResultDTO result = dataService.importEnergyDataBatch(batch);
+
+        // Then only the other two are loaded
+        assertEquals(2L, result.getRowsImported());
+        verify(bulkLoader).load(eq(1L), eq(List.of(readings.get(0), readings.get(2))), any(long[].class));
+    }
+
+    @Test
+    public void testProcessEnergyDataBatch_SkipsReadingsStoredConcurrently() {
+        // Given a concurrent batch that stores the same readings after the lookup
+        EnergyReadingBatchDTO batch = createImportBatch(null, 2);
+        List<LocalDateTime> timestamps = batch.getReadings().stream().map(EnergyReadingDTO::getTimestamp).toList();
+        when(installationCache.reference(1L)).thenReturn(installation);
+        when(installationCache.require(1L)).thenReturn(SolarInstallationCache.Metadata.of(installation));
+        when(dataRepository.findTimestampsBetween(installation, timestamps.get(0), timestamps.get(1)))
+                .thenReturn(List.of(), timestamps);
+        when(dataRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new DataIntegrityViolationException("idx_energy_data_installation_timestamp"))
+                .doNothing()
+                .when(dataRepository).flush();
+
+        // When
+        List<EnergyDataDTO> result = dataService.processEnergyDataBatch(batch);
+
+        // Then the retry finds both readings stored and writes nothing
+        assertThat(result).isEmpty();
+        verify(dataRepository, times(1)).saveAll(argThat(readings -> readings.iterator().hasNext()));
+        verify(rollupEngine, times(1)).recordAfterCommit(List.of());
+    }
+
+    @Test
+    public void testImportEnergyDataBatch_CountsOnlyReadingsWritten() {
+        // Given a retried import whose first two readings are already stored
+        ReflectionTestUtils.setField(dataService, "importChunkSize", 10);
+        EnergyReadingBatchDTO batch = createImportBatch("import-4", 4);
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(checkpointRepository.findById("import-4")).thenReturn(Optional.empty());
+        when(idAllocator.allocate(4)).thenReturn(new long[]{301L, 302L, 303L, 304L});
+        when(bulkLoader.load(eq(1L), anyList(), any(long[].class)))
+                .thenReturn(batch.getReadings().subList(2, 4));
+
+        // When
+        BulkImportResultDTO result = dataService.importEnergyDataBatch(batch);
+
+        // Then
+        assertEquals(4, result.getTotalReadings());
+        assertEquals(2L, result.getRowsImported());
+        verify(rollupEngine, times(2)).record(eq(1L), any(LocalDateTime.class), anyDouble(), anyDouble());
+        verify(rollupEngine, never()).record(1L, batch.getReadings().get(0).getTimestamp(), 1000.0, 500.0);
     }
 
     @Test
     public void testProcessEnergyData_InstallationNotFound() {
         // Given
-        when(installationRepository.findById(1L)).thenReturn(Optional.empty());
+        when(installationCache.reference(1L))
+                .thenThrow(new ResourceNotFoundException("Solar installation not found with ID: 1"));
 
         // When/Then
         Exception exception = assertThrows(RuntimeException.class, () -> {
@@ -150,16 +346,16 @@ public class EnergyDataServiceTest {
         });
 
         assertThat(exception.getMessage()).contains("Solar installation not found with ID: 1");
-        verify(installationRepository, times(1)).findById(1L);
-        verify(dataRepository, never()).save(any(EnergyData.class));
-        verify(webSocketService, never()).sendEnergyDataUpdate(anyLong(), any(EnergyDataDTO.class));
+        verify(installationCache, times(1)).reference(1L);
+        verify(dataRepository, never()).saveAndFlush(any(EnergyData.class));
+        verify(updatePublisher, never()).publish(any(EnergyDataDTO.class));
     }
 
     @Test
     public void testGetRecentReadings_Success() {
         // Given
-        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
-        when(dataRepository.findByInstallationOrderByTimestampDesc(eq(installation)))
+        when(installationCache.reference(1L)).thenReturn(installation);
+        when(dataRepository.findByInstallationOrderByTimestampDescIdDesc(eq(installation), eq(Limit.of(10))))
                 .thenReturn(Arrays.asList(energyData2, energyData1));
 
         // When
@@ -173,14 +369,29 @@ public class EnergyDataServiceTest {
         assertEquals(2500.0, result.get(0).getPowerGenerationWatts());
         assertEquals(2000.0, result.get(1).getPowerGenerationWatts());
 
-        verify(installationRepository, times(1)).findById(1L);
-        verify(dataRepository, times(1)).findByInstallationOrderByTimestampDesc(installation);
+        verify(installationCache, times(1)).reference(1L);
+        verify(dataRepository, times(1)).findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(10));
+    }
+
+    @Test
+    public void testGetRecentReadings_ServedFromRecentStore() {
+        // Given
+        when(installationCache.reference(1L)).thenReturn(installation);
+        when(recentReadingStore.recent(installation, 10)).thenReturn(Optional.of(Arrays.asList(energyData2, energyData1)));
+
+        // When
+        List<EnergyDataDTO> result = dataService.getRecentReadings(1L, 10);
+
+        // Then
+        assertThat(result).extracting(EnergyDataDTO::getId).containsExactly(2L, 1L);
+        verify(dataRepository, never()).findByInstallationOrderByTimestampDescIdDesc(any(), any());
     }
 
     @Test
     public void testGetRecentReadings_InstallationNotFound() {
         // Given
-        when(installationRepository.findById(1L)).thenReturn(Optional.empty());
+        when(installationCache.reference(1L))
+                .thenThrow(new ResourceNotFoundException("Solar installation not found with ID: 1"));
 
         // When/Then
         Exception exception = assertThrows(RuntimeException.class, () -> {
@@ -188,8 +399,8 @@ public class EnergyDataServiceTest {
         });
 
         assertThat(exception.getMessage()).contains("Solar installation not found with ID: 1");
-        verify(installationRepository, times(1)).findById(1L);
-        verify(dataRepository, never()).findByInstallationOrderByTimestampDesc(any());
+        verify(installationCache, times(1)).reference(1L);
+        verify(dataRepository, never()).findByInstallationOrderByTimestampDescIdDesc(any(), any());
     }
 
     @Test
@@ -198,7 +409,7 @@ public class EnergyDataServiceTest {
         LocalDateTime startDate = now.minusDays(1);
         LocalDateTime endDate = now;
 
-        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
+        when(installationCache.reference(1L)).thenReturn(installation);
         when(dataRepository.findByInstallationAndTimestampBetweenOrderByTimestampDesc(
                 eq(installation), eq(startDate), eq(endDate)))
                 .thenReturn(Arrays.asList(energyData1, energyData2));
@@ -214,7 +425,7 @@ public class EnergyDataServiceTest {
         assertEquals(2000.0, result.get(0).getPowerGenerationWatts());
         assertEquals(2500.0, result.get(1).getPowerGenerationWatts());
 
-        verify(installationRepository, times(1)).findById(1L);
+        verify(installationCache, times(1)).reference(1L);
         verify(dataRepository, times(1)).findByInstallationAndTimestampBetweenOrderByTimestampDesc(
                 installation, startDate, endDate);
     }
@@ -225,7 +436,8 @@ public class EnergyDataServiceTest {
         LocalDateTime startDate = now.minusDays(1);
         LocalDateTime endDate = now;
 
-        when(installationRepository.findById(1L)).thenReturn(Optional.empty());
+        when(installationCache.reference(1L))
+                .thenThrow(new ResourceNotFoundException("Solar installation not found with ID: 1"));
 
         // When/Then
         Exception exception = assertThrows(RuntimeException.class, () -> {
@@ -233,8 +445,338 @@ public class EnergyDataServiceTest {
         });
 
         assertThat(exception.getMessage()).contains("Solar installation not found with ID: 1");
-        verify(installationRepository, times(1)).findById(1L);
+        verify(installationCache, times(1)).reference(1L);
         verify(dataRepository, never()).findByInstallationAndTimestampBetweenOrderByTimestampDesc(
                 any(), any(), any());
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testGetReadingsPage_FirstPageHasCursor() {
+        // Given
+        ReflectionTestUtils.setField(dataService, "maxPageSize", 100);
+        when(installationCache.reference(1L)).thenReturn(installation);
+        when(dataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(2)))
+                .thenReturn(Arrays.asList(energyData2, energyData1));
+
+        // When
+        EnergyReadingPageDTO result = dataService.getReadingsPage(1L, null, 1);
+
+        // Then
+        assertThat(result.getReadings()).hasSize(1);
+        assertEquals(2L, result.getReadings().get(0).getId());
+        assertTrue(result.isHasMore());
+        assertNotNull(result.getNextCursor());
+    }
+
+    @Test
+    public void testGetReadingsPage_FollowsCursor() {
+        // Given
+        ReflectionTestUtils.setField(dataService, "maxPageSize", 100);
+        when(installationCache.reference(1L)).thenReturn(installation);
+        when(dataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(2)))
+                .thenReturn(Arrays.asList(energyData2, energyData1));
+        String cursor = dataService.getReadingsPage(1L, null, 1).getNextCursor();
+        when(dataRepository.findPageAfterCursor(installation, energyData2.getTimestamp(), 2L, Limit.of(2)))
+                .thenReturn(Collections.singletonList(energyData1));
+
+        // When
+        EnergyReadingPageDTO result = dataService.getReadingsPage(1L, cursor, 1);
+
+        // Then
+        assertThat(result.getReadings()).hasSize(1);
+        assertEquals(1L, result.getReadings().get(0).getId());
+        assertFalse(result.isHasMore());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    public void testGetReadingsPage_CapsPageSize() {
+        // Given
+        ReflectionTestUtils.setField(dataService, "maxPageSize", 50);
+        when(installationCache.reference(1L)).thenReturn(installation);
+        when(dataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(51)))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        EnergyReadingPageDTO result = dataService.getReadingsPage(1L, null, 10_000);
+
+        // Then
+        assertThat(result.getReadings()).isEmpty();
+        assertFalse(result.isHasMore());
+    }
+
+    @Test
+    public void testGetReadingsPage_InvalidCursor() {
+        // Given
+        when(installationCache.reference(1L)).thenReturn(installation);
+
+        // When/Then
+        assertThrows(InvalidCursorException.class, () -> dataService.getReadingsPage(1L, "not-a-cursor", 10));
+        verify(dataRepository, never()).findPageAfterCursor(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testImportEnergyDataBatch_CommitsInChunks() {
+        // Given
+        ReflectionTestUtils.setField(dataService, "importChunkSize", 2);
+        EnergyReadingBatchDTO batch = createImportBatch("import-1", 5);
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(checkpointRepository.findById("import-1")).thenReturn(Optional.empty());
+        when(idAllocator.allocate(anyInt())).thenAnswer(invocation -> new long[(int) invocation.getArgument(0)]);
+        when(bulkLoader.load(eq(1L), anyList(), any(long[].class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        // When
+        BulkImportResultDTO result = dataService.importEnergyDataBatch(batch);
+
+        // Then
+        assertEquals("import-1", result.getImportId());
+        assertEquals(5, result.getTotalReadings());
+        assertEquals(0, result.getResumedFromOffset());
+        assertEquals(5L, result.getRowsImported());
+        verify(bulkLoader, times(3)).load(eq(1L), anyList(), any(long[].class));
+        verify(checkpointRepository, times(3)).save(any(EnergyImportCheckpoint.class));
+        verify(transactionManager, times(3)).commit(any());
+        verifyNoInteractions(dataRepository, updatePublisher);
+    }
+
+    @Test
+    public void testImportEnergyDataBatch_ResumesFromCheckpoint() {
+        // Given
+        ReflectionTestUtils.setField(dataService, "importChunkSize", 10);
+        EnergyReadingBatchDTO batch = createImportBatch("import-2", 5);
+        EnergyImportCheckpoint checkpoint = new EnergyImportCheckpoint();
+        checkpoint.setImportId("import-2");
+        checkpoint.setInstallationId(1L);
+        checkpoint.setCommittedOffset(3);
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(checkpointRepository.findById("import-2")).thenReturn(Optional.of(checkpoint));
+        when(idAllocator.allocate(2)).thenReturn(new long[]{201L, 202L});
+        when(bulkLoader.load(eq(1L), anyList(), any(long[].class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        // When
+        BulkImportResultDTO result = dataService.importEnergyDataBatch(batch);
+
+        // Then
+        assertEquals(3, result.getResumedFromOffset());
+        assertEquals(2L, result.getRowsImported());
+        assertEquals(5, checkpoint.getCommittedOffset());
+        verify(bulkLoader).load(eq(1L), eq(batch.getReadings().subList(3, 5)), eq(new long[]{201L, 202L}));
+    }
+
+    @Test
+    public void testImportEnergyDataBatch_InstallationNotFound() {
+        // Given
+        when(installationCache.exists(1L)).thenReturn(false);
+
+        // When/Then
+        Exception exception = assertThrows(ResourceNotFoundException.class,
+                () -> dataService.importEnergyDataBatch(createImportBatch("import-3", 1)));
+
+        assertThat(exception.getMessage()).contains("Solar installation not found with ID: 1");
+        verifyNoInteractions(bulkLoader, checkpointRepository);
+    }
+
+    @Test
+    public void testImportEnergyDataBatch_RejectsReadingWithoutTimestamp() {
+        // Given
+        EnergyReadingBatchDTO batch = createImportBatch("import-4", 3);
+        batch.getReadings().get(2).setTimestamp(null);
+        when(installationCache.exists(1L)).thenReturn(true);
+
+        // When/Then: nothing is written, not even the chunks before the bad reading
+        Exception exception = assertThrows(InvalidImportBatchException.class,
+                () -> dataService.importEnergyDataBatch(batch));
+
+        assertThat(exception.getMessage()).contains("Reading 2 has no timestamp");
+        verifyNoInteractions(bulkLoader, checkpointRepository, idAllocator);
+    }
+
+    @Test
+    public void testImportEnergyDataBatch_RejectsReadingForAnotherInstallation() {
+        // Given
+        EnergyReadingBatchDTO batch = createImportBatch("import-5", 2);
+        batch.getReadings().get(0).setInstallationId(2L);
+        when(installationCache.exists(1L)).thenReturn(true);
+
+        // When/Then
+        Exception exception = assertThrows(InvalidImportBatchException.class,
+                () -> dataService.importEnergyDataBatch(batch));
+
+        assertThat(exception.getMessage()).contains("Reading 0 belongs to installation 2");
+        verifyNoInteractions(bulkLoader, checkpointRepository, idAllocator);
+    }
+
+    @Test
+    public void testImportEnergyDataBatch_RejectsImportIdOfAnotherInstallation() {
+        // Given
+        EnergyImportCheckpoint checkpoint = new EnergyImportCheckpoint();
+        checkpoint.setImportId("import-6");
+        checkpoint.setInstallationId(2L);
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(checkpointRepository.findById("import-6")).thenReturn(Optional.of(checkpoint));
+
+        // When/Then
+        Exception exception = assertThrows(InvalidImportBatchException.class,
+                () -> dataService.importEnergyDataBatch(createImportBatch("import-6", 1)));
+
+        assertThat(exception.getMessage()).contains("belongs to installation 2");
+        verifyNoInteractions(bulkLoader);
+    }
+
+    @Test
+    public void testGetDownsampledHistory_AutoPicksFinestResolutionWithinBudget() {
+        // Given: a day is 1440 one-minute buckets but only 288 five-minute ones
+        ReflectionTestUtils.setField(dataService, "maxHistoryPoints", 10000);
+        LocalDateTime start = LocalDateTime.of(2025, 4, 15, 0, 0);
+        LocalDateTime end = start.plusDays(1);
+        EnergyHistoryPointDTO point = EnergyHistoryPointDTO.builder().bucketStart(start).readingsCount(30).build();
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(historyBucketQuery.findBuckets(1L, HistoryResolution.FIVE_MINUTES, start, end))
+                .thenReturn(Collections.singletonList(point));
+
+        // When
+        EnergyHistorySeriesDTO result = dataService.getDownsampledHistory(1L, start, end, "auto", 300);
+
+        // Then
+        assertEquals("5m", result.getResolution());
+        assertThat(result.getPoints()).containsExactly(point);
+        verify(dataRepository, never()).findByInstallationAndTimestampBetweenOrderByTimestampDesc(any(), any(), any());
+    }
+
+    @Test
+    public void testGetDownsampledHistory_ExplicitResolutionOverLimit() {
+        // Given
+        ReflectionTestUtils.setField(dataService, "maxHistoryPoints", 10000);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        when(installationCache.exists(1L)).thenReturn(true);
+
+        // When/Then
+        Exception exception = assertThrows(InvalidHistoryQueryException.class,
+                () -> dataService.getDownsampledHistory(1L, start, start.plusMonths(1), "1m", 1000));
+
+        assertThat(exception.getMessage()).contains("44640 points");
+        verifyNoInteractions(historyBucketQuery);
+    }
+
+    @Test
+    public void testGetDownsampledHistory_UnknownResolution() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        when(installationCache.exists(1L)).thenReturn(true);
+
+        // When/Then
+        assertThrows(InvalidHistoryQueryException.class,
+                () -> dataService.getDownsampledHistory(1L, start, start.plusDays(1), "15m", 1000));
+        verifyNoInteractions(historyBucketQuery);
+    }
+
+    @Test
+    public void testGetDashboardData_CombinesAllInstallations() {
+        // Given a second installation and the grouped query in place of the disabled in-memory totals
+        SolarInstallation commercial = new SolarInstallation();
+        commercial.setId(2L);
+        commercial.setInstalledCapacityKW(10.0);
+        commercial.setLocation("Warehouse");
+        commercial.setType(SolarInstallation.InstallationType.COMMERCIAL);
+        commercial.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        commercial.setUser(user);
+        EnergyData commercialReading = new EnergyData();
+        commercialReading.setId(3L);
+        commercialReading.setInstallation(commercial);
+        commercialReading.setTimestamp(now.minusMinutes(30));
+        commercialReading.setPowerGenerationWatts(6000.0);
+        commercialReading.setPowerConsumptionWatts(1000.0);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(installationRepository.findByUser(user)).thenReturn(Arrays.asList(installation, commercial));
+        when(dataRepository.findLatestByUser(1L, 10))
+                .thenReturn(Arrays.asList(energyData2, energyData1, commercialReading));
+        when(dataRepository.sumDashboardPeriodsByUser(eq(user), any(LocalDateTime.class), any(LocalDateTime.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Arrays.asList(
+                        new InstallationPeriodTotals(1L, 2000.0, 1000.0, 2000.0, 1000.0,
+                                2000.0, 1000.0, 4000.0, 2000.0),
+                        new InstallationPeriodTotals(2L, 3000.0, 1000.0, 3000.0, 1000.0,
+                                3000.0, 1000.0, 6000.0, 2000.0)));
+
+        // When
+        DashboardResponse result = dataService.getDashboardData(1L);
+
+        // Then
+        assertEquals(1L, result.getInstallationId());
+        assertEquals(8500.0, result.getCurrentPowerGenerationWatts());
+        assertEquals(2800.0, result.getCurrentPowerConsumptionWatts());
+        assertEquals(5.0, result.getTodayGenerationKWh(), 1e-9);
+        assertEquals(2.0, result.getTodayConsumptionKWh(), 1e-9);
+        assertEquals(10.0, result.getYearToDateGenerationKWh(), 1e-9);
+        assertEquals(commercialReading.getTimestamp(), result.getLastUpdated());
+        assertThat(result.getRecentReadings()).extracting(EnergyDataDTO::getId).containsExactly(3L, 2L, 1L);
+
+        assertThat(result.getInstallations()).hasSize(2);
+        DashboardResponse residentialSite = result.getInstallations().get(0);
+        DashboardResponse commercialSite = result.getInstallations().get(1);
+        assertEquals(2500.0, residentialSite.getCurrentPowerGenerationWatts());
+        assertEquals(2.0, residentialSite.getTodayGenerationKWh(), 1e-9);
+        assertEquals(2L, commercialSite.getInstallationId());
+        assertEquals(6000.0, commercialSite.getCurrentPowerGenerationWatts());
+        assertEquals(3.0, commercialSite.getTodayGenerationKWh(), 1e-9);
+        assertThat(commercialSite.getRecentReadings()).isEmpty();
+
+        verify(dataRepository, never()).findByInstallationOrderByTimestampDescIdDesc(any(), any());
+        verify(customerDashboardCache, times(1)).put(eq(1L), any(), same(result));
+    }
+
+    @Test
+    public void testGetDashboardData_ServedFromCache() {
+        // Given
+        DashboardResponse cached = DashboardResponse.builder().installationId(1L).build();
+        when(customerDashboardCache.get(1L)).thenReturn(Optional.of(cached));
+
+        // When
+        DashboardResponse result = dataService.getDashboardData(1L);
+
+        // Then
+        assertSame(cached, result);
+        verifyNoInteractions(userRepository, installationRepository, dataRepository);
+    }
+
+    @Test
+    public void testGetDashboardData_NoInstallations() {
+        // Given
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(installationRepository.findByUser(user)).thenReturn(Collections.emptyList());
+
+        // When/Then
+        assertThrows(ResourceNotFoundException.class, () -> dataService.getDashboardData(1L));
+        verify(customerDashboardCache, never()).reserve(any(), any());
+    }
+
+    private EnergyReadingBatchDTO createImportBatch(String importId, int size) {
+        List<EnergyReadingDTO> readings = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            readings.add(new EnergyReadingDTO(1L, now.minusMinutes(size - i), 1000.0 + i, 500.0));
+        }
+        return EnergyReadingBatchDTO.builder()
+                .installationId(1L)
+                .deviceToken("valid-token")
+                .readings(readings)
+                .importId(importId)
+                .build();
+    }
+
+    private EnergyColdBlock coldBlock(LocalDateTime timestamp) {
+        EnergyData compacted = new EnergyData();
+        compacted.setId(99L);
+        compacted.setInstallation(installation);
+        compacted.setTimestamp(timestamp);
+        compacted.setPowerGenerationWatts(3000.0);
+        compacted.setPowerConsumptionWatts(2000.0);
+        EnergyColdBlock block = new EnergyColdBlock();
+        block.setInstallationId(1L);
+        block.setBlockDate(timestamp.toLocalDate());
+        block.setPayload(EnergyColdBlockCodec.encode(List.of(compacted)));
+        return block;
+    }
+}
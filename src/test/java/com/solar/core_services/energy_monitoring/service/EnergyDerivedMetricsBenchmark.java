@@ -0,0 +1,116 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the derived metrics kernels as C2 compiles them, vectorized, with the same kernels in a JVM
+ * started with -XX:-UseSuperWord, which keeps them scalar. applyEachReading is the per-reading path a
+ * single reading takes, over the same values. Run with -prof perfasm to see the generated vector code:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.solar.core_services.energy_monitoring.service.EnergyDerivedMetricsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnergyDerivedMetricsBenchmark {
+
+    @Param({"500", "8640"})
+    private int readings;
+
+    private double[] generation;
+    private double[] consumption;
+    private double[] capacity;
+    private long[] timestamps;
+    private double[] netPower;
+    private double[] utilization;
+    private double[] efficiency;
+    private double[] banded;
+    private List<EnergyData> entities;
+
+    @Setup
+    public void prepare() {
+        generation = new double[readings];
+        consumption = new double[readings];
+        capacity = new double[readings];
+        timestamps = new long[readings];
+        netPower = new double[readings];
+        utilization = new double[readings];
+        efficiency = new double[readings];
+        banded = new double[readings];
+        entities = new ArrayList<>(readings);
+        for (int i = 0; i < readings; i++) {
+            // A day's curve at 10 second intervals, so all utilization bands occur
+            generation[i] = Math.max(0, 5000.0 * Math.sin(Math.PI * (i % 8640) / 8640.0)) + i % 7;
+            consumption[i] = 1500.0 + i % 900;
+            capacity[i] = 5.0;
+            timestamps[i] = 1_717_200_000_000L + 10_000L * i;
+            EnergyData reading = new EnergyData();
+            reading.setPowerGenerationWatts(generation[i]);
+            reading.setPowerConsumptionWatts(consumption[i]);
+            entities.add(reading);
+        }
+    }
+
+    @Benchmark
+    public double[] derive() {
+        EnergyDerivedMetrics.derive(generation, consumption, capacity, readings,
+                netPower, utilization, efficiency, banded);
+        return banded;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-XX:-UseSuperWord")
+    public double[] deriveScalar() {
+        EnergyDerivedMetrics.derive(generation, consumption, capacity, readings,
+                netPower, utilization, efficiency, banded);
+        return banded;
+    }
+
+    @Benchmark
+    public List<EnergyData> applyEachReading() {
+        for (EnergyData reading : entities) {
+            EnergyDerivedMetrics.apply(reading, 5.0);
+        }
+        return entities;
+    }
+
+    @Benchmark
+    public double integrate() {
+        return EnergyDerivedMetrics.integrateWattHours(timestamps, generation, readings,
+                EnergyDerivedMetrics.MAX_GAP_MILLIS);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-XX:-UseSuperWord")
+    public double integrateScalar() {
+        return EnergyDerivedMetrics.integrateWattHours(timestamps, generation, readings,
+                EnergyDerivedMetrics.MAX_GAP_MILLIS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EnergyDerivedMetricsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for EnergyDerivedMetrics
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/EnergyDerivedMetrics.java
+ */
+public class EnergyDerivedMetricsTest {
+
+    @Test
+    public void testBandedEfficiency_FollowsUtilizationBands() {
+        // Given readings of a 5 kW installation
+        double[] generation = {4500.0, 2500.0, 500.0, 0.0, 1500.0};
+        double[] consumption = {2000.0, 2000.0, 2000.0, 2000.0, 0.0};
+
+        // When
+        double[] banded = new double[generation.length];
+        for (int i = 0; i < generation.length; i++) {
+            double efficiency = EnergyDerivedMetrics.efficiencyPercentage(generation[i], consumption[i]);
+            banded[i] = EnergyDerivedMetrics.bandedEfficiency(
+                    EnergyDerivedMetrics.utilization(generation[i], 5.0), efficiency, 5.0);
+        }
+
+        // Then
+        assertEquals(99.0, banded[0], 0.0001);  // 90% utilization: high band
+        assertEquals(80.0, banded[1], 0.0001);  // 50% utilization: medium band
+        assertEquals(25.0, banded[2], 0.0001);  // 10% utilization: efficiency beats the 23.3% ramp
+        assertEquals(0.0, banded[3], 0.0001);   // no production: efficiency, which is 0
+        assertEquals(70.0, banded[4], 0.0001);  // 30% utilization without consumption: the ramp
+    }
+
+    @Test
+    public void testUtilization_WithoutCapacity() {
+        // When/Then
+        assertEquals(0.0, EnergyDerivedMetrics.utilization(3000.0, 0.0));
+        assertEquals(0.0, EnergyDerivedMetrics.bandedEfficiency(0.0, 150.0, 0.0));
+        assertEquals(1.0, EnergyDerivedMetrics.utilization(6000.0, 5.0));
+    }
+
+    @Test
+    public void testEfficiencyPercentage_ScalesFractions() {
+        // When/Then
+        assertEquals(0.0, EnergyDerivedMetrics.efficiencyPercentage(1000.0, 0.0));
+        assertEquals(150.0, EnergyDerivedMetrics.efficiencyPercentage(3000.0, 2000.0), 0.0001);
+        assertEquals(85.0, EnergyDerivedMetrics.normalizePercentage(0.85), 0.0001);
+        assertEquals(85.0, EnergyDerivedMetrics.normalizePercentage(85.0));
+    }
+
+    @Test
+    public void testDerive_MatchesSingleReadings() {
+        // Given readings of a 5 kW and a 10 kW installation in one batch
+        double[] generation = {4500.0, 2500.0, 500.0, 0.0, 7000.0};
+        double[] consumption = {2000.0, 2500.0, 3000.0, 800.0, 1000.0};
+        double[] capacity = {5.0, 5.0, 5.0, 5.0, 10.0};
+        int length = generation.length;
+        double[] netPower = new double[length];
+        double[] utilization = new double[length];
+        double[] efficiency = new double[length];
+        double[] banded = new double[length];
+
+        // When
+        EnergyDerivedMetrics.derive(generation, consumption, capacity, length, netPower, utilization, efficiency, banded);
+
+        // Then
+        for (int i = 0; i < length; i++) {
+            EnergyData reading = new EnergyData();
+            reading.setPowerGenerationWatts(generation[i]);
+            reading.setPowerConsumptionWatts(consumption[i]);
+            EnergyDerivedMetrics.apply(reading, capacity[i]);
+            assertEquals(reading.getNetPowerWatts(), netPower[i]);
+            assertEquals(reading.getUtilizationRate(), utilization[i]);
+            assertEquals(reading.getEfficiencyPercentage(), efficiency[i]);
+            assertEquals(reading.getBandedEfficiencyPercentage(), banded[i]);
+        }
+        assertEquals(0.7, utilization[4], 0.0001);
+    }
+
+    @Test
+    public void testApply_SetsEveryReadingOfTheBatch() {
+        // Given
+        EnergyData first = new EnergyData();
+        first.setPowerGenerationWatts(2500.0);
+        first.setPowerConsumptionWatts(1000.0);
+        EnergyData second = new EnergyData();
+        second.setPowerGenerationWatts(500.0);
+        second.setPowerConsumptionWatts(1000.0);
+
+        // When
+        EnergyDerivedMetrics.apply(List.of(first, second), 5.0);
+
+        // Then
+        assertEquals(1500.0, first.getNetPowerWatts());
+        assertEquals(0.5, first.getUtilizationRate(), 0.0001);
+        assertEquals(250.0, first.getEfficiencyPercentage(), 0.0001);
+        assertEquals(80.0, first.getBandedEfficiencyPercentage(), 0.0001);
+        assertEquals(-500.0, second.getNetPowerWatts());
+        assertEquals(50.0, second.getEfficiencyPercentage(), 0.0001);
+        assertEquals(50.0, second.getBandedEfficiencyPercentage(), 0.0001);
+    }
+
+    @Test
+    public void testIntegrateWattHours_TrapezoidsSkippingGaps() {
+        // Given a ramp from 0 to 1200 W over an hour, then a reading after a two hour outage
+        long minute = 60_000L;
+        long[] timestamps = {0, 30 * minute, 60 * minute, 180 * minute, 180 * minute};
+        double[] watts = {0.0, 600.0, 1200.0, 1000.0, 5000.0};
+
+        // When
+        double wattHours = EnergyDerivedMetrics.integrateWattHours(timestamps, watts, watts.length, 60 * minute);
+
+        // Then the outage and the duplicate timestamp add nothing
+        assertEquals(600.0, wattHours, 0.0001);
+    }
+}
@@ -0,0 +1,438 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
+import com.solar.core_services.energy_monitoring.dto.EnergyDataRequest;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingFrame;
+import com.solar.core_services.energy_monitoring.dto.EnergyReadingFrameResultDTO;
+import com.solar.core_services.energy_monitoring.model.EnergyColdBlock;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockCodec;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdReadingFilter;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataIdAllocator;
+import com.solar.core_services.energy_monitoring.service.impl.EnergyIngestionServiceImpl;
+import com.solar.exception.IngestionOverloadedException;
+import com.solar.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for EnergyIngestionService
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/impl/EnergyIngestionServiceImpl.java
+ */
+@ExtendWith(MockitoExtension.class)
+public class EnergyIngestionServiceTest {
+
+    @Mock
+    private SolarInstallationCache installationCache;
+
+    @Mock
+    private EnergyDataIdAllocator idAllocator;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EnergyColdBlockRepository coldBlockRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EnergyUpdatePublisher updatePublisher;
+
+    @Mock
+    private EnergyAggregateStore aggregateStore;
+
+    @Mock
+    private EnergyRollupEngine rollupEngine;
+
+    @Mock
+    private EnergyRecentReadingStore recentReadingStore;
+
+    @Mock
+    private TopProducerLeaderboard topProducerLeaderboard;
+
+    @Mock
+    private CustomerDashboardCache customerDashboardCache;
+
+    private MeterRegistry meterRegistry;
+    private EnergyIngestionServiceImpl ingestionService;
+    private EnergyDataRequest request;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ingestionService = new EnergyIngestionServiceImpl(
+                installationCache, idAllocator, new EnergyColdReadingFilter(coldBlockRepository), jdbcTemplate, transactionManager, updatePublisher,
+                aggregateStore, rollupEngine, recentReadingStore, topProducerLeaderboard,
+                customerDashboardCache, meterRegistry);
+
+        // Keep the background flusher off so flushes are driven by the test
+        ReflectionTestUtils.setField(ingestionService, "writeBehindEnabled", false);
+        ReflectionTestUtils.setField(ingestionService, "queueCapacity", 3);
+        ReflectionTestUtils.setField(ingestionService, "batchSize", 2);
+        ReflectionTestUtils.setField(ingestionService, "maxFlushDelayMs", 50L);
+        ReflectionTestUtils.setField(ingestionService, "retryAfterSeconds", 7L);
+        ReflectionTestUtils.setField(ingestionService, "flushRetries", 1);
+        ReflectionTestUtils.setField(ingestionService, "flushRetryBackoffMs", 1L);
+        ingestionService.start();
+
+        request = EnergyDataRequest.builder()
+                .installationId(1L)
+                .deviceToken("valid-token")
+                .timestamp(LocalDateTime.now())
+                .powerGenerationWatts(3000.0)
+                .powerConsumptionWatts(2000.0)
+                .dailyYieldKWh(15.0)
+                .totalYieldKWh(150.0)
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ingestionService.stop();
+    }
+
+    @Test
+    public void testEnqueue_AcknowledgesWithoutWriting() {
+        // Given
+        when(installationCache.exists(1L)).thenReturn(true);
+
+        // When
+        EnergyDataDTO result = ingestionService.enqueue(request);
+
+        // Then
+        assertThat(result.getId()).isNull();
+        assertEquals(1L, result.getInstallationId());
+        assertEquals(3000.0, result.getPowerGenerationWatts());
+        assertEquals(1, ingestionService.getQueueDepth());
+        assertEquals(1.0, meterRegistry.get("energy.ingest.queue.depth").gauge().value());
+        verifyNoInteractions(jdbcTemplate, updatePublisher);
+    }
+
+    @Test
+    public void testEnqueue_InstallationNotFound() {
+        // Given
+        when(installationCache.exists(1L)).thenReturn(false);
+
+        // When/Then
+        Exception exception = assertThrows(ResourceNotFoundException.class, () -> ingestionService.enqueue(request));
+
+        assertThat(exception.getMessage()).contains("Solar installation not found with ID: 1");
+        assertEquals(0, ingestionService.getQueueDepth());
+    }
+
+    @Test
+    public void testEnqueue_QueueFull_AppliesBackpressure() {
+        // Given
+        when(installationCache.exists(1L)).thenReturn(true);
+        ingestionService.enqueue(request);
+        ingestionService.enqueue(request);
+        ingestionService.enqueue(request);
+
+        // When/Then
+        IngestionOverloadedException exception = assertThrows(IngestionOverloadedException.class,
+                () -> ingestionService.enqueue(request));
+
+        assertEquals(7L, exception.getRetryAfterSeconds());
+        assertEquals(3, ingestionService.getQueueDepth());
+        assertEquals(1.0, meterRegistry.get("energy.ingest.readings").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushPending_GroupCommitsInBatches() {
+        // Given
+        when(installationCache.exists(1L)).thenReturn(true);
+        ingestionService.enqueue(request);
+        ingestionService.enqueue(request);
+        ingestionService.enqueue(request);
+
+        when(idAllocator.allocate(2)).thenReturn(new long[]{101L, 102L});
+        when(idAllocator.allocate(1)).thenReturn(new long[]{103L});
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(101L, 102L), List.of(103L));
+
+        // When
+        int written = ingestionService.flushPending();
+
+        // Then
+        assertEquals(3, written);
+        assertEquals(0, ingestionService.getQueueDepth());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(Collection.class), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(Collection.class), eq(1),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(updatePublisher).publishAll(argThat(updates -> updates.size() == 2));
+        verify(updatePublisher).publishAll(argThat(updates -> updates.size() == 1 && updates.get(0).getId() == 103L));
+        assertEquals(2L, meterRegistry.get("energy.ingest.flush.latency").timer().count());
+    }
+
+    @Test
+    public void testFlushPending_SkipsReadingsAColdBlockHolds() {
+        // Given a replay of a reading whose day was compacted since it was first stored
+        when(installationCache.exists(1L)).thenReturn(true);
+        EnergyData compacted = new EnergyData();
+        compacted.setId(99L);
+        compacted.setTimestamp(request.getTimestamp());
+        EnergyColdBlock block = new EnergyColdBlock();
+        block.setInstallationId(1L);
+        block.setBlockDate(request.getTimestamp().toLocalDate());
+        block.setPayload(EnergyColdBlockCodec.encode(List.of(compacted)));
+        when(coldBlockRepository.findByInstallationIdInAndBlockDateBetween(any(), any(), any()))
+                .thenReturn(List.of(block));
+        ingestionService.enqueue(request);
+
+        // When
+        int written = ingestionService.flushPending();
+
+        // Then it is counted as a duplicate and nothing is written
+        assertEquals(0, written);
+        assertEquals(1.0, meterRegistry.get("energy.ingest.readings").tag("outcome", "duplicate").counter().count());
+        verifyNoInteractions(idAllocator, jdbcTemplate, rollupEngine, updatePublisher);
+    }
+
+    @Test
+    public void testFlushPending_DerivesMetricsFromInstalledCapacity() {
+        // Given
+        SolarInstallation installation = new SolarInstallation();
+        installation.setId(1L);
+        installation.setInstalledCapacityKW(5.0);
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(installationCache.find(1L)).thenReturn(Optional.of(SolarInstallationCache.Metadata.of(installation)));
+        when(idAllocator.allocate(1)).thenReturn(new long[]{101L});
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(101L));
+        ingestionService.enqueue(request);
+
+        // When
+        ingestionService.flushPending();
+
+        // Then 3000 W of 5 kW is 60% utilization, banded between 70% and 90%
+        verify(updatePublisher).publishAll(argThat(updates -> updates.size() == 1
+                && updates.get(0).getNetPowerWatts() == 1000.0
+                && Math.abs(updates.get(0).getUtilizationRate() - 0.6) < 0.0001
+                && Math.abs(updates.get(0).getEfficiencyPercentage() - 150.0) < 0.0001
+                && Math.abs(updates.get(0).getBandedEfficiencyPercentage() - 85.0) < 0.0001));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushPending_FailedBatchIsNotPublished() {
+        // Given
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(idAllocator.allocate(1)).thenReturn(new long[]{101L});
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("database unavailable"));
+        ingestionService.enqueue(request);
+
+        // When
+        int written = ingestionService.flushPending();
+
+        // Then the batch is retried, then the row on its own, then it is dead-lettered
+        assertEquals(0, written);
+        verify(jdbcTemplate, times(3)).batchUpdate(startsWith("MERGE INTO energy_data"),
+                any(Collection.class), eq(1), any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO energy_ingest_dead_letters"),
+                any(Collection.class), eq(1), any(ParameterizedPreparedStatementSetter.class));
+        verify(updatePublisher, never()).publishAll(anyList());
+        verifyNoInteractions(rollupEngine, aggregateStore);
+        assertEquals(1.0, meterRegistry.get("energy.ingest.readings").tag("outcome", "failed").counter().count());
+        assertEquals(1.0, meterRegistry.get("energy.ingest.flush.retries").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushPending_RetriesFailedBatch() {
+        // Given a database that fails once
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(idAllocator.allocate(1)).thenReturn(new long[]{101L});
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("connection reset"))
+                .thenReturn(new int[][]{{1}});
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(101L));
+        ingestionService.enqueue(request);
+
+        // When
+        int written = ingestionService.flushPending();
+
+        // Then the reading is stored with the ids allocated the first time
+        assertEquals(1, written);
+        verify(idAllocator, times(1)).allocate(1);
+        verify(updatePublisher).publishAll(argThat(updates -> updates.size() == 1 && updates.get(0).getId() == 101L));
+        assertEquals(0.0, meterRegistry.get("energy.ingest.readings").tag("outcome", "failed").counter().count());
+        assertEquals(1.0, meterRegistry.get("energy.ingest.flush.retries").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushPending_DeadLettersOnlyRowsThatStillFail() {
+        // Given a batch with one row the database keeps refusing
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(idAllocator.allocate(2)).thenReturn(new long[]{101L, 102L});
+        when(jdbcTemplate.batchUpdate(startsWith("MERGE INTO energy_data"),
+                any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("no partition of relation energy_data found for row"))
+                .thenThrow(new RuntimeException("no partition of relation energy_data found for row"))
+                .thenReturn(new int[][]{{1}})
+                .thenThrow(new RuntimeException("no partition of relation energy_data found for row"));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO energy_ingest_dead_letters"),
+                any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}});
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(101L));
+        ingestionService.enqueue(request);
+        request.setTimestamp(request.getTimestamp().plusYears(5));
+        ingestionService.enqueue(request);
+
+        // When
+        int written = ingestionService.flushPending();
+
+        // Then the good row is stored and published, the bad one dead-lettered
+        assertEquals(1, written);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO energy_ingest_dead_letters"),
+                argThat((Collection<Object> rows) -> rows.size() == 1), eq(1),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(updatePublisher).publishAll(argThat(updates -> updates.size() == 1 && updates.get(0).getId() == 101L));
+        assertEquals(1.0, meterRegistry.get("energy.ingest.readings").tag("outcome", "failed").counter().count());
+        assertEquals(0.0, meterRegistry.get("energy.ingest.readings").tag("outcome", "duplicate").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushPending_SkipsReadingsAlreadyStored() {
+        // Given the same reading twice, as a gateway retry sends it
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(idAllocator.allocate(2)).thenReturn(new long[]{101L, 102L});
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(101L));
+        ingestionService.enqueue(request);
+        ingestionService.enqueue(request);
+
+        // When
+        int written = ingestionService.flushPending();
+
+        // Then only the first one is stored, aggregated and published
+        assertEquals(1, written);
+        verify(jdbcTemplate).batchUpdate(argThat((String sql) -> sql.startsWith("MERGE INTO energy_data")),
+                any(Collection.class), eq(2), any(ParameterizedPreparedStatementSetter.class));
+        verify(rollupEngine, times(1)).record(1L, request.getTimestamp(), 3000.0, 2000.0);
+        verify(aggregateStore, times(1)).record(1L, request.getTimestamp(), 3000.0, 2000.0);
+        verify(updatePublisher).publishAll(argThat(updates -> updates.size() == 1 && updates.get(0).getId() == 101L));
+        assertEquals(1.0, meterRegistry.get("energy.ingest.readings").tag("outcome", "duplicate").counter().count());
+    }
+
+    @Test
+    public void testEnqueueFrame_WithoutWriteBehind_FlushesDecodedReadings() {
+        // Given
+        LocalDateTime first = LocalDateTime.of(2024, 6, 1, 12, 0, 0);
+        byte[] frame = EnergyReadingFrame.encode(1L, new LocalDateTime[]{first, first.plusSeconds(10)},
+                new double[]{3000.0, 3100.0}, new double[]{2000.0, 1900.0});
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(idAllocator.allocate(2)).thenReturn(new long[]{101L, 102L});
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(101L, 102L));
+
+        // When
+        EnergyReadingFrameResultDTO result = ingestionService.enqueueFrame(ByteBuffer.wrap(frame));
+
+        // Then
+        assertEquals(1L, result.getInstallationId());
+        assertEquals(2, result.getReadingsAccepted());
+        assertThat(result.isPersisted()).isTrue();
+        assertEquals(0, ingestionService.getQueueDepth());
+        verify(rollupEngine).record(1L, first.plusSeconds(10), 3100.0, 1900.0);
+        verify(updatePublisher).publishAll(argThat(updates -> updates.size() == 2
+                && updates.get(0).getTimestamp().equals(first) && updates.get(1).getId() == 102L));
+        assertEquals(2.0, meterRegistry.get("energy.ingest.readings").tag("outcome", "accepted").counter().count());
+    }
+
+    @Test
+    public void testEnqueueFrame_WithoutWriteBehind_LeavesOtherQueuedReadings() {
+        // Given a reading another client queued
+        LocalDateTime first = LocalDateTime.of(2024, 6, 1, 12, 0, 0);
+        byte[] frame = EnergyReadingFrame.encode(1L, new LocalDateTime[]{first}, new double[]{3000.0},
+                new double[]{2000.0});
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(idAllocator.allocate(1)).thenReturn(new long[]{101L});
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(101L));
+        ingestionService.enqueue(request);
+
+        // When
+        EnergyReadingFrameResultDTO result = ingestionService.enqueueFrame(ByteBuffer.wrap(frame));
+
+        // Then only the frame's reading is written
+        assertThat(result.isPersisted()).isTrue();
+        assertEquals(1, ingestionService.getQueueDepth());
+        verify(rollupEngine, times(1)).record(1L, first, 3000.0, 2000.0);
+        verify(rollupEngine, never()).record(1L, request.getTimestamp(), 3000.0, 2000.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEnqueueFrame_WithoutWriteBehind_ReportsDeadLetteredReadings() {
+        // Given a database that refuses the frame's reading
+        LocalDateTime first = LocalDateTime.of(2024, 6, 1, 12, 0, 0);
+        byte[] frame = EnergyReadingFrame.encode(1L, new LocalDateTime[]{first}, new double[]{3000.0},
+                new double[]{2000.0});
+        when(installationCache.exists(1L)).thenReturn(true);
+        when(idAllocator.allocate(1)).thenReturn(new long[]{101L});
+        when(jdbcTemplate.batchUpdate(startsWith("MERGE INTO energy_data"),
+                any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        // When
+        EnergyReadingFrameResultDTO result = ingestionService.enqueueFrame(ByteBuffer.wrap(frame));
+
+        // Then
+        assertEquals(1, result.getReadingsAccepted());
+        assertThat(result.isPersisted()).isFalse();
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO energy_ingest_dead_letters"),
+                any(Collection.class), eq(1), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    public void testEnqueueFrame_LargerThanFreeCapacity_RejectsWholeFrame() {
+        // Given a write-behind queue with less room than the frame
+        ReflectionTestUtils.setField(ingestionService, "writeBehindEnabled", true);
+        LocalDateTime first = LocalDateTime.of(2024, 6, 1, 12, 0, 0);
+        byte[] frame = EnergyReadingFrame.encode(1L,
+                new LocalDateTime[]{first, first.plusSeconds(10), first.plusSeconds(20), first.plusSeconds(30)},
+                new double[]{1.0, 2.0, 3.0, 4.0}, new double[]{1.0, 2.0, 3.0, 4.0});
+        when(installationCache.exists(1L)).thenReturn(true);
+
+        // When/Then
+        assertThrows(IngestionOverloadedException.class, () -> ingestionService.enqueueFrame(ByteBuffer.wrap(frame)));
+
+        assertEquals(0, ingestionService.getQueueDepth());
+        assertEquals(4.0, meterRegistry.get("energy.ingest.readings").tag("outcome", "rejected").counter().count());
+        verifyNoInteractions(jdbcTemplate, updatePublisher);
+    }
+}
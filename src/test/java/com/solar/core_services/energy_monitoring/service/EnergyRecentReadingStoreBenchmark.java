@@ -0,0 +1,152 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.SolarApplication;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.user_management.model.User;
+import com.solar.user_management.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares read latency of the recent reading store with the JPA queries it replaces, against the
+ * application running on the in-memory test database with 2000 readings at 10 second intervals.
+ * H2 runs in-process, so against PostgreSQL the JPA side also pays a network round trip per query:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.solar.core_services.energy_monitoring.service.EnergyRecentReadingStoreBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnergyRecentReadingStoreBenchmark {
+
+    private static final int READINGS = 2000;
+
+    @Param({"1", "10", "360"})
+    private int limit;
+
+    private ConfigurableApplicationContext context;
+    private Path ringFile;
+    private EnergyDataRepository energyDataRepository;
+    private EnergyRecentReadingStore store;
+    private SolarInstallation installation;
+    private LocalDateTime lastHourStart;
+    private LocalDateTime lastHourEnd;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        ringFile = Files.createTempFile("recent-readings", ".ring");
+        context = new SpringApplicationBuilder(SolarApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "logging.level.root=WARN",
+                        "logging.level.com.solar=WARN",
+                        "logging.level.org.springframework.web=WARN",
+                        "logging.level.org.springframework.security=WARN",
+                        "monitoring.simulation.enabled=false",
+                        "monitoring.recent-store.enabled=true",
+                        "monitoring.recent-store.path=" + ringFile)
+                .run();
+        energyDataRepository = context.getBean(EnergyDataRepository.class);
+        store = context.getBean(EnergyRecentReadingStore.class);
+
+        User user = new User();
+        user.setEmail("benchmark@example.com");
+        user.setPassword("password");
+        user.setFullName("Benchmark User");
+        user.setPhoneNumber("+12345678901");
+        user.setRole(User.UserRole.CUSTOMER);
+        user.setEnabled(true);
+        context.getBean(UserRepository.class).save(user);
+
+        installation = new SolarInstallation();
+        installation.setName("Benchmark Installation");
+        installation.setCapacity(5.0);
+        installation.setInstalledCapacityKW(5.0);
+        installation.setLocation("Benchmark Location");
+        installation.setInstallationDate(LocalDateTime.now().minusYears(1));
+        installation.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        installation.setUser(user);
+        installation = context.getBean(SolarInstallationRepository.class).save(installation);
+
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<EnergyData> readings = new ArrayList<>(READINGS);
+        for (int i = READINGS - 1; i >= 0; i--) {
+            EnergyData reading = new EnergyData();
+            reading.setInstallation(installation);
+            reading.setTimestamp(now.minusSeconds(10L * i));
+            reading.setPowerGenerationWatts(4000.0 + i % 500);
+            reading.setPowerConsumptionWatts(2500.0 - i % 300);
+            readings.add(reading);
+        }
+        energyDataRepository.saveAll(readings);
+        lastHourEnd = now;
+        lastHourStart = now.minusHours(1);
+
+        // Load the ring before measuring, as the first dashboard read after startup would
+        store.recent(installation, 1).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        Files.deleteIfExists(ringFile);
+    }
+
+    @Benchmark
+    public List<EnergyData> jpaRecentReadings() {
+        return energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(limit));
+    }
+
+    @Benchmark
+    public List<EnergyData> storeRecentReadings() {
+        return store.recent(installation, limit).orElseThrow();
+    }
+
+    @Benchmark
+    public List<EnergyData> jpaLastHour() {
+        return energyDataRepository.findByInstallationAndTimestampBetweenOrderByTimestampDesc(
+                installation, lastHourStart, lastHourEnd);
+    }
+
+    @Benchmark
+    public List<EnergyData> storeLastHour() {
+        return store.range(installation, lastHourStart, lastHourEnd).orElseThrow();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EnergyRecentReadingStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,233 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for EnergyRecentReadingStore
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/EnergyRecentReadingStore.java
+ */
+@ExtendWith(MockitoExtension.class)
+public class EnergyRecentReadingStoreTest {
+
+    private static final int SLOTS = 4;
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 10, 14, 12, 0, 0, 123_456_000);
+
+    @Mock
+    private EnergyDataRepository energyDataRepository;
+
+    @TempDir
+    private Path directory;
+
+    private final List<EnergyRecentReadingStore> stores = new ArrayList<>();
+    private SolarInstallation installation;
+
+    @BeforeEach
+    public void setup() {
+        installation = new SolarInstallation();
+        installation.setId(1L);
+        installation.setName("Test Installation");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stores.forEach(EnergyRecentReadingStore::close);
+    }
+
+    @Test
+    public void testRecent_LoadsOnceThenServesRecordedReadings() throws IOException {
+        // Given
+        EnergyRecentReadingStore store = openStore();
+        when(energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS)))
+                .thenReturn(List.of(reading(2, 1, 2000.0), reading(1, 0, 1000.0)));
+
+        // When
+        List<EnergyData> loaded = store.recent(installation, 10).orElseThrow();
+        store.recordAfterCommit(List.of(reading(3, 2, 3000.0)));
+        List<EnergyData> recent = store.recent(installation, 10).orElseThrow();
+
+        // Then
+        assertThat(loaded).extracting(EnergyData::getId).containsExactly(2L, 1L);
+        assertThat(recent).extracting(EnergyData::getId).containsExactly(3L, 2L, 1L);
+        EnergyData newest = recent.get(0);
+        assertEquals(BASE.plusMinutes(2), newest.getTimestamp());
+        assertEquals(3000.0, newest.getPowerGenerationWatts());
+        assertEquals(1500.0, newest.getPowerConsumptionWatts());
+        assertEquals(3.0, newest.getDailyYieldKWh());
+        assertEquals(300.0, newest.getTotalYieldKWh());
+        assertTrue(newest.isSimulated());
+        verify(energyDataRepository, times(1)).findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS));
+    }
+
+    @Test
+    public void testRecent_KeepsDerivedMetrics() throws IOException {
+        // Given
+        EnergyRecentReadingStore store = openStore();
+        when(energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS)))
+                .thenReturn(List.of(reading(1, 0, 1000.0)));
+        store.recent(installation, 1);
+        EnergyData derived = reading(2, 1, 4000.0);
+        EnergyDerivedMetrics.apply(derived, 5.0);
+
+        // When
+        store.recordAfterCommit(List.of(derived));
+        List<EnergyData> recent = store.recent(installation, 2).orElseThrow();
+
+        // Then the loaded reading was stored without derived metrics
+        assertEquals(derived.getNetPowerWatts(), recent.get(0).getNetPowerWatts());
+        assertEquals(derived.getUtilizationRate(), recent.get(0).getUtilizationRate());
+        assertEquals(derived.getEfficiencyPercentage(), recent.get(0).getEfficiencyPercentage());
+        assertEquals(derived.getBandedEfficiencyPercentage(), recent.get(0).getBandedEfficiencyPercentage());
+        assertNull(recent.get(1).getUtilizationRate());
+        assertNull(recent.get(1).getBandedEfficiencyPercentage());
+    }
+
+    @Test
+    public void testRecent_MissesReadingsEvictedFromTheRing() throws IOException {
+        // Given
+        EnergyRecentReadingStore store = openStore();
+        when(energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS)))
+                .thenReturn(Collections.emptyList());
+        store.recent(installation, 1);
+
+        // When
+        for (int i = 0; i < 6; i++) {
+            store.recordAfterCommit(List.of(reading(i + 1, i, 1000.0 + i)));
+        }
+
+        // Then
+        assertThat(store.recent(installation, SLOTS).orElseThrow())
+                .extracting(EnergyData::getId).containsExactly(6L, 5L, 4L, 3L);
+        assertTrue(store.recent(installation, SLOTS + 1).isEmpty());
+    }
+
+    @Test
+    public void testRange_ServedOnlyWhenTheRingReachesStart() throws IOException {
+        // Given readings at minutes 0-5, of which the ring keeps minutes 2-5
+        EnergyRecentReadingStore store = openStore();
+        when(energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS)))
+                .thenReturn(Collections.emptyList());
+        store.recent(installation, 1);
+        for (int i = 0; i < 6; i++) {
+            store.recordAfterCommit(List.of(reading(i + 1, i, 1000.0 + i)));
+        }
+
+        // When
+        List<EnergyData> inRing = store.range(installation, BASE.plusMinutes(3), BASE.plusMinutes(4)).orElseThrow();
+
+        // Then
+        assertThat(inRing).extracting(EnergyData::getId).containsExactly(5L, 4L);
+        assertTrue(store.range(installation, BASE.plusMinutes(2), BASE.plusMinutes(5)).isEmpty());
+        assertTrue(store.range(installation, BASE, BASE.plusMinutes(5)).isEmpty());
+    }
+
+    @Test
+    public void testOpen_AfterCleanShutdownFetchesOnlyMissedReadings() throws IOException {
+        // Given
+        EnergyRecentReadingStore first = openStore();
+        when(energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS)))
+                .thenReturn(List.of(reading(1, 0, 1000.0)));
+        first.recent(installation, 1);
+        first.recordAfterCommit(List.of(reading(2, 1, 2000.0)));
+        first.close();
+
+        // The newest reading in the ring comes back with the one committed while the node was down
+        when(energyDataRepository.findByInstallationAndTimestampGreaterThanEqualOrderByTimestampAscIdAsc(
+                installation, BASE.plusMinutes(1), Limit.of(SLOTS)))
+                .thenReturn(List.of(reading(2, 1, 2000.0), reading(3, 2, 3000.0)));
+
+        // When
+        EnergyRecentReadingStore second = openStore();
+        List<EnergyData> recent = second.recent(installation, 3).orElseThrow();
+
+        // Then
+        assertThat(recent).extracting(EnergyData::getId).containsExactly(3L, 2L, 1L);
+        verify(energyDataRepository, times(1)).findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS));
+    }
+
+    @Test
+    public void testOpen_AfterCrashReloadsRings() throws IOException {
+        // Given a store that is never closed
+        EnergyRecentReadingStore first = openStore();
+        when(energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS)))
+                .thenReturn(List.of(reading(1, 0, 1000.0)));
+        first.recent(installation, 1);
+
+        // When
+        EnergyRecentReadingStore second = openStore();
+        second.recent(installation, 1);
+
+        // Then
+        verify(energyDataRepository, times(2)).findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS));
+        verify(energyDataRepository, never()).findByInstallationAndTimestampGreaterThanEqualOrderByTimestampAscIdAsc(
+                installation, BASE, Limit.of(SLOTS));
+    }
+
+    @Test
+    public void testRecord_OutOfOrderReadingReloadsTheRing() throws IOException {
+        // Given
+        EnergyRecentReadingStore store = openStore();
+        when(energyDataRepository.findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS)))
+                .thenReturn(List.of(reading(2, 1, 2000.0)))
+                .thenReturn(List.of(reading(2, 1, 2000.0), reading(1, 0, 1000.0)));
+        store.recent(installation, 1);
+
+        // When
+        store.recordAfterCommit(List.of(reading(1, 0, 1000.0)));
+        List<EnergyData> recent = store.recent(installation, 2).orElseThrow();
+
+        // Then
+        assertThat(recent).extracting(EnergyData::getId).containsExactly(2L, 1L);
+        verify(energyDataRepository, times(2)).findByInstallationOrderByTimestampDescIdDesc(installation, Limit.of(SLOTS));
+    }
+
+    private EnergyRecentReadingStore openStore() throws IOException {
+        EnergyRecentReadingStore store = new EnergyRecentReadingStore(energyDataRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "path", directory.resolve("recent.ring").toString());
+        ReflectionTestUtils.setField(store, "maxInstallations", 2);
+        ReflectionTestUtils.setField(store, "slotsPerInstallation", SLOTS);
+        store.open();
+        stores.add(store);
+        return store;
+    }
+
+    private EnergyData reading(long id, int minute, double generation) {
+        EnergyData reading = new EnergyData();
+        reading.setId(id);
+        reading.setInstallation(installation);
+        reading.setTimestamp(BASE.plusMinutes(minute));
+        reading.setPowerGenerationWatts(generation);
+        reading.setPowerConsumptionWatts(generation / 2);
+        reading.setDailyYieldKWh(generation / 1000);
+        reading.setTotalYieldKWh(generation / 10);
+        return reading;
+    }
+}
@@ -0,0 +1,401 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.EnergyColdBlock;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.EnergyRollupBucket;
+import com.solar.core_services.energy_monitoring.model.EnergySummary;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyRollupBucketRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergySummaryIdAllocator;
+import com.solar.core_services.energy_monitoring.repository.EnergySummaryRepository;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.scheduler.EnergyColdStorageCompactor;
+import com.solar.user_management.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for EnergyRollupEngine
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/EnergyRollupEngine.java
+ */
+@DataJpaTest
+@Import({EnergyRollupEngine.class, EnergySummaryIdAllocator.class})
+public class EnergyRollupEngineTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 4, 15);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EnergyRollupEngine rollupEngine;
+
+    @Autowired
+    private EnergyRollupBucketRepository bucketRepository;
+
+    @Autowired
+    private EnergySummaryRepository summaryRepository;
+
+    @Autowired
+    private EnergyDataRepository energyDataRepository;
+
+    @Autowired
+    private EnergyColdBlockRepository coldBlockRepository;
+
+    @Autowired
+    private SolarInstallationRepository installationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EnergySummaryIdAllocator summaryIdAllocator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SolarInstallation installation;
+    private SolarInstallation idleInstallation;
+
+    @BeforeEach
+    public void setup() {
+        User user = new User();
+        user.setEmail("rollup@example.com");
+        user.setPassword("password");
+        user.setFullName("Rollup User");
+        user.setPhoneNumber("+12345678901");
+        user.setRole(User.UserRole.CUSTOMER);
+        user.setEnabled(true);
+        entityManager.persist(user);
+
+        installation = installation(user, "Rollup Installation");
+        idleInstallation = installation(user, "Idle Installation");
+
+        // Three readings in two 5-minute buckets of the same hour, one in the next hour
+        persistReading(DAY.atTime(10, 1), 1000.0, 400.0);
+        persistReading(DAY.atTime(10, 4), 2000.0, 600.0);
+        persistReading(DAY.atTime(10, 7), 3000.0, 800.0);
+        persistReading(DAY.atTime(11, 30), 4000.0, 1000.0);
+        entityManager.flush();
+    }
+
+    @Test
+    public void testRecordAndFlush_MaintainsFiveMinuteAndHourlyBuckets() {
+        // When
+        rollupEngine.flush();
+
+        // Then
+        List<EnergyRollupBucket> fiveMinute = bucketRepository
+                .findByInstallationIdAndBucketSecondsAndBucketStartBetweenOrderByBucketStart(
+                        installation.getId(), EnergyRollupBucket.FIVE_MINUTES, DAY.atStartOfDay(), DAY.atTime(23, 59));
+        assertThat(fiveMinute).extracting(EnergyRollupBucket::getBucketStart)
+                .containsExactly(DAY.atTime(10, 0), DAY.atTime(10, 5), DAY.atTime(11, 30));
+        assertEquals(3000.0, fiveMinute.get(0).getGenerationSumWatts());
+        assertEquals(2, fiveMinute.get(0).getReadingsCount());
+        // 10:01 to 10:04 at an average of 1500 W; the first reading has nothing to integrate from
+        assertEquals(75.0, fiveMinute.get(0).getGenerationWh(), 1e-9);
+        assertEquals(125.0, fiveMinute.get(1).getGenerationWh(), 1e-9);
+        // 83 minutes after the previous reading, beyond the maximum gap
+        assertEquals(0.0, fiveMinute.get(2).getGenerationWh());
+
+        List<EnergyRollupBucket> hourly = bucketRepository
+                .findByInstallationIdAndBucketSecondsAndBucketStartBetweenOrderByBucketStart(
+                        installation.getId(), EnergyRollupBucket.HOUR, DAY.atStartOfDay(), DAY.atTime(23, 59));
+        assertThat(hourly).hasSize(2);
+        assertEquals(6000.0, hourly.get(0).getGenerationSumWatts());
+        assertEquals(3000.0, hourly.get(0).getPeakGenerationWatts());
+        assertEquals(3, hourly.get(0).getReadingsCount());
+        assertEquals(200.0, hourly.get(0).getGenerationWh(), 1e-9);
+        assertEquals(60.0, hourly.get(0).getConsumptionWh(), 1e-9);
+
+        // A second flush adds to the existing rows
+        persistReading(DAY.atTime(10, 2), 500.0, 100.0);
+        entityManager.flush();
+        rollupEngine.flush();
+        entityManager.clear();
+        EnergyRollupBucket merged = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.FIVE_MINUTES, DAY.atTime(10, 0))).orElseThrow();
+        assertEquals(3500.0, merged.getGenerationSumWatts());
+        assertEquals(3, merged.getReadingsCount());
+        // Older than the newest reading, so 10:01 to 10:04 is integrated again as 10:01 to 10:02 to 10:04
+        assertEquals(12.5 + 1250.0 / 30, merged.getGenerationWh(), 1e-9);
+        assertEquals(250.0 / 60 + 350.0 / 30, merged.getConsumptionWh(), 1e-9);
+        EnergyRollupBucket mergedHour = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.HOUR, DAY.atTime(10, 0))).orElseThrow();
+        assertEquals(125.0 + 12.5 + 1250.0 / 30, mergedHour.getGenerationWh(), 1e-9);
+    }
+
+    @Test
+    public void testFlush_CorrectsSummariesAlreadyDerived() {
+        // Given summaries derived from the rebuilt buckets, by an engine flushing in the test's transaction
+        EnergyRollupEngine engine = new EnergyRollupEngine(jdbcTemplate, summaryIdAllocator, transactionManager);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "flushTransaction", new TransactionTemplate(transactionManager));
+        engine.rebuildBuckets(DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+        engine.deriveSummaries(EnergySummary.SummaryPeriod.DAILY, DAY, DAY,
+                installation.getId(), installation.getId());
+        engine.deriveSummaries(EnergySummary.SummaryPeriod.MONTHLY, DAY.withDayOfMonth(1),
+                DAY.withDayOfMonth(DAY.lengthOfMonth()), installation.getId(), installation.getId());
+
+        // When a reading arrives, then one that is late
+        saveReading(DAY.atTime(11, 35), 4000.0, 1000.0);
+        saveReading(DAY.atTime(10, 2), 500.0, 100.0);
+        entityManager.flush();
+        engine.record(installation.getId(), DAY.atTime(11, 35), 4000.0, 1000.0);
+        engine.record(installation.getId(), DAY.atTime(10, 2), 500.0, 100.0);
+        engine.flush();
+        entityManager.clear();
+
+        // Then both summaries hold the energy a full recompute would give
+        double generationWh = 200.0 + 1000.0 / 3 - (75.0 - 12.5 - 1250.0 / 30);
+        double consumptionWh = 60.0 + 250.0 / 3 - (25.0 - 250.0 / 60 - 350.0 / 30);
+        for (EnergySummary summary : List.of(
+                summaryRepository.findByInstallationAndPeriodAndDate(
+                        installation, EnergySummary.SummaryPeriod.DAILY, DAY).orElseThrow(),
+                summaryRepository.findByInstallationAndPeriodAndDate(
+                        installation, EnergySummary.SummaryPeriod.MONTHLY, DAY.withDayOfMonth(1)).orElseThrow())) {
+            assertEquals(generationWh / 1000, summary.getTotalGenerationKWh(), 1e-9);
+            assertEquals(consumptionWh / 1000, summary.getTotalConsumptionKWh(), 1e-9);
+            assertEquals(generationWh / consumptionWh * 100, summary.getEfficiencyPercentage(), 1e-6);
+            assertEquals(6, summary.getReadingsCount());
+            assertEquals(4000.0, summary.getPeakGenerationWatts());
+        }
+        EnergyRollupBucket bucket = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.FIVE_MINUTES, DAY.atTime(10, 0))).orElseThrow();
+        assertEquals(12.5 + 1250.0 / 30, bucket.getGenerationWh(), 1e-9);
+    }
+
+    @Test
+    public void testRecord_IntegratesFromTheStoredPreviousReading() {
+        // Given an engine that has not seen the installation yet, as after a restart
+        EnergyRollupEngine restarted = new EnergyRollupEngine(jdbcTemplate, summaryIdAllocator, transactionManager);
+        ReflectionTestUtils.setField(restarted, "enabled", true);
+        entityManager.flush();
+
+        // When a reading arrives five minutes after the newest stored one
+        restarted.record(installation.getId(), DAY.atTime(11, 35), 2000.0, 1000.0);
+        restarted.flush();
+        entityManager.clear();
+
+        // Then
+        EnergyRollupBucket bucket = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.FIVE_MINUTES, DAY.atTime(11, 35))).orElseThrow();
+        assertEquals(250.0, bucket.getGenerationWh(), 1e-9);
+        assertEquals(1000.0 / 12, bucket.getConsumptionWh(), 1e-9);
+    }
+
+    @Test
+    public void testRebuildBuckets_MatchesIncrementalBuckets() {
+        // Given
+        rollupEngine.flush();
+        EnergyRollupBucket incremental = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.HOUR, DAY.atTime(10, 0))).orElseThrow();
+        double generation = incremental.getGenerationSumWatts();
+        long count = incremental.getReadingsCount();
+        double generationWh = incremental.getGenerationWh();
+
+        // When
+        rollupEngine.rebuildBuckets(DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+        entityManager.clear();
+
+        // Then
+        EnergyRollupBucket rebuilt = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.HOUR, DAY.atTime(10, 0))).orElseThrow();
+        assertEquals(generation, rebuilt.getGenerationSumWatts());
+        assertEquals(count, rebuilt.getReadingsCount());
+        assertEquals(generationWh, rebuilt.getGenerationWh(), 1e-9);
+        assertThat(bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.FIVE_MINUTES, DAY.atTime(10, 5)))).isPresent();
+    }
+
+    @Test
+    public void testDeriveSummaries_WritesDailySummaryFromBuckets() {
+        // When
+        int written = rollupEngine.deriveSummaries(EnergySummary.SummaryPeriod.DAILY, DAY, DAY,
+                installation.getId(), idleInstallation.getId());
+        entityManager.clear();
+
+        // Then: the energy integrated over the intervals between readings
+        assertEquals(2, written);
+        EnergySummary summary = summaryRepository.findByInstallationAndPeriodAndDate(
+                installation, EnergySummary.SummaryPeriod.DAILY, DAY).orElseThrow();
+        assertEquals(0.2, summary.getTotalGenerationKWh(), 1e-9);
+        assertEquals(0.06, summary.getTotalConsumptionKWh(), 1e-9);
+        assertEquals(4000.0, summary.getPeakGenerationWatts());
+        assertEquals(4, summary.getReadingsCount());
+        assertEquals(DAY, summary.getPeriodEnd());
+
+        EnergySummary empty = summaryRepository.findByInstallationAndPeriodAndDate(
+                idleInstallation, EnergySummary.SummaryPeriod.DAILY, DAY).orElseThrow();
+        assertEquals(0, empty.getReadingsCount());
+
+        // Running it again leaves the existing summaries alone
+        assertEquals(0, rollupEngine.deriveSummaries(EnergySummary.SummaryPeriod.DAILY, DAY, DAY,
+                installation.getId(), idleInstallation.getId()));
+    }
+
+    @Test
+    public void testDeriveSummaries_IdsNeverCollideWithSummariesSavedAsEntities() {
+        // Given summaries saved through Hibernate before and after derived ones, sharing energy_summaries_seq
+        Set<Long> ids = new HashSet<>();
+        ids.add(persistSummary(DAY.minusDays(2)));
+        rollupEngine.deriveSummaries(EnergySummary.SummaryPeriod.DAILY, DAY, DAY,
+                installation.getId(), idleInstallation.getId());
+        ids.add(persistSummary(DAY.minusDays(1)));
+        rollupEngine.deriveSummaries(EnergySummary.SummaryPeriod.MONTHLY, DAY.withDayOfMonth(1),
+                DAY.withDayOfMonth(DAY.lengthOfMonth()), installation.getId(), idleInstallation.getId());
+
+        // When
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then every summary has its own id
+        List<EnergySummary> summaries = summaryRepository.findAll();
+        for (EnergySummary summary : summaries) {
+            ids.add(summary.getId());
+        }
+        assertThat(summaries).hasSize(6);
+        assertThat(ids).hasSize(6);
+    }
+
+    @Test
+    public void testDeriveSummaries_RebuildsHoursTheBucketsMissed() {
+        // Given readings stored but never recorded, as when a crash lost their pending partials
+        rollupEngine.flush();
+        saveReading(DAY.atTime(11, 35), 4000.0, 1000.0);
+        saveReading(DAY.atTime(14, 0), 1000.0, 500.0);
+        saveReading(DAY.atTime(14, 5), 3000.0, 500.0);
+        entityManager.flush();
+
+        // When
+        rollupEngine.deriveSummaries(EnergySummary.SummaryPeriod.DAILY, DAY, DAY,
+                installation.getId(), installation.getId());
+        entityManager.clear();
+
+        // Then the summary counts them, and the hour that was already complete is left alone
+        EnergySummary summary = summaryRepository.findByInstallationAndPeriodAndDate(
+                installation, EnergySummary.SummaryPeriod.DAILY, DAY).orElseThrow();
+        assertEquals(7, summary.getReadingsCount());
+        assertEquals((200.0 + 4000.0 / 12 + 2000.0 / 12) / 1000, summary.getTotalGenerationKWh(), 1e-9);
+        EnergyRollupBucket afternoon = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.HOUR, DAY.atTime(14, 0))).orElseThrow();
+        assertEquals(2, afternoon.getReadingsCount());
+        EnergyRollupBucket morning = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.HOUR, DAY.atTime(10, 0))).orElseThrow();
+        assertEquals(3, morning.getReadingsCount());
+    }
+
+    @Test
+    public void testRebuildBuckets_CorrectsSummariesAlreadyDerived() {
+        // Given a daily summary derived before a reading of the day was stored without being recorded
+        rollupEngine.deriveSummaries(EnergySummary.SummaryPeriod.DAILY, DAY, DAY,
+                installation.getId(), installation.getId());
+        saveReading(DAY.atTime(10, 10), 3000.0, 800.0);
+        entityManager.flush();
+
+        // When only this installation's buckets are rebuilt
+        int hourly = rollupEngine.rebuildBuckets(DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(),
+                installation.getId(), installation.getId());
+        entityManager.clear();
+
+        // Then the summary changes by what the rebuild added: one reading and 10:07 to 10:10 at 3000 W
+        assertEquals(2, hourly);
+        EnergySummary summary = summaryRepository.findByInstallationAndPeriodAndDate(
+                installation, EnergySummary.SummaryPeriod.DAILY, DAY).orElseThrow();
+        assertEquals(5, summary.getReadingsCount());
+        assertEquals(0.2 + 0.15, summary.getTotalGenerationKWh(), 1e-9);
+        assertEquals(0.06 + 0.04, summary.getTotalConsumptionKWh(), 1e-9);
+    }
+
+    @Test
+    public void testRebuildBuckets_LeavesCompactedDaysAsTheyAre() {
+        // Given summaries derived for a day whose readings were then compacted into a cold block
+        rollupEngine.deriveSummaries(EnergySummary.SummaryPeriod.DAILY, DAY, DAY,
+                installation.getId(), installation.getId());
+        rollupEngine.deriveSummaries(EnergySummary.SummaryPeriod.MONTHLY, DAY.withDayOfMonth(1),
+                DAY.withDayOfMonth(DAY.lengthOfMonth()), installation.getId(), installation.getId());
+        EnergyColdStorageCompactor compactor = new EnergyColdStorageCompactor(energyDataRepository,
+                coldBlockRepository, installationRepository, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(compactor, "ageDays", 0);
+        ReflectionTestUtils.setField(compactor, "maxDaysPerRun", 1);
+        assertEquals(1, compactor.compact(DAY.plusDays(1)));
+        entityManager.flush();
+
+        // When the day is rebuilt
+        int hourly = rollupEngine.rebuildBuckets(DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(),
+                installation.getId(), installation.getId());
+        entityManager.clear();
+
+        // Then its buckets and summaries are unchanged
+        assertEquals(0, hourly);
+        assertThat(coldBlockRepository.findById(new EnergyColdBlock.Key(installation.getId(), DAY))).isPresent();
+        EnergyRollupBucket morning = bucketRepository.findById(new EnergyRollupBucket.Key(
+                installation.getId(), EnergyRollupBucket.HOUR, DAY.atTime(10, 0))).orElseThrow();
+        assertEquals(3, morning.getReadingsCount());
+        for (EnergySummary summary : List.of(
+                summaryRepository.findByInstallationAndPeriodAndDate(
+                        installation, EnergySummary.SummaryPeriod.DAILY, DAY).orElseThrow(),
+                summaryRepository.findByInstallationAndPeriodAndDate(
+                        installation, EnergySummary.SummaryPeriod.MONTHLY, DAY.withDayOfMonth(1)).orElseThrow())) {
+            assertEquals(0.2, summary.getTotalGenerationKWh(), 1e-9);
+            assertEquals(0.06, summary.getTotalConsumptionKWh(), 1e-9);
+            assertEquals(4, summary.getReadingsCount());
+        }
+    }
+
+    private SolarInstallation installation(User user, String name) {
+        SolarInstallation created = new SolarInstallation();
+        created.setName(name);
+        created.setCapacity(5.0);
+        created.setInstalledCapacityKW(5.0);
+        created.setLocation("Test Location");
+        created.setInstallationDate(LocalDateTime.now().minusDays(30));
+        created.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        created.setUser(user);
+        return entityManager.persist(created);
+    }
+
+    private void persistReading(LocalDateTime timestamp, double generation, double consumption) {
+        saveReading(timestamp, generation, consumption);
+        rollupEngine.record(installation.getId(), timestamp, generation, consumption);
+    }
+
+    private void saveReading(LocalDateTime timestamp, double generation, double consumption) {
+        EnergyData reading = new EnergyData();
+        reading.setInstallation(installation);
+        reading.setTimestamp(timestamp);
+        reading.setPowerGenerationWatts(generation);
+        reading.setPowerConsumptionWatts(consumption);
+        entityManager.persist(reading);
+    }
+
+    private Long persistSummary(LocalDate date) {
+        EnergySummary summary = new EnergySummary();
+        summary.setInstallation(installation);
+        summary.setDate(date);
+        summary.setPeriod(EnergySummary.SummaryPeriod.DAILY);
+        summary.setPeriodStart(date);
+        summary.setPeriodEnd(date);
+        return entityManager.persist(summary).getId();
+    }
+}
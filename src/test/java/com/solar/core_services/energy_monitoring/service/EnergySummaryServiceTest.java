@@ -1,13 +1,14 @@
 package com.solar.core_services.energy_monitoring.service;
 
 import com.solar.core_services.energy_monitoring.dto.EnergySummaryDTO;
-import com.solar.core_services.energy_monitoring.model.EnergyData;
 import com.solar.core_services.energy_monitoring.model.EnergySummary;
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
-import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
 import com.solar.core_services.energy_monitoring.repository.EnergySummaryRepository;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.scheduler.EnergySummaryJob;
 import com.solar.core_services.energy_monitoring.service.impl.EnergySummaryServiceImpl;
+import com.solar.exception.InvalidHistoryQueryException;
+import com.solar.exception.ResourceNotFoundException;
 import com.solar.user_management.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,7 +19,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -27,6 +27,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -44,7 +45,10 @@ public class EnergySummaryServiceTest {
     private SolarInstallationRepository installationRepository;
 
     @Mock
-    private EnergyDataRepository dataRepository;
+    private EnergyRollupEngine rollupEngine;
+
+    @Mock
+    private EnergySummaryJob summaryJob;
 
     @InjectMocks
     private EnergySummaryServiceImpl summaryService;
@@ -54,8 +58,6 @@ public class EnergySummaryServiceTest {
     private EnergySummary dailySummary;
     private EnergySummary weeklySummary;
     private EnergySummary monthlySummary;
-    private EnergyData energyData1;
-    private EnergyData energyData2;
     private final LocalDate today = LocalDate.now();
     private final LocalDateTime now = LocalDateTime.now();
 
@@ -79,25 +81,6 @@ public class EnergySummaryServiceTest {
         installation.setTamperDetected(false);
         installation.setLastTamperCheck(now);
 
-        // Create energy data
-        energyData1 = new EnergyData();
-        energyData1.setId(1L);
-        energyData1.setInstallation(installation);
-        energyData1.setTimestamp(now.minusHours(2));
-        energyData1.setPowerGenerationWatts(2000.0);
-        energyData1.setPowerConsumptionWatts(1500.0);
-        energyData1.setDailyYieldKWh(10.0);
-        energyData1.setTotalYieldKWh(100.0);
-
-        energyData2 = new EnergyData();
-        energyData2.setId(2L);
-        energyData2.setInstallation(installation);
-        energyData2.setTimestamp(now.minusHours(1));
-        energyData2.setPowerGenerationWatts(2500.0);
-        energyData2.setPowerConsumptionWatts(1800.0);
-        energyData2.setDailyYieldKWh(12.0);
-        energyData2.setTotalYieldKWh(120.0);
-
         // Create summaries
         dailySummary = new EnergySummary();
         dailySummary.setId(1L);
@@ -147,16 +130,7 @@ public class EnergySummaryServiceTest {
         // Given
         when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
         when(summaryRepository.findByInstallationAndPeriodAndDate(installation, EnergySummary.SummaryPeriod.DAILY, today))
-                .thenReturn(Optional.empty());
-        
-        // Use lenient() for potentially unnecessary stubbings
-        lenient().when(dataRepository.findByInstallationAndTimestampBetweenOrderByTimestampDesc(
-                eq(installation),
-                any(LocalDateTime.class),
-                any(LocalDateTime.class)))
-                .thenReturn(Arrays.asList(energyData1, energyData2));
-        
-        lenient().when(summaryRepository.save(any(EnergySummary.class))).thenReturn(dailySummary);
+                .thenReturn(Optional.empty(), Optional.of(dailySummary));
 
         // When
         EnergySummaryDTO result = summaryService.generateDailySummary(1L, today);
@@ -176,12 +150,9 @@ public class EnergySummaryServiceTest {
         assertEquals(today, result.getPeriodEnd());
 
         verify(installationRepository, times(1)).findById(1L);
-        verify(summaryRepository, times(1)).findByInstallationAndPeriodAndDate(installation, EnergySummary.SummaryPeriod.DAILY, today);
-        verify(dataRepository, times(1)).findByInstallationAndTimestampBetweenOrderByTimestampDesc(
-                eq(installation),
-                any(LocalDateTime.class),
-                any(LocalDateTime.class));
-        verify(summaryRepository, times(1)).save(any(EnergySummary.class));
+        verify(rollupEngine, times(1)).deriveSummaries(EnergySummary.SummaryPeriod.DAILY, today, today, 1L, 1L);
+        verify(summaryRepository, times(2)).findByInstallationAndPeriodAndDate(installation, EnergySummary.SummaryPeriod.DAILY, today);
+        verify(summaryRepository, never()).save(any());
     }
 
     @Test
@@ -197,8 +168,7 @@ public class EnergySummaryServiceTest {
         assertThat(exception.getMessage()).contains("Solar installation not found with ID: 1");
         verify(installationRepository, times(1)).findById(1L);
         verify(summaryRepository, never()).findByInstallationAndPeriodAndDate(any(), any(), any());
-        verify(dataRepository, never()).findByInstallationAndTimestampBetweenOrderByTimestampDesc(any(), any(), any());
-        verify(summaryRepository, never()).save(any());
+        verify(rollupEngine, never()).deriveSummaries(any(), any(), any(), anyLong(), anyLong());
     }
 
     @Test
@@ -219,8 +189,7 @@ public class EnergySummaryServiceTest {
 
         verify(installationRepository, times(1)).findById(1L);
         verify(summaryRepository, times(1)).findByInstallationAndPeriodAndDate(installation, EnergySummary.SummaryPeriod.DAILY, today);
-        verify(dataRepository, never()).findByInstallationAndTimestampBetweenOrderByTimestampDesc(any(), any(), any());
-        verify(summaryRepository, never()).save(any());
+        verify(rollupEngine, never()).deriveSummaries(any(), any(), any(), anyLong(), anyLong());
     }
 
     @Test
@@ -243,6 +212,30 @@ public class EnergySummaryServiceTest {
         verify(summaryRepository, times(1)).findByInstallationAndPeriodAndDate(installation, EnergySummary.SummaryPeriod.WEEKLY, today);
     }
 
+    @Test
+    public void testGenerateYearlySummary_DerivesWholeYear() {
+        // Given
+        LocalDate yearStart = LocalDate.of(2025, 1, 1);
+        EnergySummary yearlySummary = new EnergySummary();
+        yearlySummary.setId(4L);
+        yearlySummary.setInstallation(installation);
+        yearlySummary.setDate(yearStart);
+        yearlySummary.setPeriod(EnergySummary.SummaryPeriod.YEARLY);
+        yearlySummary.setPeriodStart(yearStart);
+        yearlySummary.setPeriodEnd(LocalDate.of(2025, 12, 31));
+        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
+        when(summaryRepository.findByInstallationAndPeriodAndDate(installation, EnergySummary.SummaryPeriod.YEARLY, yearStart))
+                .thenReturn(Optional.empty(), Optional.of(yearlySummary));
+
+        // When
+        EnergySummaryDTO result = summaryService.generateYearlySummary(1L, yearStart);
+
+        // Then
+        assertEquals(EnergySummary.SummaryPeriod.YEARLY, result.getPeriod());
+        verify(rollupEngine, times(1)).deriveSummaries(
+                EnergySummary.SummaryPeriod.YEARLY, yearStart, LocalDate.of(2025, 12, 31), 1L, 1L);
+    }
+
     @Test
     public void testGetSummariesByPeriod_Success() {
         // Given
@@ -325,4 +318,49 @@ public class EnergySummaryServiceTest {
         verify(summaryRepository, never()).findByInstallationAndPeriodAndDateBetweenOrderByDateDesc(
                 any(), any(), any(), any());
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testScheduleAllSummaryGeneration_DelegatesToChunkedJob() {
+        // When
+        summaryService.scheduleAllSummaryGeneration();
+
+        // Then
+        verify(summaryJob, times(1)).runWithCatchUp(any(LocalDate.class));
+        verifyNoInteractions(rollupEngine);
+    }
+
+    @Test
+    public void testRebuildRollups_RebuildsWholeDaysOfAllInstallations() {
+        // Given
+        when(rollupEngine.rebuildBuckets(today.minusDays(2).atStartOfDay(), today.plusDays(1).atStartOfDay(),
+                0, Long.MAX_VALUE)).thenReturn(48);
+
+        // When
+        int rebuilt = summaryService.rebuildRollups(today.minusDays(2), today, null);
+
+        // Then
+        assertEquals(48, rebuilt);
+        verifyNoInteractions(installationRepository);
+    }
+
+    @Test
+    public void testRebuildRollups_InstallationNotFound() {
+        // Given
+        when(installationRepository.existsById(1L)).thenReturn(false);
+
+        // When/Then
+        Exception exception = assertThrows(ResourceNotFoundException.class,
+                () -> summaryService.rebuildRollups(today, today, 1L));
+
+        assertThat(exception.getMessage()).contains("Solar installation not found with ID: 1");
+        verifyNoInteractions(rollupEngine);
+    }
+
+    @Test
+    public void testRebuildRollups_RejectsReversedRange() {
+        // When/Then
+        assertThrows(InvalidHistoryQueryException.class,
+                () -> summaryService.rebuildRollups(today, today.minusDays(1), null));
+        verifyNoInteractions(rollupEngine);
+    }
+}
@@ -0,0 +1,140 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.dto.EnergyDataDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for EnergyUpdatePublisher
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/EnergyUpdatePublisher.java
+ */
+@ExtendWith(MockitoExtension.class)
+public class EnergyUpdatePublisherTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 4, 15, 12, 0);
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EnergyUpdatePublisher publisher;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new EnergyUpdatePublisher(webSocketService, meterRegistry);
+        ReflectionTestUtils.setField(publisher, "coalesce", true);
+        ReflectionTestUtils.setField(publisher, "maxFramesPerTick", 1000);
+        publisher.registerMetrics();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testTick_SendsOnlyTheNewestReadingPerInstallation() {
+        // Given a replayed batch arriving out of order
+        publisher.publishAll(List.of(update(1L, 10L, NOW.minusMinutes(2)), update(1L, 12L, NOW),
+                update(1L, 11L, NOW.minusMinutes(1)), update(2L, 20L, NOW)));
+
+        // When
+        publisher.tick();
+
+        // Then
+        verify(webSocketService).sendEnergyDataUpdate(eq(1L), argThat(dto -> dto.getId() == 12L));
+        verify(webSocketService).sendEnergyDataUpdate(eq(2L), argThat(dto -> dto.getId() == 20L));
+        verifyNoMoreInteractions(webSocketService);
+        assertEquals(2.0, meterRegistry.get("energy.websocket.frames").tag("outcome", "sent").counter().count());
+        assertEquals(2.0, meterRegistry.get("energy.websocket.frames").tag("outcome", "coalesced").counter().count());
+
+        // Nothing is left for the next tick
+        publisher.tick();
+        verifyNoMoreInteractions(webSocketService);
+    }
+
+    @Test
+    public void testTick_CapsFramesAndSendsLongestWaitingFirst() {
+        // Given
+        ReflectionTestUtils.setField(publisher, "maxFramesPerTick", 2);
+        publisher.publishAll(List.of(update(1L, 10L, NOW), update(2L, 20L, NOW), update(3L, 30L, NOW)));
+        publisher.publish(update(1L, 11L, NOW.plusSeconds(5)));
+
+        // When
+        publisher.tick();
+
+        // Then installation 1 keeps its place in line with its newest reading
+        InOrder inOrder = inOrder(webSocketService);
+        inOrder.verify(webSocketService).sendEnergyDataUpdate(eq(1L), argThat(dto -> dto.getId() == 11L));
+        inOrder.verify(webSocketService).sendEnergyDataUpdate(eq(2L), any(EnergyDataDTO.class));
+        verify(webSocketService, never()).sendEnergyDataUpdate(eq(3L), any(EnergyDataDTO.class));
+        assertEquals(1.0, meterRegistry.get("energy.websocket.pending").gauge().value());
+
+        // The rest goes out on the next tick
+        publisher.tick();
+        verify(webSocketService).sendEnergyDataUpdate(eq(3L), any(EnergyDataDTO.class));
+    }
+
+    @Test
+    public void testPublish_WaitsForCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        publisher.publish(update(1L, 10L, NOW));
+
+        // When the transaction has not committed yet
+        publisher.tick();
+
+        // Then
+        verify(webSocketService, never()).sendEnergyDataUpdate(anyLong(), any(EnergyDataDTO.class));
+
+        // When it commits
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        publisher.tick();
+
+        // Then
+        verify(webSocketService).sendEnergyDataUpdate(eq(1L), any(EnergyDataDTO.class));
+    }
+
+    @Test
+    public void testPublish_SendsEveryReadingWhenCoalescingIsOff() {
+        // Given
+        ReflectionTestUtils.setField(publisher, "coalesce", false);
+
+        // When
+        publisher.publishAll(List.of(update(1L, 10L, NOW), update(1L, 11L, NOW.plusSeconds(5))));
+
+        // Then
+        verify(webSocketService, times(2)).sendEnergyDataUpdate(eq(1L), any(EnergyDataDTO.class));
+    }
+
+    private EnergyDataDTO update(Long installationId, Long id, LocalDateTime timestamp) {
+        return EnergyDataDTO.builder()
+                .id(id)
+                .installationId(installationId)
+                .timestamp(timestamp)
+                .powerGenerationWatts(1000.0)
+                .powerConsumptionWatts(500.0)
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solar.core_services.energy_monitoring.dto.SystemOverviewResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for FleetOverviewSnapshot
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/FleetOverviewSnapshot.java
+ */
+@ExtendWith(MockitoExtension.class)
+public class FleetOverviewSnapshotTest {
+
+    @Mock
+    private SolarInstallationService installationService;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    private FleetOverviewSnapshot fleetOverviewSnapshot;
+    private SystemOverviewResponse first;
+    private SystemOverviewResponse second;
+
+    @BeforeEach
+    public void setup() {
+        fleetOverviewSnapshot = new FleetOverviewSnapshot(installationService, webSocketService,
+                new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(fleetOverviewSnapshot, "enabled", true);
+
+        LocalDateTime now = LocalDateTime.of(2026, 10, 14, 12, 0);
+        first = SystemOverviewResponse.builder()
+                .totalActiveInstallations(2)
+                .currentSystemGenerationWatts(5000.0)
+                .lastUpdated(now)
+                .build();
+        second = SystemOverviewResponse.builder()
+                .totalActiveInstallations(2)
+                .currentSystemGenerationWatts(5200.0)
+                .lastUpdated(now.plusSeconds(30))
+                .build();
+    }
+
+    @Test
+    public void testCurrent_ServesRefreshedOverviewFromMemory() {
+        // Given
+        when(installationService.getSystemOverview()).thenReturn(first);
+        fleetOverviewSnapshot.refresh();
+
+        // When
+        FleetOverviewSnapshot.Overview a = fleetOverviewSnapshot.current();
+        FleetOverviewSnapshot.Overview b = fleetOverviewSnapshot.current();
+
+        // Then
+        assertSame(first, a.response());
+        assertSame(a, b);
+        verify(installationService, times(1)).getSystemOverview();
+        verify(webSocketService, times(1)).sendAdminSystemUpdate(first);
+    }
+
+    @Test
+    public void testRefresh_PushesOnlyChangedOverviews() {
+        // Given
+        when(installationService.getSystemOverview()).thenReturn(first, first, second);
+
+        // When
+        fleetOverviewSnapshot.refresh();
+        String firstTag = fleetOverviewSnapshot.current().etag();
+        fleetOverviewSnapshot.refresh();
+        fleetOverviewSnapshot.refresh();
+
+        // Then
+        assertNotEquals(firstTag, fleetOverviewSnapshot.current().etag());
+        verify(webSocketService, times(1)).sendAdminSystemUpdate(first);
+        verify(webSocketService, times(1)).sendAdminSystemUpdate(second);
+    }
+
+    @Test
+    public void testRefresh_FailureKeepsPreviousOverview() {
+        // Given
+        when(installationService.getSystemOverview())
+                .thenReturn(first)
+                .thenThrow(new RuntimeException("Database unavailable"));
+        fleetOverviewSnapshot.refresh();
+
+        // When
+        fleetOverviewSnapshot.refresh();
+
+        // Then
+        assertSame(first, fleetOverviewSnapshot.current().response());
+        verify(webSocketService, times(1)).sendAdminSystemUpdate(first);
+    }
+
+    @Test
+    public void testCurrent_ComputesOnEveryCallWhenDisabled() {
+        // Given
+        ReflectionTestUtils.setField(fleetOverviewSnapshot, "enabled", false);
+        when(installationService.getSystemOverview()).thenReturn(first);
+
+        // When
+        fleetOverviewSnapshot.refresh();
+        String a = fleetOverviewSnapshot.current().etag();
+        String b = fleetOverviewSnapshot.current().etag();
+
+        // Then
+        assertEquals(a, b);
+        verify(installationService, times(2)).getSystemOverview();
+        verify(webSocketService, never()).sendAdminSystemUpdate(first);
+    }
+}
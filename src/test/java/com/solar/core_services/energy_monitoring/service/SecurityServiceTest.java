@@ -1,7 +1,6 @@
 package com.solar.core_services.energy_monitoring.service;
 
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
-import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
 import com.solar.user_management.model.User;
 import com.solar.user_management.security.UserPrincipal;
 import org.junit.jupiter.api.AfterEach;
@@ -31,7 +30,7 @@ import static org.mockito.Mockito.when;
 public class SecurityServiceTest {
 
     @Mock
-    private SolarInstallationRepository installationRepository;
+    private SolarInstallationCache installationCache;
 
     @InjectMocks
     private SecurityService securityService;
@@ -124,7 +123,7 @@ public class SecurityServiceTest {
     @Test
     public void testHasAccessToInstallation_AsOwner() {
         // Given
-        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
+        when(installationCache.find(1L)).thenReturn(Optional.of(SolarInstallationCache.Metadata.of(installation)));
 
         // When
         boolean result = securityService.hasAccessToInstallation(1L);
@@ -158,7 +157,7 @@ public class SecurityServiceTest {
         otherInstallation.setId(1L);
         otherInstallation.setUser(otherUser);
         
-        when(installationRepository.findById(1L)).thenReturn(Optional.of(otherInstallation));
+        when(installationCache.find(1L)).thenReturn(Optional.of(SolarInstallationCache.Metadata.of(otherInstallation)));
 
         // When
         boolean result = securityService.hasAccessToInstallation(1L);
@@ -170,7 +169,7 @@ public class SecurityServiceTest {
     @Test
     public void testHasAccessToInstallation_InstallationNotFound() {
         // Given
-        when(installationRepository.findById(1L)).thenReturn(Optional.empty());
+        when(installationCache.find(1L)).thenReturn(Optional.empty());
 
         // When
         boolean result = securityService.hasAccessToInstallation(1L);
@@ -0,0 +1,193 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.exception.ResourceNotFoundException;
+import com.solar.user_management.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for SolarInstallationCache
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/SolarInstallationCache.java
+ */
+@ExtendWith(MockitoExtension.class)
+public class SolarInstallationCacheTest {
+
+    @Mock
+    private SolarInstallationRepository installationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SolarInstallationCache cache;
+    private SolarInstallation installation;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SolarInstallationCache(installationRepository, meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttlMillis", 60000L);
+        cache.init();
+
+        installation = installation(1L);
+    }
+
+    @Test
+    public void testFind_LoadsOnceAndServesRepeatLookupsFromMemory() {
+        // Given
+        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
+
+        // When
+        SolarInstallationCache.Metadata first = cache.find(1L).orElseThrow();
+        SolarInstallationCache.Metadata second = cache.find(1L).orElseThrow();
+
+        // Then
+        assertSame(first, second);
+        assertEquals(7L, first.userId());
+        assertEquals(SolarInstallation.InstallationStatus.ACTIVE, first.status());
+        verify(installationRepository, times(1)).findById(1L);
+        assertEquals(1.0, meterRegistry.get("installation.cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("installation.cache.gets").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void testFind_MissingInstallationsAreNotRemembered() {
+        // Given
+        when(installationRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // When
+        boolean before = cache.exists(1L);
+        boolean after = cache.exists(1L);
+
+        // Then
+        assertFalse(before);
+        assertFalse(after);
+        verify(installationRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void testInvalidate_ReloadsChangedInstallation() {
+        // Given
+        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
+        cache.find(1L);
+        installation.setTamperDetected(true);
+
+        // When
+        cache.invalidate(1L);
+
+        // Then
+        assertTrue(cache.find(1L).orElseThrow().tamperDetected());
+        verify(installationRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void testFind_EvictsLeastRecentlyUsedBeyondMaximumSize() {
+        // Given
+        when(installationRepository.findById(any())).thenAnswer(
+                invocation -> Optional.of(installation(invocation.getArgument(0))));
+        cache.find(1L);
+        cache.find(2L);
+        cache.find(1L);
+
+        // When the third installation is loaded, the second is the least recently used
+        cache.find(3L);
+        cache.find(1L);
+        cache.find(2L);
+
+        // Then
+        verify(installationRepository, times(1)).findById(1L);
+        verify(installationRepository, times(2)).findById(2L);
+        assertEquals(2.0, meterRegistry.get("installation.cache.evictions").counter().count());
+        assertEquals(2.0, meterRegistry.get("installation.cache.size").gauge().value());
+    }
+
+    @Test
+    public void testFind_ExpiresAfterTimeToLive() throws InterruptedException {
+        // Given
+        ReflectionTestUtils.setField(cache, "ttlMillis", 1L);
+        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
+        cache.find(1L);
+
+        // When
+        Thread.sleep(5);
+        cache.find(1L);
+
+        // Then
+        verify(installationRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void testReference_ReturnsProxyForKnownInstallation() {
+        // Given
+        SolarInstallation reference = new SolarInstallation();
+        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
+        when(installationRepository.getReferenceById(1L)).thenReturn(reference);
+        cache.find(1L);
+
+        // When
+        SolarInstallation result = cache.reference(1L);
+
+        // Then
+        assertSame(reference, result);
+        verify(installationRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void testReference_UnknownInstallation() {
+        // Given
+        when(installationRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // When/Then
+        Exception exception = assertThrows(ResourceNotFoundException.class, () -> cache.reference(1L));
+
+        assertEquals("Solar installation not found with ID: 1", exception.getMessage());
+        verify(installationRepository, never()).getReferenceById(any());
+    }
+
+    @Test
+    public void testReference_DisabledCacheLoadsTheInstallation() {
+        // Given
+        ReflectionTestUtils.setField(cache, "enabled", false);
+        when(installationRepository.findById(1L)).thenReturn(Optional.of(installation));
+
+        // When
+        cache.reference(1L);
+        SolarInstallation result = cache.reference(1L);
+
+        // Then
+        assertSame(installation, result);
+        verify(installationRepository, times(2)).findById(1L);
+        verify(installationRepository, never()).getReferenceById(any());
+    }
+
+    private SolarInstallation installation(Long id) {
+        User owner = new User();
+        owner.setId(7L);
+        SolarInstallation installation = new SolarInstallation();
+        installation.setId(id);
+        installation.setName("Installation " + id);
+        installation.setUser(owner);
+        installation.setInstalledCapacityKW(5.0);
+        installation.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        return installation;
+    }
+}
@@ -0,0 +1,122 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.dto.SystemOverviewResponse;
+import com.solar.core_services.energy_monitoring.dto.TopProducerDTO;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.service.impl.SolarInstallationServiceImpl;
+import com.solar.user_management.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for the system overview queries of SolarInstallationService
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/impl/SolarInstallationServiceImpl.java
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({SolarInstallationServiceImpl.class, TopProducerLeaderboard.class, CustomerDashboardCache.class,
+        SolarInstallationCache.class, SimpleMeterRegistry.class})
+public class SolarInstallationOverviewQueryTest {
+
+    private static final int ACTIVE_INSTALLATIONS = 12;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SolarInstallationService installationService;
+
+    @Autowired
+    private TopProducerLeaderboard topProducerLeaderboard;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private WebSocketService webSocketService;
+
+    @BeforeEach
+    public void setup() {
+        User user = new User();
+        user.setEmail("overview@example.com");
+        user.setPassword("password");
+        user.setFullName("Overview User");
+        user.setPhoneNumber("+12345678901");
+        user.setRole(User.UserRole.CUSTOMER);
+        user.setEnabled(true);
+        entityManager.persist(user);
+
+        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
+        for (int i = 1; i <= ACTIVE_INSTALLATIONS; i++) {
+            SolarInstallation installation = persistInstallation(user, "Installation " + i,
+                    SolarInstallation.InstallationStatus.ACTIVE, false);
+            for (int minute = 0; minute < 3; minute++) {
+                EnergyData reading = new EnergyData();
+                reading.setInstallation(installation);
+                reading.setTimestamp(startOfDay.plusMinutes(minute));
+                reading.setPowerGenerationWatts(1000.0 * i);
+                reading.setPowerConsumptionWatts(500.0);
+                entityManager.persist(reading);
+            }
+        }
+        persistInstallation(user, "Suspended Installation", SolarInstallation.InstallationStatus.SUSPENDED, true);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testGetSystemOverview_QueryCountDoesNotGrowWithInstallations() {
+        // Given the leaderboard loaded, as it is at startup
+        topProducerLeaderboard.warmUp();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        SystemOverviewResponse overview = installationService.getSystemOverview();
+
+        // Then
+        // Status totals, hot and cold period sums, latest readings, top producer installations and
+        // recently active installations; every period has readings, so no summary fallbacks
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        assertEquals(ACTIVE_INSTALLATIONS, overview.getTotalActiveInstallations());
+        assertEquals(1, overview.getTotalSuspendedInstallations());
+        assertEquals(1, overview.getTotalInstallationsWithTamperAlerts());
+        assertEquals(5.0 * (ACTIVE_INSTALLATIONS + 1), overview.getTotalSystemCapacityKW());
+        assertEquals(1000.0 * ACTIVE_INSTALLATIONS * (ACTIVE_INSTALLATIONS + 1) / 2,
+                overview.getCurrentSystemGenerationWatts(), 0.0001);
+        assertThat(overview.getRecentInstallationReadings()).hasSize(ACTIVE_INSTALLATIONS);
+        assertThat(overview.getRecentlyActiveInstallations()).hasSize(5);
+        assertThat(overview.getTopProducers()).extracting(TopProducerDTO::getName).containsExactly(
+                "Installation 12", "Installation 11", "Installation 10", "Installation 9", "Installation 8");
+        assertEquals("overview@example.com", overview.getTopProducers().get(0).getUsername());
+    }
+
+    private SolarInstallation persistInstallation(User user, String name, SolarInstallation.InstallationStatus status,
+                                                  boolean tamperDetected) {
+        SolarInstallation installation = new SolarInstallation();
+        installation.setName(name);
+        installation.setCapacity(5.0);
+        installation.setInstalledCapacityKW(5.0);
+        installation.setLocation("Test Location");
+        installation.setInstallationDate(LocalDateTime.now().minusYears(1));
+        installation.setStatus(status);
+        installation.setTamperDetected(tamperDetected);
+        installation.setUser(user);
+        return entityManager.persist(installation);
+    }
+}
@@ -3,9 +3,15 @@ package com.solar.core_services.energy_monitoring.service;
 import com.solar.core_services.energy_monitoring.dto.DeviceStatusRequest;
 import com.solar.core_services.energy_monitoring.dto.SolarInstallationDTO;
 import com.solar.core_services.energy_monitoring.dto.SystemOverviewResponse;
+import com.solar.core_services.energy_monitoring.dto.TopProducerDTO;
+import com.solar.core_services.energy_monitoring.dto.TopProducerRanking;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyColdBlockRepository;
 import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.EnergyPeriodTotals;
 import com.solar.core_services.energy_monitoring.repository.EnergySummaryRepository;
+import com.solar.core_services.energy_monitoring.repository.InstallationStatusTotals;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
 import com.solar.core_services.energy_monitoring.service.impl.SolarInstallationServiceImpl;
 import com.solar.user_management.model.User;
@@ -16,6 +22,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -52,6 +59,18 @@ public class SolarInstallationServiceTest {
     @Mock
     private EnergySummaryRepository energySummaryRepository;
 
+    @Mock
+    private EnergyColdBlockRepository coldBlockRepository;
+
+    @Mock
+    private TopProducerLeaderboard topProducerLeaderboard;
+
+    @Mock
+    private CustomerDashboardCache customerDashboardCache;
+
+    @Mock
+    private SolarInstallationCache installationCache;
+
     @InjectMocks
     private SolarInstallationServiceImpl installationService;
 
@@ -220,6 +239,7 @@ public class SolarInstallationServiceTest {
 
         verify(userRepository, times(1)).findById(1L);
         verify(installationRepository, times(1)).save(any(SolarInstallation.class));
+        verify(installationCache, times(1)).invalidate(3L);
     }
 
     @Test
@@ -270,6 +290,7 @@ public class SolarInstallationServiceTest {
 
         verify(installationRepository, times(1)).findById(1L);
         verify(installationRepository, times(1)).save(any(SolarInstallation.class));
+        verify(installationCache, times(1)).invalidate(1L);
     }
 
     @Test
@@ -327,6 +348,7 @@ public class SolarInstallationServiceTest {
         assertThat(exception.getMessage()).contains("Solar installation not found with ID: 1");
         verify(installationRepository, times(1)).findById(1L);
         verify(installationRepository, never()).save(any(SolarInstallation.class));
+        verify(installationCache, never()).invalidate(anyLong());
         verify(webSocketService, never()).sendInstallationStatusUpdate(anyLong(), any(SolarInstallationDTO.class));
     }
 
@@ -358,6 +380,7 @@ public class SolarInstallationServiceTest {
 
         verify(installationRepository, times(1)).findById(1L);
         verify(installationRepository, times(1)).save(any(SolarInstallation.class));
+        verify(installationCache, times(1)).invalidate(1L);
         verify(webSocketService, times(1)).sendInstallationStatusUpdate(eq(1L), any(SolarInstallationDTO.class));
         verify(webSocketService, times(1)).sendTamperAlert(eq(1L), any(SolarInstallationDTO.class));
     }
@@ -365,27 +388,24 @@ public class SolarInstallationServiceTest {
     @Test
     public void testGetSystemOverview_Success() {
         // Given
-        List<SolarInstallation> installations = Arrays.asList(installation1, installation2);
-        when(installationRepository.findAll()).thenReturn(installations);
-        
-        // No need to mock findByTamperDetectedTrue since the implementation 
-        // doesn't call it, but instead filters installations from findAll
+        EnergyPeriodTotals noReadings = new EnergyPeriodTotals(null, null, null, null, null, null, null, null);
+        when(installationRepository.summarizeByStatus()).thenReturn(Arrays.asList(
+                new InstallationStatusTotals(SolarInstallation.InstallationStatus.ACTIVE, 1L, 5.0, 0L),
+                new InstallationStatusTotals(SolarInstallation.InstallationStatus.MAINTENANCE, 1L, 3.0, 1L)));
+        when(installationRepository.findByStatusOrderByIdAsc(SolarInstallation.InstallationStatus.ACTIVE, Limit.of(5)))
+            .thenReturn(Collections.singletonList(installation1));
+
+        // Mock energy data queries to return no readings
+        when(energyDataRepository.sumFleetPeriods(eq(SolarInstallation.InstallationStatus.ACTIVE), any(LocalDateTime.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class),
+                any(LocalDateTime.class)))
+            .thenReturn(noReadings);
+        when(coldBlockRepository.sumFleetPeriods(eq(SolarInstallation.InstallationStatus.ACTIVE), any(LocalDate.class),
+                any(LocalDate.class), any(LocalDate.class), any(LocalDate.class), any(LocalDate.class), any(LocalDate.class)))
+            .thenReturn(noReadings);
+        when(energyDataRepository.findLatestByInstallationStatus("ACTIVE", 10)).thenReturn(Collections.emptyList());
+        when(topProducerLeaderboard.top(TopProducerRanking.GENERATION, null, 5)).thenReturn(Collections.emptyList());
 
-        // Set up installation statuses
-        installation1.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
-        installation2.setStatus(SolarInstallation.InstallationStatus.MAINTENANCE);
-        installation2.setTamperDetected(true);
-        
-        // Mock energy data repository to return empty lists for installations
-        when(energyDataRepository.findByInstallationOrderByTimestampDesc(any(SolarInstallation.class)))
-            .thenReturn(Collections.emptyList());
-        
-        // Mock sum methods to return null (no data)
-        when(energyDataRepository.sumPowerGenerationForPeriod(any(SolarInstallation.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(null);
-        when(energyDataRepository.sumPowerConsumptionForPeriod(any(SolarInstallation.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(null);
-            
         // Mock energy summary repository methods
         when(energySummaryRepository.findByPeriodAndDate(any(), any(LocalDate.class)))
             .thenReturn(Collections.emptyList());
@@ -400,15 +420,80 @@ public class SolarInstallationServiceTest {
         assertEquals(1, result.getTotalActiveInstallations());
         assertEquals(1, result.getTotalInstallationsWithTamperAlerts());
         assertEquals(8.0, result.getTotalSystemCapacityKW()); // 5.0 + 3.0
+        assertEquals(1L, result.getInstallationsByStatus().get("MAINTENANCE"));
         
         // Check that values for new fields are initialized but might be zero
         assertThat(result.getYearToDateGenerationKWh()).isNotNull();
         assertThat(result.getYearToDateConsumptionKWh()).isNotNull();
         
         assertThat(result.getRecentlyActiveInstallations()).hasSize(1); // Only installation1 is ACTIVE
+        assertThat(result.getTopProducers()).isEmpty();
+
+        verify(installationRepository, never()).findAll();
+        verify(energyDataRepository, never()).sumPowerGenerationForPeriod(any(), any(), any());
+    }
 
-        verify(installationRepository, times(1)).findAll();
-        // We don't verify findByTamperDetectedTrue anymore since it's not called
+    @Test
+    public void testGetSystemOverview_CombinesHotAndColdTotals() {
+        // Given
+        EnergyData latest = new EnergyData();
+        latest.setInstallation(installation1);
+        latest.setTimestamp(now);
+        latest.setPowerGenerationWatts(4000.0);
+        latest.setPowerConsumptionWatts(1000.0);
+        when(installationRepository.summarizeByStatus()).thenReturn(Collections.singletonList(
+                new InstallationStatusTotals(SolarInstallation.InstallationStatus.ACTIVE, 1L, 5.0, 0L)));
+        when(installationRepository.findByStatusOrderByIdAsc(SolarInstallation.InstallationStatus.ACTIVE, Limit.of(5)))
+            .thenReturn(Collections.singletonList(installation1));
+        when(installationRepository.findByIdIn(List.of(1L))).thenReturn(Collections.singletonList(installation1));
+        when(energyDataRepository.sumFleetPeriods(eq(SolarInstallation.InstallationStatus.ACTIVE), any(LocalDateTime.class),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class), any(LocalDateTime.class),
+                any(LocalDateTime.class)))
+            .thenReturn(new EnergyPeriodTotals(1000.0, 500.0, 1000.0, 500.0, 2000.0, 1000.0, 2000.0, 1000.0));
+        when(coldBlockRepository.sumFleetPeriods(eq(SolarInstallation.InstallationStatus.ACTIVE), any(LocalDate.class),
+                any(LocalDate.class), any(LocalDate.class), any(LocalDate.class), any(LocalDate.class), any(LocalDate.class)))
+            .thenReturn(new EnergyPeriodTotals(0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 10_000.0, 5000.0));
+        when(energyDataRepository.findLatestByInstallationStatus("ACTIVE", 10)).thenReturn(Collections.singletonList(latest));
+        when(topProducerLeaderboard.top(TopProducerRanking.GENERATION, null, 5)).thenReturn(Collections.singletonList(
+                new TopProducerLeaderboard.Standing(1L, SolarInstallation.InstallationType.RESIDENTIAL, 5.0,
+                        1000.0, 500.0, 4000.0, 1500.0, now, true)));
+
+        // When
+        SystemOverviewResponse result = installationService.getSystemOverview();
+
+        // Then
+        assertEquals(1.0, result.getTodayTotalGenerationKWh(), 0.0001);
+        assertEquals(2.0, result.getMonthToDateGenerationKWh(), 0.0001);
+        assertEquals(12.0, result.getYearToDateGenerationKWh(), 0.0001);
+        assertEquals(6.0, result.getYearToDateConsumptionKWh(), 0.0001);
+        assertEquals(4000.0, result.getCurrentSystemGenerationWatts(), 0.0001);
+        assertThat(result.getRecentInstallationReadings()).hasSize(1);
+        assertThat(result.getTopProducers()).hasSize(1);
+        assertEquals(1L, result.getTopProducers().get(0).getId());
+        assertEquals(1.0, result.getTopProducers().get(0).getTodayGenerationKWh(), 0.0001);
+        verify(energySummaryRepository, never()).findByPeriodAndDate(any(), any(LocalDate.class));
+    }
+
+    @Test
+    public void testGetTopProducers_ConvertsLeaderboardStandings() {
+        // Given
+        installation1.setName("Installation 1");
+        when(topProducerLeaderboard.top(TopProducerRanking.UTILIZATION, SolarInstallation.InstallationType.RESIDENTIAL, 100))
+            .thenReturn(Collections.singletonList(new TopProducerLeaderboard.Standing(1L,
+                    SolarInstallation.InstallationType.RESIDENTIAL, 5.0, 2000.0, 1000.0, 2500.0, 1000.0, now, true)));
+        when(installationRepository.findByIdIn(List.of(1L))).thenReturn(Collections.singletonList(installation1));
+
+        // When
+        List<TopProducerDTO> result = installationService.getTopProducers(
+                TopProducerRanking.UTILIZATION, SolarInstallation.InstallationType.RESIDENTIAL, 500);
+
+        // Then
+        assertThat(result).hasSize(1);
+        assertEquals("Installation 1", result.get(0).getName());
+        assertEquals(2.0, result.get(0).getTodayGenerationKWh(), 0.0001);
+        assertEquals(2500.0, result.get(0).getCurrentPowerGenerationWatts());
+        assertEquals(0.5, result.get(0).getUtilizationRate(), 0.0001);
+        assertEquals(200.0, result.get(0).getEfficiencyPercentage(), 0.0001);
     }
 
     @Test
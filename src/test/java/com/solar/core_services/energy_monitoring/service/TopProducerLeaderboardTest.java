@@ -0,0 +1,191 @@
+package com.solar.core_services.energy_monitoring.service;
+
+import com.solar.core_services.energy_monitoring.dto.TopProducerRanking;
+import com.solar.core_services.energy_monitoring.model.EnergyData;
+import com.solar.core_services.energy_monitoring.model.SolarInstallation;
+import com.solar.core_services.energy_monitoring.repository.EnergyDataRepository;
+import com.solar.core_services.energy_monitoring.repository.InstallationEnergyTotals;
+import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for TopProducerLeaderboard
+ * Source file: src/main/java/com/solar/core_services/energy_monitoring/service/TopProducerLeaderboard.java
+ */
+@ExtendWith(MockitoExtension.class)
+public class TopProducerLeaderboardTest {
+
+    @Mock
+    private EnergyDataRepository energyDataRepository;
+
+    @Mock
+    private SolarInstallationRepository installationRepository;
+
+    private TopProducerLeaderboard leaderboard;
+    private LocalDate today;
+    private SolarInstallation house;
+    private SolarInstallation shop;
+    private SolarInstallation barn;
+
+    @BeforeEach
+    public void setup() {
+        leaderboard = new TopProducerLeaderboard(energyDataRepository, installationRepository);
+        ReflectionTestUtils.setField(leaderboard, "enabled", true);
+        ReflectionTestUtils.setField(leaderboard, "warmOnStartup", true);
+        today = LocalDate.now();
+
+        house = installation(1L, SolarInstallation.InstallationType.RESIDENTIAL, 5.0);
+        shop = installation(2L, SolarInstallation.InstallationType.COMMERCIAL, 20.0);
+        barn = installation(3L, SolarInstallation.InstallationType.RESIDENTIAL, 10.0);
+
+        when(installationRepository.findByStatusOrderByIdAsc(SolarInstallation.InstallationStatus.ACTIVE, Limit.unlimited()))
+                .thenReturn(List.of(house, shop, barn));
+        when(energyDataRepository.findTopGenerators(eq(SolarInstallation.InstallationStatus.ACTIVE),
+                any(LocalDateTime.class), any(LocalDateTime.class), eq(Limit.unlimited())))
+                .thenReturn(List.of(
+                        new InstallationEnergyTotals(2L, 4500.0, 3000.0),
+                        new InstallationEnergyTotals(1L, 4000.0, 1000.0)));
+        when(energyDataRepository.findLatestByInstallationStatus("ACTIVE", 1))
+                .thenReturn(List.of(reading(shop, 8, 4000.0), reading(house, 8, 2500.0)));
+    }
+
+    @Test
+    public void testTop_LoadsOnceAndRanksInstallationsWithReadingsToday() {
+        // When
+        leaderboard.warmUp();
+        List<TopProducerLeaderboard.Standing> byGeneration = leaderboard.top(TopProducerRanking.GENERATION, null, 10);
+        List<TopProducerLeaderboard.Standing> byUtilization = leaderboard.top(TopProducerRanking.UTILIZATION, null, 10);
+        List<TopProducerLeaderboard.Standing> byEfficiency = leaderboard.top(TopProducerRanking.EFFICIENCY, null, 10);
+
+        // Then the barn has no reading today, so it is not ranked
+        assertThat(byGeneration).extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(2L, 1L);
+        assertThat(byUtilization).extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(1L, 2L);
+        assertThat(byEfficiency).extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(1L, 2L);
+        assertEquals(0.5, byUtilization.get(0).utilization());
+        assertEquals(400.0, byEfficiency.get(0).efficiency());
+        verify(installationRepository, times(1))
+                .findByStatusOrderByIdAsc(SolarInstallation.InstallationStatus.ACTIVE, Limit.unlimited());
+    }
+
+    @Test
+    public void testTop_LimitsAndFiltersByType() {
+        // Given
+        leaderboard.warmUp();
+
+        // When
+        List<TopProducerLeaderboard.Standing> first = leaderboard.top(TopProducerRanking.GENERATION, null, 1);
+        List<TopProducerLeaderboard.Standing> residential =
+                leaderboard.top(TopProducerRanking.GENERATION, SolarInstallation.InstallationType.RESIDENTIAL, 10);
+
+        // Then
+        assertThat(first).extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(2L);
+        assertThat(residential).extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(1L);
+    }
+
+    @Test
+    public void testRecord_ReordersTheRanking() {
+        // Given
+        leaderboard.warmUp();
+
+        // When the barn reports for the first time today and the house overtakes the shop
+        leaderboard.record(3L, today.atTime(9, 0), 1000.0, 500.0);
+        leaderboard.record(1L, today.atTime(8, 15), 6000.0, 500.0);
+
+        // Then the house adds a quarter of an hour at an average of 4250 W; the barn has nothing to integrate from
+        List<TopProducerLeaderboard.Standing> top = leaderboard.top(TopProducerRanking.GENERATION, null, 10);
+        assertThat(top).extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(1L, 2L, 3L);
+        assertEquals(5062.5, top.get(0).todayGeneration(), 1e-9);
+        assertEquals(6000.0, top.get(0).currentGenerationWatts());
+        assertEquals(0.0, top.get(2).todayGeneration());
+        assertThat(leaderboard.top(TopProducerRanking.GENERATION, SolarInstallation.InstallationType.RESIDENTIAL, 10))
+                .extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    public void testRecord_SkipsReadingsOfOtherDaysAndUnknownInstallations() {
+        // Given
+        leaderboard.warmUp();
+
+        // When
+        leaderboard.record(1L, today.minusDays(1).atTime(23, 59), 50000.0, 0.0);
+        leaderboard.record(99L, today.atTime(9, 0), 50000.0, 0.0);
+
+        // Then
+        List<TopProducerLeaderboard.Standing> top = leaderboard.top(TopProducerRanking.GENERATION, null, 10);
+        assertThat(top).extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(2L, 1L);
+        assertEquals(4000.0, top.get(1).todayGeneration());
+    }
+
+    @Test
+    public void testRollOver_StartsTheDayWithAnEmptyRanking() {
+        // Given
+        leaderboard.warmUp();
+        LocalDate tomorrow = today.plusDays(1);
+
+        // When
+        leaderboard.rollOver(tomorrow);
+        leaderboard.record(3L, tomorrow.atTime(7, 0), 1500.0, 100.0, tomorrow);
+        leaderboard.record(3L, tomorrow.atTime(7, 10), 1500.0, 100.0, tomorrow);
+
+        // Then only the barn has reported on the new day
+        TopProducerLeaderboard.Board board =
+                (TopProducerLeaderboard.Board) ReflectionTestUtils.getField(leaderboard, "board");
+        List<TopProducerLeaderboard.Standing> top = board.top(TopProducerRanking.GENERATION, null, 10);
+        assertThat(top).extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(3L);
+        assertEquals(250.0, top.get(0).todayGeneration(), 1e-9);
+    }
+
+    @Test
+    public void testTrack_DropsInstallationsThatAreNoLongerActive() {
+        // Given
+        leaderboard.warmUp();
+        shop.setStatus(SolarInstallation.InstallationStatus.SUSPENDED);
+
+        // When
+        leaderboard.track(shop);
+
+        // Then
+        assertThat(leaderboard.top(TopProducerRanking.GENERATION, null, 10))
+                .extracting(TopProducerLeaderboard.Standing::installationId).containsExactly(1L);
+        assertTrue(leaderboard.top(TopProducerRanking.GENERATION, SolarInstallation.InstallationType.COMMERCIAL, 10)
+                .isEmpty());
+    }
+
+    private SolarInstallation installation(Long id, SolarInstallation.InstallationType type, double capacityKW) {
+        SolarInstallation installation = new SolarInstallation();
+        installation.setId(id);
+        installation.setName("Installation " + id);
+        installation.setType(type);
+        installation.setInstalledCapacityKW(capacityKW);
+        installation.setStatus(SolarInstallation.InstallationStatus.ACTIVE);
+        return installation;
+    }
+
+    private EnergyData reading(SolarInstallation installation, int hour, double generation) {
+        EnergyData reading = new EnergyData();
+        reading.setInstallation(installation);
+        reading.setTimestamp(today.atTime(hour, 0));
+        reading.setPowerGenerationWatts(generation);
+        reading.setPowerConsumptionWatts(generation / 2);
+        return reading;
+    }
+}
@@ -3,6 +3,7 @@ package com.solar.core_services.payment_compliance.service;
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.user_management.model.User;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
 import com.solar.core_services.payment_compliance.dto.MakePaymentRequest;
 import com.solar.core_services.payment_compliance.dto.PaymentDTO;
 import com.solar.core_services.payment_compliance.dto.PaymentDashboardDTO;
@@ -77,6 +78,9 @@ public class PaymentServiceTest {
     @Mock
     private GracePeriodConfigService gracePeriodConfigService;
 
+    @Mock
+    private SolarInstallationCache installationCache;
+
     @InjectMocks
     private PaymentServiceImpl paymentService;
 
@@ -274,6 +278,7 @@ public class PaymentServiceTest {
         verify(paymentRepository, times(2)).save(any(Payment.class));
         // With our fix, expect only 1 publishPaymentReceived call (for suspended installations)
         verify(paymentEventPublisher, times(1)).publishPaymentReceived(any(Payment.class));
+        verify(installationCache, times(1)).invalidate(testInstallation.getId());
     }
 
     @Test
@@ -2,6 +2,7 @@ package com.solar.core_services.tampering_detection.service;
 
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
 import com.solar.core_services.tampering_detection.dto.AlertConfigDTO;
 import com.solar.core_services.tampering_detection.dto.AlertConfigUpdateDTO;
 import com.solar.core_services.tampering_detection.model.AlertConfig;
@@ -45,6 +46,9 @@ public class AlertConfigServiceTest {
     @Mock
     private SecurityLogService securityLogService;
 
+    @Mock
+    private SolarInstallationCache installationCache;
+
     @InjectMocks
     private AlertConfigServiceImpl alertConfigService;
 
@@ -101,7 +105,7 @@ public class AlertConfigServiceTest {
     @DisplayName("Should get alert config by installation ID")
     void shouldGetAlertConfigByInstallationId() {
         // Arrange
-        when(installationRepository.findById(installationId)).thenReturn(Optional.of(testInstallation));
+        when(installationCache.reference(installationId)).thenReturn(testInstallation);
         when(alertConfigRepository.findByInstallation(testInstallation)).thenReturn(Optional.of(testAlertConfig));
         
         // Act
@@ -114,7 +118,7 @@ public class AlertConfigServiceTest {
         assertThat(result.getAlertLevel()).isEqualTo(AlertLevel.MEDIUM.name());
         assertThat(result.isAutoResponseEnabled()).isTrue();
         
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).reference(installationId);
         verify(alertConfigRepository).findByInstallation(testInstallation);
     }
 
@@ -122,14 +126,15 @@ public class AlertConfigServiceTest {
     @DisplayName("Should throw exception when getting alert config for non-existent installation")
     void shouldThrowExceptionWhenGettingAlertConfigForNonExistentInstallation() {
         // Arrange
-        when(installationRepository.findById(installationId)).thenReturn(Optional.empty());
+        when(installationCache.reference(installationId))
+                .thenThrow(new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
         
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
             alertConfigService.getAlertConfigByInstallationId(installationId);
         });
         
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).reference(installationId);
         verifyNoInteractions(alertConfigRepository);
     }
 
@@ -259,7 +264,7 @@ public class AlertConfigServiceTest {
     @DisplayName("Should check if auto response is enabled")
     void shouldCheckIfAutoResponseIsEnabled() {
         // Arrange
-        when(installationRepository.findById(installationId)).thenReturn(Optional.of(testInstallation));
+        when(installationCache.reference(installationId)).thenReturn(testInstallation);
         when(alertConfigRepository.findByInstallation(testInstallation)).thenReturn(Optional.of(testAlertConfig));
         
         // Act
@@ -268,7 +273,7 @@ public class AlertConfigServiceTest {
         // Assert
         assertThat(result).isTrue();
         
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).reference(installationId);
         verify(alertConfigRepository).findByInstallation(testInstallation);
     }
 
@@ -276,7 +281,7 @@ public class AlertConfigServiceTest {
     @DisplayName("Should get threshold for event type")
     void shouldGetThresholdForEventType() {
         // Arrange
-        when(installationRepository.findById(installationId)).thenReturn(Optional.of(testInstallation));
+        when(installationCache.reference(installationId)).thenReturn(testInstallation);
         when(alertConfigRepository.findByInstallation(testInstallation)).thenReturn(Optional.of(testAlertConfig));
         
         // Act
@@ -285,7 +290,7 @@ public class AlertConfigServiceTest {
         // Assert
         assertThat(result).isEqualTo(0.75);
         
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).reference(installationId);
         verify(alertConfigRepository).findByInstallation(testInstallation);
     }
 
@@ -293,7 +298,7 @@ public class AlertConfigServiceTest {
     @DisplayName("Should get sampling rate seconds")
     void shouldGetSamplingRateSeconds() {
         // Arrange
-        when(installationRepository.findById(installationId)).thenReturn(Optional.of(testInstallation));
+        when(installationCache.reference(installationId)).thenReturn(testInstallation);
         when(alertConfigRepository.findByInstallation(testInstallation)).thenReturn(Optional.of(testAlertConfig));
         
         // Act
@@ -302,7 +307,7 @@ public class AlertConfigServiceTest {
         // Assert
         assertThat(result).isEqualTo(60);
         
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).reference(installationId);
         verify(alertConfigRepository).findByInstallation(testInstallation);
     }
 } 
\ No newline at end of file
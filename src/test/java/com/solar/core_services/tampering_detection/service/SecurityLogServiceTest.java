@@ -2,6 +2,7 @@ package com.solar.core_services.tampering_detection.service;
 
 import com.solar.core_services.energy_monitoring.model.SolarInstallation;
 import com.solar.core_services.energy_monitoring.repository.SolarInstallationRepository;
+import com.solar.core_services.energy_monitoring.service.SolarInstallationCache;
 import com.solar.core_services.tampering_detection.dto.SecurityLogDTO;
 import com.solar.core_services.tampering_detection.model.SecurityLog;
 import com.solar.core_services.tampering_detection.model.SecurityLog.ActivityType;
@@ -43,6 +44,9 @@ public class SecurityLogServiceTest {
     @Mock
     private SolarInstallationRepository installationRepository;
 
+    @Mock
+    private SolarInstallationCache installationCache;
+
     @InjectMocks
     private SecurityLogServiceImpl securityLogService;
 
@@ -85,7 +89,8 @@ public class SecurityLogServiceTest {
         String location = "Server Room";
         String userId = "system";
         
-        when(installationRepository.findById(installationId)).thenReturn(Optional.of(testInstallation));
+        when(installationCache.require(installationId)).thenReturn(SolarInstallationCache.Metadata.of(testInstallation));
+        when(installationRepository.getReferenceById(installationId)).thenReturn(testInstallation);
         when(securityLogRepository.save(any(SecurityLog.class))).thenReturn(testLog);
         
         // Act
@@ -98,8 +103,9 @@ public class SecurityLogServiceTest {
         assertThat(result.getInstallationId()).isEqualTo(installationId);
         assertThat(result.getActivityType()).isEqualTo(activityType.name());
         assertThat(result.getDetails()).isEqualTo(details);
+        assertThat(result.getInstallationLocation()).isEqualTo("Test Location");
         
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).require(installationId);
         verify(securityLogRepository).save(any(SecurityLog.class));
     }
 
@@ -113,7 +119,8 @@ public class SecurityLogServiceTest {
         String location = "Server Room";
         String userId = "system";
         
-        when(installationRepository.findById(installationId)).thenReturn(Optional.empty());
+        when(installationCache.require(installationId))
+                .thenThrow(new ResourceNotFoundException("Solar installation not found with ID: " + installationId));
         
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
@@ -121,7 +128,7 @@ public class SecurityLogServiceTest {
                     installationId, activityType, details, ipAddress, location, userId);
         });
         
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).require(installationId);
         verifyNoInteractions(securityLogRepository);
     }
 
@@ -300,14 +307,15 @@ public class SecurityLogServiceTest {
         String details = "Tamper event created: Physical movement detected";
         String ipAddress = "192.168.1.100";
         
-        when(installationRepository.findById(installationId)).thenReturn(Optional.of(testInstallation));
+        when(installationCache.require(installationId)).thenReturn(SolarInstallationCache.Metadata.of(testInstallation));
+        when(installationRepository.getReferenceById(installationId)).thenReturn(testInstallation);
         when(securityLogRepository.save(any(SecurityLog.class))).thenReturn(testLog);
         
         // Act
         securityLogService.logTamperEventCreated(installationId, tamperEventId, details, ipAddress);
         
         // Assert
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).require(installationId);
         verify(securityLogRepository).save(any(SecurityLog.class));
     }
 
@@ -319,14 +327,15 @@ public class SecurityLogServiceTest {
         String details = "Tamper event status changed to ACKNOWLEDGED";
         String userId = "admin";
         
-        when(installationRepository.findById(installationId)).thenReturn(Optional.of(testInstallation));
+        when(installationCache.require(installationId)).thenReturn(SolarInstallationCache.Metadata.of(testInstallation));
+        when(installationRepository.getReferenceById(installationId)).thenReturn(testInstallation);
         when(securityLogRepository.save(any(SecurityLog.class))).thenReturn(testLog);
         
         // Act
         securityLogService.logTamperEventStatusChange(installationId, tamperEventId, details, userId);
         
         // Assert
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).require(installationId);
         verify(securityLogRepository).save(any(SecurityLog.class));
     }
 
@@ -337,14 +346,15 @@ public class SecurityLogServiceTest {
         String details = "Alert sensitivity threshold updated";
         String userId = "admin";
         
-        when(installationRepository.findById(installationId)).thenReturn(Optional.of(testInstallation));
+        when(installationCache.require(installationId)).thenReturn(SolarInstallationCache.Metadata.of(testInstallation));
+        when(installationRepository.getReferenceById(installationId)).thenReturn(testInstallation);
         when(securityLogRepository.save(any(SecurityLog.class))).thenReturn(testLog);
         
         // Act
         securityLogService.logConfigurationChange(installationId, details, userId);
         
         // Assert
-        verify(installationRepository).findById(installationId);
+        verify(installationCache).require(installationId);
         verify(securityLogRepository).save(any(SecurityLog.class));
     }
 } 
\ No newline at end of file